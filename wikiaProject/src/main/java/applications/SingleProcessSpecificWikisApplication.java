@@ -3,8 +3,11 @@ package applications;
 import applications.extraction.Extractor;
 import applications.extractionPostprocessing.controller.MappingExecutor;
 import applications.extractionPostprocessing.controller.RedirectProcessor;
+import applications.extractionPostprocessing.controller.classmapper.CachingClassMapper;
 import applications.extractionPostprocessing.controller.classmapper.ClassMapper_4;
+import applications.extractionPostprocessing.controller.propertymapper.CachingPropertyMapper;
 import applications.extractionPostprocessing.controller.propertymapper.PropertyMapper_3;
+import applications.extractionPostprocessing.controller.resourcemapper.CachingResourceMapper;
 import applications.extractionPostprocessing.controller.resourcemapper.ResourceMapper_4_1;
 import applications.wikiaDumpDownload.controller.WikiaDumpDownloadThreadImpl;
 
@@ -41,7 +44,9 @@ public class SingleProcessSpecificWikisApplication {
         // create mappings
         RedirectProcessor redirectProcessor = new RedirectProcessor();
         redirectProcessor.executeRedirectsForAllWikis();
-        MappingExecutor mappingExecutor = new MappingExecutor(new ResourceMapper_4_1(), new PropertyMapper_3(), new ClassMapper_4());
+        MappingExecutor mappingExecutor = new MappingExecutor(CachingResourceMapper.withConfiguredCache(new ResourceMapper_4_1()),
+                CachingPropertyMapper.withConfiguredCache(new PropertyMapper_3()),
+                CachingClassMapper.withConfiguredCache(new ClassMapper_4()));
         mappingExecutor.createMappingFilesForAllWikis();
 
     }
@@ -1,5 +1,7 @@
 package applications.extraction;
 
+import metricsService.Metrics;
+
 /**
  *
  * This class will perform the extraction of the previously downloaded wikis.
@@ -14,6 +16,9 @@ public class ExtractionApplication {
 
     public static void main(String[] args) {
 
+        // expose the progress via JMX and /<root>/logs/metrics.json
+        Metrics.startReporting();
+
         Extractor extractor = new Extractor();
         //extract all wikis
         extractor.extractAllWikis();
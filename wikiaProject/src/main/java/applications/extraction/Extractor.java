@@ -5,11 +5,18 @@ import applications.extraction.model.WikiaWikiProperties;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.text.SimpleDateFormat;
 import loggingService.MessageLogger;
+import metricsService.Counter;
+import metricsService.LatencyHistogram;
+import metricsService.Metrics;
 import org.apache.commons.exec.CommandLine;
 import org.apache.commons.exec.DefaultExecutor;
 import org.apache.commons.exec.Executor;
@@ -33,6 +40,13 @@ public class Extractor {
     private static final String MODULE = "Extraction";
     private static final String CLASS = Extractor.class.getName();
 
+    // metrics
+    private static final LatencyHistogram extractionLatency = Metrics.histogram("extraction_wiki_latency");
+    private static final Counter extractedWikis = Metrics.counter("extraction_wikis");
+    private static final Counter failedWikis = Metrics.counter("extraction_wikis_failed");
+    private static final Counter inputBytes = Metrics.counter("extraction_input_bytes");
+    private static final Counter outputBytes = Metrics.counter("extraction_output_bytes");
+
 
     public Extractor() {
 
@@ -129,26 +143,32 @@ public class Extractor {
 
             logger.logMessage(Level.DEBUG,MODULE,CLASS,"Total Size: " + (wikiFile.length() / 1024) + " KB");
 
-            FileReader fr = new FileReader(wikiFile);
+            // the siteinfo sniffed while the dump was downloaded (streamingDumpDownload) spares reading the dump
+            SiteinfoSniffer siteinfo = SiteinfoSniffer.load(wikiFile);
 
-            BufferedReader br = new BufferedReader(fr);
+            if (siteinfo == null) {
+                FileReader fr = new FileReader(wikiFile);
 
-            while ((line = br.readLine()) != null && lineNumber <= 20) {
-                fileContents += line;
-                lineNumber++;
-            }
+                BufferedReader br = new BufferedReader(fr);
 
-            if (fileContents.length() > 0) {
+                while ((line = br.readLine()) != null && lineNumber <= 20) {
+                    fileContents += line;
+                    lineNumber++;
+                }
+                br.close();
+                fr.close();
+
+                if (fileContents.length() > 0) {
+                    siteinfo = new SiteinfoSniffer();
+                    siteinfo.parse(fileContents);
+                }
+            }
 
-                languageCode = fileContents.substring(fileContents.indexOf("xml:lang=") + 10, fileContents.indexOf(">", fileContents.indexOf("xml:lang=") + 10) - 1);
+            if (siteinfo != null) {
 
+                languageCode = siteinfo.getLanguageCode();
 
-                if ((fileContents.indexOf("<sitename>") + 10) <=
-                        fileContents.indexOf("</sitename>", fileContents.indexOf("<sitename>") + 10) - 1) {
-                    wikiName = (fileContents.substring(fileContents.indexOf("<sitename>") + 10, fileContents.indexOf("</sitename>", fileContents.indexOf("<sitename>") + 10))).trim().replace(" ", "_");
-                } else {
-                    wikiName = "";
-                }
+                wikiName = siteinfo.getSiteName();
 
                 wikiSize = (wikiFile.length() / 1024);
 
@@ -161,8 +181,6 @@ public class Extractor {
                 wikiProperties = new WikiaWikiProperties(wikiName, languageCode, wikiPath, lastModifiedDate, wikiSize, wikiBaseURL);
 
             }
-            br.close();
-            fr.close();
 
 
         } catch (Exception ex) {
@@ -189,15 +207,11 @@ public class Extractor {
                 ResourceBundle.getBundle("config").getString("pathToRootDirectory")
                         + "//downloadedWikis//decompressed//";
 
-        try {
-            File wikisFilesFolder = new File(wikisFilePath);
-
-            //get list of wikis in a folder
-            File[] wikiFiles = wikisFilesFolder.listFiles();
-
-            logger.logMessage(Level.INFO,MODULE,CLASS,"Total Files: " + wikiFiles.length);
+        //stream the wikis of the folder (it may hold hundreds of thousands of files)
+        try (DirectoryStream<Path> wikiFiles = Files.newDirectoryStream(new File(wikisFilePath).toPath())) {
 
-            for (File wikiFile : wikiFiles) {
+            for (Path wikiFilePath : wikiFiles) {
+                File wikiFile = wikiFilePath.toFile();
 
                 if (wikiFile.isFile() && wikiFile.getName().endsWith(".xml")) {
 
@@ -208,12 +222,14 @@ public class Extractor {
                         wikiProperties.put(properties.getWikiPath().substring(properties.getWikiPath().lastIndexOf("/", properties.getWikiPath().length())), properties);
                     }
 
-                } else {
+                } else if (!wikiFile.getName().endsWith(SiteinfoSniffer.SITEINFO_FILE_SUFFIX)) {
                     logger.logMessage(Level.FATAL,MODULE,CLASS,"File is not valid XML : " + wikiFile.getName());
                     break;
                 }
             }
 
+            logger.logMessage(Level.INFO,MODULE,CLASS,"Total Files: " + wikiProperties.size());
+
         } catch (Exception ex) {
             logger.logMessage(Level.FATAL,MODULE,CLASS,ex.getMessage());
         }
@@ -274,8 +290,14 @@ public class Extractor {
                     if (! dateDirectory.exists())
                         dateDirectory.mkdir();
 
-                    copyFileFromOneDirectorytoAnotherDirectory(wikiFilePath, downloadDirectoryForExtraction + "/" + languageCode + "wiki_" + "/" + index + "/" +
-                            languageCode + "wiki-" + currentDate + "-" + wikiSourceFileName);
+                    String stagedFilePath = downloadDirectoryForExtraction + "/" + languageCode + "wiki_" + "/" + index + "/" +
+                            languageCode + "wiki-" + currentDate + "-" + wikiSourceFileName;
+                    if (StreamingDumpTee.isEnabled()) {
+                        // the dump was written once during the download; it is staged without copying it
+                        linkOrCopyFile(new File(wikiFilePath), new File(stagedFilePath));
+                    } else {
+                        copyFileFromOneDirectorytoAnotherDirectory(wikiFilePath, stagedFilePath);
+                    }
                     createWikiPropertiesFile(downloadDirectoryForExtraction + "/" + languageCode + "wiki_" + "/" + index + "/", wikiProperties);
                     index++;
                 }
@@ -380,6 +402,7 @@ public class Extractor {
 
                     File renamedLanguageCodeFolder = new File(languageCodeFolder.getAbsolutePath().substring(0, languageCodeFolder.getAbsolutePath().length() - 1));
                     languageCodeFolder.renameTo(renamedLanguageCodeFolder);
+                    // listed up front (not streamed) because the folders are renamed while they are extracted
                     File[] dateFolders = renamedLanguageCodeFolder.listFiles();
 
                     for (File wikiDirectory : dateFolders) {
@@ -392,6 +415,7 @@ public class Extractor {
 
                             for (File fileForExtraction : wikiFiles) {
                                 if (fileForExtraction.getName().endsWith(".xml")) {
+                                    inputBytes.add(fileForExtraction.length());
 
                                     date = fileForExtraction.getName().substring(fileForExtraction.getName().indexOf("-") + 1,
                                             fileForExtraction.getName().indexOf("-", fileForExtraction.getName().indexOf("-") + 1));
@@ -416,16 +440,20 @@ public class Extractor {
                             File renamedFolder = new File(wikiDirectory.getParent() + "/" + date);
                             wikiDirectory.renameTo(renamedFolder);
 
+                            long startTime = System.nanoTime();
                             try {
                                 //call DBpedia extractor
                                 cmdLine = CommandLine.parse(batchCommand);
                                 executor = new DefaultExecutor();
                                 executor.setExitValue(0);
                                 int exitValue = executor.execute(cmdLine);
+                                extractedWikis.increment();
                             } catch (Exception ex) {
+                                failedWikis.increment();
                                 logger.logMessage(Level.ERROR,MODULE,CLASS,"DBpedia extraction framework failed for this wiki!");
                                 ex.printStackTrace();
                             }
+                            extractionLatency.recordNanosSince(startTime);
 
                             //rename folder to orignal name
                             renamedFolder.renameTo(new File(folderName));
@@ -442,8 +470,13 @@ public class Extractor {
     }
 
     /**
-     * This function extracts compressed files obtained from DBpedia extractor
-     * and moves to separate directory for mapping and evaluation
+     * This function moves the files obtained from DBpedia extractor
+     * to separate directory for mapping and evaluation.
+     * Each wiki gets a directory in the sharded layout of postProcessedWikis ({@link WikiDirectoryLayout}).
+     * The bz2 compressed files of the publish output profile are hard-linked if possible, otherwise copied; they
+     * stay compressed: the postprocessing reads them as streams and writes the uncompressed, rewritten files, so no
+     * uncompressed copy is written here. The uncompressed files of the intermediate output profile are only read by
+     * the postprocessing, so they are moved instead of leaving a second copy in dbPediaExtractionFormat.
      */
     public void moveExtractFilesforEvaluation() {
 
@@ -453,48 +486,47 @@ public class Extractor {
         String postProcessedFilesDirectoryPath =
                 pathToRootDirectory + "//postProcessedWikis";
 
-        ExtractionBz2 bz2Extractor = new ExtractionBz2();
         String wikiFolderName = "";
 
-        try {
+        WikiDirectoryLayout postProcessedWikis = WikiDirectoryLayout.open(new File(postProcessedFilesDirectoryPath));
 
-            File extractedWikiFolder = new File(downloadDirectoryForExtraction);
+        //the folders are streamed: a language folder holds one folder per wiki
+        try (DirectoryStream<Path> languageCodeFolders = Files.newDirectoryStream(new File(downloadDirectoryForExtraction).toPath())) {
 
-            //get list of wikis in a folder
-            File[] listOfFolders = extractedWikiFolder.listFiles();
-
-            for (File languageCodeFolder : listOfFolders) {
+            for (Path languageCodeFolderPath : languageCodeFolders) {
+                File languageCodeFolder = languageCodeFolderPath.toFile();
                 if (languageCodeFolder.isDirectory() && !languageCodeFolder.getName().toLowerCase().equals("commonswiki")) {
 
-                    File[] dateFolders = languageCodeFolder.listFiles();
+                    try (DirectoryStream<Path> dateFolders = Files.newDirectoryStream(languageCodeFolderPath)) {
 
-                    for (File dateFolder : dateFolders) {
+                        for (Path dateFolderPath : dateFolders) {
+                            File dateFolder = dateFolderPath.toFile();
 
-                        if (dateFolder.isDirectory()) {
+                            if (dateFolder.isDirectory()) {
 
-                            WikiaWikiProperties properties = readWikiPropertiesFile(dateFolder.getAbsolutePath());
+                                WikiaWikiProperties properties = readWikiPropertiesFile(dateFolder.getAbsolutePath());
 
-                            if (properties.getWikiBaseURL().equals("")) {
-                                wikiFolderName = properties.getWikiName();
-                            } else {
-                                // onlx keep name (xxx) of Url: http://xxx.wikia.com
-                                wikiFolderName = properties.getWikiBaseURL().substring(7, properties.getWikiBaseURL().length() - 10);
-                            }
-
-                            File extractedFilesFolder = new File(postProcessedFilesDirectoryPath + "//" + wikiFolderName);
+                                if (properties.getWikiBaseURL().equals("")) {
+                                    wikiFolderName = properties.getWikiName();
+                                } else {
+                                    // onlx keep name (xxx) of Url: http://xxx.wikia.com
+                                    wikiFolderName = properties.getWikiBaseURL().substring(7, properties.getWikiBaseURL().length() - 10);
+                                }
 
-                            if (! extractedFilesFolder.exists()) {
-                                extractedFilesFolder.mkdirs();
-                            }
+                                File extractedFilesFolder = postProcessedWikis.createWikiDirectory(wikiFolderName);
 
-                            File[] extractedFiles = dateFolder.listFiles();
+                                File[] extractedFiles = dateFolder.listFiles();
 
-                            logger.logMessage(Level.INFO,MODULE,CLASS,"Moving files of " + wikiFolderName);
+                                logger.logMessage(Level.INFO,MODULE,CLASS,"Moving files of " + wikiFolderName);
 
-                            for (File wikiFile : extractedFiles) {
-                                if (wikiFile.getName().endsWith(".bz2")) {
-                                    bz2Extractor.extract(wikiFile.getAbsolutePath(),
-                                            postProcessedFilesDirectoryPath + "//" + wikiFolderName);
+                                for (File wikiFile : extractedFiles) {
+                                    if (wikiFile.getName().endsWith(".bz2")) {
+                                        outputBytes.add(wikiFile.length());
+                                        linkOrCopyFile(wikiFile, new File(extractedFilesFolder, wikiFile.getName()));
+                                    } else if (wikiFile.getName().endsWith(".ttl")) {
+                                        outputBytes.add(wikiFile.length());
+                                        moveFile(wikiFile, new File(extractedFilesFolder, wikiFile.getName()));
+                                    }
                                 }
                             }
                         }
@@ -507,6 +539,46 @@ public class Extractor {
     }
 
 
+    /**
+     * Hard-links a file into another directory or copies it if links are not supported. Existing files are kept
+     * (like the decompression did).
+     *
+     * @param source The file.
+     * @param target The link or copy to be created.
+     */
+    private static void linkOrCopyFile(File source, File target) {
+        if (target.exists() || new File(target.getParentFile(), NTriplesSink.Compression.getUncompressedFileName(target)).exists()) {
+            return;
+        }
+        try {
+            Files.createLink(target.toPath(), source.toPath());
+        } catch (IOException | UnsupportedOperationException linkException) {
+            try {
+                Files.copy(source.toPath(), target.toPath());
+            } catch (IOException ioe) {
+                logger.logMessage(Level.ERROR,MODULE,CLASS,"Could not copy " + source.getAbsolutePath() + ": " + ioe.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Moves a file into another directory. Existing files are kept (like {@link #linkOrCopyFile(File, File)}).
+     *
+     * @param source The file.
+     * @param target The file to be created.
+     */
+    private static void moveFile(File source, File target) {
+        if (target.exists()) {
+            return;
+        }
+        try {
+            Files.move(source.toPath(), target.toPath());
+        } catch (IOException ioe) {
+            logger.logMessage(Level.ERROR,MODULE,CLASS,"Could not move " + source.getAbsolutePath() + ": " + ioe.getMessage());
+        }
+    }
+
+
     /**
      * This function creates a properties file for a wiki so that it can be used
      * to create folders with proper names for evaluation
@@ -1,6 +1,8 @@
 package applications.extractionPostprocessing;
 
 import applications.extractionPostprocessing.controller.MappingEvaluator;
+import applications.extractionPostprocessing.controller.NullMappingCompactor;
+import metricsService.Metrics;
 
 
 /**
@@ -11,8 +13,14 @@ public class EvaluationApplication {
 
     public static void main(String[] args) {
 
+        // expose the progress via JMX and /<root>/logs/metrics.json
+        Metrics.startReporting();
+
         // evaluate manual mappings with created mappings for all wikis in root folder
         MappingEvaluator.evaluateAllMappings();
 
+        // the null mappings are only required for the evaluation
+        NullMappingCompactor.deleteNullMappingsOfAllWikis();
+
     }
 }
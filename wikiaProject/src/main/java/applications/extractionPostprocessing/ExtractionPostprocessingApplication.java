@@ -1,9 +1,18 @@
 package applications.extractionPostprocessing;
 
 import applications.extractionPostprocessing.controller.*;
+import applications.extractionPostprocessing.controller.classmapper.CachingClassMapper;
 import applications.extractionPostprocessing.controller.classmapper.ClassMapper_4;
+import applications.extractionPostprocessing.controller.propertymapper.CachingPropertyMapper;
 import applications.extractionPostprocessing.controller.propertymapper.PropertyMapper_3;
+import applications.extractionPostprocessing.controller.resourcemapper.CachingResourceMapper;
+import applications.extractionPostprocessing.controller.resourcemapper.ResourceMapper;
 import applications.extractionPostprocessing.controller.resourcemapper.ResourceMapper_4_1;
+import applications.extractionPostprocessing.controller.resourcemapper.ResourceMapper_4_2;
+import metricsService.Metrics;
+
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
 
 /**
  * This application will postprocess extracted wikia wikis.
@@ -11,6 +20,8 @@ import applications.extractionPostprocessing.controller.resourcemapper.ResourceM
  *
  * Run this application with at least 10Gb of RAM.
  * -Xmx10G
+ * (unless sortedMergeResourceMapping is set in config.properties, which maps the resources against a sorted index
+ * on disk instead of loading the DBpedia page ids and redirects into memory)
  *
  * In IntelliJ:
  * Run → Edit Configurations → VM options: <enter:> -Xmx10G
@@ -19,13 +30,34 @@ import applications.extractionPostprocessing.controller.resourcemapper.ResourceM
 public class ExtractionPostprocessingApplication {
 
     public static void main(String[] args) {
-        
+
+        // expose the progress via JMX and /<root>/logs/metrics.json
+        Metrics.startReporting();
+
         // create one mapping file for all wikis and replace domain
         RedirectProcessor redirectProcessor = new RedirectProcessor();
         redirectProcessor.executeRedirectsForAllWikis();
 
-        MappingExecutor mappingExecutor = new MappingExecutor(new ResourceMapper_4_1(), new PropertyMapper_3(), new ClassMapper_4());
+        // the caches are shared by all wikis, so entities that occur in many wikis are mapped only once
+        MappingExecutor mappingExecutor = new MappingExecutor(CachingResourceMapper.withConfiguredCache(getResourceMapper()),
+                CachingPropertyMapper.withConfiguredCache(new PropertyMapper_3()),
+                CachingClassMapper.withConfiguredCache(new ClassMapper_4()));
         mappingExecutor.createMappingFilesForAllWikis();
     }
 
+
+    /**
+     * @return The sorted-merge resource mapper if sortedMergeResourceMapping is set in config.properties, otherwise
+     * the hash-based resource mapper.
+     */
+    private static ResourceMapper getResourceMapper() {
+        boolean sortedMerge = false;
+        try {
+            sortedMerge = Boolean.parseBoolean(ResourceBundle.getBundle("config").getString("sortedMergeResourceMapping").trim());
+        } catch (MissingResourceException mre) {
+            // use default
+        }
+        return sortedMerge ? new ResourceMapper_4_2() : new ResourceMapper_4_1();
+    }
+
 }
@@ -0,0 +1,45 @@
+package applications.extractionPostprocessing;
+
+import applications.extractionPostprocessing.controller.MapperSweep;
+import applications.extractionPostprocessing.controller.classmapper.ClassMapper_4;
+import applications.extractionPostprocessing.controller.propertymapper.PropertyMapper_3;
+import applications.extractionPostprocessing.controller.resourcemapper.ResourceMapper_4_1;
+import applications.extractionPostprocessing.controller.resourcemapper.ResourceMapper_4_2;
+import applications.extractionPostprocessing.util.DBpediaResourceServiceOffline;
+
+/**
+ * This application compares the offline mappers on all wikis that have a gold standard.
+ * No mapping file is written; the comparison table is stored in statistics/evaluation/mapper_comparison.txt.
+ * It does not need to be executed for productive purposes.
+ *
+ * Run this application with at least 10Gb of RAM.
+ * -Xmx10G
+ */
+public class MapperSweepApplication {
+
+    // the deprecated mappers are compared on purpose: the sweep shows how the current mappers improve on them
+    // (they are referenced by their full names, as imports of deprecated classes cannot be suppressed)
+    @SuppressWarnings("deprecation")
+    public static void main(String[] args) {
+
+        // load the DBpedia reference data once before the mappers are timed
+        DBpediaResourceServiceOffline.getDBpediaResourceServiceOfflineObject().loadAllIfNecessary();
+
+        MapperSweep mapperSweep = new MapperSweep();
+
+        mapperSweep.addResourceMapper("ResourceMapper_1", new applications.extractionPostprocessing.controller.resourcemapper.ResourceMapper_1());
+        mapperSweep.addResourceMapper("ResourceMapper_2", new applications.extractionPostprocessing.controller.resourcemapper.ResourceMapper_2());
+        mapperSweep.addResourceMapper("ResourceMapper_3_1", new applications.extractionPostprocessing.controller.resourcemapper.ResourceMapper_3_1());
+        mapperSweep.addResourceMapper("ResourceMapper_4_1", new ResourceMapper_4_1());
+        mapperSweep.addResourceMapper("ResourceMapper_4_2", new ResourceMapper_4_2());
+
+        mapperSweep.addPropertyMapper("PropertyMapper_1", new applications.extractionPostprocessing.controller.propertymapper.PropertyMapper_1());
+        mapperSweep.addPropertyMapper("PropertyMapper_2", new applications.extractionPostprocessing.controller.propertymapper.PropertyMapper_2());
+        mapperSweep.addPropertyMapper("PropertyMapper_3", new PropertyMapper_3());
+
+        // ClassMapper_1 to ClassMapper_3 are known to produce incorrect output
+        mapperSweep.addClassMapper("ClassMapper_4", new ClassMapper_4());
+
+        mapperSweep.runSweep();
+    }
+}
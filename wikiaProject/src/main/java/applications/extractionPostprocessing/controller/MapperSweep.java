@@ -0,0 +1,260 @@
+package applications.extractionPostprocessing.controller;
+
+import applications.extractionPostprocessing.controller.MappingEvaluator.EvaluationObjectSingleWiki;
+import applications.extractionPostprocessing.controller.classmapper.ClassMapper;
+import applications.extractionPostprocessing.controller.propertymapper.PropertyMapper;
+import applications.extractionPostprocessing.controller.resourcemapper.ResourceMapper;
+import applications.extractionPostprocessing.model.EvaluationResultAllWikis;
+import applications.extractionPostprocessing.model.EvaluationResultSingleWiki;
+import applications.extractionPostprocessing.model.MapperSweepResult;
+import applications.extractionPostprocessing.model.WikiToMap;
+import applications.extractionPostprocessing.util.PostprocessingIOHandler;
+import loggingService.MessageLogger;
+import org.apache.log4j.Level;
+import utils.IOoperations;
+import utils.WikiDirectoryLayout;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.ResourceBundle;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compares several mapper variants on all wikis that have a gold standard (a file ending with evaluation.ttl).
+ * The wikis and gold standards are loaded only once; every registered mapper is then run in memory (no mapping files
+ * are written) and evaluated with the same measures as the {@link MappingEvaluator MappingEvaluator}.
+ * The mappers run in parallel, so they have to be thread-safe (see the READMEs of the mapper packages).
+ */
+public class MapperSweep {
+
+    private static MessageLogger logger = new MessageLogger();
+    private static final String MODULE = "ExtractionPostprocessing";
+    private static final String CLASS = MapperSweep.class.getName();
+
+    private ArrayList<MapperVariant> mapperVariants = new ArrayList<>();
+
+
+    /**
+     * Registers a resource mapper.
+     * @param name Name of the variant in the comparison table.
+     * @param resourceMapper The mapper.
+     */
+    public void addResourceMapper(String name, ResourceMapper resourceMapper) {
+        mapperVariants.add(new MapperVariant(name, EvaluationObjectSingleWiki.RESOURCES,
+                wiki -> resourceMapper.getResourceMappings(wiki.targetNamespace, wiki.wikiToMap.resourcesToMap)));
+    }
+
+    /**
+     * Registers a property mapper.
+     * @param name Name of the variant in the comparison table.
+     * @param propertyMapper The mapper.
+     */
+    public void addPropertyMapper(String name, PropertyMapper propertyMapper) {
+        mapperVariants.add(new MapperVariant(name, EvaluationObjectSingleWiki.PROPERTIES,
+                wiki -> propertyMapper.getPropertyMappings(wiki.targetNamespace, wiki.wikiToMap.propertiesToMap)));
+    }
+
+    /**
+     * Registers a class mapper.
+     * @param name Name of the variant in the comparison table.
+     * @param classMapper The mapper.
+     */
+    public void addClassMapper(String name, ClassMapper classMapper) {
+        mapperVariants.add(new MapperVariant(name, EvaluationObjectSingleWiki.CLASSES,
+                wiki -> classMapper.getClassMappings(wiki.targetNamespace, wiki.wikiToMap.classesToMap)));
+    }
+
+
+    /**
+     * Runs all registered mappers on the annotated wikis in the postProcessedWikis directory.
+     * The comparison table is logged and written to statistics/evaluation/mapper_comparison.txt.
+     * @return The results in the order in which the mappers were registered.
+     */
+    public ArrayList<MapperSweepResult> runSweep() {
+        String pathToRootDirectory = ResourceBundle.getBundle("config").getString("pathToRootDirectory");
+        File root = new File(pathToRootDirectory + "/postProcessedWikis");
+        if (!root.isDirectory()) {
+            logger.logMessage(Level.FATAL, MODULE, CLASS, "pathToPostprocessedWikis is not a directory!");
+            return new ArrayList<>();
+        }
+
+        ArrayList<MapperSweepResult> results = runSweep(loadAnnotatedWikis(root));
+
+        String comparisonTable = getComparisonTable(results);
+        logger.logMessage(Level.INFO, MODULE, CLASS, "\n" + comparisonTable);
+
+        IOoperations.createDirectory(pathToRootDirectory + "/statistics");
+        IOoperations.createDirectory(pathToRootDirectory + "/statistics/evaluation");
+        IOoperations.writeContentToFile(new File(pathToRootDirectory + "/statistics/evaluation/mapper_comparison.txt"), comparisonTable);
+
+        return results;
+    }
+
+
+    /**
+     * Runs all registered mappers in parallel on the given wikis.
+     * @param annotatedWikis The wikis with their gold standards.
+     * @return The results in the order in which the mappers were registered.
+     */
+    ArrayList<MapperSweepResult> runSweep(List<AnnotatedWiki> annotatedWikis) {
+        if (annotatedWikis.isEmpty()) {
+            logger.logMessage(Level.INFO, MODULE, CLASS, "No evaluation file was found. Make sure that there is at least one evaluation file within a wiki folder.");
+            return new ArrayList<>();
+        }
+        logger.logMessage(Level.INFO, MODULE, CLASS, "Running " + mapperVariants.size() + " mappers on " + annotatedWikis.size() + " annotated wikis.");
+
+        return mapperVariants.parallelStream()
+                .map(mapperVariant -> evaluateMapper(mapperVariant, annotatedWikis))
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+
+    /**
+     * Runs one mapper on all wikis and evaluates its mappings against the gold standards.
+     * @param mapperVariant The mapper.
+     * @param annotatedWikis The wikis with their gold standards.
+     * @return The evaluation result.
+     */
+    private static MapperSweepResult evaluateMapper(MapperVariant mapperVariant, List<AnnotatedWiki> annotatedWikis) {
+        long startTime = System.nanoTime();
+        ArrayList<EvaluationResultSingleWiki> evaluationResultSingleWikis = new ArrayList<>();
+        int numberOfAnnotations = 0;
+
+        for (AnnotatedWiki annotatedWiki : annotatedWikis) {
+            try {
+                HashMap<String, String> mappings = mapperVariant.mapping.apply(annotatedWiki);
+                EvaluationResultSingleWiki evaluationResultSingleWiki = MappingEvaluator.evaluateMappings(annotatedWiki.goldStandard, mappings);
+                numberOfAnnotations += evaluationResultSingleWiki.getTotalMappings();
+                evaluationResultSingleWikis.add(evaluationResultSingleWiki);
+            } catch (RuntimeException re) {
+                logger.logMessage(Level.FATAL, MODULE, CLASS, "Mapper " + mapperVariant.name + " failed for wiki " + annotatedWiki.wikiToMap.wikiName + ": " + re);
+            }
+        }
+
+        EvaluationResultAllWikis evaluationResult = evaluationResultSingleWikis.isEmpty() ?
+                new EvaluationResultAllWikis() : MappingEvaluator.aggregate(evaluationResultSingleWikis);
+        long runtime = (System.nanoTime() - startTime) / 1000000L;
+
+        logger.logMessage(Level.INFO, MODULE, CLASS, "Evaluated mapper " + mapperVariant.name + " in " + runtime + " ms.");
+        return new MapperSweepResult(mapperVariant.name, mapperVariant.evaluationObject, evaluationResult,
+                evaluationResultSingleWikis.size(), numberOfAnnotations, runtime);
+    }
+
+
+    /**
+     * Loads all wikis of the given directory that have a gold standard (a file ending with evaluation.ttl).
+     * The files are only read, so the wikis may or may not have been processed by the {@link MappingExecutor MappingExecutor}.
+     * @param postProcessedWikisDirectory The directory containing the wikis ({@link WikiDirectoryLayout WikiDirectoryLayout}).
+     * @return The annotated wikis in the order of the catalog.
+     */
+    static List<AnnotatedWiki> loadAnnotatedWikis(File postProcessedWikisDirectory) {
+        String targetNamespace = ResourceBundle.getBundle("config").getString("targetnamespace");
+
+        try (Stream<File> wikiDirectories = WikiDirectoryLayout.openReadOnly(postProcessedWikisDirectory).getWikiDirectories()) {
+            return wikiDirectories.parallel()
+                    .filter(directory -> getGoldStandardFile(directory) != null)
+                    .map(directory -> new AnnotatedWiki(targetNamespace + "/" + directory.getName(),
+                            MappingExecutor.getMappingInformationOfWiki(directory),
+                            PostprocessingIOHandler.getExtractorMappings(getGoldStandardFile(directory))))
+                    .collect(Collectors.toList());
+        } catch (IOException | UncheckedIOException ioe) {
+            logger.logMessage(Level.FATAL, MODULE, CLASS, "Could not read the wikis of " + postProcessedWikisDirectory.getPath() + ": " + ioe.toString());
+            return new ArrayList<>();
+        }
+    }
+
+
+    /**
+     * @param wikiDirectory Directory of a wiki.
+     * @return The file ending with evaluation.ttl; null if there is none.
+     */
+    private static File getGoldStandardFile(File wikiDirectory) {
+        File goldStandardFile = null;
+        for (File f : WikiDirectoryLayout.listWikiFiles(wikiDirectory)) {
+            if (f.getName().endsWith("evaluation.ttl")) {
+                goldStandardFile = f;
+            }
+        }
+        return goldStandardFile;
+    }
+
+
+    /**
+     * Creates a fixed-width comparison table of the results. All measures are in percent.
+     * @param results The results of the sweep.
+     * @return The table.
+     */
+    public static String getComparisonTable(List<MapperSweepResult> results) {
+        String rowFormat = "%-24s %-11s %6s %8s %8s %8s %8s %8s %8s %8s %8s %8s %8s %10s%n";
+        StringBuilder table = new StringBuilder();
+        table.append(String.format(rowFormat, "Mapper", "Object", "Wikis", "TP", "FP", "TN", "FN",
+                "Mi-Acc", "Mi-Prec", "Mi-Rec", "Mi-F1", "Ma-F1", "W-F1", "Time (ms)"));
+
+        for (MapperSweepResult result : results) {
+            EvaluationResultAllWikis e = result.evaluationResult;
+            table.append(String.format(rowFormat, result.mapperName, result.evaluationObject, result.numberOfWikis,
+                    (long) e.microAverageTruePositives, (long) e.microAverageFalsePositives,
+                    (long) e.microAverageTrueNegatives, (long) e.microAverageFalseNegatives,
+                    formatPercent(e.microAverageAccuracyInPercent), formatPercent(e.microAveragePrecisionInPercent),
+                    formatPercent(e.microAverageRecallInPercent), formatPercent(e.microAverageF1measureInPercent),
+                    formatPercent(e.macroAverageF1measureInPercent), formatPercent(e.weightedOverallF1MeasureInPercent),
+                    result.runtimeInMilliseconds));
+        }
+        return table.toString();
+    }
+
+    private static String formatPercent(double value) {
+        return Double.isNaN(value) ? "-" : String.format(Locale.ROOT, "%.2f", value);
+    }
+
+
+    /**
+     * A wiki with its gold standard and the entities to be mapped.
+     */
+    static class AnnotatedWiki {
+
+        final String targetNamespace;
+        final WikiToMap wikiToMap;
+        final HashMap<String, String> goldStandard;
+
+        AnnotatedWiki(String targetNamespace, WikiToMap wikiToMap, HashMap<String, String> goldStandard) {
+            this.targetNamespace = targetNamespace;
+            this.wikiToMap = wikiToMap;
+            this.goldStandard = goldStandard;
+        }
+    }
+
+
+    /**
+     * A registered mapper: maps the entities of a wiki into mappings in the target namespace of the wiki.
+     */
+    private static class MapperVariant {
+
+        private final String name;
+        private final EvaluationObjectSingleWiki evaluationObject;
+        private final Function<AnnotatedWiki, HashMap<String, String>> mapping;
+
+        MapperVariant(String name, EvaluationObjectSingleWiki evaluationObject, Function<AnnotatedWiki, HashMap<String, String>> mapping) {
+            this.name = name;
+            this.evaluationObject = evaluationObject;
+            this.mapping = mapping;
+        }
+    }
+
+
+    /*
+    ONLY GETTERS BELOW.
+     */
+
+    public int getNumberOfMappers() {
+        return mapperVariants.size();
+    }
+
+}
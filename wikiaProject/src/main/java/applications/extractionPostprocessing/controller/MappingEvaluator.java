@@ -2,25 +2,42 @@ package applications.extractionPostprocessing.controller;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import applications.extractionPostprocessing.model.EvaluationResultAllWikis;
 import applications.extractionPostprocessing.model.EvaluationResultSingleWiki;
 import applications.extractionPostprocessing.util.PostprocessingIOHandler;
 import loggingService.MessageLogger;
+import metricsService.Counter;
+import metricsService.LatencyHistogram;
+import metricsService.Metrics;
 import org.apache.log4j.Level;
 import utils.IOoperations;
-import utils.OSDetails;
+import utils.NTriplesSink;
+import utils.WikiDirectoryLayout;
 
 /**
  * After creating the mapping files using a mapper, the evaluation for that mapping can be performed using this class.
+ * The evaluation only reads the files, so it can be repeated and run concurrently. Null mappings are removed from the
+ * mapping files separately by the {@link NullMappingCompactor NullMappingCompactor}.
  */
 public class MappingEvaluator {
 
-    private static EvaluationResultSingleWiki mappingsEvaluationResultSingleWiki;
     private static MessageLogger logger = new MessageLogger();
     private static final String MODULE = "ExtractionPostprocessing";
     private static final String CLASS = MappingEvaluator.class.getName();
 
+    // metrics
+    private static final LatencyHistogram wikiLatency = Metrics.histogram("evaluation_wiki_latency");
+    private static final Counter evaluatedMappings = Metrics.counter("evaluation_mappings");
+    private static final AtomicInteger remainingWikis = new AtomicInteger();
+
+    static {
+        Metrics.gauge("evaluation_wikis_remaining", remainingWikis::get);
+    }
+
     /**
      * Enum indicating what shall be evaluated.
      */
@@ -70,13 +87,15 @@ public class MappingEvaluator {
 
 
     /*
-    * Evaluate all mappings and persist them in separate files
+    * Evaluate all mappings and persist them in separate files.
+    * Every wiki is evaluated only once: its gold standard and mapping files are parsed once for all evaluation objects.
      */
     public static void evaluateAllMappings() {
-        evaluateAllMappings(EvaluationObjectAllWikis.CLASSES, true);
-        evaluateAllMappings(EvaluationObjectAllWikis.PROPERTIES, true);
-        evaluateAllMappings(EvaluationObjectAllWikis.RESOURCES, true);
-        evaluateAllMappings(EvaluationObjectAllWikis.ALL, true);
+        List<WikiEvaluation> wikiEvaluations = evaluateAllWikis(EnumSet.allOf(EvaluationObjectSingleWiki.class));
+        aggregateEvaluationResults(EvaluationObjectAllWikis.CLASSES, wikiEvaluations, true);
+        aggregateEvaluationResults(EvaluationObjectAllWikis.PROPERTIES, wikiEvaluations, true);
+        aggregateEvaluationResults(EvaluationObjectAllWikis.RESOURCES, wikiEvaluations, true);
+        aggregateEvaluationResults(EvaluationObjectAllWikis.ALL, wikiEvaluations, true);
     }
 
     /**
@@ -87,106 +106,91 @@ public class MappingEvaluator {
      * @param persistResult            The persistResult flag indicates whether the result shall be persistet.
      */
     public static EvaluationResultAllWikis evaluateAllMappings(EvaluationObjectAllWikis evaluationObjectAllWikis, boolean persistResult) {
+        List<WikiEvaluation> wikiEvaluations = evaluateAllWikis(getEvaluationObjectsSingleWiki(evaluationObjectAllWikis));
+        return aggregateEvaluationResults(evaluationObjectAllWikis, wikiEvaluations, persistResult);
+    }
 
-        // KPIs that are calculated for evaluation
-        double weightedOverallAccuracyInPercent = 0;
-        double weightedOverallPrecisionInPercent = 0;
-        double weightedOverallRecallInPercent = 0;
-        double weightedOverallF1MeasureInPercent = 0;
-        double microAverageTruePositives = 0;
-        double microAverageFalsePositives = 0;
-        double microAverageTrueNegatives = 0;
-        double microAverageFalseNegatives = 0;
-        double microAverageAccuracyInPercent = 0;
-        double microAveragePrecisionInPercent = 0;
-        double microAverageRecallInPercent = 0;
-        double microAverageF1measureInPercent = 0;
-        double macroAverageAccuracyInPercent = 0;
-        double macroAveragePrecisionInPercent = 0;
-        double macroAverageRecallInPercent = 0;
-        double macroAverageF1measureInPercent = 0;
 
-        int totalMappings = 0;
+    /**
+     * Evaluate all mappings and persist the result in a file.
+     *
+     * @param evaluationObjectAllWikis The evaluationObjectSingleWiki specifies for which mapping an evaluation shall be created.
+     */
+    public static EvaluationResultAllWikis evaluateAllMappings(EvaluationObjectAllWikis evaluationObjectAllWikis) {
+        return evaluateAllMappings(evaluationObjectAllWikis, true);
+    }
+
+
+    /**
+     * Evaluates all wikis in the postProcessedWikis directory in parallel.
+     *
+     * @param evaluationObjects The mappings that shall be evaluated.
+     * @return The evaluations in the order of the directory listing; null if the directory does not exist.
+     */
+    private static List<WikiEvaluation> evaluateAllWikis(Set<EvaluationObjectSingleWiki> evaluationObjects) {
+
+        File root = new File(ResourceBundle.getBundle("config").getString("pathToRootDirectory") + "/postProcessedWikis");
+        if (!root.isDirectory()) {
+            return null;
+        }
+
+        // the encounter order is kept so that the aggregation sums up in the same order as a sequential run
+        WikiDirectoryLayout layout = WikiDirectoryLayout.openReadOnly(root);
+        try (Stream<File> wikiDirectories = layout.getWikiDirectories()) {
+            remainingWikis.set((int) layout.getNumberOfWikis());
+            return wikiDirectories.parallel()
+                    .map(directory -> {
+                        long startTime = System.nanoTime();
+                        WikiEvaluation wikiEvaluation = evaluateWiki(directory, evaluationObjects);
+                        wikiLatency.recordNanosSince(startTime);
+                        remainingWikis.decrementAndGet();
+                        return wikiEvaluation;
+                    })
+                    .collect(Collectors.toList());
+        } catch (IOException | UncheckedIOException ioe) {
+            logger.logMessage(Level.FATAL, MODULE, CLASS, "Could not read the wikis of the root directory: " + ioe.toString());
+            return null;
+        }
+    }
+
+
+    /**
+     * Aggregates the evaluation results of all wikis, prints them on the command line and optionally persists them.
+     *
+     * @param evaluationObjectAllWikis The mappings for which the evaluation shall be aggregated.
+     * @param wikiEvaluations          The evaluations of the single wikis; null if the root directory does not exist.
+     * @param persistResult            The persistResult flag indicates whether the result shall be persistet.
+     * @return Aggregated result; null if no evaluation file was found.
+     */
+    private static EvaluationResultAllWikis aggregateEvaluationResults(EvaluationObjectAllWikis evaluationObjectAllWikis,
+                                                                       List<WikiEvaluation> wikiEvaluations, boolean persistResult) {
+
         int totalAnnotations = 0;
         ArrayList<EvaluationResultSingleWiki> evaluationResultSingleWikis = new ArrayList<>();
-        String pathToPostprocessedWikis = ResourceBundle.getBundle("config").getString("pathToRootDirectory") + "/postProcessedWikis";
         String pathToRootDirectory = ResourceBundle.getBundle("config").getString("pathToRootDirectory");
         StringBuffer aggregatedEvaluationResults = new StringBuffer();
         String evaluationResultLine = "";
-        File root = new File(pathToPostprocessedWikis);
-
-        if (root.isDirectory()) {
-            for (File directory : root.listFiles()) {
-                if (directory.isDirectory()) {
-
-                    EvaluationResultSingleWiki evaluationResultSingleWiki = null;
-
-                    switch (evaluationObjectAllWikis) {
-                        case CLASSES:
-                            evaluationResultSingleWiki = evaluateMappingsForOneWiki(directory.getPath(), EvaluationObjectSingleWiki.CLASSES);
-                            break;
-                        case PROPERTIES:
-                            evaluationResultSingleWiki = evaluateMappingsForOneWiki(directory.getPath(), EvaluationObjectSingleWiki.PROPERTIES);
-                            break;
-                        case RESOURCES:
-                            evaluationResultSingleWiki = evaluateMappingsForOneWiki(directory.getPath(), EvaluationObjectSingleWiki.RESOURCES);
-                            break;
-                        case ALL:
-                            int falseNegatives;
-                            int falsePositives;
-                            int truePositives;
-                            int trueNegatives;
-                            EvaluationResultSingleWiki evaluationResultSingleWikiClasses = evaluateMappingsForOneWiki(directory.getPath(), EvaluationObjectSingleWiki.CLASSES);
-                            EvaluationResultSingleWiki evaluationResultSingleWikiProperties = evaluateMappingsForOneWiki(directory.getPath(), EvaluationObjectSingleWiki.PROPERTIES);
-                            EvaluationResultSingleWiki evaluationResultSingleWikiResources = evaluateMappingsForOneWiki(directory.getPath(), EvaluationObjectSingleWiki.RESOURCES);
-
-                            if (evaluationResultSingleWikiClasses == null) {
-                                evaluationResultSingleWikiClasses = new EvaluationResultSingleWiki(0, 0, 0, 0);
-                            }
+        EvaluationResultAllWikis evaluationResultAllWikis;
 
-                            if (evaluationResultSingleWikiProperties == null) {
-                                evaluationResultSingleWikiProperties = new EvaluationResultSingleWiki(0, 0, 0, 0);
-                            }
+        if (wikiEvaluations != null) {
+            for (WikiEvaluation wikiEvaluation : wikiEvaluations) {
 
-                            if (evaluationResultSingleWikiResources == null) {
-                                evaluationResultSingleWikiResources = new EvaluationResultSingleWiki(0, 0, 0, 0);
-                            }
+                EvaluationResultSingleWiki evaluationResultSingleWiki = wikiEvaluation.getResult(evaluationObjectAllWikis);
 
-                            // aggregate
-                            falseNegatives = evaluationResultSingleWikiClasses.getFalseNegatives() + evaluationResultSingleWikiProperties.getFalseNegatives() +
-                                    evaluationResultSingleWikiResources.getFalseNegatives();
-                            falsePositives = evaluationResultSingleWikiClasses.getFalsePositives() + evaluationResultSingleWikiProperties.getFalsePositives() +
-                                    evaluationResultSingleWikiResources.getFalsePositives();
-                            truePositives = evaluationResultSingleWikiClasses.getTruePositives() + evaluationResultSingleWikiProperties.getTruePositives() +
-                                    evaluationResultSingleWikiResources.getTruePositives();
-                            trueNegatives = evaluationResultSingleWikiClasses.getTrueNegatives() + evaluationResultSingleWikiProperties.getTrueNegatives() +
-                                    evaluationResultSingleWikiResources.getTrueNegatives();
-
-                            evaluationResultSingleWiki = new EvaluationResultSingleWiki(
-                                    falseNegatives,
-                                    falsePositives,
-                                    truePositives,
-                                    trueNegatives
-                            );
-
-                    } // switch (evaluationObjectAllWikis)
-
-                    if (evaluationResultSingleWiki != null) {
-                        evaluationResultLine = "Accuracy: " + evaluationResultSingleWiki.getAccuracyInPercent() + "% (" + directory.getName() + ")\n"
-                                + "Precision: " + evaluationResultSingleWiki.getPrecisionInPercent() + "% (" + directory.getName() + ")\n"
-                                + "Recall: " + evaluationResultSingleWiki.getRecallInPercent() + "% (" + directory.getName() + ")\n"
-                                + "F1-Measure: " + evaluationResultSingleWiki.getF1MeasureInPercent() + "% (" + directory.getName() + ")\n"
-                                + "Number of Mannual Annotations: " + evaluationResultSingleWiki.getTotalMappings() + " (" + directory.getName() + ")\n";
-
-                        logger.logMessage(Level.INFO,MODULE,CLASS,evaluationResultLine);
-
-                        aggregatedEvaluationResults.append(evaluationResultLine + "\n");
-                        totalMappings += evaluationResultSingleWiki.getTotalMappings();
-                        totalAnnotations += evaluationResultSingleWiki.getTotalMappings();
-                        evaluationResultSingleWikis.add(evaluationResultSingleWiki);
-                    }
+                if (evaluationResultSingleWiki != null) {
+                    evaluationResultLine = "Accuracy: " + evaluationResultSingleWiki.getAccuracyInPercent() + "% (" + wikiEvaluation.wikiName + ")\n"
+                            + "Precision: " + evaluationResultSingleWiki.getPrecisionInPercent() + "% (" + wikiEvaluation.wikiName + ")\n"
+                            + "Recall: " + evaluationResultSingleWiki.getRecallInPercent() + "% (" + wikiEvaluation.wikiName + ")\n"
+                            + "F1-Measure: " + evaluationResultSingleWiki.getF1MeasureInPercent() + "% (" + wikiEvaluation.wikiName + ")\n"
+                            + "Number of Mannual Annotations: " + evaluationResultSingleWiki.getTotalMappings() + " (" + wikiEvaluation.wikiName + ")\n";
+
+                    logger.logMessage(Level.INFO,MODULE,CLASS,evaluationResultLine);
+
+                    aggregatedEvaluationResults.append(evaluationResultLine + "\n");
+                    totalAnnotations += evaluationResultSingleWiki.getTotalMappings();
+                    evaluationResultSingleWikis.add(evaluationResultSingleWiki);
                 }
-            } // for File directory : root.listFiles())
+            } // for WikiEvaluation wikiEvaluation : wikiEvaluations
 
 
             if (evaluationResultSingleWikis.size() == 0) {
@@ -194,62 +198,28 @@ public class MappingEvaluator {
                 return null;
             }
 
-            for (EvaluationResultSingleWiki e : evaluationResultSingleWikis) {
-                double e_accuracy = e.getAccuracyInPercent();
-                int e_totalMappings = e.getTotalMappings();
-
-                // entry-weighted
-                weightedOverallAccuracyInPercent += (e.getAccuracyInPercent() * ((double) e.getTotalMappings() / totalMappings));
-                weightedOverallPrecisionInPercent += (e.getPrecisionInPercent() * ((double) e.getTotalMappings() / totalMappings));
-                weightedOverallRecallInPercent += (e.getRecallInPercent() * ((double) e.getTotalMappings() / totalMappings));
-                weightedOverallF1MeasureInPercent += (e.getF1MeasureInPercent() * ((double) e.getTotalMappings() / totalMappings));
-
-                // microaverage
-                microAverageTruePositives += e.getTruePositives();
-                microAverageFalsePositives += e.getFalsePositives();
-                microAverageTrueNegatives += e.getTrueNegatives();
-                microAverageFalseNegatives += e.getFalseNegatives();
-
-                // macroaverage (not final numbers yet, will be processed after loop.)
-                macroAverageAccuracyInPercent += e.getAccuracyInPercent();
-                macroAveragePrecisionInPercent += e.getPrecisionInPercent();
-                macroAverageRecallInPercent += e.getRecallInPercent();
-                macroAverageF1measureInPercent += e.getF1MeasureInPercent();
-
-            }
-
-            // microaverage
-            microAverageAccuracyInPercent = ((microAverageTruePositives + microAverageTrueNegatives) / (microAverageTruePositives + microAverageTrueNegatives + microAverageFalsePositives + microAverageFalseNegatives)) * 100;
-            microAveragePrecisionInPercent = ((microAverageTruePositives) / (microAverageTruePositives + microAverageFalsePositives)) * 100;
-            microAverageRecallInPercent = ((microAverageTruePositives) / (microAverageTruePositives + microAverageFalseNegatives)) * 100;
-            microAverageF1measureInPercent = ((2.0 * microAveragePrecisionInPercent * microAverageRecallInPercent) / (microAveragePrecisionInPercent + microAverageRecallInPercent));
-
-            // macroaverage
-            macroAverageAccuracyInPercent = macroAverageAccuracyInPercent / evaluationResultSingleWikis.size();
-            macroAveragePrecisionInPercent = macroAveragePrecisionInPercent / evaluationResultSingleWikis.size();
-            macroAverageRecallInPercent = macroAverageRecallInPercent / evaluationResultSingleWikis.size();
-            macroAverageF1measureInPercent = macroAverageF1measureInPercent / evaluationResultSingleWikis.size();
-
+            evaluationResultAllWikis = aggregate(evaluationResultSingleWikis);
 
         } else {
             // -> root is not a directory
             logger.logMessage(Level.FATAL,MODULE,CLASS,"pathToPostprocessedWikis is not a directory!");
-        } // end of if(root.isDirectory())
+            evaluationResultAllWikis = new EvaluationResultAllWikis();
+        } // end of if(wikiEvaluations != null)
 
         evaluationResultLine = "\nSummarized Evaluation Results\n" +
                 "-----------------------------\n\n" +
-                "Microaverage\n" + "Microaverage Accuracy: " + (microAverageAccuracyInPercent) + "%\n" +
-                "Microaverage Precision: " + (microAveragePrecisionInPercent) + "%\n" +
-                "Microaverage Recall: " + (microAverageRecallInPercent) + "%\n" +
-                "Microaverage F1-Measure: " + (microAverageF1measureInPercent) + "%\n\n\n" +
-                "Macroaverage\n" + "Macroaverage Accuracy: " + (macroAverageAccuracyInPercent) + "%\n" +
-                "Macroaverage Precision: " + (macroAveragePrecisionInPercent) + "%\n" +
-                "Macroaverage Recall: " + (macroAverageRecallInPercent) + "%\n" +
-                "Macroaverage F1-Measure: " + (macroAverageF1measureInPercent) + "%\n\n\n" +
-                "Entry-Weigted Resuls" + "\nEntry-Weigted Overall Accuracy of " + evaluationResultSingleWikis.size() + " wikis: " + weightedOverallAccuracyInPercent + "%\n" +
-                "Entry-Weigted Overall Precision of " + evaluationResultSingleWikis.size() + " wikis: " + weightedOverallPrecisionInPercent + "%\n" +
-                "Entry-Weigted Overall Recall of " + evaluationResultSingleWikis.size() + " wikis: " + weightedOverallRecallInPercent + "%\n" +
-                "Entry-Weigted Overall F1-Measure of " + evaluationResultSingleWikis.size() + " wikis: " + weightedOverallF1MeasureInPercent + "%\n\n\n" +
+                "Microaverage\n" + "Microaverage Accuracy: " + (evaluationResultAllWikis.microAverageAccuracyInPercent) + "%\n" +
+                "Microaverage Precision: " + (evaluationResultAllWikis.microAveragePrecisionInPercent) + "%\n" +
+                "Microaverage Recall: " + (evaluationResultAllWikis.microAverageRecallInPercent) + "%\n" +
+                "Microaverage F1-Measure: " + (evaluationResultAllWikis.microAverageF1measureInPercent) + "%\n\n\n" +
+                "Macroaverage\n" + "Macroaverage Accuracy: " + (evaluationResultAllWikis.macroAverageAccuracyInPercent) + "%\n" +
+                "Macroaverage Precision: " + (evaluationResultAllWikis.macroAveragePrecisionInPercent) + "%\n" +
+                "Macroaverage Recall: " + (evaluationResultAllWikis.macroAverageRecallInPercent) + "%\n" +
+                "Macroaverage F1-Measure: " + (evaluationResultAllWikis.macroAverageF1measureInPercent) + "%\n\n\n" +
+                "Entry-Weigted Resuls" + "\nEntry-Weigted Overall Accuracy of " + evaluationResultSingleWikis.size() + " wikis: " + evaluationResultAllWikis.weightedOverallAccuracyInPercent + "%\n" +
+                "Entry-Weigted Overall Precision of " + evaluationResultSingleWikis.size() + " wikis: " + evaluationResultAllWikis.weightedOverallPrecisionInPercent + "%\n" +
+                "Entry-Weigted Overall Recall of " + evaluationResultSingleWikis.size() + " wikis: " + evaluationResultAllWikis.weightedOverallRecallInPercent + "%\n" +
+                "Entry-Weigted Overall F1-Measure of " + evaluationResultSingleWikis.size() + " wikis: " + evaluationResultAllWikis.weightedOverallF1MeasureInPercent + "%\n\n\n" +
                 "Number of annotated wikis: " + evaluationResultSingleWikis.size() + "\n" +
                 "Number of annotations: " + totalAnnotations;
 
@@ -274,44 +244,66 @@ public class MappingEvaluator {
             }
         }
 
-        // return object
-        EvaluationResultAllWikis evaluationResultAllWikis = new EvaluationResultAllWikis();
-
-        // macro average
-        evaluationResultAllWikis.macroAverageAccuracyInPercent = macroAverageAccuracyInPercent;
-        evaluationResultAllWikis.macroAveragePrecisionInPercent = macroAveragePrecisionInPercent;
-        evaluationResultAllWikis.macroAverageRecallInPercent = macroAverageRecallInPercent;
-        evaluationResultAllWikis.macroAverageF1measureInPercent = macroAverageF1measureInPercent;
-
-        // micro average
-        evaluationResultAllWikis.microAverageTruePositives = microAverageTruePositives;
-        evaluationResultAllWikis.microAverageFalsePositives = microAverageFalsePositives;
-        evaluationResultAllWikis.microAverageTrueNegatives = microAverageTrueNegatives;
-        evaluationResultAllWikis.microAverageFalseNegatives = microAverageFalseNegatives;
-        evaluationResultAllWikis.microAverageAccuracyInPercent = microAverageAccuracyInPercent;
-        evaluationResultAllWikis.microAveragePrecisionInPercent = microAveragePrecisionInPercent;
-        evaluationResultAllWikis.microAverageRecallInPercent = microAverageRecallInPercent;
-        evaluationResultAllWikis.microAverageF1measureInPercent = microAverageF1measureInPercent;
-
-        // micro average
-        evaluationResultAllWikis.weightedOverallAccuracyInPercent = weightedOverallAccuracyInPercent;
-        evaluationResultAllWikis.weightedOverallPrecisionInPercent = weightedOverallPrecisionInPercent;
-        evaluationResultAllWikis.weightedOverallRecallInPercent = weightedOverallRecallInPercent;
-        evaluationResultAllWikis.weightedOverallF1MeasureInPercent = weightedOverallF1MeasureInPercent;
-
         return evaluationResultAllWikis;
     }
 
 
     /**
-     * Evaluate all mappings and persist the result in a file.
+     * Calculates the entry-weighted, micro and macro averages over the results of several wikis.
      *
-     * @param evaluationObjectAllWikis The evaluationObjectSingleWiki specifies for which mapping an evaluation shall be created.
+     * @param evaluationResultSingleWikis The results of the single wikis; must not be empty.
+     * @return The aggregated result.
      */
-    public static EvaluationResultAllWikis evaluateAllMappings(EvaluationObjectAllWikis evaluationObjectAllWikis) {
-        return evaluateAllMappings(evaluationObjectAllWikis, true);
+    static EvaluationResultAllWikis aggregate(List<EvaluationResultSingleWiki> evaluationResultSingleWikis) {
+
+        EvaluationResultAllWikis result = new EvaluationResultAllWikis();
+
+        int totalMappings = 0;
+        for (EvaluationResultSingleWiki e : evaluationResultSingleWikis) {
+            totalMappings += e.getTotalMappings();
+        }
+
+        for (EvaluationResultSingleWiki e : evaluationResultSingleWikis) {
+
+            // entry-weighted
+            result.weightedOverallAccuracyInPercent += (e.getAccuracyInPercent() * ((double) e.getTotalMappings() / totalMappings));
+            result.weightedOverallPrecisionInPercent += (e.getPrecisionInPercent() * ((double) e.getTotalMappings() / totalMappings));
+            result.weightedOverallRecallInPercent += (e.getRecallInPercent() * ((double) e.getTotalMappings() / totalMappings));
+            result.weightedOverallF1MeasureInPercent += (e.getF1MeasureInPercent() * ((double) e.getTotalMappings() / totalMappings));
+
+            // microaverage
+            result.microAverageTruePositives += e.getTruePositives();
+            result.microAverageFalsePositives += e.getFalsePositives();
+            result.microAverageTrueNegatives += e.getTrueNegatives();
+            result.microAverageFalseNegatives += e.getFalseNegatives();
+
+            // macroaverage (not final numbers yet, will be processed after loop.)
+            result.macroAverageAccuracyInPercent += e.getAccuracyInPercent();
+            result.macroAveragePrecisionInPercent += e.getPrecisionInPercent();
+            result.macroAverageRecallInPercent += e.getRecallInPercent();
+            result.macroAverageF1measureInPercent += e.getF1MeasureInPercent();
+        }
+
+        // microaverage
+        double truePositives = result.microAverageTruePositives;
+        double falsePositives = result.microAverageFalsePositives;
+        double trueNegatives = result.microAverageTrueNegatives;
+        double falseNegatives = result.microAverageFalseNegatives;
+        result.microAverageAccuracyInPercent = ((truePositives + trueNegatives) / (truePositives + trueNegatives + falsePositives + falseNegatives)) * 100;
+        result.microAveragePrecisionInPercent = ((truePositives) / (truePositives + falsePositives)) * 100;
+        result.microAverageRecallInPercent = ((truePositives) / (truePositives + falseNegatives)) * 100;
+        result.microAverageF1measureInPercent = ((2.0 * result.microAveragePrecisionInPercent * result.microAverageRecallInPercent) / (result.microAveragePrecisionInPercent + result.microAverageRecallInPercent));
+
+        // macroaverage
+        result.macroAverageAccuracyInPercent = result.macroAverageAccuracyInPercent / evaluationResultSingleWikis.size();
+        result.macroAveragePrecisionInPercent = result.macroAveragePrecisionInPercent / evaluationResultSingleWikis.size();
+        result.macroAverageRecallInPercent = result.macroAverageRecallInPercent / evaluationResultSingleWikis.size();
+        result.macroAverageF1measureInPercent = result.macroAverageF1measureInPercent / evaluationResultSingleWikis.size();
+
+        return result;
     }
 
+
     /**
      * Create evaluations for one wiki.
      *
@@ -319,81 +311,104 @@ public class MappingEvaluator {
      * @return
      */
     public static EvaluationResultSingleWiki evaluateMappingsForOneWiki(String wikiPath, EvaluationObjectSingleWiki evaluationObjectSingleWiki) {
+        return evaluateWiki(new File(wikiPath), EnumSet.of(evaluationObjectSingleWiki)).results.get(evaluationObjectSingleWiki);
+    }
 
-        String dbPediaResourceMappingsFileName = "";
-
-        switch (evaluationObjectSingleWiki) {
-            case CLASSES:
-                dbPediaResourceMappingsFileName = "classMappings.ttl";
-                break;
-            case RESOURCES:
-                dbPediaResourceMappingsFileName = "resourceMappings.ttl";
-                break;
-            case PROPERTIES:
-                dbPediaResourceMappingsFileName = "propertyMappings.ttl";
-                break;
-        }
+    /**
+     * Create evaluations of several mappings for one wiki.
+     * The gold standard and every mapping file are parsed only once.
+     *
+     * @param wikiPath          Directory of the wiki.
+     * @param evaluationObjects The mappings that shall be evaluated.
+     * @return A map with the results; mappings without mapping file or wikis without evaluation file have no entry.
+     */
+    public static EnumMap<EvaluationObjectSingleWiki, EvaluationResultSingleWiki> evaluateMappingsForOneWiki(String wikiPath, Set<EvaluationObjectSingleWiki> evaluationObjects) {
+        return evaluateWiki(new File(wikiPath), evaluationObjects).results;
+    }
 
-        HashMap<String, String> dbPediaMappings;
-        HashMap<String, String> manualMappings;
-        File manualMappingFile = null; // the gold standard file
 
-        PostprocessingIOHandler postprocessingIoHandler = new PostprocessingIOHandler();
-        File mappingFile = new File(wikiPath + "/" + dbPediaResourceMappingsFileName);
+    /**
+     * Evaluates the given mappings of one wiki.
+     *
+     * @param wikiDirectory     Directory of the wiki.
+     * @param evaluationObjects The mappings that shall be evaluated.
+     * @return The evaluation.
+     */
+    private static WikiEvaluation evaluateWiki(File wikiDirectory, Set<EvaluationObjectSingleWiki> evaluationObjects) {
+
+        String wikiPath = wikiDirectory.getPath();
+        WikiEvaluation wikiEvaluation = new WikiEvaluation(wikiDirectory.getName());
+
+        EnumMap<EvaluationObjectSingleWiki, File> mappingFiles = new EnumMap<>(EvaluationObjectSingleWiki.class);
+        for (EvaluationObjectSingleWiki evaluationObject : evaluationObjects) {
+            File mappingFile = NTriplesSink.Compression.findFile(wikiDirectory, getMappingFileName(evaluationObject));
+            if (mappingFile.exists()) {
+                mappingFiles.put(evaluationObject, mappingFile);
+            } else {
+                // there is no generated mapping file
+                logger.logMessage(Level.FATAL,MODULE,CLASS,"No generated mapping file for wiki " + wikiPath + "\nRun mapper before evaluating wiki.");
+            }
+        }
+        if (mappingFiles.isEmpty() || !wikiDirectory.isDirectory()) {
+            return wikiEvaluation;
+        }
 
-        if (!mappingFile.exists()) {
-            // there is no generated mapping file
-            logger.logMessage(Level.FATAL,MODULE,CLASS,"No generated mapping file for wiki " + wikiPath + "\nRun mapper before evaluating wiki.");
-            return null;
+        // look for a file ending with evaluation.ttl (the gold standard file)
+        File manualMappingFile = null;
+        for (File f : WikiDirectoryLayout.listWikiFiles(wikiDirectory)) {
+            if (f.getName().endsWith("evaluation.ttl")) {
+                manualMappingFile = f;
+            }
         }
 
+        // no evaluation if no gold standard could be found
+        if (manualMappingFile == null) {
+            return wikiEvaluation;
+        }
 
-        File directory = new File(wikiPath);
-        if (directory.isDirectory()) {
+        HashMap<String, String> manualMappings = PostprocessingIOHandler.getExtractorMappings(manualMappingFile);
 
-            // look for a file ending with evaluation.ttl
-            for (File f : directory.listFiles()) {
-                if (f.getName().endsWith("evaluation.ttl")) {
-                    manualMappingFile = f;
-                }
-            }
-        } else {
-            // wikiPath is not a directory
-            return null;
+        for (Map.Entry<EvaluationObjectSingleWiki, File> mappingFile : mappingFiles.entrySet()) {
+            HashMap<String, String> dbPediaMappings = PostprocessingIOHandler.getExtractorMappings(mappingFile.getValue());
+            evaluatedMappings.add(dbPediaMappings.size());
+            wikiEvaluation.results.put(mappingFile.getKey(), evaluateMappings(manualMappings, dbPediaMappings));
         }
+        return wikiEvaluation;
+    }
 
-        // return null if no mapping file could be found
-        if(manualMappingFile == null){
-            return null;
-        }
+
+    /**
+     * Compares the mappings with the gold standard.
+     *
+     * @param manualMappings  The gold standard.
+     * @param dbPediaMappings The mappings to be evaluated.
+     * @return The confusion counts of the mappings that are annotated in the gold standard.
+     */
+    static EvaluationResultSingleWiki evaluateMappings(HashMap<String, String> manualMappings, HashMap<String, String> dbPediaMappings) {
 
         int truePositives = 0;
         int trueNegatives = 0;
         int falsePositives = 0;
         int falseNegatives = 0;
-        int totalMapping = 0;
 
         try {
-            dbPediaMappings = postprocessingIoHandler.getExtractorMappings(mappingFile);
-            manualMappings = postprocessingIoHandler.getExtractorMappings(manualMappingFile);
-
-            for (String resource : manualMappings.keySet()) {
-                if (dbPediaMappings.containsKey(resource)) {
-                    totalMapping++;
+            for (Map.Entry<String, String> manualMapping : manualMappings.entrySet()) {
+                String dbPediaMapping = dbPediaMappings.get(manualMapping.getKey());
+                if (dbPediaMapping != null) {
 
-                    if (manualMappings.get(resource).equals("<null>")) {
+                    if (manualMapping.getValue().equals("<null>")) {
                         // NEGATIVE case
-                        if (manualMappings.get(resource).toLowerCase().equals(dbPediaMappings.get(resource).toLowerCase())) {
+                        if (manualMapping.getValue().toLowerCase().equals(dbPediaMapping.toLowerCase())) {
                             trueNegatives++;
                         } else {
                             falsePositives++;
                         }
                     } else {
                         // POSITIVE case
-                        if (manualMappings.get(resource).toLowerCase().equals(dbPediaMappings.get(resource).toLowerCase())) {
+                        if (manualMapping.getValue().toLowerCase().equals(dbPediaMapping.toLowerCase())) {
                             truePositives++;
                         } else {
-                            if (dbPediaMappings.get(resource).equals("<null>")) {
+                            if (dbPediaMapping.equals("<null>")) {
                                 falseNegatives++;
                             } else {
                                 falsePositives++;
@@ -402,66 +417,96 @@ public class MappingEvaluator {
                     }
                 }
             }
-
-            // delete null mappings if they exist
-            if (dbPediaMappings.containsValue("<null>"))
-                deleteNullMappings(mappingFile);
-
         } catch (Exception ex) {
             logger.logMessage(Level.FATAL,MODULE,CLASS,ex.getMessage());
         }
 
-        mappingsEvaluationResultSingleWiki = new EvaluationResultSingleWiki(falseNegatives, falsePositives, truePositives, trueNegatives);
-        return mappingsEvaluationResultSingleWiki;
+        return new EvaluationResultSingleWiki(falseNegatives, falsePositives, truePositives, trueNegatives);
     }
 
+
     /**
-     * Overloaded method.
-     *
-     * @param wikiPath
-     * @return
+     * @param evaluationObjectSingleWiki The evaluated mapping.
+     * @return Name of the mapping file.
      */
-    private static EvaluationResultSingleWiki evaluateMappingsForOneWiki(File wikiPath, EvaluationObjectSingleWiki evaluationObjectSingleWiki) {
-        return evaluateMappingsForOneWiki(wikiPath.getAbsolutePath(), evaluationObjectSingleWiki);
+    private static String getMappingFileName(EvaluationObjectSingleWiki evaluationObjectSingleWiki) {
+        switch (evaluationObjectSingleWiki) {
+            case CLASSES:
+                return "classMappings.ttl";
+            case PROPERTIES:
+                return "propertyMappings.ttl";
+            default:
+                return "resourceMappings.ttl";
+        }
     }
 
+
     /**
-     * Rewrite mappings file by deleting all included null mappings
-     * @param mappingFile
+     * @param evaluationObjectAllWikis The evaluation object for all wikis.
+     * @return The evaluation objects of a single wiki that are required.
      */
-    private static void deleteNullMappings(File mappingFile) {
-        String line;
-        StringBuffer content = new StringBuffer();
-
-        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(mappingFile))) {
-
-            String newLineCharacter = "";
+    private static Set<EvaluationObjectSingleWiki> getEvaluationObjectsSingleWiki(EvaluationObjectAllWikis evaluationObjectAllWikis) {
+        switch (evaluationObjectAllWikis) {
+            case CLASSES:
+                return EnumSet.of(EvaluationObjectSingleWiki.CLASSES);
+            case PROPERTIES:
+                return EnumSet.of(EvaluationObjectSingleWiki.PROPERTIES);
+            case RESOURCES:
+                return EnumSet.of(EvaluationObjectSingleWiki.RESOURCES);
+            default:
+                return EnumSet.allOf(EvaluationObjectSingleWiki.class);
+        }
+    }
 
-            // get newLineCharacter in a safe way
-            try {
-                newLineCharacter = OSDetails.getNewLineCharacter();
-            } catch (Exception e){
-                logger.logMessage(Level.FATAL,MODULE,CLASS,e.getMessage());
-                logger.logMessage(Level.FATAL,MODULE,CLASS,"Could not find resource 'newLineCharacter'.");
-            }
 
-            if (newLineCharacter.isEmpty()) {
-                newLineCharacter = "\r\n";
-            }
+    /**
+     * Evaluation results of one wiki for all evaluated mappings.
+     */
+    private static class WikiEvaluation {
 
-            while ((line = bufferedReader.readLine()) != null) {
+        private final String wikiName;
+        private final EnumMap<EvaluationObjectSingleWiki, EvaluationResultSingleWiki> results = new EnumMap<>(EvaluationObjectSingleWiki.class);
 
-                // include everything except null mappings
-                if (!line.contains("<null>"))
-                    content.append(line + newLineCharacter);
+        WikiEvaluation(String wikiName) {
+            this.wikiName = wikiName;
+        }
 
+        /**
+         * @param evaluationObjectAllWikis The evaluation object.
+         * @return The result of this wiki; for ALL the sum of the class, property and resource results where a
+         * missing result (no mapping file or no gold standard) counts as zero, as in the evaluation of every mapping
+         * on its own. So every wiki contributes to ALL, even if it is not annotated.
+         */
+        EvaluationResultSingleWiki getResult(EvaluationObjectAllWikis evaluationObjectAllWikis) {
+            switch (evaluationObjectAllWikis) {
+                case CLASSES:
+                    return results.get(EvaluationObjectSingleWiki.CLASSES);
+                case PROPERTIES:
+                    return results.get(EvaluationObjectSingleWiki.PROPERTIES);
+                case RESOURCES:
+                    return results.get(EvaluationObjectSingleWiki.RESOURCES);
+                default:
+                    EvaluationResultSingleWiki evaluationResultSingleWikiClasses = getResultOrZero(EvaluationObjectSingleWiki.CLASSES);
+                    EvaluationResultSingleWiki evaluationResultSingleWikiProperties = getResultOrZero(EvaluationObjectSingleWiki.PROPERTIES);
+                    EvaluationResultSingleWiki evaluationResultSingleWikiResources = getResultOrZero(EvaluationObjectSingleWiki.RESOURCES);
+
+                    // aggregate
+                    int falseNegatives = evaluationResultSingleWikiClasses.getFalseNegatives() + evaluationResultSingleWikiProperties.getFalseNegatives() +
+                            evaluationResultSingleWikiResources.getFalseNegatives();
+                    int falsePositives = evaluationResultSingleWikiClasses.getFalsePositives() + evaluationResultSingleWikiProperties.getFalsePositives() +
+                            evaluationResultSingleWikiResources.getFalsePositives();
+                    int truePositives = evaluationResultSingleWikiClasses.getTruePositives() + evaluationResultSingleWikiProperties.getTruePositives() +
+                            evaluationResultSingleWikiResources.getTruePositives();
+                    int trueNegatives = evaluationResultSingleWikiClasses.getTrueNegatives() + evaluationResultSingleWikiProperties.getTrueNegatives() +
+                            evaluationResultSingleWikiResources.getTrueNegatives();
+                    return new EvaluationResultSingleWiki(falseNegatives, falsePositives, truePositives, trueNegatives);
             }
-            bufferedReader.close();
-            IOoperations.updateFile(content.toString(), mappingFile);
+        }
 
-        } catch (IOException e) {
-            logger.logMessage(Level.FATAL,MODULE,CLASS,e.getMessage());
+        private EvaluationResultSingleWiki getResultOrZero(EvaluationObjectSingleWiki evaluationObjectSingleWiki) {
+            EvaluationResultSingleWiki result = results.get(evaluationObjectSingleWiki);
+            return result == null ? new EvaluationResultSingleWiki(0, 0, 0, 0) : result;
         }
     }
 
-}
\ No newline at end of file
+}
@@ -6,15 +6,29 @@ import applications.extractionPostprocessing.controller.resourcemapper.ResourceM
 import applications.extractionPostprocessing.model.*;
 
 import loggingService.MessageLogger;
+import metricsService.Counter;
+import metricsService.LatencyHistogram;
+import metricsService.Metrics;
 import org.apache.log4j.Level;
 import utils.IOoperations;
+import utils.IriRewriter;
+import utils.NTriplesSink;
+import utils.NTriplesTokenizer;
+import utils.NTriplesTokenizer.Triple;
+import utils.NTriplesTokenizer.TripleHandler;
+import utils.SpillingStringSet;
+import utils.WikiDirectoryLayout;
 
 import java.io.*;
+import java.util.Arrays;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.MissingResourceException;
 import java.util.ResourceBundle;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Class for the creation of the mappings files.
@@ -27,9 +41,18 @@ public class MappingExecutor {
     private ClassMapper classMapper;
 
     // for the statistics
-    private int totalNumberOfResources = 0;
-    private int totalNumberOfProperties = 0;
-    private int totalNumberOfClasses = 0;
+    private long totalNumberOfResources = 0;
+    private long totalNumberOfProperties = 0;
+    private long totalNumberOfClasses = 0;
+
+    // memory budget of the entity collectors of one wiki if not configured (mappingMemoryBudgetMB)
+    private static final long DEFAULT_MEMORY_BUDGET_IN_MB = 1024;
+
+    // maximal number of entities that are mapped at once if the entities of a wiki were spilled to disk
+    private static final int MAPPING_CHUNK_SIZE = 100000;
+
+    // number of workers that tokenize a file when the entities are collected
+    private static final int COLLECTION_WORKERS = Runtime.getRuntime().availableProcessors();
 
     private static MessageLogger logger=new MessageLogger();
     private static final String MODULE="ExtractionPostprocessing";
@@ -37,6 +60,23 @@ public class MappingExecutor {
 
     private static String targetNamespace = ResourceBundle.getBundle("config").getString("targetnamespace");
 
+    // rewrite of the dbpedia domain into the target namespace of the wiki (see IriRewriter); applied by the
+    // RedirectProcessorSingleWiki when it rewrites the files
+    static final String[] NAMESPACE_REWRITE_RULES = {"literal\tdbpedia.org\t${targetNamespace}"};
+
+    // the reverse rewrite, so the entities of rewritten files are collected in the dbpedia domain
+    private static final String[] NAMESPACE_READ_RULES = {"literal\t${targetNamespace}\tdbpedia.org"};
+
+    // metrics
+    private static final LatencyHistogram wikiLatency = Metrics.histogram("mapping_wiki_latency");
+    private static final Counter processedTriples = Metrics.counter("mapping_triples");
+    private static final Counter processedBytes = Metrics.counter("mapping_bytes");
+    private static final AtomicInteger remainingWikis = new AtomicInteger();
+
+    static {
+        Metrics.gauge("mapping_wikis_remaining", remainingWikis::get);
+    }
+
 
     /**
      * Constructor
@@ -57,56 +97,74 @@ public class MappingExecutor {
         File root = new File(pathToRootDirectory);
         boolean includeNullMappings;
 
-        if (root.isDirectory()) {
-
-            // loop over all wikis
-            for (File directory : root.listFiles()) {
-
-                if (directory.isDirectory()) {
-                    // we have a wiki file
+        File spillDirectory = new File(ResourceBundle.getBundle("config").getString("pathToRootDirectory") + "/tmp");
+        long memoryBudgetPerCollector = getMemoryBudgetInBytes() / 3;
 
-                    WikiToMap wikiToMap = getMappingInformationOfWikiAndUpdateFiles(directory);
-                    String targetNameSpaceWithWikiDomain = ResourceBundle.getBundle("config").getString("targetnamespace") + "/" + directory.getName();
-
-                    HashSet<String> classesForDefinition = new HashSet<String>();
-                    HashSet<String> propertiesForDefinition = new HashSet<String>();
-
-                    // increment the statistics
-                    totalNumberOfClasses += wikiToMap.classesToMap.size();
-                    totalNumberOfProperties += wikiToMap.propertiesToMap.size();
-                    totalNumberOfResources += wikiToMap.resourcesToMap.size();
-
-                    // set whether null mappings should be included for evaluation
-                    includeNullMappings = Boolean.parseBoolean(ResourceBundle.getBundle("config").getString("includeNullMappings"));
-
-                    resourceMapper.writeResourceMappingsFile(directory, targetNameSpaceWithWikiDomain, wikiToMap.resourcesToMap, includeNullMappings);
-                    propertyMapper.writePropertiesMappingsFile(directory, targetNameSpaceWithWikiDomain, wikiToMap.propertiesToMap, includeNullMappings);
-                    classMapper.writeClassMappingsFile(directory, targetNameSpaceWithWikiDomain, wikiToMap.classesToMap, includeNullMappings);
-
-                    // ontologies for ontology file
-                    Iterator iterator = wikiToMap.classesToMap.iterator();
-                    String  classForOntologyFile = "";
-                    while(iterator.hasNext()){
-                        // conversion into ontology
-                        classForOntologyFile = ClassMapper.transformTemplateToOntology( (String) iterator.next() , targetNameSpaceWithWikiDomain, true);
-                        classesForDefinition.add( classForOntologyFile );
-                    }
-
-                    // properties for ontology file
-                    iterator= wikiToMap.propertiesToMap.iterator();
-                    String propertyForOntologyFile = "";
-                    while(iterator.hasNext()){
-                        // conversion into correct target namespace
-                        propertyForOntologyFile = ((String) iterator.next()).replace("dbpedia.org", targetNameSpaceWithWikiDomain);
-                        propertiesForDefinition.add( propertyForOntologyFile );
-                    }
-
-                    // create the ontology file
-                    OntologyCreator ontologyCreator = new OntologyCreator(classesForDefinition, propertiesForDefinition, directory);
-                    ontologyCreator.createOntology();
+        if (root.isDirectory()) {
 
-                } // end of check whether file is a directory
-            } // end of loop over files
+            // loop over all wikis; the files are tokenized in parallel by the workers of the collection executor
+            WikiDirectoryLayout layout = WikiDirectoryLayout.open(root);
+            ExecutorService collectionExecutor = Executors.newFixedThreadPool(COLLECTION_WORKERS);
+            try (Stream<File> directories = layout.getWikiDirectories()) {
+                remainingWikis.set((int) layout.getNumberOfWikis());
+                for (File directory : (Iterable<File>) directories::iterator) {
+
+                    if (directory.isDirectory()) {
+                        // we have a wiki file
+                        long startTime = System.nanoTime();
+
+                        String targetNameSpaceWithWikiDomain = ResourceBundle.getBundle("config").getString("targetnamespace") + "/" + directory.getName();
+
+                        // the collectors spill sorted runs into the tmp directory once the budget is exceeded
+                        try (SpillingStringSet resourcesToMap = new SpillingStringSet(memoryBudgetPerCollector, spillDirectory);
+                             SpillingStringSet propertiesToMap = new SpillingStringSet(memoryBudgetPerCollector, spillDirectory);
+                             SpillingStringSet classesToMap = new SpillingStringSet(memoryBudgetPerCollector, spillDirectory)) {
+
+                            collectMappingInformationOfWiki(directory, collectionExecutor, resourcesToMap, propertiesToMap, classesToMap);
+
+                            if (resourcesToMap.isSpilled() || propertiesToMap.isSpilled() || classesToMap.isSpilled()) {
+                                logger.logMessage(Level.INFO, MODULE, CLASS, "Entities of wiki {} were spilled to disk ({} runs).", directory.getName(),
+                                        resourcesToMap.getNumberOfRuns() + propertiesToMap.getNumberOfRuns() + classesToMap.getNumberOfRuns());
+                            }
+
+                            // set whether null mappings should be included for evaluation
+                            includeNullMappings = Boolean.parseBoolean(ResourceBundle.getBundle("config").getString("includeNullMappings"));
+
+                            resourceMapper.writeResourceMappingsFile(directory, targetNameSpaceWithWikiDomain, resourcesToMap, MAPPING_CHUNK_SIZE, includeNullMappings);
+                            propertyMapper.writePropertiesMappingsFile(directory, targetNameSpaceWithWikiDomain, propertiesToMap, MAPPING_CHUNK_SIZE, includeNullMappings);
+                            classMapper.writeClassMappingsFile(directory, targetNameSpaceWithWikiDomain, classesToMap, MAPPING_CHUNK_SIZE, includeNullMappings);
+
+                            // increment the statistics (after the mapping files are written, as writing a spilled set
+                            // merges its runs and counts its entries, so they are not merged again for counting)
+                            totalNumberOfClasses += classesToMap.size();
+                            totalNumberOfProperties += propertiesToMap.size();
+                            totalNumberOfResources += resourcesToMap.size();
+
+                            // ontologies for ontology file (conversion into ontology)
+                            HashSet<String> classesForDefinition = new HashSet<String>();
+                            classesToMap.forEach(template -> classesForDefinition.add(ClassMapper.transformTemplateToOntology(template, targetNameSpaceWithWikiDomain, true)));
+
+                            // properties for ontology file (conversion into correct target namespace)
+                            HashSet<String> propertiesForDefinition = new HashSet<String>();
+                            propertiesToMap.forEach(property -> propertiesForDefinition.add(property.replace("dbpedia.org", targetNameSpaceWithWikiDomain)));
+
+                            // create the ontology file
+                            OntologyCreator ontologyCreator = new OntologyCreator(classesForDefinition, propertiesForDefinition, directory);
+                            ontologyCreator.createOntology();
+
+                        } catch (IOException | UncheckedIOException ioe) {
+                            logger.logMessage(Level.FATAL, MODULE, CLASS, "Could not process wiki " + directory.getName() + ": " + ioe.toString());
+                        }
+
+                        wikiLatency.recordNanosSince(startTime);
+                    } // end of check whether file is a directory
+                    remainingWikis.decrementAndGet();
+                } // end of loop over files
+            } catch (IOException | UncheckedIOException ioe) {
+                logger.logMessage(Level.FATAL, MODULE, CLASS, "Could not read the wikis of the root directory: " + ioe.toString());
+            } finally {
+                collectionExecutor.shutdown();
+            }
 
 
             // output the statistics and write them into file
@@ -133,123 +191,241 @@ public class MappingExecutor {
 
 
     /**
-     * This method looks for resources, properties and templates for a given wiki. It will collect those in sets and return them.
-     * Additionally all files will be updated with the correct domain name.
+     * This method looks for resources, properties and templates for a given wiki and adds them to the given sets.
+     * The files are only read: the {@link RedirectProcessorSingleWiki RedirectProcessorSingleWiki} already wrote
+     * them with the target namespace of the wiki, which is read as the dbpedia domain (see
+     * {@link #getMappingInformationOfWiki(File)}). Each file is tokenized in chunks by the workers of the executor;
+     * every worker collects into its own buffer, which is added to the sets when it is full.
      *
      * @param directoryOfWiki The directory where the files of a single wiki are stored.
-     * @return
+     * @param executor        The executor of the workers.
+     * @param resourcesToMap  Set to which resources are added.
+     * @param propertiesToMap Set to which properties are added.
+     * @param classesToMap    Set to which infobox templates are added.
+     * @throws IOException if a file cannot be read.
      */
-    private WikiToMap getMappingInformationOfWikiAndUpdateFiles(File directoryOfWiki) {
+    private void collectMappingInformationOfWiki(File directoryOfWiki, ExecutorService executor, SpillingStringSet resourcesToMap,
+                                                 SpillingStringSet propertiesToMap, SpillingStringSet classesToMap) throws IOException {
+
+        IriRewriter namespaceReader = getNamespaceReader(directoryOfWiki);
+
+        // Loop over all ttl files in the directory and collect the entities.
+        for (File file : directoryOfWiki.listFiles()) {
+            if (isFileToMap(file)) {
+                logger.logMessage(Level.INFO,MODULE,CLASS,"Reading file " + file.getName());
+                for (EntityBuffer buffer : NTriplesTokenizer.parseFileInParallel(file, executor, COLLECTION_WORKERS,
+                        () -> new EntityBuffer(namespaceReader, resourcesToMap, propertiesToMap, classesToMap))) {
+                    buffer.flush();
+                    processedTriples.add(buffer.numberOfTriples);
+                }
+                processedBytes.add(file.length());
+            }
+        }
+    }
 
-        //get list of extracted files in a folder
-        File[] listOfFiles = directoryOfWiki.listFiles();
 
-        String targetNameSpace = ResourceBundle.getBundle("config").getString("targetnamespace") + "/" + directoryOfWiki.getName();
+    /**
+     * Collects the resources, properties and templates of a given wiki without changing any file.
+     * Files that were already updated with the target namespace are read as if they still contained the dbpedia domain,
+     * so the result is the same before and after the files were rewritten.
+     *
+     * @param directoryOfWiki The directory where the files of a single wiki are stored.
+     * @return The entities to be mapped (in the dbpedia domain).
+     */
+    public static WikiToMap getMappingInformationOfWiki(File directoryOfWiki) {
 
         HashSet<String> resourcesToMap = new HashSet<>();
         HashSet<String> propertiesToMap = new HashSet<>();
         HashSet<String> classesToMap = new HashSet<>();
 
+        File[] listOfFiles = directoryOfWiki.listFiles();
+        if (listOfFiles != null) {
+            TripleHandler collector = TripleHandler.rewriteTerms(getNamespaceReader(directoryOfWiki))
+                    .andThen(new EntityCollector(resourcesToMap::add, propertiesToMap::add, classesToMap::add));
+            for (File file : listOfFiles) {
+                if (isFileToMap(file)) {
+                    try {
+                        NTriplesTokenizer.parseFile(file, collector);
+                    } catch (IOException ioe) {
+                        logger.logMessage(Level.FATAL, MODULE, CLASS, "Could not read " + file.getAbsolutePath() + ": " + ioe.getMessage());
+                    }
+                }
+            }
+        }
 
-        try {
-
-            // Loop over all ttl files in the directory and create the mappings.
-            for (int i = 0; i < listOfFiles.length; i++) {
-
-                if ( // file is relevant
-                        listOfFiles[i].isFile()
-                                && listOfFiles[i].toString().endsWith(".ttl")
-                                && !listOfFiles[i].toString().endsWith("_evaluation.ttl") // do not use resources from the evaluation file
-                                && !listOfFiles[i].toString().endsWith("resourceMappings.ttl") // do not use resources from the mapping file
-                                && !listOfFiles[i].toString().endsWith("propertyMappings.ttl") // do not use resources from the mapping file
-                                && !listOfFiles[i].toString().endsWith("classMappings.ttl") // do not use resources from the mapping file
-                        ) {
-
-                    String line = ""; // line to be read
-                    String languageCode = "";
-
-                    // content of the new file with updated domain to be overwritten
-                    StringBuffer contentOfNewFile = new StringBuffer();
-
-                    FileReader fr = new FileReader(listOfFiles[i].getAbsolutePath());
-                    BufferedReader br = new BufferedReader(fr);
-
-                    // regex to find tags
-                    Matcher matcher = null;
-                    Pattern pattern = Pattern.compile("<[^<>]*>");
-                    // regex: <[^<]*>
-                    // this regex captures everything between tags including the tags: <...>
-                    // there are three tags in every line
+        return new WikiToMap(directoryOfWiki.getName(), resourcesToMap, propertiesToMap, classesToMap);
+    }
 
 
-                    // read relevant file line by line
-                    while ((line = br.readLine()) != null) {
+    /**
+     * @param directoryOfWiki The directory of a wiki.
+     * @return The rewriter of the target namespace of the wiki into the dbpedia domain.
+     */
+    private static IriRewriter getNamespaceReader(File directoryOfWiki) {
+        return IriRewriter.of(NAMESPACE_READ_RULES, "targetNamespace",
+                ResourceBundle.getBundle("config").getString("targetnamespace") + "/" + directoryOfWiki.getName());
+    }
 
 
-                        // if the line is a comment -> continue with the next line
-                        if (!line.trim().toLowerCase().startsWith("#") || !line.trim().toLowerCase().startsWith("#")) {
-                            // -> line is not a comment
+    /**
+     * @param file A file in the directory of a wiki.
+     * @return True if the entities of the file shall be mapped.
+     */
+    static boolean isFileToMap(File file) {
+        // extraction outputs may still be compressed
+        String fileName = NTriplesSink.Compression.getUncompressedFileName(file);
+        return file.isFile()
+                && fileName.endsWith(".ttl")
+                && !fileName.endsWith("_evaluation.ttl") // do not use resources from the evaluation file
+                && !isMappingFile(file); // do not use resources from the mapping files
+    }
 
-                            // rewrite line for updating the file
-                            contentOfNewFile.append(line.replaceAll("dbpedia.org", targetNameSpace) + "\n");
 
-                            matcher = pattern.matcher(line);
+    /**
+     * @param file A file in the directory of a wiki.
+     * @return True if the file is a mapping file written by the postprocessing (with any compression).
+     */
+    static boolean isMappingFile(File file) {
+        return Arrays.asList(NullMappingCompactor.MAPPING_FILE_NAMES).contains(NTriplesSink.Compression.getUncompressedFileName(file));
+    }
 
-                            while (matcher.find()) {
 
-                                // do not do for wikipedia and wikimedia resources, wikipedia resources and categories
-                                if (matcher.group().toLowerCase().contains("wikipedia.org") ||
-                                        matcher.group().toLowerCase().contains("commons.wikimedia.org") ||
-                                        matcher.group().toLowerCase().contains("category:")
-                                        ) {
-                                    // do nothing
-                                } else {
-                                    // -> not a wikipedia or dbpedia resource
+    /**
+     * Sorts the IRIs of the triples into the sets of entities to be mapped.
+     * Wikipedia and wikimedia resources as well as categories are ignored.
+     */
+    private static class EntityCollector implements TripleHandler {
+
+        private final Consumer<String> resourcesToMap;
+        private final Consumer<String> propertiesToMap;
+        private final Consumer<String> classesToMap;
+
+        /**
+         * Constructor
+         * @param resourcesToMap  Receives the resources.
+         * @param propertiesToMap Receives the properties.
+         * @param classesToMap    Receives the infobox templates.
+         */
+        EntityCollector(Consumer<String> resourcesToMap, Consumer<String> propertiesToMap, Consumer<String> classesToMap) {
+            this.resourcesToMap = resourcesToMap;
+            this.propertiesToMap = propertiesToMap;
+            this.classesToMap = classesToMap;
+        }
 
-                                    // sort into proper map
-                                    if (matcher.group().contains("/Template:")) {
-                                        if(matcher.group().toLowerCase().contains("infobox")){
-                                            classesToMap.add(matcher.group());
-                                        }
-                                    } else if (matcher.group().contains("/resource/")) {
-                                        resourcesToMap.add(matcher.group());
-                                    } else if (matcher.group().contains("/property/")) {
-                                        propertiesToMap.add(matcher.group());
-                                    }
+        @Override
+        public boolean handle(Triple triple) {
+            if (triple.getSubjectType() == NTriplesTokenizer.TermType.IRI) {
+                addEntity(triple.getSubject(), resourcesToMap, propertiesToMap, classesToMap);
+            }
+            addEntity(triple.getPredicate(), resourcesToMap, propertiesToMap, classesToMap);
+            if (triple.getObjectType() == NTriplesTokenizer.TermType.IRI) {
+                addEntity(triple.getObject(), resourcesToMap, propertiesToMap, classesToMap);
+            }
+            return true;
+        }
+    }
 
-                                }
 
-                            } // end of while matcher find
+    /**
+     * Handler of one worker of {@link #collectMappingInformationOfWiki}: collects the entities (in the dbpedia domain)
+     * into its own sets, which are added to the shared (not synchronized) sets of the wiki when they are full.
+     */
+    private static class EntityBuffer implements TripleHandler {
+
+        private final HashSet<String> resources = new HashSet<>();
+        private final HashSet<String> properties = new HashSet<>();
+        private final HashSet<String> classes = new HashSet<>();
+        private final TripleHandler collector;
+        private final SpillingStringSet resourcesToMap;
+        private final SpillingStringSet propertiesToMap;
+        private final SpillingStringSet classesToMap;
+        private long numberOfTriples = 0;
+
+        EntityBuffer(IriRewriter namespaceReader, SpillingStringSet resourcesToMap, SpillingStringSet propertiesToMap,
+                     SpillingStringSet classesToMap) {
+            this.collector = TripleHandler.rewriteTerms(namespaceReader)
+                    .andThen(new EntityCollector(resources::add, properties::add, classes::add));
+            this.resourcesToMap = resourcesToMap;
+            this.propertiesToMap = propertiesToMap;
+            this.classesToMap = classesToMap;
+        }
 
-                        } // end of if (!comment)
+        @Override
+        public boolean handle(Triple triple) {
+            numberOfTriples++;
+            collector.handle(triple);
+            if (resources.size() + properties.size() + classes.size() >= MAPPING_CHUNK_SIZE) {
+                flush();
+            }
+            return true;
+        }
 
-                    } // end of read line loop
+        /**
+         * Adds the buffered entities to the sets of the wiki.
+         */
+        void flush() {
+            // the sets of the wiki are shared by all workers
+            synchronized (resourcesToMap) {
+                resources.forEach(resourcesToMap::add);
+                properties.forEach(propertiesToMap::add);
+                classes.forEach(classesToMap::add);
+            }
+            resources.clear();
+            properties.clear();
+            classes.clear();
+        }
+    }
 
-                    br.close();
-                    fr.close();
 
-                    // update the file, i.e. rewrite the file where the dbpedia domain is replaced with the actual domain
-                    IOoperations.updateFile(contentOfNewFile.toString(), listOfFiles[i]);
+    /**
+     * Sorts an IRI of a triple into the resources, properties or classes to map.
+     *
+     * @param tag             The IRI with angle brackets.
+     * @param resourcesToMap  Receives the resource if the IRI is one.
+     * @param propertiesToMap Receives the property if the IRI is one.
+     * @param classesToMap    Receives the template if the IRI is an infobox template.
+     */
+    private static void addEntity(String tag, Consumer<String> resourcesToMap,
+                                  Consumer<String> propertiesToMap, Consumer<String> classesToMap) {
+        String lowerCaseTag = tag.toLowerCase();
+
+        // do not do for wikipedia and wikimedia resources, wikipedia resources and categories
+        if (lowerCaseTag.contains("wikipedia.org") ||
+                lowerCaseTag.contains("commons.wikimedia.org") ||
+                lowerCaseTag.contains("category:")) {
+            return;
+        }
 
-                } // end of if relevant file
-            }// end of loop over all files of that particular wiki
+        // sort into proper map
+        if (tag.contains("/Template:")) {
+            if (lowerCaseTag.contains("infobox")) {
+                classesToMap.accept(tag);
+            }
+        } else if (tag.contains("/resource/")) {
+            resourcesToMap.accept(tag);
+        } else if (tag.contains("/property/")) {
+            propertiesToMap.accept(tag);
+        }
+    }
 
-        } catch (IOException ioe) {
 
-            StringWriter stackTrace = new StringWriter();
-            ioe.printStackTrace(new PrintWriter(stackTrace));
 
-            logger.logMessage(Level.FATAL,MODULE,CLASS,ioe.getMessage().toString());
 
-            logger.logMessage(Level.FATAL,MODULE,CLASS,stackTrace.toString());
+    /**
+     * @return The memory budget of the three entity collectors of one wiki together (mappingMemoryBudgetMB in
+     * config.properties).
+     */
+    private static long getMemoryBudgetInBytes() {
+        long budgetInMB = DEFAULT_MEMORY_BUDGET_IN_MB;
+        try {
+            budgetInMB = Long.parseLong(ResourceBundle.getBundle("config").getString("mappingMemoryBudgetMB").trim());
+        } catch (MissingResourceException | NumberFormatException e) {
+            // use default
         }
-
-        return new WikiToMap(directoryOfWiki.getName(), resourcesToMap, propertiesToMap, classesToMap);
+        return budgetInMB * 1024 * 1024;
     }
 
 
-
-
    /*
    ONLY GETTERS AND SETTERS BELOW.
     */
@@ -0,0 +1,127 @@
+package applications.extractionPostprocessing.controller;
+
+import loggingService.MessageLogger;
+import org.apache.log4j.Level;
+import utils.NTriplesSink;
+import utils.OSDetails;
+import utils.WikiDirectoryLayout;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ResourceBundle;
+import java.util.stream.Stream;
+
+/**
+ * Removes the null mappings from the mapping files of the postprocessed wikis.
+ * The evaluation needs the null mappings and does not change any file, so this stage is to be run once after all
+ * evaluations are done. The files are rewritten line by line into a temporary file that replaces the original file;
+ * compressed mapping files (mappingFileCompression in config.properties) keep their compression.
+ */
+public class NullMappingCompactor {
+
+    private static MessageLogger logger = new MessageLogger();
+    private static final String MODULE = "ExtractionPostprocessing";
+    private static final String CLASS = NullMappingCompactor.class.getName();
+
+    /**
+     * Names of the mapping files that are compacted.
+     */
+    public static final String[] MAPPING_FILE_NAMES = {"classMappings.ttl", "propertyMappings.ttl", "resourceMappings.ttl"};
+
+
+    /**
+     * Deletes the null mappings of all wikis in the postProcessedWikis directory.
+     */
+    public static void deleteNullMappingsOfAllWikis() {
+        File root = new File(ResourceBundle.getBundle("config").getString("pathToRootDirectory") + "/postProcessedWikis");
+        if (!root.isDirectory()) {
+            logger.logMessage(Level.FATAL, MODULE, CLASS, "pathToPostprocessedWikis is not a directory!");
+            return;
+        }
+        try (Stream<File> wikiDirectories = WikiDirectoryLayout.open(root).getWikiDirectories()) {
+            wikiDirectories.forEach(NullMappingCompactor::deleteNullMappingsOfWiki);
+        } catch (IOException | UncheckedIOException ioe) {
+            logger.logMessage(Level.FATAL, MODULE, CLASS, "Could not read the wikis of " + root.getPath() + ": " + ioe.toString());
+        }
+    }
+
+
+    /**
+     * Deletes the null mappings of all mapping files of one wiki.
+     * @param wikiDirectory The directory of the wiki.
+     */
+    public static void deleteNullMappingsOfWiki(File wikiDirectory) {
+        for (String mappingFileName : MAPPING_FILE_NAMES) {
+            File mappingFile = NTriplesSink.Compression.findFile(wikiDirectory, mappingFileName);
+            if (mappingFile.exists()) {
+                deleteNullMappings(mappingFile);
+            }
+        }
+    }
+
+
+    /**
+     * Rewrite mappings file by deleting all included null mappings.
+     * The file is left untouched if it does not contain any null mapping.
+     * @param mappingFile The mapping file.
+     * @return Number of deleted lines.
+     */
+    public static int deleteNullMappings(File mappingFile) {
+
+        Path mappingPath = mappingFile.toPath();
+        Path compactedPath = mappingPath.resolveSibling(mappingFile.getName() + ".compacted");
+        String newLineCharacter = OSDetails.getNewLineCharacter();
+        int deletedLines = 0;
+
+        try {
+            NTriplesSink.Compression compression = NTriplesSink.Compression.of(mappingFile);
+            try (BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(
+                         compression.decompress(Files.newInputStream(mappingPath)), StandardCharsets.UTF_8));
+                 BufferedWriter bufferedWriter = new BufferedWriter(new OutputStreamWriter(
+                         compression.compress(Files.newOutputStream(compactedPath)), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = bufferedReader.readLine()) != null) {
+                    // include everything except null mappings
+                    if (line.contains("<null>")) {
+                        deletedLines++;
+                    } else {
+                        bufferedWriter.write(line);
+                        bufferedWriter.write(newLineCharacter);
+                    }
+                }
+            }
+
+            if (deletedLines == 0) {
+                Files.delete(compactedPath);
+                return 0;
+            }
+
+            try {
+                Files.move(compactedPath, mappingPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException amnse) {
+                Files.move(compactedPath, mappingPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+        } catch (IOException ioe) {
+            logger.logMessage(Level.FATAL, MODULE, CLASS, "Could not delete null mappings of " + mappingFile.getAbsolutePath() + ": " + ioe.toString());
+            try {
+                Files.deleteIfExists(compactedPath);
+            } catch (IOException ioe2) {
+                logger.logMessage(Level.FATAL, MODULE, CLASS, ioe2.toString());
+            }
+            return 0;
+        }
+        return deletedLines;
+    }
+
+}
@@ -5,11 +5,15 @@ import org.apache.jena.ontology.Ontology;
 import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.rdf.model.impl.NTripleWriter;
 import org.apache.jena.rdfxml.xmloutput.impl.Basic;
+import loggingService.MessageLogger;
+import org.apache.log4j.Level;
 import utils.IOoperations;
+import utils.NTriplesSink;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.HashSet;
 
 /**
@@ -17,6 +21,10 @@ import java.util.HashSet;
  */
 public class OntologyCreator {
 
+    private static MessageLogger logger = new MessageLogger();
+    private static final String MODULE = "ExtractionPostprocessing";
+    private static final String CLASS = OntologyCreator.class.getName();
+
     private HashSet<String> classesForDefinition; // contains all classes for which a definition is to be created
     private HashSet<String> propertiesForDefinition; // contains all classes for which a definition is to be created
     private String pathToWikiDirectory;
@@ -43,29 +51,28 @@ public class OntologyCreator {
 
 
     /**
-     * Creates an ontology.nt file in wikiDirectory
+     * Creates an ontology.nt file in wikiDirectory.
+     * The classes are streamed into the file (compression and sorting as set in config.properties).
      */
     public void createOntology(){
 
-        StringBuffer contentForOntologyFile = new StringBuffer();
-        String lineToAdd = "";
+        try (NTriplesSink sink = NTriplesSink.createConfiguredSink(new File(pathToWikiDirectory + "/ontology.nt"))) {
 
-        // add classes
-        for(String classToAdd : classesForDefinition){
-            lineToAdd = classToAdd + " <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> <http://www.w3.org/2002/07/owl#Class> .\n";
-            contentForOntologyFile.append(lineToAdd);
-        }
+            // add classes
+            for(String classToAdd : classesForDefinition){
+                sink.writeTriple(classToAdd, "<http://www.w3.org/1999/02/22-rdf-syntax-ns#type>", "<http://www.w3.org/2002/07/owl#Class>");
+            }
 
+            /*
+            // add properties - currently not required
+            for(String propertyToAdd : propertiesForDefinition){
+                sink.writeTriple(propertyToAdd, "<http://www.w3.org/1999/02/22-rdf-syntax-ns#type>", "<http://www.w3.org/2002/07/owl#ObjectProperty>");
+            }
+            */
 
-        /*
-        // add properties - currently not required
-        for(String propertyToAdd : propertiesForDefinition){
-            lineToAdd = propertyToAdd + " <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> <http://www.w3.org/2002/07/owl#ObjectProperty> .\n";
-            contentForOntologyFile.append(lineToAdd);
+        } catch (IOException ioe) {
+            logger.logMessage(Level.FATAL, MODULE, CLASS, "Could not write ontology file in " + pathToWikiDirectory + ": " + ioe.toString());
         }
-        */
-
-        IOoperations.writeContentToFile(new File(pathToWikiDirectory + "/ontology.nt"), contentForOntologyFile.toString());
 
     }
 
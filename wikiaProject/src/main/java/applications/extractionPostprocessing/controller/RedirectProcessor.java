@@ -1,10 +1,17 @@
 package applications.extractionPostprocessing.controller;
 
 import loggingService.MessageLogger;
+import metricsService.LatencyHistogram;
+import metricsService.Metrics;
 import org.apache.log4j.Level;
+import utils.WikiDirectoryLayout;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ResourceBundle;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 /**
  * This class allows to process redirect files from all wikis in the root directory.
@@ -15,6 +22,14 @@ public class RedirectProcessor {
     private static final String MODULE="ExtractionPostprocessing";
     private static final String CLASS=RedirectProcessor.class.getName();
 
+    // metrics
+    private static final LatencyHistogram wikiLatency = Metrics.histogram("redirects_wiki_latency");
+    private static final AtomicInteger remainingWikis = new AtomicInteger();
+
+    static {
+        Metrics.gauge("redirects_wikis_remaining", remainingWikis::get);
+    }
+
 
     /**
      * Process redirect files from all wikis in the root directory.
@@ -27,11 +42,20 @@ public class RedirectProcessor {
 
         if(rootDirectory.isDirectory()) {
 
-            for (File f : rootDirectory.listFiles()) {
-                if (f.isDirectory()) {
+            WikiDirectoryLayout layout = WikiDirectoryLayout.open(rootDirectory);
+            try (Stream<File> wikiDirectories = layout.getWikiDirectories()) {
+                remainingWikis.set((int) layout.getNumberOfWikis());
+                wikiDirectories.forEach(f -> {
+                    long startTime = System.nanoTime();
                     RedirectProcessorSingleWiki processor = new RedirectProcessorSingleWiki(f);
+                    // the files get the target namespace in the same pass, the mapping only reads them
+                    processor.setRewriteNamespace(true);
                     processor.executeRedirects();
-                }
+                    wikiLatency.recordNanosSince(startTime);
+                    remainingWikis.decrementAndGet();
+                });
+            } catch (IOException | UncheckedIOException ioe) {
+                logger.logMessage(Level.FATAL ,MODULE,CLASS,"Could not read the wikis of the root directory: " + ioe.toString());
             }
         } else {
             logger.logMessage(Level.FATAL ,MODULE,CLASS,"Root Directory is not a directory. Aborting process.");
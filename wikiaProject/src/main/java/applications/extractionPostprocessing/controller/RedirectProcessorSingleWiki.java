@@ -1,15 +1,24 @@
 package applications.extractionPostprocessing.controller;
 
 import loggingService.MessageLogger;
+import metricsService.Counter;
+import metricsService.Metrics;
 import org.apache.log4j.Level;
 import utils.IOoperations;
+import utils.IriRewriter;
+import utils.NTriplesSink;
+import utils.NTriplesTokenizer;
+import utils.NTriplesTokenizer.TripleHandler;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.MissingResourceException;
 import java.util.ResourceBundle;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.function.UnaryOperator;
 
 
 /**
@@ -25,6 +34,23 @@ public class RedirectProcessorSingleWiki {
     private File wikiDirectory;
     private String targetNamespace = ResourceBundle.getBundle("config").getString("targetnamespace");
 
+    // whether the dbpedia domain is rewritten into the target namespace of the wiki (see setRewriteNamespace)
+    private boolean rewriteNamespace = false;
+
+    /**
+     * Rewrite rules for links to Wikipedia and Wikimedia Commons (see {@link IriRewriter}); can be replaced by the
+     * file given with wikiLinkRewriteRules in config.properties.
+     */
+    public static final String[] DEFAULT_WIKI_LINK_REWRITE_RULES = {
+            "host\twikipedia.org\t${wiki}.wikia.com",
+            "literal\tcommons.wikimedia.org/wiki/Special:FilePath/\t${wiki}.wikia.com/wiki/File:",
+            "literal\tcommons.wikimedia.org\t${wiki}.wikia.com"
+    };
+
+    // metrics
+    private static final Counter processedTriples = Metrics.counter("redirects_triples");
+    private static final Counter processedBytes = Metrics.counter("redirects_bytes");
+
     /**
      * Constructor
      *
@@ -60,7 +86,7 @@ public class RedirectProcessorSingleWiki {
         // get the redirect file
         File redirectFile = null;
         for (File f : wikiDirectory.listFiles()) {
-            if (f.getName().endsWith("-redirects.ttl")) {
+            if (NTriplesSink.Compression.getUncompressedFileName(f).endsWith("-redirects.ttl")) {
                 // -> redirects file found
                 redirectFile = f;
                 logger.logMessage(Level.INFO, MODULE, CLASS, "Reading from file " + f.getName());
@@ -69,53 +95,14 @@ public class RedirectProcessorSingleWiki {
         }
 
         try {
-
-            BufferedReader br = new BufferedReader(new FileReader(redirectFile));
-
-            String line;
-            Matcher matcher = null;
-            while ((line = br.readLine()) != null) {
-                logger.logMessage(Level.INFO, MODULE, CLASS, line);
-                Pattern pattern = Pattern.compile("<[^<]*>");
-                // regex: <[^<]*>
-                // this regex captures everything between tags including the tags: <...>
-                // there are three tags in every line
-
-                matcher = pattern.matcher(line);
-
-                int index = 0;
-                String key = null;
-                String value = null;
-
-                while (matcher.find()) {
-                    index++;
-                    switch (index) {
-                        case 1:
-                            // first match: key
-                            key = matcher.group();
-//                            logger.info("Key: " + matcher.group());
-                            break;
-                        // (second match: "<http://dbpedia.org/ontology/wikiPageRedirects>"
-                        // always the same -> irrelevant for us
-                        case 3:
-                            value = matcher.group();
-
-                            if (key != null && value != null) {
-                                // key and value found -> add to map and break while loop
-//                                logger.info("Value:  " + matcher.group());
-
-                                redirectsMap.put(key, value);
-                                key = null;
-                                value = null;
-                                break;
-                            }
-                            break;
-                    }
-
+            NTriplesTokenizer.parseFile(redirectFile, triple -> {
+                logger.logMessage(Level.DEBUG, MODULE, CLASS, "Redirect line: {}", triple.getLine());
+                // the predicate is always "<http://dbpedia.org/ontology/wikiPageRedirects>" -> irrelevant for us
+                if (triple.getObjectType() == NTriplesTokenizer.TermType.IRI) {
+                    redirectsMap.put(triple.getSubject(), triple.getObject());
                 }
-            } // end of while ((line = br.readLine()) != null)
-            br.close();
-
+                return true;
+            });
         } catch (IOException ioe) {
             logger.logMessage(Level.FATAL, MODULE, CLASS, ioe.toString());
             return false;
@@ -127,6 +114,9 @@ public class RedirectProcessorSingleWiki {
     /**
      * Replace all synonyms of resources using the redirect file.
      * Method {@link #readRedirects()} will be called if it has not been called before.
+     * Each file is rewritten in one pass that passes its triples through a chain of handlers: wiki link rewrite,
+     * redirects, namespace rewrite (see {@link #setRewriteNamespace(boolean)}) and the writer of the new file.
+     * Lines that are not triples (e.g. comments) are dropped.
      *
      * @return
      */
@@ -145,177 +135,198 @@ public class RedirectProcessorSingleWiki {
         // update label.ttl file with redirects
         updateLabelFile();
 
-        BufferedReader reader;
-
-        StringBuffer newFileContent = new StringBuffer();
-
-        File[] fileList = wikiDirectory.listFiles((dir, name) -> {
+        File[] fileList = wikiDirectory.listFiles(file -> {
+            // the extraction outputs may still be compressed; they are read as streams
+            String name = NTriplesSink.Compression.getUncompressedFileName(file);
             if (name.endsWith(".ttl") && !name.endsWith("-redirects.ttl") && !name.endsWith("labels.ttl")) {
                 // we do not want to process the redirects file itself, labels file is already processed
                 return true;
             }
 
-            logger.logMessage(Level.INFO, MODULE, CLASS, "Skipped: " + name);
+            logger.logMessage(Level.INFO, MODULE, CLASS, "Skipped: {}", name);
             return false;
         });
 
+        IriRewriter wikiLinkRewriter = getWikiLinkRewriter();
+
         for (File f : fileList) {
             // -> we are interested in the file
-            logger.logMessage(Level.INFO, MODULE, CLASS, "Processing: " + f.getName());
-
-            try {
-                reader = new BufferedReader(new FileReader(f));
-
-                String line;
-                Matcher matcher;
-
-                while ((line = reader.readLine()) != null) {
-
-                    if (!f.getName().contains("homepages.ttl")) {
-                        // replace wikipedia links with actual wiki links
-
-                        line = line.replaceAll(Matcher.quoteReplacement("http://[a-z.]*wikipedia.org"),
-                                "http://" + wikiDirectory.getName() + ".wikia.com");
-
-                        // replace commons wikimedia links with actual wiki links to files
-                        if (line.contains("commons.wikimedia.org")) {
-                            line = line.replace("commons.wikimedia.org", wikiDirectory.getName() + ".wikia.com");
-                            line = line.replace("Special:FilePath/", "File:");
-                        }
-                    }
-
-                    Pattern pattern = Pattern.compile("<[^<]*>");
-                    // regex: <[^<]*>
-                    // this regex captures everything between tags including the tags: <...>
-                    // there are three tags in every line, we are not interested in the second tag
-
-                    matcher = pattern.matcher(line);
-                    int index = 0;
-                    boolean isType = false, excludeLine = false;
-
-                    while (matcher.find()) {
-                        index++;
-
-                        switch (index) {
-                            // first and last tag replaced with redirect if one exists
-                            case 1:
-                                if (redirectsMap.containsKey(matcher.group())) {
-                                    // replace operation
-                                    line = line.replace(matcher.group(), getRedirect(matcher.group()));
-                                }
-                                break;
-                            // second match: "<some interlinking tag>"
-                            // if it is of type rdf-schema type, then only keep depending on object
-                            case 2:
-                                if (matcher.group().contains("rdf-syntax-ns#type") && !f.getName().contains("property-definitions.ttl"))
-                                    isType = true;
-                                break;
-                            case 3:
-                                // only include specific objects
-                                if (isType && !(matcher.group().contains("dbpedia.org") || matcher.group().contains("foaf/0.1/Document") || matcher.group().contains("core#Concept"))) {
-                                    excludeLine = true;
-                                } else if (redirectsMap.containsKey(matcher.group())) {
-                                    // replace operation
-                                    line = line.replace(matcher.group(), getRedirect(matcher.group()));
-                                }
-                                break;
-                        }
-
-                    }
-                    if (!excludeLine) {
-                        newFileContent.append(line + "\n"); // the line break must be added
-                    }
-                }
-                reader.close();
-            } catch (IOException ioe) {
-                logger.logMessage(Level.FATAL, MODULE, CLASS, ioe.toString());
+            logger.logMessage(Level.INFO, MODULE, CLASS, "Processing: {}", f.getName());
+
+            TripleHandler redirects = getRedirectHandler(!f.getName().contains("property-definitions.ttl"));
+            // replace wikipedia and commons wikimedia links with actual wiki links (the rules are applied to each term)
+            TripleHandler handler = f.getName().contains("homepages.ttl") ? redirects
+                    : TripleHandler.rewriteTerms(wikiLinkRewriter).andThen(redirects);
+            // the files whose entities are mapped are written with the target namespace of the wiki
+            if (MappingExecutor.isFileToMap(f)) {
+                handler = handler.andThen(getNamespaceHandler());
             }
 
-            // write the new file content into the file if a change occurred
-            File newFile = new File(f.getAbsolutePath());
-            logger.logMessage(Level.INFO, MODULE, CLASS, "Re-Writing File: " + newFile.getName());
-            IOoperations.writeContentToFile(newFile, newFileContent.toString());
-
-            // delete the content after it was written
-            newFileContent = new StringBuffer();
+            rewriteFile(f, handler::andThen);
         } // end of   for (File f : fileList)
 
+        // the redirects file itself only gets the target namespace
+        if (rewriteNamespace) {
+            for (File f : wikiDirectory.listFiles(file -> NTriplesSink.Compression.getUncompressedFileName(file).endsWith("-redirects.ttl"))) {
+                rewriteFile(f, getNamespaceHandler()::andThen);
+            }
+        }
+
         return true;
     }
 
+    /**
+     * @param filterTypes True if rdf:type triples shall only be kept for DBpedia, foaf:Document and skos:Concept
+     *                    objects.
+     * @return A handler that replaces the subject and the object of the triples by their redirects if they exist.
+     */
+    private TripleHandler getRedirectHandler(boolean filterTypes) {
+        return triple -> {
+            // subject and object replaced with redirect if one exists
+            String subject = triple.getSubject();
+            String newSubject = redirectsMap.containsKey(subject) ? getRedirect(subject) : null;
+            String newObject = null;
+
+            if (triple.getObjectType() == NTriplesTokenizer.TermType.IRI) {
+                String object = triple.getObject();
+                // if the predicate is of type rdf-schema type, then only keep depending on object
+                boolean isType = filterTypes && triple.getPredicate().contains("rdf-syntax-ns#type");
+
+                // only include specific objects
+                if (isType && !(object.contains("dbpedia.org") || object.contains("foaf/0.1/Document") || object.contains("core#Concept"))) {
+                    return false;
+                } else if (redirectsMap.containsKey(object)) {
+                    newObject = getRedirect(object);
+                }
+            }
+
+            // replace operation
+            triple.setTerms(newSubject, null, newObject);
+            return true;
+        };
+    }
+
+    /**
+     * @return A handler that rewrites the dbpedia domain into the target namespace of the wiki; a handler that keeps
+     * the triples if the namespace is not rewritten.
+     */
+    private TripleHandler getNamespaceHandler() {
+        if (!rewriteNamespace) {
+            return triple -> true;
+        }
+        return TripleHandler.rewriteTerms(IriRewriter.of(MappingExecutor.NAMESPACE_REWRITE_RULES,
+                "targetNamespace", targetNamespace + "/" + wikiDirectory.getName()));
+    }
+
+    /**
+     * Rewrites a file of the wiki in one pass: its triples are passed to a handler that writes them into a temporary
+     * file that replaces the file (a compressed file is replaced by the uncompressed file).
+     *
+     * @param file          The file.
+     * @param handlerChain  Puts the handlers of the triples in front of the writer of the new file.
+     */
+    private void rewriteFile(File file, UnaryOperator<TripleHandler> handlerChain) {
+        File rewrittenFile = new File(wikiDirectory, NTriplesSink.Compression.getUncompressedFileName(file) + ".tmp");
+        long numberOfTriples;
+        try (BufferedReader reader = IOoperations.getReader(file);
+             BufferedWriter writer = new BufferedWriter(new FileWriter(rewrittenFile), 1 << 16)) {
+            numberOfTriples = NTriplesTokenizer.parse(reader, handlerChain.apply(triple -> {
+                try {
+                    writer.write(triple.getLine());
+                    writer.write('\n'); // the line break must be added
+                } catch (IOException ioe) {
+                    throw new UncheckedIOException(ioe);
+                }
+                return true;
+            }));
+        } catch (IOException | UncheckedIOException ioe) {
+            logger.logMessage(Level.FATAL, MODULE, CLASS, ioe.toString());
+            rewrittenFile.delete();
+            return;
+        }
+        processedTriples.add(numberOfTriples);
+        processedBytes.add(file.length());
+
+        logger.logMessage(Level.INFO, MODULE, CLASS, "Re-Writing File: " + NTriplesSink.Compression.getUncompressedFileName(file));
+        replaceFile(file, rewrittenFile);
+    }
+
+    /**
+     * @return The rewriter for the links to Wikipedia and Wikimedia Commons of this wiki (variable ${wiki}: name of
+     * the wiki directory).
+     */
+    private IriRewriter getWikiLinkRewriter() {
+        HashMap<String, String> variables = new HashMap<>();
+        variables.put("wiki", wikiDirectory.getName());
+        try {
+            String rulesFile = ResourceBundle.getBundle("config").getString("wikiLinkRewriteRules").trim();
+            if (!rulesFile.isEmpty()) {
+                return IriRewriter.fromFile(new File(rulesFile), variables);
+            }
+        } catch (MissingResourceException mre) {
+            // use the default rules
+        } catch (IOException | IllegalArgumentException e) {
+            logger.logMessage(Level.ERROR, MODULE, CLASS, "Could not read the rewrite rules, using the default rules: " + e.getMessage());
+        }
+        return new IriRewriter(Arrays.asList(DEFAULT_WIKI_LINK_REWRITE_RULES), variables);
+    }
+
     /**
      * Update label.ttl file with redirects file and skos properties (skos:prefLabel, skos:altLabel)
      */
     public void updateLabelFile() {
 
-        File[] fileList = wikiDirectory.listFiles((dir, name) -> {
-            if (name.endsWith("labels.ttl")) return true;
-            return false;
-        });
+        File[] fileList = wikiDirectory.listFiles(file -> NTriplesSink.Compression.getUncompressedFileName(file).endsWith("labels.ttl"));
 
         // fileList only contains labels.ttl file
         for (File f : fileList) {
+            rewriteFile(f, writer -> getLabelHandler(getNamespaceHandler().andThen(writer)));
+        }
+    }
 
-            StringBuffer newFileContent = new StringBuffer();
-
-            try {
-                BufferedReader reader = new BufferedReader(new FileReader(f));
-
-                String line;
-                Matcher matcher;
-                String key = null;
-                String redirect;
-
-                while ((line = reader.readLine()) != null) {
-                    Pattern pattern = Pattern.compile("<[^<]*>");
-                    // regex: <[^<]*>
-                    // this regex captures everything between tags including the tags: <...>
-                    // there are only two tags in every line (replace second)
-                    // e.g. <http://uni-mannheim.de/resource/HBO> <http://www.w3.org/2000/01/rdf-schema#label> "HBO"@en .
-
-                    matcher = pattern.matcher(line);
-                    redirect = null;
-
-                    int index = 0;
-
-                    while (matcher.find()) {
-                        index++;
-
-                        switch (index) {
-                            case 1:
-                                key = matcher.group();
-                                if ((redirect = getRedirect(key)) != null) {
-                                    // replace tag with redirect
-                                    line = line.replace(key, redirect);
-                                }
-                                break;
-                            // second match: <http://www.w3.org/2000/01/rdf-schema#label>
-                            case 2:
-                                if ((!redirectsMap.containsKey(key) && redirectsMap.containsValue(key)) || (redirect != null && key == redirect)) {
-                                    // keeping the prefLabel also as rdf-schema
-                                    newFileContent.append(line + "\n");
-                                    // replace tag with skos:prefLabel <http://www.w3.org/2004/02/skos/core#prefLabel>
-                                    line = line.replace(matcher.group(), "<http://www.w3.org/2004/02/skos/core#prefLabel>");
-
-                                } else if (redirect != null) {
-                                    // replace tag with skos:altLabel <http://www.w3.org/2004/02/skos/core#altLabel>
-                                    line = line.replace(matcher.group(), "<http://www.w3.org/2004/02/skos/core#altLabel>");
-                                }
-                                break;
-                        }
-
-                    }
-                    newFileContent.append(line + "\n"); // the line break must be added
-                }
-                reader.close();
-            } catch (IOException ioe) {
-                logger.logMessage(Level.FATAL, MODULE, CLASS, ioe.toString());
+    /**
+     * @param next The handler of the rewritten labels.
+     * @return A handler that replaces the subjects of the labels by their redirects and marks the labels as
+     * preferred or alternate labels.
+     */
+    private TripleHandler getLabelHandler(TripleHandler next) {
+        return triple -> {
+            // there are only two IRIs in every line (replace predicate)
+            // e.g. <http://uni-mannheim.de/resource/HBO> <http://www.w3.org/2000/01/rdf-schema#label> "HBO"@en .
+            String key = triple.getSubject();
+            // replace subject with redirect
+            String redirect = getRedirect(key);
+
+            if ((!redirectsMap.containsKey(key) && redirectsMap.containsValue(key)) || (redirect != null && key == redirect)) {
+                // keeping the prefLabel also as rdf-schema (as a copy, the next handlers may change the triple)
+                triple.setTerms(redirect, null, null);
+                next.handle(triple.copy());
+                // replace predicate with skos:prefLabel <http://www.w3.org/2004/02/skos/core#prefLabel>
+                triple.setTerms(null, "<http://www.w3.org/2004/02/skos/core#prefLabel>", null);
+
+            } else if (redirect != null) {
+                // replace predicate with skos:altLabel <http://www.w3.org/2004/02/skos/core#altLabel>
+                triple.setTerms(redirect, "<http://www.w3.org/2004/02/skos/core#altLabel>", null);
             }
+            return next.handle(triple);
+        };
+    }
 
-            // write the new file content into the file if a change occurred
-            File newFile = new File(f.getAbsolutePath());
-            logger.logMessage(Level.INFO, MODULE, CLASS, "Re-Writing File: " + newFile.getName());
-            IOoperations.writeContentToFile(newFile, newFileContent.toString());
+    /**
+     * Replaces a file of the wiki by its rewritten content. A compressed file is replaced by the uncompressed file.
+     *
+     * @param file          The file that was read.
+     * @param rewrittenFile The rewritten content.
+     */
+    private static void replaceFile(File file, File rewrittenFile) {
+        try {
+            Files.move(rewrittenFile.toPath(), new File(file.getParentFile(), NTriplesSink.Compression.getUncompressedFileName(file)).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+            if (NTriplesSink.Compression.of(file) != NTriplesSink.Compression.NONE) {
+                Files.delete(file.toPath());
+            }
+        } catch (IOException ioe) {
+            logger.logMessage(Level.FATAL, MODULE, CLASS, "Could not replace " + file.getName() + ": " + ioe.toString());
         }
     }
 
@@ -412,4 +423,17 @@ public class RedirectProcessorSingleWiki {
         return wikiDirectory;
     }
 
+    /**
+     * @param rewriteNamespace True if the dbpedia domain shall be rewritten into the target namespace of the wiki
+     *                         (targetnamespace/&lt;wiki&gt;) in the files whose entities are mapped, so the files are
+     *                         only written once by the postprocessing (see {@link RedirectProcessor}).
+     */
+    public void setRewriteNamespace(boolean rewriteNamespace) {
+        this.rewriteNamespace = rewriteNamespace;
+    }
+
+    public boolean isRewriteNamespace() {
+        return rewriteNamespace;
+    }
+
 }
@@ -0,0 +1,66 @@
+package applications.extractionPostprocessing.controller.classmapper;
+
+import applications.extractionPostprocessing.util.BulkMapping;
+import applications.extractionPostprocessing.util.MappingCache;
+
+import java.util.Collection;
+import java.util.HashMap;
+
+/**
+ * Class mapper that caches the mappings of another class mapper across wikis (see {@link MappingCache}).
+ */
+public class CachingClassMapper extends ClassMapper {
+
+    private final ClassMapper classMapper;
+    private final MappingCache cache;
+
+
+    /**
+     * Constructor
+     * @param classMapper The mapper whose mappings are cached; its mappings must not depend on the wiki.
+     * @param maximumSize Maximal number of cached mappings.
+     */
+    public CachingClassMapper(ClassMapper classMapper, int maximumSize) {
+        this.classMapper = classMapper;
+        this.cache = new MappingCache("class_mapping_cache", maximumSize);
+    }
+
+
+    /**
+     * @param classMapper A mapper.
+     * @return The mapper with a cache of the size configured by mappingCacheSize in config.properties; the mapper
+     * itself if the cache is disabled or the mapper is cached already.
+     */
+    public static ClassMapper withConfiguredCache(ClassMapper classMapper) {
+        int cacheSize = BulkMapping.getMappingCacheSize();
+        if (cacheSize <= 0 || classMapper instanceof CachingClassMapper) {
+            return classMapper;
+        }
+        return new CachingClassMapper(classMapper, cacheSize);
+    }
+
+
+    @Override
+    public String mapSingleClass(String classToMap) {
+        return cache.map(classToMap, classMapper::mapSingleClass);
+    }
+
+    @Override
+    public HashMap<String, String> mapAll(Collection<String> classesToMap) {
+        return cache.mapAll(classesToMap, classMapper::mapAll);
+    }
+
+
+    /*
+    ONLY GETTERS BELOW.
+     */
+
+    public ClassMapper getClassMapper() {
+        return classMapper;
+    }
+
+    public MappingCache getCache() {
+        return cache;
+    }
+
+}
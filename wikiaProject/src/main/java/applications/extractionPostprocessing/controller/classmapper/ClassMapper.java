@@ -1,18 +1,55 @@
 package applications.extractionPostprocessing.controller.classmapper;
 
+import applications.extractionPostprocessing.util.BulkMapping;
+import metricsService.Metrics;
 import utils.IOoperations;
+import utils.MemoCache;
+import utils.SpillingStringSet;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.regex.Pattern;
 
 /**
  * Abstract class for property mappers.
  * Note that only one method is to be implemented: mapSingleProperty(String resourceToMap);
+ * Mappers that can look up many classes at once more efficiently can additionally override mapAll(Collection).
  */
 public abstract class ClassMapper {
 
+    /**
+     * Maximal number of memoized transformations per transformation type.
+     */
+    public static final int TRANSFORMATION_CACHE_SIZE = 100000;
+
+    private static final String TEMPLATE_SEGMENT = "/resource/Template:";
+    private static final String ONTOLOGY_SEGMENT = "/ontology/";
+    private static final String CLASS_SEGMENT = "/class/";
+    private static final String[] INFOBOX_PARTS = {"infobox_", "_infobox", "Infobox_", "_Infobox"};
+    private static final int INFOBOX_PART_LENGTH = 8;
+    private static final Pattern DBPEDIA_DOMAIN_PATTERN = Pattern.compile("dbpedia.org");
+
+    // templates repeat heavily across wikis -> the transformations are memoized
+    private static final MemoCache<String, String> CAPITALIZED_ONTOLOGY_CACHE = new MemoCache<>(TRANSFORMATION_CACHE_SIZE);
+    private static final MemoCache<String, String> LOWERCASE_ONTOLOGY_CACHE = new MemoCache<>(TRANSFORMATION_CACHE_SIZE);
+    private static final MemoCache<String, String> CLASS_CACHE = new MemoCache<>(TRANSFORMATION_CACHE_SIZE);
+    private static final MemoCache<List<String>, String> CLASS_IN_NAMESPACE_CACHE = new MemoCache<>(TRANSFORMATION_CACHE_SIZE);
+
+    static {
+        Metrics.cacheGauges("class_transformation_cache",
+                () -> CAPITALIZED_ONTOLOGY_CACHE.getHitCount() + LOWERCASE_ONTOLOGY_CACHE.getHitCount() + CLASS_CACHE.getHitCount() + CLASS_IN_NAMESPACE_CACHE.getHitCount(),
+                () -> CAPITALIZED_ONTOLOGY_CACHE.getMissCount() + LOWERCASE_ONTOLOGY_CACHE.getMissCount() + CLASS_CACHE.getMissCount() + CLASS_IN_NAMESPACE_CACHE.getMissCount());
+    }
+
+    private static volatile String namespaceDomain;
+
+
     /**
      * Maps a single resource. Accepts a dbpedia tag and will map that to the actual DBpedia tag.
      *
@@ -22,6 +59,19 @@ public abstract class ClassMapper {
     public abstract String mapSingleClass(String classToMap);
 
 
+    /**
+     * Maps a collection of classes at once.
+     * The default implementation calls {@link #mapSingleClass(String)} in parallel, so that method has to be
+     * thread-safe. Override this method for set-at-a-time lookups.
+     *
+     * @param classesToMap Templates to be mapped. Example: "<http://dbpedia.org/resource/Template:Speculation>"
+     * @return A HashMap of the form: key = <dbpedia_template_from_wiki> value = <dbpedia_class>
+     */
+    public HashMap<String, String> mapAll(Collection<String> classesToMap) {
+        return BulkMapping.mapInParallel(classesToMap, this::mapSingleClass);
+    }
+
+
     /**
      * Returns all resource mappings of a wiki.
      *
@@ -33,22 +83,38 @@ public abstract class ClassMapper {
 
         HashMap<String, String> result = new HashMap<String, String>();
 
-        for (String resource : classesToMap) {
-            result.put(transformTemplateToOntology(resource, true).replace("dbpedia.org", targetNamespace), mapSingleClass(resource));
+        for (Map.Entry<String, String> mapping : mapAll(classesToMap).entrySet()) {
+            result.put(transformTemplateToOntology(mapping.getKey(), true).replace("dbpedia.org", targetNamespace), mapping.getValue());
         }
         return result;
     }
 
 
     /**
-     * Creates the resources mapping file.
+     * Creates the resources mapping file. The mappings are streamed into the file.
      *
      * @param directory       Directory in which the mapping file shall be created.
      * @param targetNamespace The target namespace that shall be used.
      * @param classesToMap    An array list of the classes for which the mapping shall be created.
      */
     public void writeClassMappingsFile(File directory, String targetNamespace, HashSet<String> classesToMap, boolean includeNullMappings) {
-        IOoperations.writeMappingContentsToFile(getClassMappings(targetNamespace, classesToMap),
+        IOoperations.writeMappingsToFile(mapAll(classesToMap),
+                template -> transformTemplateToOntology(template, true).replace("dbpedia.org", targetNamespace),
+                new File(directory.getAbsolutePath() + "/classMappings.ttl"),
+                "<http://www.w3.org/2002/07/owl#equivalentClass>", includeNullMappings);
+    }
+
+    /**
+     * Creates the class mapping file for a set that may be spilled to disk. The classes are mapped in chunks.
+     *
+     * @param directory       Directory in which the mapping file shall be created.
+     * @param targetNamespace The target namespace that shall be used.
+     * @param classesToMap    The classes for which the mapping shall be created.
+     * @param chunkSize       Maximal number of classes mapped at once.
+     */
+    public void writeClassMappingsFile(File directory, String targetNamespace, SpillingStringSet classesToMap, int chunkSize, boolean includeNullMappings) {
+        IOoperations.writeMappingsToFile(classesToMap, chunkSize, this::mapAll,
+                template -> transformTemplateToOntology(template, true).replace("dbpedia.org", targetNamespace),
                 new File(directory.getAbsolutePath() + "/classMappings.ttl"),
                 "<http://www.w3.org/2002/07/owl#equivalentClass>", includeNullMappings);
     }
@@ -59,39 +125,17 @@ public abstract class ClassMapper {
      * Example:
      * Input: <http://uni-mannheim.de/HarryPotter/resource/Template:Creature_infobox>
      * Output: <http://uni-mannheim.de/HarryPotter/class/Creature>
+     * Results are memoized.
      *
      * @param templateToTransform
      * @return A string representing a class.
      */
     public static String transformTemplateToClass(String templateToTransform, String targetNamespace) {
-
-        String transformedTemplate = templateToTransform;
-
-
-        if (targetNamespace != null) {
-            // check whether entity is already transformed to target targetNamespace
-            String namespaceDomain = ResourceBundle.getBundle("config").getString("targetnamespace");
-            if (!templateToTransform.contains(namespaceDomain) && templateToTransform.contains("dbpedia.org")) {
-                // transform into target targetNamespace
-                transformedTemplate = templateToTransform.replaceAll("dbpedia.org", targetNamespace);
-            }
+        if (targetNamespace == null) {
+            return CLASS_CACHE.get(templateToTransform, template -> transformTemplate(template, CLASS_SEGMENT, true));
         }
-
-        // transform into class
-        transformedTemplate = transformedTemplate.replace("/resource/Template:", "/class/");
-
-        // remove infobox information
-        transformedTemplate = transformedTemplate.replace("infobox_", "");
-        transformedTemplate = transformedTemplate.replace("_infobox", "");
-        transformedTemplate = transformedTemplate.replace("Infobox_", "");
-        transformedTemplate = transformedTemplate.replace("_Infobox", "");
-
-        // transform first character of class name to uppercase
-        transformedTemplate = transformedTemplate.substring(0, transformedTemplate.indexOf("/class/") + 7)
-                + transformedTemplate.substring(transformedTemplate.indexOf("/class/") + 7).substring(0, 1).toUpperCase()
-                + transformedTemplate.substring(transformedTemplate.indexOf("/class/") + 7).substring(1);
-
-        return transformedTemplate;
+        return CLASS_IN_NAMESPACE_CACHE.get(Arrays.asList(templateToTransform, targetNamespace),
+                key -> transformTemplate(replaceNamespace(key.get(0), key.get(1)), CLASS_SEGMENT, true));
     }
 
     /**
@@ -110,35 +154,17 @@ public abstract class ClassMapper {
      * Example:
      * Input: <http://dbpedia.org/resource/Template:Speculation>
      * Output: <http://dbpedia.org/ontology/Speculation>
+     * Results are memoized.
      *
      * @param templateToTransform
      * @param capitalize TRUE if character after /ontology/ should be capitalized. FALSE if it should be in lowercase.
      * @return A string representing a class.
      */
     public static String transformTemplateToOntology(String templateToTransform, boolean capitalize) {
-
-        String transformedTemplate = templateToTransform;
-
-        // transform into ontology
-        transformedTemplate = transformedTemplate.replace("/resource/Template:", "/ontology/");
-
-        // remove infobox information
-        transformedTemplate = transformedTemplate.replace("infobox_", "");
-        transformedTemplate = transformedTemplate.replace("_infobox", "");
-        transformedTemplate = transformedTemplate.replace("Infobox_", "");
-        transformedTemplate = transformedTemplate.replace("_Infobox", "");
-
-        // transform first character of class name to uppercase
-        if(capitalize) {
-            transformedTemplate = transformedTemplate.substring(0, transformedTemplate.indexOf("/ontology/") + 10)
-                    + transformedTemplate.substring(transformedTemplate.indexOf("/ontology/") + 10).substring(0, 1).toUpperCase()
-                    + transformedTemplate.substring(transformedTemplate.indexOf("/ontology/") + 10).substring(1);
-        } else {
-            transformedTemplate = transformedTemplate.substring(0, transformedTemplate.indexOf("/ontology/") + 10)
-                    + transformedTemplate.substring(transformedTemplate.indexOf("/ontology/") + 10).substring(0, 1).toLowerCase()
-                    + transformedTemplate.substring(transformedTemplate.indexOf("/ontology/") + 10).substring(1);
+        if (capitalize) {
+            return CAPITALIZED_ONTOLOGY_CACHE.get(templateToTransform, template -> transformTemplate(template, ONTOLOGY_SEGMENT, true));
         }
-        return transformedTemplate;
+        return LOWERCASE_ONTOLOGY_CACHE.get(templateToTransform, template -> transformTemplate(template, ONTOLOGY_SEGMENT, false));
     }
 
 
@@ -159,6 +185,170 @@ public abstract class ClassMapper {
         return result;
     }
 
-}
+
+    /**
+     * Replaces "dbpedia.org" by the target namespace unless the template is already in the namespace of the
+     * configuration.
+     * @param templateToTransform Template to transform.
+     * @param targetNamespace The target namespace.
+     * @return Template in the target namespace.
+     */
+    private static String replaceNamespace(String templateToTransform, String targetNamespace) {
+        if (!templateToTransform.contains(getNamespaceDomain()) && templateToTransform.contains("dbpedia.org")) {
+            // transform into target targetNamespace
+            return DBPEDIA_DOMAIN_PATTERN.matcher(templateToTransform).replaceAll(targetNamespace);
+        }
+        return templateToTransform;
+    }
+
+
+    /**
+     * @return The target namespace of the configuration (read only once).
+     */
+    private static String getNamespaceDomain() {
+        if (namespaceDomain == null) {
+            namespaceDomain = ResourceBundle.getBundle("config").getString("targetnamespace");
+        }
+        return namespaceDomain;
+    }
+
+
+    /**
+     * Transforms a template in a single pass: "/resource/Template:" is replaced by the given segment, the infobox
+     * parts are removed, and the first character after the segment is changed to upper or lower case.
+     * The result is the same as that of replacing the patterns one after another with {@link String#replace}
+     * (in the order "/resource/Template:", "infobox_", "_infobox", "Infobox_", "_Infobox"); the input is returned
+     * unchanged (i.e. without copying) if there is nothing to transform.
+     *
+     * @param templateToTransform Template to transform.
+     * @param segment "/ontology/" or "/class/".
+     * @param capitalize TRUE for upper case, FALSE for lower case.
+     * @return The transformed template.
+     */
+    static String transformTemplate(String templateToTransform, String segment, boolean capitalize) {
+
+        StringBuilder transformed = null;
+        // infobox parts that overlap or are close to each other may interact in the step by step replacement
+        boolean interactingInfoboxParts = false;
+        int endOfLastInfoboxPart = -2 * INFOBOX_PART_LENGTH;
+        int copiedUntil = 0;
+        int length = templateToTransform.length();
+        int i = 0;
+
+        while (i < length) {
+            char c = templateToTransform.charAt(i);
+            int matchLength = 0;
+            if (c == '/' && templateToTransform.startsWith(TEMPLATE_SEGMENT, i)) {
+                matchLength = TEMPLATE_SEGMENT.length();
+            } else if ((c == 'i' || c == 'I') && templateToTransform.startsWith("nfobox_", i + 1)) {
+                matchLength = INFOBOX_PART_LENGTH;
+                // "infobox_Infobox": the underscore belongs to two parts
+                interactingInfoboxParts |= isInfoboxWord(templateToTransform, i + INFOBOX_PART_LENGTH);
+            } else if (c == '_' && isInfoboxWord(templateToTransform, i + 1)) {
+                matchLength = INFOBOX_PART_LENGTH;
+                // "_infobox_": the word belongs to two parts
+                interactingInfoboxParts |= i + INFOBOX_PART_LENGTH < length && templateToTransform.charAt(i + INFOBOX_PART_LENGTH) == '_';
+            }
+
+            if (matchLength == 0) {
+                i++;
+                continue;
+            }
+            if (matchLength == INFOBOX_PART_LENGTH) {
+                interactingInfoboxParts |= i - endOfLastInfoboxPart < INFOBOX_PART_LENGTH;
+                endOfLastInfoboxPart = i + INFOBOX_PART_LENGTH;
+            }
+            if (transformed == null) {
+                transformed = new StringBuilder(length + segment.length());
+            }
+            transformed.append(templateToTransform, copiedUntil, i);
+            if (matchLength == TEMPLATE_SEGMENT.length()) {
+                transformed.append(segment);
+            }
+            i += matchLength;
+            copiedUntil = i;
+        }
+
+        if (transformed != null) {
+            transformed.append(templateToTransform, copiedUntil, length);
+            if (interactingInfoboxParts || containsInfoboxPart(transformed)) {
+                // interacting parts or a removal that joined two fragments to a new part (e.g. "infoInfobox_box_"):
+                // only the step by step replacement reproduces the exact result in these rare cases
+                transformed = new StringBuilder(replaceStepByStep(templateToTransform, segment));
+            }
+        }
+
+        CharSequence text = transformed == null ? templateToTransform : transformed;
+
+        // change case of the first character after the segment (like the original substring arithmetic,
+        // the position is segment length - 1 if there is no segment)
+        int position = indexOf(text, segment) + segment.length();
+        if (position >= text.length()) {
+            throw new StringIndexOutOfBoundsException(position);
+        }
+        char character = text.charAt(position);
+        if (character < 128 && character != 'i' && character != 'I') {
+            // ASCII characters apart from i/I have the same case mapping in all locales
+            char casedCharacter = capitalize ? Character.toUpperCase(character) : Character.toLowerCase(character);
+            if (casedCharacter == character) {
+                return transformed == null ? templateToTransform : transformed.toString();
+            }
+            if (transformed == null) {
+                transformed = new StringBuilder(templateToTransform);
+            }
+            transformed.setCharAt(position, casedCharacter);
+        } else {
+            String casedCharacter = capitalize ? String.valueOf(character).toUpperCase() : String.valueOf(character).toLowerCase();
+            if (transformed == null) {
+                transformed = new StringBuilder(templateToTransform);
+            }
+            transformed.replace(position, position + 1, casedCharacter);
+        }
+        return transformed.toString();
+    }
 
 
+    /**
+     * Replaces the patterns one after another. Only needed for templates with infobox parts nested into each other.
+     * @param templateToTransform Template to transform.
+     * @param segment Replacement of "/resource/Template:".
+     * @return Template with replaced segment and removed infobox parts.
+     */
+    private static String replaceStepByStep(String templateToTransform, String segment) {
+        String transformedTemplate = templateToTransform.replace(TEMPLATE_SEGMENT, segment);
+        for (String infoboxPart : INFOBOX_PARTS) {
+            transformedTemplate = transformedTemplate.replace(infoboxPart, "");
+        }
+        return transformedTemplate;
+    }
+
+
+    /**
+     * @param text Text to check.
+     * @return True if one of the infobox parts occurs in the text.
+     */
+    private static boolean containsInfoboxPart(StringBuilder text) {
+        for (String infoboxPart : INFOBOX_PARTS) {
+            if (text.indexOf(infoboxPart) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * @param text Text to check.
+     * @param position Position in the text.
+     * @return True if "infobox" or "Infobox" starts at the given position.
+     */
+    private static boolean isInfoboxWord(String text, int position) {
+        return text.startsWith("nfobox", position + 1) && (text.charAt(position) == 'i' || text.charAt(position) == 'I');
+    }
+
+
+    private static int indexOf(CharSequence text, String searchString) {
+        return text instanceof String ? ((String) text).indexOf(searchString) : ((StringBuilder) text).indexOf(searchString);
+    }
+
+}
@@ -0,0 +1,66 @@
+package applications.extractionPostprocessing.controller.propertymapper;
+
+import applications.extractionPostprocessing.util.BulkMapping;
+import applications.extractionPostprocessing.util.MappingCache;
+
+import java.util.Collection;
+import java.util.HashMap;
+
+/**
+ * Property mapper that caches the mappings of another property mapper across wikis (see {@link MappingCache}).
+ */
+public class CachingPropertyMapper extends PropertyMapper {
+
+    private final PropertyMapper propertyMapper;
+    private final MappingCache cache;
+
+
+    /**
+     * Constructor
+     * @param propertyMapper The mapper whose mappings are cached; its mappings must not depend on the wiki.
+     * @param maximumSize Maximal number of cached mappings.
+     */
+    public CachingPropertyMapper(PropertyMapper propertyMapper, int maximumSize) {
+        this.propertyMapper = propertyMapper;
+        this.cache = new MappingCache("property_mapping_cache", maximumSize);
+    }
+
+
+    /**
+     * @param propertyMapper A mapper.
+     * @return The mapper with a cache of the size configured by mappingCacheSize in config.properties; the mapper
+     * itself if the cache is disabled or the mapper is cached already.
+     */
+    public static PropertyMapper withConfiguredCache(PropertyMapper propertyMapper) {
+        int cacheSize = BulkMapping.getMappingCacheSize();
+        if (cacheSize <= 0 || propertyMapper instanceof CachingPropertyMapper) {
+            return propertyMapper;
+        }
+        return new CachingPropertyMapper(propertyMapper, cacheSize);
+    }
+
+
+    @Override
+    public String mapSingleProperty(String propertyToMap) {
+        return cache.map(propertyToMap, propertyMapper::mapSingleProperty);
+    }
+
+    @Override
+    public HashMap<String, String> mapAll(Collection<String> propertiesToMap) {
+        return cache.mapAll(propertiesToMap, propertyMapper::mapAll);
+    }
+
+
+    /*
+    ONLY GETTERS BELOW.
+     */
+
+    public PropertyMapper getPropertyMapper() {
+        return propertyMapper;
+    }
+
+    public MappingCache getCache() {
+        return cache;
+    }
+
+}
@@ -1,14 +1,19 @@
 package applications.extractionPostprocessing.controller.propertymapper;
 
+import applications.extractionPostprocessing.util.BulkMapping;
 import utils.IOoperations;
+import utils.SpillingStringSet;
 
 import java.io.File;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 
 /**
  * Abstract class for property mappers.
  * Note that only one method is to be implemented: mapSingleProperty(String resourceToMap);
+ * Mappers that can look up many properties at once more efficiently can additionally override mapAll(Collection).
  */
 public abstract class PropertyMapper {
 
@@ -21,6 +26,18 @@ public abstract class PropertyMapper {
     public abstract String mapSingleProperty(String propertyToMap);
 
 
+    /**
+     * Maps a collection of properties at once.
+     * The default implementation calls {@link #mapSingleProperty(String)} in parallel, so that method has to be
+     * thread-safe. Override this method for set-at-a-time lookups.
+     * @param propertiesToMap Properties to be mapped. Example: "<http://dbpedia.org/property/type>"
+     * @return A HashMap of the form: key = <dbpedia_tag_from_wiki> value = <dbpedia_property>
+     */
+    public HashMap<String, String> mapAll(Collection<String> propertiesToMap) {
+        return BulkMapping.mapInParallel(propertiesToMap, this::mapSingleProperty);
+    }
+
+
     /**
      * Returns all resource mappings of a wiki.
      * @param targetNamespace The target namespace.
@@ -32,21 +49,36 @@ public abstract class PropertyMapper {
 
         HashMap<String, String> result = new HashMap<String, String>();
 
-        for(String resource : propertiesToMap){
-            result.put(resource.replace("dbpedia.org", targetNamespace), mapSingleProperty(resource));
+        for(Map.Entry<String, String> mapping : mapAll(propertiesToMap).entrySet()){
+            result.put(mapping.getKey().replace("dbpedia.org", targetNamespace), mapping.getValue());
         }
         return result;
     }
 
 
     /**
-     * Creates the resources mapping file.
+     * Creates the resources mapping file. The mappings are streamed into the file.
      * @param directory Directory in which the mapping file shall be created.
      * @param targetNamespace The target namespace that shall be used.
      * @param propertiesToMap An array list of the properties for which the mapping shall be created.
      */
     public void writePropertiesMappingsFile(File directory, String targetNamespace, HashSet<String> propertiesToMap, boolean includeNullMappings) {
-        IOoperations.writeMappingContentsToFile(getPropertyMappings(targetNamespace, propertiesToMap),
+        IOoperations.writeMappingsToFile(mapAll(propertiesToMap),
+                property -> property.replace("dbpedia.org", targetNamespace),
+                new File(directory.getAbsolutePath() + "/propertyMappings.ttl"),
+                "<http://www.w3.org/2002/07/owl#equivalentProperty>", includeNullMappings);
+    }
+
+    /**
+     * Creates the properties mapping file for a set that may be spilled to disk. The properties are mapped in chunks.
+     * @param directory Directory in which the mapping file shall be created.
+     * @param targetNamespace The target namespace that shall be used.
+     * @param propertiesToMap The properties for which the mapping shall be created.
+     * @param chunkSize Maximal number of properties mapped at once.
+     */
+    public void writePropertiesMappingsFile(File directory, String targetNamespace, SpillingStringSet propertiesToMap, int chunkSize, boolean includeNullMappings) {
+        IOoperations.writeMappingsToFile(propertiesToMap, chunkSize, this::mapAll,
+                property -> property.replace("dbpedia.org", targetNamespace),
                 new File(directory.getAbsolutePath() + "/propertyMappings.ttl"),
                 "<http://www.w3.org/2002/07/owl#equivalentProperty>", includeNullMappings);
     }
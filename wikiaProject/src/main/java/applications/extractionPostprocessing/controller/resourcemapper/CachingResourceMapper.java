@@ -0,0 +1,66 @@
+package applications.extractionPostprocessing.controller.resourcemapper;
+
+import applications.extractionPostprocessing.util.BulkMapping;
+import applications.extractionPostprocessing.util.MappingCache;
+
+import java.util.Collection;
+import java.util.HashMap;
+
+/**
+ * Resource mapper that caches the mappings of another resource mapper across wikis (see {@link MappingCache}).
+ */
+public class CachingResourceMapper extends ResourceMapper {
+
+    private final ResourceMapper resourceMapper;
+    private final MappingCache cache;
+
+
+    /**
+     * Constructor
+     * @param resourceMapper The mapper whose mappings are cached; its mappings must not depend on the wiki.
+     * @param maximumSize Maximal number of cached mappings.
+     */
+    public CachingResourceMapper(ResourceMapper resourceMapper, int maximumSize) {
+        this.resourceMapper = resourceMapper;
+        this.cache = new MappingCache("resource_mapping_cache", maximumSize);
+    }
+
+
+    /**
+     * @param resourceMapper A mapper.
+     * @return The mapper with a cache of the size configured by mappingCacheSize in config.properties; the mapper
+     * itself if the cache is disabled or the mapper is cached already.
+     */
+    public static ResourceMapper withConfiguredCache(ResourceMapper resourceMapper) {
+        int cacheSize = BulkMapping.getMappingCacheSize();
+        if (cacheSize <= 0 || resourceMapper instanceof CachingResourceMapper) {
+            return resourceMapper;
+        }
+        return new CachingResourceMapper(resourceMapper, cacheSize);
+    }
+
+
+    @Override
+    public String mapSingleResource(String resourceToMap) {
+        return cache.map(resourceToMap, resourceMapper::mapSingleResource);
+    }
+
+    @Override
+    public HashMap<String, String> mapAll(Collection<String> resourcesToMap) {
+        return cache.mapAll(resourcesToMap, resourceMapper::mapAll);
+    }
+
+
+    /*
+    ONLY GETTERS BELOW.
+     */
+
+    public ResourceMapper getResourceMapper() {
+        return resourceMapper;
+    }
+
+    public MappingCache getCache() {
+        return cache;
+    }
+
+}
@@ -1,14 +1,19 @@
 package applications.extractionPostprocessing.controller.resourcemapper;
 
+import applications.extractionPostprocessing.util.BulkMapping;
 import utils.IOoperations;
+import utils.SpillingStringSet;
 
 import java.io.File;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 
 /**
  * Abstract class fro resource mappers.
  * Note that only one method is to be implemented: mapSingleResource(String resourceToMap);
+ * Mappers that can look up many resources at once more efficiently can additionally override mapAll(Collection).
  */
 public abstract class ResourceMapper {
 
@@ -20,6 +25,18 @@ public abstract class ResourceMapper {
     public abstract String mapSingleResource(String resourceToMap);
 
 
+    /**
+     * Maps a collection of resources at once.
+     * The default implementation calls {@link #mapSingleResource(String)} in parallel, so that method has to be
+     * thread-safe. Override this method for set-at-a-time lookups (e.g. batched queries).
+     * @param resourcesToMap DBpedia tags from wiki to be mapped. Example: "<http://dbpedia.org/resource/Stomp>"
+     * @return A HashMap of the form: key = <dbpedia_tag_from_wiki> value = <dbpedia_resource>
+     */
+    public HashMap<String, String> mapAll(Collection<String> resourcesToMap) {
+        return BulkMapping.mapInParallel(resourcesToMap, this::mapSingleResource);
+    }
+
+
     /**
      * Returns all resource mappings of a wiki.
      * @param targetNamespace The target namespace.
@@ -30,21 +47,36 @@ public abstract class ResourceMapper {
 
         HashMap<String, String> result = new HashMap<String, String>();
 
-        for(String resource : resourcesToMap){
-            result.put(resource.replace("dbpedia.org", targetNamespace), mapSingleResource(resource));
+        for(Map.Entry<String, String> mapping : mapAll(resourcesToMap).entrySet()){
+            result.put(mapping.getKey().replace("dbpedia.org", targetNamespace), mapping.getValue());
         }
         return result;
     }
 
 
     /**
-     * Creates the resources mapping file.
+     * Creates the resources mapping file. The mappings are streamed into the file.
      * @param directory Directory in which the mapping file shall be created.
      * @param targetNamespace The target namespace that shall be used.
      * @param resourcesToMap An array list of the resources for which the mapping shall be created.
      */
     public void writeResourceMappingsFile(File directory, String targetNamespace, HashSet<String> resourcesToMap, boolean includeNullMappings) {
-        IOoperations.writeMappingContentsToFile(getResourceMappings(targetNamespace, resourcesToMap),
+        IOoperations.writeMappingsToFile(mapAll(resourcesToMap),
+                resource -> resource.replace("dbpedia.org", targetNamespace),
+                new File(directory.getAbsolutePath() + "/resourceMappings.ttl"),
+                "<http://www.w3.org/2002/07/owl#sameAs>", includeNullMappings);
+    }
+
+    /**
+     * Creates the resources mapping file for a set that may be spilled to disk. The resources are mapped in chunks.
+     * @param directory Directory in which the mapping file shall be created.
+     * @param targetNamespace The target namespace that shall be used.
+     * @param resourcesToMap The resources for which the mapping shall be created.
+     * @param chunkSize Maximal number of resources mapped at once.
+     */
+    public void writeResourceMappingsFile(File directory, String targetNamespace, SpillingStringSet resourcesToMap, int chunkSize, boolean includeNullMappings) {
+        IOoperations.writeMappingsToFile(resourcesToMap, chunkSize, this::mapAll,
+                resource -> resource.replace("dbpedia.org", targetNamespace),
                 new File(directory.getAbsolutePath() + "/resourceMappings.ttl"),
                 "<http://www.w3.org/2002/07/owl#sameAs>", includeNullMappings);
     }
@@ -3,6 +3,10 @@ package applications.extractionPostprocessing.controller.resourcemapper;
 import applications.extractionPostprocessing.util.DBpediaResourceServiceOnline;
 import applications.extractionPostprocessing.model.ResourceServiceResult;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+
 
 /**
  * Third mapper implementation.
@@ -12,26 +16,73 @@ import applications.extractionPostprocessing.model.ResourceServiceResult;
 @Deprecated
 public class ResourceMapper_3 extends ResourceMapper {
 
+    private DBpediaResourceServiceOnline service;
+
+    /**
+     * Constructor using the public DBpedia endpoint.
+     */
+    public ResourceMapper_3() {
+        this(new DBpediaResourceServiceOnline());
+    }
+
+    /**
+     * Constructor
+     * @param service The service used for all lookups of this mapper.
+     */
+    public ResourceMapper_3(DBpediaResourceServiceOnline service) {
+        this.service = service;
+    }
+
+    @Override
+    public HashMap<String, String> mapAll(Collection<String> resourcesToMap) {
+
+        // look up all resources in batches instead of one query per resource
+        ArrayList<String> resourcesToLookUp = new ArrayList<>();
+        for (String resource : resourcesToMap) {
+            if (!resource.contains("/File:")) {
+                resourcesToLookUp.add(resource);
+            }
+        }
+        HashMap<String, ResourceServiceResult> lookupResults = service.getResourcesAndRedirectsInDBpedia(resourcesToLookUp);
+
+        HashMap<String, String> result = new HashMap<>();
+        for (String resource : resourcesToMap) {
+            if (resource.contains("/File:")) {
+                result.put(resource, "<null>");
+            } else {
+                result.put(resource, mapLookupResult(resource, lookupResults.get(resource)));
+            }
+        }
+        return result;
+    }
+
     @Override
     public String mapSingleResource(String resourceToMap) {
         if(resourceToMap.contains("/File:")){
             return "<null>";
         } else {
-            DBpediaResourceServiceOnline service = new DBpediaResourceServiceOnline();
-            ResourceServiceResult result = service.getResourceAndRedirectInDBpedia(resourceToMap);
-
-            if(result.resourceExists){
-                if(result.redirectResource != null){
-                    // redirect source found
-                    return result.redirectResource;
-                } else {
-                    // -> no redirect resource -> use dbPediaResource
-                    return(resourceToMap);
-                }
+            return mapLookupResult(resourceToMap, service.getResourceAndRedirectInDBpedia(resourceToMap));
+        }
+    }
+
+    /**
+     * Derives the mapping of a resource from its lookup result.
+     * @param resourceToMap DBpedia tag from wiki to be mapped.
+     * @param result The lookup result of the resource.
+     * @return DBpedia resource or <null>.
+     */
+    private String mapLookupResult(String resourceToMap, ResourceServiceResult result) {
+        if(result.resourceExists){
+            if(result.redirectResource != null){
+                // redirect source found
+                return result.redirectResource;
             } else {
-                // -> resource does not exist -> map to <null>
-                return "<null>";
+                // -> no redirect resource -> use dbPediaResource
+                return(resourceToMap);
             }
+        } else {
+            // -> resource does not exist -> map to <null>
+            return "<null>";
         }
     }
 
@@ -0,0 +1,122 @@
+package applications.extractionPostprocessing.controller.resourcemapper;
+
+import applications.extractionPostprocessing.util.DBpediaResourceService;
+import applications.extractionPostprocessing.util.SortedDBpediaIndex;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+
+/**
+ * Sorted-merge variant of {@link ResourceMapper_4_1} with the same mappings (page ids and redirects whose tags only
+ * differ in case are resolved like in the hash maps of ResourceMapper_4_1: the last one in the files wins).
+ * Instead of probing the page ids and redirects hash maps, the lower-cased resources are sorted and merged against the
+ * sorted on-disk index of the DBpedia page ids and redirects ({@link SortedDBpediaIndex}). This needs sequential I/O
+ * and almost no heap, so it suits workers that cannot hold the DBpedia maps in memory.
+ * - automatically maps files to <null>
+ * - checks whether a resource exists before mapping it (using a merge join)
+ * - does not map lists
+ */
+public class ResourceMapper_4_2 extends ResourceMapper {
+
+    private SortedDBpediaIndex index;
+
+    /**
+     * Constructor. The default index of the root directory is used (and built on first use if necessary).
+     */
+    public ResourceMapper_4_2() {
+        // index is loaded lazily
+    }
+
+    /**
+     * Constructor
+     * @param index The index to be used.
+     */
+    public ResourceMapper_4_2(SortedDBpediaIndex index) {
+        this.index = index;
+    }
+
+
+    @Override
+    public String mapSingleResource(String resourceToMap) {
+        return mapAll(Collections.singletonList(resourceToMap)).get(resourceToMap);
+    }
+
+
+    /**
+     * Maps all resources with one merge join over the index.
+     * @param resourcesToMap DBpedia tags from wiki to be mapped. Example: "<http://dbpedia.org/resource/Stomp>"
+     * @return A HashMap of the form: key = <dbpedia_tag_from_wiki> value = <dbpedia_resource>
+     * @throws UncheckedIOException if the index cannot be read.
+     */
+    @Override
+    public HashMap<String, String> mapAll(Collection<String> resourcesToMap) {
+        HashMap<String, String> result = new HashMap<>();
+
+        // pairs of lower-cased key and resource, sorted by key
+        ArrayList<String[]> resources = new ArrayList<>(resourcesToMap.size());
+        for (String resource : resourcesToMap) {
+            if (resource.contains("/File:")) {
+                result.put(resource, "<null>");
+            } else {
+                resources.add(new String[]{DBpediaResourceService.addTagsIfNotAtag(resource).toLowerCase(), resource});
+            }
+        }
+        resources.sort((pair1, pair2) -> pair1[0].compareTo(pair2[0]));
+
+        ArrayList<String> keys = new ArrayList<>(resources.size());
+        for (String[] pair : resources) {
+            if (keys.isEmpty() || !keys.get(keys.size() - 1).equals(pair[0])) {
+                keys.add(pair[0]);
+            }
+        }
+
+        int[] position = {0};
+        try {
+            getIndex().mergeJoin(keys, (key, entry) -> {
+                String mapping = getMapping(entry);
+                while (position[0] < resources.size() && resources.get(position[0])[0].equals(key)) {
+                    result.put(resources.get(position[0])[1], mapping);
+                    position[0]++;
+                }
+            });
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+        return result;
+    }
+
+
+    /**
+     * @param entry The index entry of a resource; null if the resource does not exist.
+     * @return The mapping of the resource.
+     */
+    private static String getMapping(SortedDBpediaIndex.Entry entry) {
+        if (entry == null) {
+            // -> resource does not exist -> map to <null>
+            return "<null>";
+        }
+        if (entry.redirect != null) {
+            // redirect source found
+            if (entry.redirect.toLowerCase().contains("list_") || entry.redirect.toLowerCase().contains("places_")) {
+                //-> the redirect resource is likely an enumeration of other resources; do not link to it
+                return "<null>";
+            } else {
+                return entry.redirect;
+            }
+        }
+        // -> no redirect resource -> use dbPediaResource
+        return entry.resource;
+    }
+
+    private synchronized SortedDBpediaIndex getIndex() {
+        if (index == null) {
+            index = SortedDBpediaIndex.getDefaultIndex();
+        }
+        return index;
+    }
+
+}
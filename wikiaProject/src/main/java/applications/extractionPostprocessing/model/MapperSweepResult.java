@@ -0,0 +1,26 @@
+package applications.extractionPostprocessing.model;
+
+import applications.extractionPostprocessing.controller.MappingEvaluator.EvaluationObjectSingleWiki;
+
+/**
+ * Data structure for the evaluation result of one mapper variant in a mapper sweep.
+ */
+public class MapperSweepResult {
+
+    public MapperSweepResult(String mapperName, EvaluationObjectSingleWiki evaluationObject, EvaluationResultAllWikis evaluationResult,
+                             int numberOfWikis, int numberOfAnnotations, long runtimeInMilliseconds) {
+        this.mapperName = mapperName;
+        this.evaluationObject = evaluationObject;
+        this.evaluationResult = evaluationResult;
+        this.numberOfWikis = numberOfWikis;
+        this.numberOfAnnotations = numberOfAnnotations;
+        this.runtimeInMilliseconds = runtimeInMilliseconds;
+    }
+
+    public String mapperName;
+    public EvaluationObjectSingleWiki evaluationObject;
+    public EvaluationResultAllWikis evaluationResult;
+    public int numberOfWikis;
+    public int numberOfAnnotations;
+    public long runtimeInMilliseconds;
+}
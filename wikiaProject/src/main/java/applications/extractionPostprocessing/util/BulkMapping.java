@@ -0,0 +1,55 @@
+package applications.extractionPostprocessing.util;
+
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Helper for the default bulk mapping implementation of resource, property and class mappers.
+ */
+public class BulkMapping {
+
+    // number of mappings cached across wikis per mapper if not configured (mappingCacheSize)
+    private static final int DEFAULT_MAPPING_CACHE_SIZE = 500000;
+
+    /**
+     * Maps all distinct elements of a collection in parallel using the given single-element mapping function.
+     * In contrast to {@link Collectors#toMap(Function, Function)} null mappings are allowed.
+     * @param elementsToMap The elements to be mapped.
+     * @param mapSingleElement Function mapping one element; has to be thread-safe.
+     * @return A HashMap with key = element and value = mapping of the element.
+     */
+    public static HashMap<String, String> mapInParallel(Collection<String> elementsToMap, Function<String, String> mapSingleElement) {
+
+        List<Map.Entry<String, String>> mappings = elementsToMap.parallelStream()
+                .distinct()
+                .map(element -> new AbstractMap.SimpleImmutableEntry<>(element, mapSingleElement.apply(element)))
+                .collect(Collectors.toList());
+
+        HashMap<String, String> result = new HashMap<>(Math.max(16, (int) (mappings.size() / 0.75f) + 1));
+        for (Map.Entry<String, String> mapping : mappings) {
+            result.put(mapping.getKey(), mapping.getValue());
+        }
+        return result;
+    }
+
+
+    /**
+     * @return Number of mappings per mapper that are cached across wikis (mappingCacheSize in config.properties);
+     * 0 disables the cache.
+     */
+    public static int getMappingCacheSize() {
+        try {
+            return Integer.parseInt(ResourceBundle.getBundle("config").getString("mappingCacheSize").trim());
+        } catch (MissingResourceException | NumberFormatException e) {
+            return DEFAULT_MAPPING_CACHE_SIZE;
+        }
+    }
+
+}
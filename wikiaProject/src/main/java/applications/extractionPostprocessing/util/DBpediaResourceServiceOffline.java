@@ -3,26 +3,41 @@ package applications.extractionPostprocessing.util;
 import applications.extractionPostprocessing.model.ResourceServiceResult;
 import loggingService.MessageLogger;
 import org.apache.log4j.Level;
+import utils.BlockedBloomFilter;
+import utils.FstIndex;
 import utils.IOoperations;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.HashMap;
+import java.util.ResourceBundle;
+import java.util.TreeMap;
 
 /**
  * A class for storing dbpedia resources.
  * There are 2 requisites when using the class:
  * - make sure that the folder "pageids" exists in the root directory and that there is at least one redirect file in the folder.
  * - make sure that the folder "redirects" exists in the root directory and that there is at least one redirect file in the folder.
+ *
+ * Most resources of a wiki do not exist in DBpedia. Therefore, lookups of resources are answered by a Bloom filter
+ * of the page ids first; only likely hits are looked up in the page ids map. The filter is persisted as
+ * pageids/pageids.bloom, so later runs do not have to build it again.
+ *
+ * The ontology classes, ontology properties and infobox properties are compiled into finite-state transducers
+ * ({@link FstIndex}) that are memory-mapped from resources/vocabularies.fst.
  */
 public class DBpediaResourceServiceOffline extends DBpediaResourceService {
 
-    private static DBpediaResourceServiceOffline DBpediaResourceServiceOfflineObject;
-    private static HashMap<String, String> redirectsMap;
-    private static HashMap<String,String> pageIdsMap;
-    private static HashMap<String,String> ontologiesClassMap;
-    private static HashMap<String,String> ontologiesPropertiesMap;
-    private static HashMap<String,String> propertiesMap;
+    // the maps are loaded lazily and may be read by several mapping threads at once -> volatile
+    private static volatile DBpediaResourceServiceOffline DBpediaResourceServiceOfflineObject;
+    private static volatile HashMap<String, String> redirectsMap;
+    private static volatile HashMap<String,String> pageIdsMap;
+    private static volatile BlockedBloomFilter pageIdsFilter;
+    private static volatile FstIndex ontologiesClassIndex;
+    private static volatile FstIndex ontologiesPropertiesIndex;
+    private static volatile FstIndex propertiesIndex;
     private static MessageLogger logger=new MessageLogger();
     private static final String MODULE="ExtractionPostprocessing";
     private static final String CLASS="DBpediaResourceServiceOffline";
@@ -37,11 +52,13 @@ public class DBpediaResourceServiceOffline extends DBpediaResourceService {
 
     public static DBpediaResourceServiceOffline getDBpediaResourceServiceOfflineObject() {
         if (DBpediaResourceServiceOfflineObject == null) {
-            DBpediaResourceServiceOfflineObject = new DBpediaResourceServiceOffline();
-            return DBpediaResourceServiceOfflineObject;
-        } else {
-            return DBpediaResourceServiceOfflineObject;
+            synchronized (DBpediaResourceServiceOffline.class) {
+                if (DBpediaResourceServiceOfflineObject == null) {
+                    DBpediaResourceServiceOfflineObject = new DBpediaResourceServiceOffline();
+                }
+            }
         }
+        return DBpediaResourceServiceOfflineObject;
     }
 
 
@@ -56,11 +73,11 @@ public class DBpediaResourceServiceOffline extends DBpediaResourceService {
         resource = resource.toLowerCase();
         String redirect;
         if (redirectsMap == null) {
-            loadRedirects();
+            loadRedirectsIfNecessary();
         }
 
         if (pageIdsMap == null) {
-            loadPageIds();
+            loadPageIdsIfNecessary();
         }
 
         if (redirectsMap.get(resource) != null) {
@@ -87,15 +104,33 @@ public class DBpediaResourceServiceOffline extends DBpediaResourceService {
      * @return true if it exist on DBpedia else false
      */
     public boolean resourceExistsInDBpediaIgnoreCase(String resource) {
+        if (!resourceMightExistInDBpediaIgnoreCase(resource)) {
+            return false;
+        }
         resource = resource.toLowerCase();
         if (pageIdsMap == null) {
             // pageIds were not loaded yet
-            this.loadPageIds();
+            loadPageIdsIfNecessary();
         }
         return pageIdsMap.containsKey(resource);
     }
 
 
+    /**
+     * Fast check whether a resource may exist in dbpedia. False means that the resource definitely does not exist;
+     * true means that it exists with a high probability. Casing is ignored.
+     *
+     * @param resource resource/page ID to look for in DBpedia
+     * @return false if it does not exist on DBpedia
+     */
+    public boolean resourceMightExistInDBpediaIgnoreCase(String resource) {
+        if (pageIdsFilter == null) {
+            loadPageIdsFilterIfNecessary();
+        }
+        return pageIdsFilter.mightContainIgnoreCase(resource);
+    }
+
+
     /**
      * This function will return pageID in actual
      * case as stored in DBpedia
@@ -108,7 +143,7 @@ public class DBpediaResourceServiceOffline extends DBpediaResourceService {
 
         if(pageIdsMap==null){
             // pageIds were not loaded yet
-            this.loadPageIds();
+            loadPageIdsIfNecessary();
         }
 
         if(pageIdsMap.get(resource)!=null){
@@ -120,6 +155,55 @@ public class DBpediaResourceServiceOffline extends DBpediaResourceService {
     }
 
 
+    /**
+     * Loads all reference data (page ids, redirects, ontology and properties) that is not loaded yet.
+     * Call this before timing mappers so that the first mapper does not pay for the lazy loading.
+     */
+    public void loadAllIfNecessary() {
+        loadPageIdsFilterIfNecessary();
+        loadPageIdsIfNecessary();
+        loadRedirectsIfNecessary();
+        loadVocabulariesIfNecessary();
+    }
+
+
+    /**
+     * Loads the redirects unless another thread did so in the meantime.
+     */
+    private static synchronized void loadRedirectsIfNecessary() {
+        if (redirectsMap == null) {
+            getDBpediaResourceServiceOfflineObject().loadRedirects();
+        }
+    }
+
+    /**
+     * Loads the page ids unless another thread did so in the meantime.
+     */
+    private static synchronized void loadPageIdsIfNecessary() {
+        if (pageIdsMap == null) {
+            getDBpediaResourceServiceOfflineObject().loadPageIds();
+        }
+    }
+
+    /**
+     * Loads the Bloom filter of the page ids unless another thread did so in the meantime.
+     */
+    private static synchronized void loadPageIdsFilterIfNecessary() {
+        if (pageIdsFilter == null) {
+            getDBpediaResourceServiceOfflineObject().loadPageIdsFilter();
+        }
+    }
+
+    /**
+     * Loads the ontology classes and properties and the infobox properties unless another thread did so in the meantime.
+     */
+    private static synchronized void loadVocabulariesIfNecessary() {
+        if (ontologiesClassIndex == null) {
+            getDBpediaResourceServiceOfflineObject().loadVocabularies();
+        }
+    }
+
+
     /**
      * This function will load the redirect file into a HashMap.
      * If the HashMap already exists, a reload takes place.
@@ -147,7 +231,7 @@ public class DBpediaResourceServiceOffline extends DBpediaResourceService {
         logger.logMessage(Level.INFO,MODULE,CLASS,"Loading page ids from file into memory. This may take a while.");
         try {
             IOoperations ioOps = new IOoperations();
-            this.pageIdsMap = ioOps.getPageIDs();
+            pageIdsMap = ioOps.getPageIDs();
         } catch (Exception e) {
             StringWriter stackTrace = new StringWriter();
             e.printStackTrace(new PrintWriter(stackTrace));
@@ -158,9 +242,59 @@ public class DBpediaResourceServiceOffline extends DBpediaResourceService {
         }
     }
 
+    /**
+     * Reads the persisted Bloom filter of the page ids. If it does not exist or is older than a page ids file, the
+     * filter is built from the page ids and persisted.
+     */
+    private void loadPageIdsFilter() {
+        File pageIdsDirectory = new File(ResourceBundle.getBundle("config").getString("pathToRootDirectory") + "/resources/pageids");
+        File filterFile = new File(pageIdsDirectory, "pageids.bloom");
+
+        if (filterFile.exists() && !isAnyFileNewerThan(pageIdsDirectory, filterFile.lastModified())) {
+            try {
+                pageIdsFilter = BlockedBloomFilter.readFromFile(filterFile);
+                return;
+            } catch (IOException ioe) {
+                logger.logMessage(Level.WARN,MODULE,CLASS,"Could not read " + filterFile.getPath() + ", building it again: " + ioe.toString());
+            }
+        }
+
+        loadPageIdsIfNecessary();
+        logger.logMessage(Level.INFO,MODULE,CLASS,"Building the Bloom filter of the page ids.");
+        BlockedBloomFilter filter = new BlockedBloomFilter(pageIdsMap.size());
+        for (String pageId : pageIdsMap.keySet()) {
+            filter.put(pageId);
+        }
+        pageIdsFilter = filter;
+
+        if (pageIdsDirectory.isDirectory() && !pageIdsMap.isEmpty()) {
+            try {
+                filter.writeToFile(filterFile);
+            } catch (IOException ioe) {
+                logger.logMessage(Level.WARN,MODULE,CLASS,"Could not write " + filterFile.getPath() + ": " + ioe.toString());
+            }
+        }
+    }
+
+    private static boolean isAnyFileNewerThan(File directory, long time) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isFile() && file.lastModified() > time) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     @Override
     public ResourceServiceResult getResourceAndRedirectInDBpedia(String resource) {
         resource = addTagsIfNotAtag(resource);
+        if (!resourceMightExistInDBpediaIgnoreCase(resource)) {
+            // most resources do not exist -> no need to lower-case and look them up
+            return new ResourceServiceResult(false, null);
+        }
         resource = resource.toLowerCase();
 
         ResourceServiceResult result = new ResourceServiceResult();
@@ -177,38 +311,29 @@ public class DBpediaResourceServiceOffline extends DBpediaResourceService {
      * @return true if ontology class is present in DBpedia else false
      */
     public boolean ontologyClassExistInDBpediaIgnoreCase(String resource) {
-        resource = resource.toLowerCase();
-        if (ontologiesClassMap == null) {
+        if (ontologiesClassIndex == null) {
             // ontologies were not loaded yet
-            this.loadOntologyClasses();
+            loadVocabulariesIfNecessary();
         }
-        return ontologiesClassMap.containsKey(resource);
+        return ontologiesClassIndex.getOrdinalIgnoreCase(resource) >= 0;
     }
 
 
     /**
      * This function will return ontology Class in actual
      * case as stored in DBpedia
-     * @param ontology  ontology class to look for in HashMap
+     * @param ontology  ontology class to look for in the index
      * @return ontology class in actual case
      */
     public String getOntologyClassCorrectCase(String ontology){
 
-
-        ontology = ontology.toLowerCase();
-        String ontologyClassValue;
-
-        if(ontologiesClassMap==null){
+        if(ontologiesClassIndex==null){
             // ontologies were not loaded yet
-            this.loadOntologyClasses();
-        }
-
-        if(ontologiesClassMap.get(ontology)!=null){
-            ontologyClassValue = ontologiesClassMap.get(ontology);
+            loadVocabulariesIfNecessary();
         }
-        else ontologyClassValue="<null>";
 
-        return ontologyClassValue;
+        String ontologyClassValue = ontologiesClassIndex.getValueIgnoreCase(ontology);
+        return ontologyClassValue != null ? ontologyClassValue : "<null>";
     }
 
 
@@ -221,20 +346,13 @@ public class DBpediaResourceServiceOffline extends DBpediaResourceService {
      */
     public String getOntologyPropertyCorrectCase(String property){
 
-        property = property.toLowerCase();
-        String ontologyPropertyValue;
-
-        if(ontologiesPropertiesMap==null){
-            // load ontology properties in HashMap
-            this.loadOntologyClasses();
-        }
-
-        if(ontologiesPropertiesMap.get(property)!=null){
-            ontologyPropertyValue = ontologiesPropertiesMap.get(property);
+        if(ontologiesPropertiesIndex==null){
+            // load ontology properties
+            loadVocabulariesIfNecessary();
         }
-        else ontologyPropertyValue="<null>";
 
-        return ontologyPropertyValue;
+        String ontologyPropertyValue = ontologiesPropertiesIndex.getValueIgnoreCase(property);
+        return ontologyPropertyValue != null ? ontologyPropertyValue : "<null>";
     }
 
 
@@ -246,12 +364,11 @@ public class DBpediaResourceServiceOffline extends DBpediaResourceService {
      * @return true if property is present in ontology file otherwise false
      */
     public boolean propertyExistInDBPediaOntologyIgnoreCase(String resource) {
-        resource = resource.toLowerCase();
-        if (ontologiesPropertiesMap == null) {
+        if (ontologiesPropertiesIndex == null) {
             //load ontology properties
-            this.loadOntologyClasses();
+            loadVocabulariesIfNecessary();
         }
-        return ontologiesPropertiesMap.containsKey(resource);
+        return ontologiesPropertiesIndex.getOrdinalIgnoreCase(resource) >= 0;
     }
 
 
@@ -263,50 +380,61 @@ public class DBpediaResourceServiceOffline extends DBpediaResourceService {
      * @return true if property is present in DBpedia else false
      */
     public boolean propertyExistInDBPediaIgnoreCase(String resource) {
-        resource = resource.toLowerCase();
-        if (propertiesMap == null) {
-            // pageIds were not loaded yet
-            this.loadPropertiesSet();
+        if (propertiesIndex == null) {
+            // properties were not loaded yet
+            loadVocabulariesIfNecessary();
         }
-        return propertiesMap.containsKey(resource);
+        return propertiesIndex.getOrdinalIgnoreCase(resource) >= 0;
     }
 
 
     /**
      * This function will return property in actual
      * case as stored in DBpedia
-     * @param property  Property to look for in the HashMap.
+     * @param property  Property to look for in the index.
      * @return Property in the correct casing.
      */
     public String getPropertyCorrectCase(String property){
-        property = property.toLowerCase();
-        String propertyValue;
 
-        if(propertiesMap==null){
+        if(propertiesIndex==null){
             // properties were not loaded yet
-            this.loadPropertiesSet();
-        }
-
-        if(propertiesMap.get(property)!=null){
-            propertyValue = propertiesMap.get(property);
+            loadVocabulariesIfNecessary();
         }
-        else propertyValue="<null>";
 
-        return propertyValue;
+        String propertyValue = propertiesIndex.getValueIgnoreCase(property);
+        return propertyValue != null ? propertyValue : "<null>";
     }
 
     /**
-     * This function will loads ontology classes
-     * into static object by calling IO function
+     * Loads the indexes of the ontology classes, the ontology properties and the infobox properties.
+     * The indexes are memory-mapped from resources/vocabularies.fst; if the file does not exist or is older than an
+     * ontology or properties file, the indexes are built from these files and written into it.
      */
-    private void loadOntologyClasses() {
-        logger.logMessage(Level.INFO,MODULE,CLASS,"Loading ontology classes in memory... Please wait.");
+    private void loadVocabularies() {
+        File resourcesDirectory = new File(ResourceBundle.getBundle("config").getString("pathToRootDirectory") + "/resources");
+        File vocabulariesFile = new File(resourcesDirectory, "vocabularies.fst");
+
+        if (vocabulariesFile.exists()
+                && !isAnyFileNewerThan(new File(resourcesDirectory, "ontology"), vocabulariesFile.lastModified())
+                && !isAnyFileNewerThan(new File(resourcesDirectory, "properties"), vocabulariesFile.lastModified())) {
+            try {
+                FstIndex[] indexes = FstIndex.readFile(vocabulariesFile);
+                if (indexes.length == 3) {
+                    publishVocabularies(indexes[0], indexes[1], indexes[2]);
+                    return;
+                }
+            } catch (IOException ioe) {
+                logger.logMessage(Level.WARN,MODULE,CLASS,"Could not read " + vocabulariesFile.getPath() + ", building it again: " + ioe.toString());
+            }
+        }
+
+        logger.logMessage(Level.INFO,MODULE,CLASS,"Loading ontology classes and properties... Please wait.");
 
         try {
             IOoperations ioOps = new IOoperations();
             HashMap<String,String> ontologiesMap = ioOps.getOntologyClasses();
-            ontologiesClassMap = new HashMap<String,String>();
-            ontologiesPropertiesMap = new HashMap<String,String>();
+            TreeMap<String,String> classMap = new TreeMap<String,String>();
+            TreeMap<String,String> propertyMap = new TreeMap<String,String>();
 
             if(ontologiesMap!=null){
                 for(String ontologyClass : ontologiesMap.keySet()){
@@ -316,17 +444,30 @@ public class DBpediaResourceServiceOffline extends DBpediaResourceService {
                    if(resourceName.length() > 0 &&
                            Character.isUpperCase(resourceName.charAt(0))){
 
-                       ontologiesClassMap.put(ontologyClass.toLowerCase(),ontologyClass);
+                       classMap.put(ontologyClass.toLowerCase(),ontologyClass);
 
                    }
                    else{
-                       ontologiesPropertiesMap.put(ontologyClass.toLowerCase(),ontologyClass);
+                       propertyMap.put(ontologyClass.toLowerCase(),ontologyClass);
                    }
 
                 } // end of loop over ontologies map
 
             } // end of if ontologiesMap != null
 
+            FstIndex classIndex = FstIndex.build(classMap);
+            FstIndex propertyIndex = FstIndex.build(propertyMap);
+            FstIndex infoboxPropertyIndex = FstIndex.build(new TreeMap<String,String>(ioOps.getPropertiesSet()));
+            publishVocabularies(classIndex, propertyIndex, infoboxPropertyIndex);
+
+            if (resourcesDirectory.isDirectory() && !(classMap.isEmpty() && propertyMap.isEmpty() && infoboxPropertyIndex.size() == 0)) {
+                try {
+                    FstIndex.writeFile(vocabulariesFile, classIndex, propertyIndex, infoboxPropertyIndex);
+                } catch (IOException ioe) {
+                    logger.logMessage(Level.WARN,MODULE,CLASS,"Could not write " + vocabulariesFile.getPath() + ": " + ioe.toString());
+                }
+            }
+
         } catch (Exception e) {
             StringWriter stackTrace = new StringWriter();
             e.printStackTrace(new PrintWriter(stackTrace));
@@ -336,23 +477,11 @@ public class DBpediaResourceServiceOffline extends DBpediaResourceService {
         }
     }
 
-
-    /**
-     * This function will loads list of properties
-     * into static object by calling IO function
-     */
-    private void loadPropertiesSet() {
-        logger.logMessage(Level.INFO,MODULE,CLASS,"Loading Properties Set in memory. Please wait");
-        try {
-            IOoperations ioOps = new IOoperations();
-            propertiesMap = ioOps.getPropertiesSet();
-        } catch (Exception e) {
-            StringWriter stackTrace = new StringWriter();
-            e.printStackTrace(new PrintWriter(stackTrace));
-
-            logger.logMessage(Level.FATAL,MODULE,CLASS,e.getMessage().toString());
-            logger.logMessage(Level.FATAL,MODULE,CLASS,stackTrace.toString());
-        }
+    private static void publishVocabularies(FstIndex classIndex, FstIndex propertyIndex, FstIndex infoboxPropertyIndex) {
+        // publish the class index last: ontologiesClassIndex != null indicates that all are loaded
+        propertiesIndex = infoboxPropertyIndex;
+        ontologiesPropertiesIndex = propertyIndex;
+        ontologiesClassIndex = classIndex;
     }
 
 }
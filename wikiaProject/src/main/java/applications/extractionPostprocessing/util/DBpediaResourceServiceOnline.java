@@ -1,16 +1,88 @@
 package applications.extractionPostprocessing.util;
 import applications.extractionPostprocessing.model.ResourceServiceResult;
+import loggingService.MessageLogger;
+import metricsService.Metrics;
 import org.apache.jena.query.*;
 import org.apache.jena.rdf.model.RDFNode;
+import org.apache.log4j.Level;
+import utils.LruCache;
 
-import java.util.ArrayList;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * A class handling tasks concerning db-pedia like answering the question whether an entity exists in dbpedia or not.
  * The class can also just execute SPARQL queries for dbpedia.
+ *
+ * Lookups are answered from a size-bounded LRU cache with a time to live. Resources that are not cached are sent to
+ * the {@link SparqlEndpoint SparqlEndpoint} in batches (one VALUES block per query); several batches run concurrently
+ * but never more than the configured number at a time.
  */
 public class DBpediaResourceServiceOnline extends DBpediaResourceService{
 
+    public static final int DEFAULT_BATCH_SIZE = 100;
+    public static final int DEFAULT_MAX_CONCURRENT_BATCHES = 4;
+    public static final int DEFAULT_CACHE_SIZE = 100000;
+    public static final long DEFAULT_CACHE_TIME_TO_LIVE_MILLIS = 24L * 60 * 60 * 1000;
+
+    private static MessageLogger logger = new MessageLogger();
+    private static final String MODULE = "ExtractionPostprocessing";
+    private static final String CLASS = DBpediaResourceServiceOnline.class.getName();
+
+    private final SparqlEndpoint endpoint;
+    private final int batchSize;
+    private final LruCache<String, ResourceServiceResult> cache;
+    private final ExecutorService batchExecutor;
+
+
+    /**
+     * Constructor using the public DBpedia endpoint and default settings.
+     */
+    public DBpediaResourceServiceOnline() {
+        this(SparqlEndpoint.DBPEDIA);
+    }
+
+    /**
+     * Constructor using default settings.
+     * @param endpoint The endpoint to be queried.
+     */
+    public DBpediaResourceServiceOnline(SparqlEndpoint endpoint) {
+        this(endpoint, DEFAULT_BATCH_SIZE, DEFAULT_MAX_CONCURRENT_BATCHES, DEFAULT_CACHE_SIZE, DEFAULT_CACHE_TIME_TO_LIVE_MILLIS);
+    }
+
+    /**
+     * Constructor
+     * @param endpoint The endpoint to be queried.
+     * @param batchSize Maximal number of resources within one query.
+     * @param maxConcurrentBatches Maximal number of queries that are in flight at the same time.
+     * @param cacheSize Maximal number of cached lookup results.
+     * @param cacheTimeToLiveMillis Time in milliseconds after which a cached lookup result expires.
+     */
+    public DBpediaResourceServiceOnline(SparqlEndpoint endpoint, int batchSize, int maxConcurrentBatches,
+                                        int cacheSize, long cacheTimeToLiveMillis) {
+        this.endpoint = endpoint;
+        this.batchSize = Math.max(batchSize, 1);
+        this.cache = new LruCache<>(cacheSize, cacheTimeToLiveMillis);
+        this.batchExecutor = Executors.newFixedThreadPool(Math.max(maxConcurrentBatches, 1), runnable -> {
+            Thread thread = new Thread(runnable, "dbpedia-sparql-batch");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // the metrics show the last created service
+        Metrics.cacheGauges("dbpedia_lookup_cache", cache::getHitCount, cache::getMissCount);
+        if (batchExecutor instanceof ThreadPoolExecutor) {
+            BlockingQueue<Runnable> queue = ((ThreadPoolExecutor) batchExecutor).getQueue();
+            Metrics.gauge("dbpedia_sparql_queue_depth", queue::size);
+        }
+    }
+
+
     /**
      * This method checks whether a resource exists and whether there is a redirect resource on DBpedia.
      * The results are written into the returning object.
@@ -18,36 +90,44 @@ public class DBpediaResourceServiceOnline extends DBpediaResourceService{
      * @return
      */
     public ResourceServiceResult getResourceAndRedirectInDBpedia(String resource){
+        return getResourcesAndRedirectsInDBpedia(Collections.singletonList(resource)).get(resource);
+    }
 
-        resource = addTagsIfNotAtag(resource);
-        System.out.println("Looking up resource " + resource);
-        String query =
-                "SELECT ?uri ?re\n" +
-                "WHERE {\n" +
-                "     ?uri <http://dbpedia.org/ontology/wikiPageID> ?id.\n" +
-                "     FILTER (?uri = " +
-                resource +
-                ")\n" +
-                "     OPTIONAL {?uri <http://dbpedia.org/ontology/wikiPageRedirects> ?re}\n" +
-                "}\n";
-
-        ResultSet resultSet = executeSPARQLquery(query);
-        if(resultSet.hasNext()){
-            QuerySolution solution = resultSet.nextSolution();
-            RDFNode uriNode = solution.get("uri");
-            RDFNode reNode = solution.get("re");
-            if(uriNode.toString() == null){
-                return new ResourceServiceResult(false, null);
+
+    /**
+     * Checks for a set of resources whether they exist and whether there is a redirect resource on DBpedia.
+     * Cached results are reused, all other resources are looked up in batches.
+     * @param resources The resources to be checked (with or without tags).
+     * @return A HashMap with key = resource as given and value = lookup result.
+     */
+    public HashMap<String, ResourceServiceResult> getResourcesAndRedirectsInDBpedia(Collection<String> resources) {
+
+        HashMap<String, ResourceServiceResult> result = new HashMap<>();
+        LinkedHashSet<String> resourcesToQuery = new LinkedHashSet<>();
+
+        for (String resource : resources) {
+            String taggedResource = addTagsIfNotAtag(resource);
+            ResourceServiceResult cachedResult = cache.get(taggedResource);
+            if (cachedResult != null) {
+                result.put(resource, cachedResult);
+            } else if (!isValidIri(taggedResource)) {
+                // the resource cannot be expressed in a query -> it cannot exist on DBpedia
+                result.put(resource, new ResourceServiceResult(false, null));
             } else {
-                if(reNode == null){
-                    return new ResourceServiceResult(true, null);
-                } else {
-                    return new ResourceServiceResult(true, addTagsIfNotAtag(reNode.toString()));
+                resourcesToQuery.add(taggedResource);
+            }
+        }
+
+        if (!resourcesToQuery.isEmpty()) {
+            HashMap<String, ResourceServiceResult> queriedResults = queryInBatches(new ArrayList<>(resourcesToQuery));
+            for (String resource : resources) {
+                if (!result.containsKey(resource)) {
+                    ResourceServiceResult queriedResult = queriedResults.get(addTagsIfNotAtag(resource));
+                    result.put(resource, queriedResult != null ? queriedResult : new ResourceServiceResult(false, null));
                 }
             }
-        } else {
-            return new ResourceServiceResult(false, null);
         }
+        return result;
     }
 
 
@@ -57,19 +137,120 @@ public class DBpediaResourceServiceOnline extends DBpediaResourceService{
      * @return
      */
     public boolean resourceExistsInDBpedia(String resource) {
-        String query =
-                "SELECT ?uri ?id \n" +
-                " WHERE {\n" +
-                "     ?uri <http://dbpedia.org/ontology/wikiPageID> ?id.\n" +
-                "     FILTER (?uri = " +
-                        resource +
-                        ")\n" +
-                " }";
-        if(executeSPARQLquery(query, "id").isEmpty()){
-            return false;
+        return getResourceAndRedirectInDBpedia(resource).resourceExists;
+    }
+
+
+    /**
+     * Splits the resources into batches, queries them concurrently and caches the results.
+     * Results of batches that failed are neither returned nor cached.
+     * @param taggedResources Distinct resources in tag format that are not cached yet.
+     * @return A HashMap with key = tagged resource and value = lookup result.
+     */
+    private HashMap<String, ResourceServiceResult> queryInBatches(List<String> taggedResources) {
+
+        HashMap<String, ResourceServiceResult> result = new HashMap<>();
+
+        if (taggedResources.size() <= batchSize) {
+            // a single batch is run in the calling thread
+            result.putAll(queryBatch(taggedResources));
         } else {
-            return true;
+            ArrayList<Future<HashMap<String, ResourceServiceResult>>> futures = new ArrayList<>();
+            for (int from = 0; from < taggedResources.size(); from += batchSize) {
+                List<String> batch = taggedResources.subList(from, Math.min(from + batchSize, taggedResources.size()));
+                futures.add(batchExecutor.submit(() -> queryBatch(batch)));
+            }
+            for (Future<HashMap<String, ResourceServiceResult>> future : futures) {
+                try {
+                    result.putAll(future.get());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    logger.logMessage(Level.FATAL, MODULE, CLASS, ie.toString());
+                } catch (ExecutionException ee) {
+                    logger.logMessage(Level.FATAL, MODULE, CLASS, ee.getCause().toString());
+                }
+            }
         }
+        return result;
+    }
+
+
+    /**
+     * Looks up one batch of resources with a single SPARQL query and caches the results.
+     * @param taggedResources Resources in tag format.
+     * @return A HashMap with key = tagged resource and value = lookup result. Empty if the query failed.
+     */
+    private HashMap<String, ResourceServiceResult> queryBatch(List<String> taggedResources) {
+
+        HashMap<String, ResourceServiceResult> result = new HashMap<>();
+
+        try (QueryExecution queryExecution = endpoint.createQueryExecution(QueryFactory.create(buildBatchQuery(taggedResources)))) {
+            ResultSet resultSet = queryExecution.execSelect();
+            while (resultSet.hasNext()) {
+                QuerySolution solution = resultSet.nextSolution();
+                RDFNode uriNode = solution.get("uri");
+                RDFNode reNode = solution.get("re");
+                if (uriNode == null) {
+                    continue;
+                }
+                String uri = addTagsIfNotAtag(uriNode.toString());
+                if (reNode == null) {
+                    result.putIfAbsent(uri, new ResourceServiceResult(true, null));
+                } else {
+                    result.putIfAbsent(uri, new ResourceServiceResult(true, addTagsIfNotAtag(reNode.toString())));
+                }
+            }
+        } catch (Exception e) {
+            logger.logMessage(Level.FATAL, MODULE, CLASS, "SPARQL batch lookup of " + taggedResources.size() + " resources failed: " + e.toString());
+            return new HashMap<>();
+        }
+
+        for (String taggedResource : taggedResources) {
+            result.putIfAbsent(taggedResource, new ResourceServiceResult(false, null));
+            cache.put(taggedResource, result.get(taggedResource));
+        }
+        return result;
+    }
+
+
+    /**
+     * Builds the lookup query for a batch of resources.
+     * @param taggedResources Resources in tag format.
+     * @return SPARQL query returning ?uri for every existing resource and ?re for its redirect (if any).
+     */
+    static String buildBatchQuery(List<String> taggedResources) {
+        StringBuilder query = new StringBuilder();
+        query.append("SELECT ?uri ?re\n")
+                .append("WHERE {\n")
+                .append("     VALUES ?uri {");
+        for (String taggedResource : taggedResources) {
+            query.append(' ').append(taggedResource);
+        }
+        query.append(" }\n")
+                .append("     ?uri <http://dbpedia.org/ontology/wikiPageID> ?id.\n")
+                .append("     OPTIONAL {?uri <http://dbpedia.org/ontology/wikiPageRedirects> ?re}\n")
+                .append("}\n");
+        return query.toString();
+    }
+
+
+    /**
+     * Checks whether a tagged resource can be written as IRI reference into a SPARQL query.
+     * @param taggedResource Resource in tag format.
+     * @return true if the resource does not contain characters that are forbidden in an IRI reference.
+     */
+    private static boolean isValidIri(String taggedResource) {
+        if (taggedResource.length() < 3) {
+            return false;
+        }
+        for (int i = 1; i < taggedResource.length() - 1; i++) {
+            char c = taggedResource.charAt(i);
+            if (c <= ' ' || c == '<' || c == '>' || c == '"' || c == '{' || c == '}'
+                    || c == '|' || c == '^' || c == '`' || c == '\\') {
+                return false;
+            }
+        }
+        return true;
     }
 
 
@@ -80,13 +261,10 @@ public class DBpediaResourceServiceOnline extends DBpediaResourceService{
      */
     public ResultSet executeSPARQLquery(String queryString) {
         Query query = QueryFactory.create(queryString);
-        QueryExecution queryExecution = QueryExecutionFactory.sparqlService
-                (
-                        "http://dbpedia.org/sparql",
-                        query,
-                        "http://dbpedia.org"
-                );
-        return queryExecution.execSelect();
+        try (QueryExecution queryExecution = endpoint.createQueryExecution(query)) {
+            // copy the results so that the execution can be closed
+            return ResultSetFactory.copyResults(queryExecution.execSelect());
+        }
     }
 
 
@@ -97,23 +275,40 @@ public class DBpediaResourceServiceOnline extends DBpediaResourceService{
      * @param variableToReturn The name of the column to be returned.
      * @return List of the values of the column that shall be returned.
      */
-    public static ArrayList<String> executeSPARQLquery(String queryString, String variableToReturn) {
+    public ArrayList<String> executeSPARQLquery(String queryString, String variableToReturn) {
         ArrayList<String> resultList = new ArrayList<String>();
         Query query = QueryFactory.create(queryString);
-        QueryExecution queryExecution = QueryExecutionFactory.sparqlService
-                (
-                        "http://dbpedia.org/sparql",
-                        query,
-                        "http://dbpedia.org"
-                );
-
-        ResultSet resultSet = queryExecution.execSelect();
-        while(resultSet.hasNext()){
-            QuerySolution solution = resultSet.nextSolution();
-            RDFNode node = solution.get(variableToReturn);
-            resultList.add(node.toString());
+
+        try (QueryExecution queryExecution = endpoint.createQueryExecution(query)) {
+            ResultSet resultSet = queryExecution.execSelect();
+            while (resultSet.hasNext()) {
+                QuerySolution solution = resultSet.nextSolution();
+                RDFNode node = solution.get(variableToReturn);
+                resultList.add(node.toString());
+            }
         }
         return resultList;
     }
 
+
+    /**
+     * Stops the threads used for concurrent batches. The service must not be used afterwards.
+     */
+    public void shutdown() {
+        batchExecutor.shutdown();
+    }
+
+
+    /*
+    ONLY GETTERS BELOW.
+     */
+
+    public LruCache<String, ResourceServiceResult> getCache() {
+        return cache;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
 }
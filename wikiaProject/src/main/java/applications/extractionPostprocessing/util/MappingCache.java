@@ -0,0 +1,84 @@
+package applications.extractionPostprocessing.util;
+
+import metricsService.Metrics;
+import utils.TinyLfuCache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Cache of the mappings of a mapper across wikis, shared by the caching resource, property and class mappers.
+ * The same entities (in DBpedia form, e.g. "<http://dbpedia.org/resource/London>") occur in many wikis, so most of
+ * them are taken from a bounded, frequency-aware cache ({@link TinyLfuCache}) instead of being mapped again.
+ * The hit rate is exposed as the metrics &lt;name&gt;_hits, &lt;name&gt;_misses and &lt;name&gt;_hit_ratio.
+ */
+public class MappingCache {
+
+    private final TinyLfuCache<String, String> cache;
+
+
+    /**
+     * Constructor
+     * @param name Name of the cache in the metrics, e.g. "resource_mapping_cache".
+     * @param maximumSize Maximal number of cached mappings.
+     */
+    public MappingCache(String name, int maximumSize) {
+        this.cache = new TinyLfuCache<>(maximumSize);
+        Metrics.cacheGauges(name, cache::getHitCount, cache::getMissCount);
+    }
+
+
+    /**
+     * Maps one element, taking its mapping from the cache if it was mapped before.
+     * @param element The element to be mapped.
+     * @param mapSingleElement Function mapping one element, e.g. the mapSingle* method of a mapper.
+     * @return The mapping of the element.
+     */
+    public String map(String element, Function<String, String> mapSingleElement) {
+        return cache.get(element, mapSingleElement);
+    }
+
+    /**
+     * Maps all elements of a collection, taking the mappings of elements that were mapped before from the cache.
+     * Only the remaining elements are passed to the bulk mapping function; their non-null mappings are cached.
+     * @param elementsToMap The elements to be mapped.
+     * @param mapAll Function mapping a collection of elements, e.g. the mapAll method of a mapper.
+     * @return A HashMap with key = element and value = mapping of the element.
+     */
+    public HashMap<String, String> mapAll(Collection<String> elementsToMap,
+                                          Function<Collection<String>, ? extends Map<String, String>> mapAll) {
+        HashMap<String, String> result = new HashMap<>(Math.max(16, (int) (elementsToMap.size() / 0.75f) + 1));
+        ArrayList<String> elementsNotCached = new ArrayList<>();
+        for (String element : elementsToMap) {
+            String mapping = cache.get(element);
+            if (mapping != null) {
+                result.put(element, mapping);
+            } else {
+                elementsNotCached.add(element);
+            }
+        }
+
+        if (!elementsNotCached.isEmpty()) {
+            for (Map.Entry<String, String> mapping : mapAll.apply(elementsNotCached).entrySet()) {
+                result.put(mapping.getKey(), mapping.getValue());
+                if (mapping.getValue() != null) {
+                    cache.put(mapping.getKey(), mapping.getValue());
+                }
+            }
+        }
+        return result;
+    }
+
+
+    /*
+    ONLY GETTERS BELOW.
+     */
+
+    public TinyLfuCache<String, String> getCache() {
+        return cache;
+    }
+
+}
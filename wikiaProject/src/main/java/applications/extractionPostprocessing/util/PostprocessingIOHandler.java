@@ -3,14 +3,13 @@ package applications.extractionPostprocessing.util;
 import loggingService.MessageLogger;
 import org.apache.log4j.Level;
 import utils.IOoperations;
+import utils.NTriplesTokenizer;
+import utils.NTriplesTokenizer.Triple;
 
 import java.io.File;
 import java.io.BufferedReader;
-import java.io.FileReader;
 
 import java.util.HashMap;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 
 /**
@@ -41,43 +40,20 @@ public class PostprocessingIOHandler {
 
         HashMap<String, String> dbPediaExtractorMappings = new HashMap<String, String>();
         BufferedReader bufferedReader;
-        FileReader fileReader;
-        String fileLine ="", key="", value="";
+        String fileLine ="";
+        Triple triple = new Triple();
 
         try {
-            fileReader = new FileReader(fileName);
-            bufferedReader = new BufferedReader(fileReader);
-            lineLoop: while ((fileLine = bufferedReader.readLine()) != null) {
-                if(!fileLine.startsWith("#")) {
-                    // do only if the line does not start with # (used for comment)
-
-                    Matcher matcher = null;
-                    Pattern pattern = Pattern.compile("<[^<]*>");
-                    // regex: <[^<]*>
-                    // this regex captures everything between tags including the tags: <...>
-                    // there are three tags in every line, we are not interested in the second tag
-
-                    int index = 0;
-                    matcher = pattern.matcher(fileLine);
-
-                    while (matcher.find()) {
-                        index++;
-                        if (index == 1) {
-                            if (dbPediaExtractorMappings.containsKey(matcher.group())) {
-                                continue lineLoop;
-                            } else {
-                                key = matcher.group();
-                            }
-                        } else if(index == 3){
-                            value = matcher.group();
-                        }
-                    }
-
-                    dbPediaExtractorMappings.put(key, value);
+            // the mapping files may be compressed (mappingFileCompression in config.properties)
+            bufferedReader = IOoperations.getReader(fileName);
+            while ((fileLine = bufferedReader.readLine()) != null) {
+                // comments (lines starting with #) are skipped by the tokenizer
+                // we are not interested in the predicate
+                if (NTriplesTokenizer.tokenize(fileLine, triple) && !dbPediaExtractorMappings.containsKey(triple.getSubject())) {
+                    dbPediaExtractorMappings.put(triple.getSubject(), triple.getObject());
                 }
             }
             bufferedReader.close();
-            fileReader.close();
         } catch (Exception ex) {
             logger.logMessage(Level.FATAL,MODULE,CLASS,"Problem with file " +  fileName.getAbsolutePath() + "\nwith line: " + fileLine + ex.getMessage());
         }
@@ -0,0 +1,464 @@
+package applications.extractionPostprocessing.util;
+
+import loggingService.MessageLogger;
+import org.apache.log4j.Level;
+import utils.SpillingStringSet;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Sorted on-disk index of the DBpedia page ids and redirects for merge joins.
+ * Every line of the index file is "lower-cased resource tag TAB resource tag in correct case TAB redirect tag (empty if
+ * there is no redirect)"; the lines are sorted by the lower-cased tag. Only resources with a page id are contained.
+ * If several page ids or redirects have the same lower-cased tag, the last one in the files wins, as in the hash maps
+ * of {@link utils.IOoperations#getPageIDs()} and {@link utils.IOoperations#getResourcesRedirects()}.
+ *
+ * Lookups stream over the file instead of loading the page ids and redirects into hash maps (cf.
+ * {@link DBpediaResourceServiceOffline}). A sparse index (the key and byte offset of every
+ * {@value #SPARSE_INDEX_INTERVAL}th line) is kept in memory, so a merge join can skip the parts of the file without
+ * keys to look up.
+ */
+public class SortedDBpediaIndex {
+
+    private static MessageLogger logger=new MessageLogger();
+    private static final String MODULE="ExtractionPostprocessing";
+    private static final String CLASS=SortedDBpediaIndex.class.getName();
+
+    // same line formats as read by IOoperations.getPageIDs() and IOoperations.getResourcesRedirects()
+    private static final Pattern PAGE_ID_LINE_PATTERN = Pattern.compile("<[^<]*> <[^<]*> \"[0-9]+\"[\\^][\\^]<[^<]*> [.]");
+    private static final Pattern REDIRECT_LINE_PATTERN = Pattern.compile("<[^<]*> <[^<]*> <[^<]*> [.]");
+
+    private static final char SEPARATOR = '\t';
+
+    // markers of the intermediate lines while building; page ids are sorted before the redirects of the same key
+    private static final String PAGE_ID_MARKER = SEPARATOR + "1" + SEPARATOR;
+    private static final String REDIRECT_MARKER = SEPARATOR + "2" + SEPARATOR;
+
+    // the marker is followed by the position of the line in the files (fixed width, so lines of one key and marker
+    // are sorted in the order of the files)
+    private static final String SEQUENCE_FORMAT = "%016x";
+    private static final int SEQUENCE_LENGTH = 16;
+
+    private static final int SPARSE_INDEX_INTERVAL = 1024;
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    // memory budget for sorting the page ids and redirects when the default index is built
+    private static final long BUILD_MEMORY_BUDGET_IN_BYTES = 256L * 1024 * 1024;
+
+    private static volatile SortedDBpediaIndex defaultIndex;
+
+    private final File indexFile;
+    private final String[] sparseKeys;
+    private final long[] sparseOffsets;
+    private final long numberOfEntries;
+
+
+    /**
+     * Constructor. Reads the index file once to create the sparse index.
+     * @param indexFile A file written by {@link #build(File, File, File, long, File)}.
+     * @throws IOException if the file cannot be read.
+     */
+    public SortedDBpediaIndex(File indexFile) throws IOException {
+        this.indexFile = indexFile;
+
+        ArrayList<String> keys = new ArrayList<>();
+        ArrayList<Long> offsets = new ArrayList<>();
+        long entries = 0;
+        try (IndexReader reader = new IndexReader(indexFile, 0)) {
+            long offset = reader.getOffset();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (entries % SPARSE_INDEX_INTERVAL == 0) {
+                    keys.add(getKey(line));
+                    offsets.add(offset);
+                }
+                entries++;
+                offset = reader.getOffset();
+            }
+        }
+        this.sparseKeys = keys.toArray(new String[0]);
+        this.sparseOffsets = new long[offsets.size()];
+        for (int i = 0; i < sparseOffsets.length; i++) {
+            sparseOffsets[i] = offsets.get(i);
+        }
+        this.numberOfEntries = entries;
+    }
+
+
+    /**
+     * Returns the index of the page ids and redirects in the resources directory of the root directory
+     * (<root>/resources/sortedIndex/resources.idx). The index is built if it does not exist or if a page ids or
+     * redirects file is newer than the index.
+     * @return The index.
+     * @throws UncheckedIOException if the index cannot be built or read.
+     */
+    public static SortedDBpediaIndex getDefaultIndex() {
+        if (defaultIndex == null) {
+            synchronized (SortedDBpediaIndex.class) {
+                if (defaultIndex == null) {
+                    String pathToRootDirectory = ResourceBundle.getBundle("config").getString("pathToRootDirectory");
+                    File pageIdsDirectory = new File(pathToRootDirectory + "/resources/pageids");
+                    File redirectsDirectory = new File(pathToRootDirectory + "/resources/redirects");
+                    File indexFile = new File(pathToRootDirectory + "/resources/sortedIndex/resources.idx");
+                    try {
+                        if (!indexFile.exists()
+                                || isNewerThan(pageIdsDirectory, indexFile.lastModified())
+                                || isNewerThan(redirectsDirectory, indexFile.lastModified())) {
+                            build(pageIdsDirectory, redirectsDirectory, indexFile, BUILD_MEMORY_BUDGET_IN_BYTES,
+                                    new File(pathToRootDirectory + "/tmp"));
+                        }
+                        defaultIndex = new SortedDBpediaIndex(indexFile);
+                    } catch (IOException ioe) {
+                        logger.logMessage(Level.FATAL,MODULE,CLASS,"Could not load the sorted DBpedia index: " + ioe.toString());
+                        throw new UncheckedIOException(ioe);
+                    }
+                }
+            }
+        }
+        return defaultIndex;
+    }
+
+
+    /**
+     * Builds the index file from the DBpedia page ids and redirects files (*.ttl) with an external sort, so the heap
+     * needed is bounded by the given budget.
+     * @param pageIdsDirectory Directory of the page ids files.
+     * @param redirectsDirectory Directory of the redirects files.
+     * @param indexFile The index file to be written.
+     * @param memoryBudgetInBytes Memory budget for sorting.
+     * @param spillDirectory Directory for the sorted runs.
+     * @throws IOException if a file cannot be read or written.
+     */
+    public static void build(File pageIdsDirectory, File redirectsDirectory, File indexFile, long memoryBudgetInBytes,
+                             File spillDirectory) throws IOException {
+        logger.logMessage(Level.INFO,MODULE,CLASS,"Building the sorted DBpedia index {}. This may take a while.", indexFile.getPath());
+
+        try (SpillingStringSet lines = new SpillingStringSet(memoryBudgetInBytes, spillDirectory)) {
+            long sequence = 0;
+
+            for (File pageIdsFile : getTurtleFiles(pageIdsDirectory)) {
+                try (BufferedReader reader = newReader(pageIdsFile)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        line = line.trim();
+                        if (!line.startsWith("#") && PAGE_ID_LINE_PATTERN.matcher(line).matches()) {
+                            String pageId = line.substring(0, line.indexOf(">") + 1);
+                            lines.add(pageId.toLowerCase() + PAGE_ID_MARKER + String.format(SEQUENCE_FORMAT, sequence++) + SEPARATOR + pageId);
+                        }
+                    }
+                }
+            }
+
+            for (File redirectsFile : getTurtleFiles(redirectsDirectory)) {
+                try (BufferedReader reader = newReader(redirectsFile)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        line = line.trim();
+                        if (!line.startsWith("#") && REDIRECT_LINE_PATTERN.matcher(line).matches()) {
+                            String resource = line.substring(0, line.indexOf(">") + 1).toLowerCase();
+                            String redirect = line.substring(line.lastIndexOf("<"), line.lastIndexOf(">") + 1);
+                            lines.add(resource + REDIRECT_MARKER + String.format(SEQUENCE_FORMAT, sequence++) + SEPARATOR + redirect);
+                        }
+                    }
+                }
+            }
+
+            File parent = indexFile.getAbsoluteFile().getParentFile();
+            if (!parent.exists()) {
+                parent.mkdirs();
+            }
+            File temporaryFile = new File(indexFile.getPath() + ".tmp");
+            try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temporaryFile), StandardCharsets.UTF_8), READ_BUFFER_SIZE)) {
+                EntryWriter entryWriter = new EntryWriter(writer);
+                lines.forEachSorted(entryWriter);
+                entryWriter.flush();
+            } catch (UncheckedIOException uioe) {
+                temporaryFile.delete();
+                throw uioe.getCause();
+            }
+            Files.move(temporaryFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+
+    /**
+     * Merges the given keys against the index and passes every key together with its entry to the consumer.
+     * The keys are passed in the given order.
+     * @param sortedKeys Distinct lower-cased resource tags, sorted by {@link String#compareTo(String)}.
+     * @param consumer Receives each key and its entry (null if the resource has no page id).
+     * @throws IOException if the index file cannot be read.
+     */
+    public void mergeJoin(List<String> sortedKeys, BiConsumer<String, Entry> consumer) throws IOException {
+        if (sortedKeys.isEmpty()) {
+            return;
+        }
+        if (sparseKeys.length == 0) {
+            sortedKeys.forEach(key -> consumer.accept(key, null));
+            return;
+        }
+
+        try (IndexReader reader = new IndexReader(indexFile, sparseOffsets[Math.max(getBlock(sortedKeys.get(0)), 0)])) {
+            String line = reader.readLine();
+            String lineKey = line == null ? null : getKey(line);
+
+            for (String key : sortedKeys) {
+
+                // skip the blocks that cannot contain the key
+                int block = getBlock(key);
+                if (block > 0 && lineKey != null && sparseOffsets[block] > reader.getOffset()) {
+                    reader.seek(sparseOffsets[block]);
+                    line = reader.readLine();
+                    lineKey = line == null ? null : getKey(line);
+                }
+
+                while (lineKey != null && lineKey.compareTo(key) < 0) {
+                    line = reader.readLine();
+                    lineKey = line == null ? null : getKey(line);
+                }
+
+                if (lineKey != null && lineKey.equals(key)) {
+                    consumer.accept(key, parseEntry(line));
+                } else {
+                    consumer.accept(key, null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Looks up a single resource. Prefer {@link #mergeJoin(List, BiConsumer)} for many resources.
+     * @param resource Resource tag (any case).
+     * @return The entry of the resource; null if the resource has no page id.
+     * @throws IOException if the index file cannot be read.
+     */
+    public Entry lookup(String resource) throws IOException {
+        Entry[] result = new Entry[1];
+        mergeJoin(Arrays.asList(resource.toLowerCase()), (key, entry) -> result[0] = entry);
+        return result[0];
+    }
+
+
+    /**
+     * @param key A key.
+     * @return The last block whose first key is not greater than the given key; -1 if the key is smaller than all keys.
+     */
+    private int getBlock(String key) {
+        int position = Arrays.binarySearch(sparseKeys, key);
+        return position >= 0 ? position : -position - 2;
+    }
+
+    private static String getKey(String line) {
+        return line.substring(0, line.indexOf(SEPARATOR));
+    }
+
+    private static Entry parseEntry(String line) {
+        int first = line.indexOf(SEPARATOR);
+        int second = line.indexOf(SEPARATOR, first + 1);
+        String redirect = line.substring(second + 1);
+        return new Entry(line.substring(first + 1, second), redirect.isEmpty() ? null : redirect);
+    }
+
+    private static boolean isNewerThan(File directory, long time) {
+        for (File file : getTurtleFiles(directory)) {
+            if (file.lastModified() > time) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<File> getTurtleFiles(File directory) {
+        ArrayList<File> result = new ArrayList<>();
+        File[] files = directory.listFiles();
+        if (files == null) {
+            logger.logMessage(Level.FATAL,MODULE,CLASS,directory.getPath() + " does not exist.");
+            return result;
+        }
+        for (File file : files) {
+            if (file.getName().toLowerCase().endsWith(".ttl")) {
+                result.add(file);
+            }
+        }
+        return result;
+    }
+
+    private static BufferedReader newReader(File file) throws IOException {
+        return new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8), READ_BUFFER_SIZE);
+    }
+
+
+    /**
+     * Entry of a resource with a page id.
+     */
+    public static class Entry {
+
+        /**
+         * The resource tag in the casing of DBpedia.
+         */
+        public final String resource;
+
+        /**
+         * The redirect tag; null if there is no redirect or the resource redirects to itself.
+         */
+        public final String redirect;
+
+        Entry(String resource, String redirect) {
+            this.resource = resource;
+            this.redirect = redirect;
+        }
+    }
+
+
+    /**
+     * Combines the sorted intermediate lines of one key (page ids first, then redirects, each in the order of the
+     * files) into one index line; the last page id and the last redirect are kept.
+     */
+    private static class EntryWriter implements Consumer<String> {
+
+        private final BufferedWriter writer;
+        private String key;
+        private String pageId;
+        private String redirect;
+
+        EntryWriter(BufferedWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void accept(String line) {
+            String lineKey = getKey(line);
+            if (!lineKey.equals(key)) {
+                flush();
+                key = lineKey;
+            }
+            String value = line.substring(lineKey.length() + PAGE_ID_MARKER.length() + SEQUENCE_LENGTH + 1);
+            if (line.startsWith(PAGE_ID_MARKER, lineKey.length())) {
+                pageId = value;
+            } else {
+                redirect = value;
+            }
+        }
+
+        /**
+         * Writes the line of the current key if the resource has a page id.
+         */
+        void flush() {
+            if (key != null && pageId != null) {
+                try {
+                    writer.write(key);
+                    writer.write(SEPARATOR);
+                    writer.write(pageId);
+                    writer.write(SEPARATOR);
+                    // we do not map entities to themselves
+                    if (redirect != null && !redirect.equals(key)) {
+                        writer.write(redirect);
+                    }
+                    writer.write('\n');
+                } catch (IOException ioe) {
+                    throw new UncheckedIOException(ioe);
+                }
+            }
+            key = null;
+            pageId = null;
+            redirect = null;
+        }
+    }
+
+
+    /**
+     * Reads the UTF-8 lines of the index file and keeps track of the byte offset, so that a reader can seek to the
+     * offsets of the sparse index.
+     */
+    private static class IndexReader implements Closeable {
+
+        private final FileInputStream input;
+        private final byte[] buffer = new byte[READ_BUFFER_SIZE];
+        private int position = 0;
+        private int limit = 0;
+        private long bufferOffset; // file offset of buffer[0]
+        private byte[] lineBuffer = new byte[256];
+
+        IndexReader(File file, long offset) throws IOException {
+            input = new FileInputStream(file);
+            seek(offset);
+        }
+
+        void seek(long offset) throws IOException {
+            input.getChannel().position(offset);
+            bufferOffset = offset;
+            position = 0;
+            limit = 0;
+        }
+
+        /**
+         * @return Offset of the next line.
+         */
+        long getOffset() {
+            return bufferOffset + position;
+        }
+
+        /**
+         * @return The next line without the line break; null at the end of the file.
+         * @throws IOException if the file cannot be read.
+         */
+        String readLine() throws IOException {
+            int length = 0;
+            while (true) {
+                if (position == limit) {
+                    bufferOffset += limit;
+                    position = 0;
+                    limit = Math.max(input.read(buffer), 0);
+                    if (limit == 0) {
+                        return length == 0 ? null : new String(lineBuffer, 0, length, StandardCharsets.UTF_8);
+                    }
+                }
+                byte b = buffer[position++];
+                if (b == '\n') {
+                    return new String(lineBuffer, 0, length, StandardCharsets.UTF_8);
+                }
+                if (length == lineBuffer.length) {
+                    lineBuffer = Arrays.copyOf(lineBuffer, length * 2);
+                }
+                lineBuffer[length++] = b;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+    }
+
+
+    /*
+    ONLY GETTERS BELOW.
+     */
+
+    public File getIndexFile() {
+        return indexFile;
+    }
+
+    public long getNumberOfEntries() {
+        return numberOfEntries;
+    }
+
+}
@@ -0,0 +1,57 @@
+package applications.extractionPostprocessing.util;
+
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryExecution;
+import org.apache.jena.query.QueryExecutionFactory;
+import org.apache.jena.rdf.model.Model;
+
+/**
+ * A SPARQL endpoint against which queries of {@link DBpediaResourceServiceOnline DBpediaResourceServiceOnline} are run.
+ * The endpoint is exchangeable so that an in-process dataset can be used instead of dbpedia.org (e.g. in tests).
+ */
+public interface SparqlEndpoint {
+
+    /**
+     * The public DBpedia endpoint.
+     */
+    SparqlEndpoint DBPEDIA = remote("http://dbpedia.org/sparql", "http://dbpedia.org");
+
+
+    /**
+     * Creates an execution for the given query. The caller has to close the execution.
+     * @param query The query to be executed.
+     * @return Query execution bound to this endpoint.
+     */
+    QueryExecution createQueryExecution(Query query);
+
+
+    /**
+     * Returns an endpoint that sends queries via HTTP to a SPARQL service.
+     * @param serviceURI URI of the SPARQL service, e.g. "http://dbpedia.org/sparql".
+     * @param defaultGraph The default graph or null.
+     * @return Remote endpoint.
+     */
+    static SparqlEndpoint remote(String serviceURI, String defaultGraph) {
+        return query -> QueryExecutionFactory.sparqlService(serviceURI, query, defaultGraph);
+    }
+
+    /**
+     * Returns an endpoint that evaluates queries on an in-memory model.
+     * @param model The model to be queried.
+     * @return Local endpoint.
+     */
+    static SparqlEndpoint local(Model model) {
+        return query -> QueryExecutionFactory.create(query, model);
+    }
+
+    /**
+     * Returns an endpoint that evaluates queries on a local dataset (e.g. a TDB or Fuseki dataset running in-process).
+     * @param dataset The dataset to be queried.
+     * @return Local endpoint.
+     */
+    static SparqlEndpoint local(Dataset dataset) {
+        return query -> QueryExecutionFactory.create(query, dataset);
+    }
+
+}
@@ -1,6 +1,7 @@
 package applications.wikiaDumpDownload;
 
 import applications.wikiaDumpDownload.controller.WikiaDumpDownloadThreadImpl;
+import metricsService.Metrics;
 
 import java.util.Arrays;
 import java.util.List;
@@ -17,6 +18,9 @@ public class WikiaDumpDownloadApplication {
 
     public static void main(String[] args) {
 
+        // expose the progress via JMX and /<root>/logs/metrics.json
+        Metrics.startReporting();
+
         // (1) download all available wikis
         if (WikiaDumpDownloadThreadImpl.checkPrerequisites(true)) {
             WikiaDumpDownloadThreadImpl.downloadWikiaDumps();
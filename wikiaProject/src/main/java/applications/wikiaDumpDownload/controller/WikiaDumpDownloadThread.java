@@ -1,8 +1,14 @@
 package applications.wikiaDumpDownload.controller;
 
+import applications.wikiaDumpDownload.util.DumpUrlResolver;
+import applications.wikiaStatistics.model.ExpandedWikiaItem;
 import loggingService.MessageLogger;
+import metricsService.Counter;
+import metricsService.LatencyHistogram;
+import metricsService.Metrics;
 import org.apache.commons.lang3.StringUtils;
 import utils.IOoperations;
+import utils.StreamingDumpTee;
 
 import java.io.*;
 import java.net.MalformedURLException;
@@ -41,15 +47,29 @@ public class WikiaDumpDownloadThread implements Runnable {
     private StringBuffer urlsNotWorking;
     private File dumpsDownloadedgz;
     private File dumpsDownloaded7z;
+    private File dumpsDecompressed;
     private String dumpSizeFilePath;
-    private static int totalNumberOfFilesProcessed = 0; // class counter to output progress
-    private static int totalNumberOfFilesToBeProcessed = 0; // class variable
-    private static final String[] REGEX = {"http:.*current\\.xml\\.gz", "http:.*current\\.xml\\.7z"}; // unmasked regex "http:.*current\.xml\.7z"
+    private static volatile int totalNumberOfFilesToBeProcessed = 0; // class variable
+    private static final Pattern[] DUMP_URL_PATTERNS = {Pattern.compile("http:.*current\\.xml\\.gz"), Pattern.compile("http:.*current\\.xml\\.7z")}; // unmasked regex "http:.*current\.xml\.7z"
+    private static final Pattern FILE_NAME_PATTERN = Pattern.compile("(?<=\\/)[^\\/]*$"); // correct regex (unmasked): (?<=\/)[^\/]*$
     private HashMap<String,String> dumpFilesURL;
     private String dumpURLsFilePath;
     private HashMap<String, String> languageCodes;
 
     private ArrayList<String> urls;
+    private HashMap<String, ExpandedWikiaItem> wikiItems = new HashMap<>(); // url -> domain and name of the wiki
+    private DumpUrlResolver dumpUrlResolver = new DumpUrlResolver();
+
+    // metrics of all threads
+    private static final Counter downloadedBytes = Metrics.counter("download_bytes");
+    private static final Counter processedWikis = Metrics.counter("download_wikis_processed"); // class counter to output progress
+    private static final LatencyHistogram wikiLatency = Metrics.histogram("download_wiki_latency");
+    private static final Counter predictedDumpUrls = Metrics.counter("download_dump_urls_predicted");
+    private static final Counter scrapedDumpUrls = Metrics.counter("download_dump_urls_scraped");
+
+    static {
+        Metrics.gauge("download_wikis_remaining", () -> Math.max(totalNumberOfFilesToBeProcessed - processedWikis.getCount(), 0));
+    }
 
     /**
      *  Main Constructor - main constructor for general initialization (also without file) -> private
@@ -223,6 +243,15 @@ public class WikiaDumpDownloadThread implements Runnable {
 
                 // add url to urls list
                 urls.add(tokens[1]);
+
+                // domain and name are used to predict the URL of the dump
+                if (tokens.length > 3) {
+                    ExpandedWikiaItem item = new ExpandedWikiaItem();
+                    item.setUrl(tokens[1]);
+                    item.setDomain(tokens[2]);
+                    item.setName(tokens[3]);
+                    wikiItems.put(tokens[1], item);
+                }
             }
 
             // close stream
@@ -243,6 +272,7 @@ public class WikiaDumpDownloadThread implements Runnable {
         File dumpsDownloaded = IOoperations.createDirectory(dumps.getPath() + "/downloaded");
         dumpsDownloadedgz = IOoperations.createDirectory(dumpsDownloaded.getPath() + "/gz");
         dumpsDownloaded7z = IOoperations.createDirectory(dumpsDownloaded.getPath() + "/7z");
+        dumpsDecompressed = IOoperations.createDirectory(dumps.getPath() + "/decompressed");
     }
 
     /**
@@ -292,11 +322,38 @@ public class WikiaDumpDownloadThread implements Runnable {
     }
 
     /**
-     * Check if dump exists for wiki and save the file to the specified directory
+     * Check if dump exists for wiki and save the file to the specified directory.
+     * The URL of the dump is predicted from the domain and the name of the wiki and verified with HEAD requests;
+     * only if no prediction exists, the URL is looked up on the statistics page of the wiki.
      *
      * @param baseURL
      */
     private void downloadDump(String baseURL) {
+        long startTime = System.nanoTime();
+
+        ExpandedWikiaItem item = wikiItems.get(baseURL);
+        String pathToFileToDownload = item != null ? dumpUrlResolver.resolve(item) : dumpUrlResolver.resolve(baseURL, null);
+
+        if (pathToFileToDownload != null) {
+            logger.logMessage(Level.INFO,MODULE,CLASS,"Processing: " + baseURL + " (dump " + pathToFileToDownload + ")");
+            predictedDumpUrls.increment();
+            getConnectionToRemoteFileAndSave(pathToFileToDownload, baseURL);
+
+            processedWikis.increment();
+            wikiLatency.recordNanosSince(startTime);
+            logger.logMessage(Level.INFO,MODULE,CLASS,"{} out of {} processed.", processedWikis.getCount(), totalNumberOfFilesToBeProcessed);
+        } else {
+            downloadDumpFromStatisticsPage(baseURL, startTime);
+        }
+    }
+
+    /**
+     * Looks for the dump URL on the statistics page of the wiki and saves the dump to the specified directory.
+     *
+     * @param baseURL
+     * @param startTime Start of the processing of the wiki (System.nanoTime()).
+     */
+    private void downloadDumpFromStatisticsPage(String baseURL, long startTime) {
         boolean foundDump = false;
         URL query;
         URLConnection connection;
@@ -318,8 +375,9 @@ public class WikiaDumpDownloadThread implements Runnable {
 
                 if (readLineFromURL.contains("wikia_xml_dumps")) {
 
-                    pathToFileToDownload = findRegexInLine(REGEX, readLineFromURL);
+                    pathToFileToDownload = findRegexInLine(DUMP_URL_PATTERNS, readLineFromURL);
                     if (!pathToFileToDownload.isEmpty()) {
+                        scrapedDumpUrls.increment();
                         getConnectionToRemoteFileAndSave(pathToFileToDownload,baseURL);
                     }
 
@@ -332,7 +390,9 @@ public class WikiaDumpDownloadThread implements Runnable {
 //                buffer.append(url + ";-" + "\n");
             }
 
-            System.out.println(++totalNumberOfFilesProcessed + " out of " + totalNumberOfFilesToBeProcessed + " processed.");
+            processedWikis.increment();
+            wikiLatency.recordNanosSince(startTime);
+            logger.logMessage(Level.INFO,MODULE,CLASS,"{} out of {} processed.", processedWikis.getCount(), totalNumberOfFilesToBeProcessed);
 
             // close stream
             urlReader.close();
@@ -349,19 +409,17 @@ public class WikiaDumpDownloadThread implements Runnable {
 
 
     /**
-     * Check if one of the REGEX constants matches the specified line
+     * Check if one of the DUMP_URL_PATTERNS matches the specified line
      *
-     * @param regEx
+     * @param patterns
      * @param line
      * @return
      */
-    private String findRegexInLine(String[] regEx, String line) {
-        Pattern pattern;
+    private String findRegexInLine(Pattern[] patterns, String line) {
         Matcher matcher;
         String pathToFileToDownload = ""; // contains the path where the XML can be downloadedFiles e.g. "http://s3.amazonaws.com/wikia_xml_dumps/b/ba/babylon5_pages_current.xml.7z"
 
-        for (String x : regEx) {
-            pattern = Pattern.compile(x);
+        for (Pattern pattern : patterns) {
             matcher = pattern.matcher(line);
             if (matcher.find()) {
                 pathToFileToDownload = matcher.group(0);
@@ -421,7 +479,9 @@ public class WikiaDumpDownloadThread implements Runnable {
     }
 
     /**
-     * Save dump file to specified directory
+     * Save dump file to specified directory.
+     * With streamingDumpDownload, gzip dumps are decompressed into downloadedWikis/decompressed while they are saved
+     * (see {@link StreamingDumpTee}).
      *
      * @param connection
      * @param pathToRemoteFile
@@ -434,9 +494,7 @@ public class WikiaDumpDownloadThread implements Runnable {
 
         // use regex to get the correct file name (without / and so on)
         String fileName = "";
-        String regEx = "(?<=\\/)[^\\/]*$"; // correct regex (unmasked): (?<=\/)[^\/]*$
-        Pattern pattern = Pattern.compile(regEx);
-        Matcher matcher = pattern.matcher(pathToRemoteFile);
+        Matcher matcher = FILE_NAME_PATTERN.matcher(pathToRemoteFile);
         if (matcher.find()) {
             fileName = matcher.group(0);
         }
@@ -453,9 +511,15 @@ public class WikiaDumpDownloadThread implements Runnable {
 
         try {
             inputStream = connection.getInputStream();
-            rbc = Channels.newChannel(inputStream);
-            fos = new FileOutputStream(targetFile);
-            fos.getChannel().transferFrom(rbc, 0, Long.MAX_VALUE);
+            if (StreamingDumpTee.isEnabled() && StreamingDumpTee.canDecompressWhileDownloading(fileName)) {
+                downloadedBytes.add(StreamingDumpTee.save(inputStream, targetFile, dumpsDecompressed));
+            } else {
+                rbc = Channels.newChannel(inputStream);
+                fos = new FileOutputStream(targetFile);
+                downloadedBytes.add(fos.getChannel().transferFrom(rbc, 0, Long.MAX_VALUE));
+                fos.close();
+                rbc.close();
+            }
 
             if (dumpFilesURL == null)
                 dumpFilesURL = new HashMap<String,String>();
@@ -464,9 +528,6 @@ public class WikiaDumpDownloadThread implements Runnable {
 
            System.out.println("*******" + targetFile.getAbsolutePath() + " : " + baseURL);
 
-            fos.close();
-            rbc.close();
-
         } catch (FileNotFoundException fnfe) {
             logger.logMessage(Level.FATAL,MODULE,CLASS,
                     fnfe.toString());
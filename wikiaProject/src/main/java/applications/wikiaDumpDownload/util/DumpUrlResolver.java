@@ -0,0 +1,286 @@
+package applications.wikiaDumpDownload.util;
+
+import applications.wikiaStatistics.model.ExpandedWikiaItem;
+import loggingService.MessageLogger;
+import org.apache.log4j.Level;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Resolves the URL of the dump of a wiki without loading its Special:Statistics page.
+ * The dumps are stored under the database name of the wiki, e.g.
+ * http://s3.amazonaws.com/wikia_xml_dumps/b/ba/babylon5_pages_current.xml.7z for babylon5.wikia.com. The candidate
+ * database names are derived from the domain and the name of the wiki (see {@link ExpandedWikiaItem}); the candidate
+ * URLs are verified with HEAD requests that are pipelined on one connection, so a wiki costs one round trip.
+ */
+public class DumpUrlResolver {
+
+    private static MessageLogger logger=new MessageLogger();
+    private static final String MODULE="wikiDumpDownload";
+    private static final String CLASS=DumpUrlResolver.class.getName();
+
+    /**
+     * Location of the dumps.
+     */
+    public static final String DEFAULT_DUMP_BASE_URL = "http://s3.amazonaws.com/wikia_xml_dumps/";
+
+    // in the order of preference (like the regular expressions used on the statistics page)
+    private static final String[] DUMP_FILE_SUFFIXES = {"_pages_current.xml.gz", "_pages_current.xml.7z"};
+
+    // timeouts of the HEAD requests
+    private static final int CONNECT_TIMEOUT_IN_MILLISECONDS = 10000;
+    private static final int READ_TIMEOUT_IN_MILLISECONDS = 30000;
+
+    private final String dumpBaseUrl;
+
+
+    /**
+     * Constructor
+     */
+    public DumpUrlResolver() {
+        this(DEFAULT_DUMP_BASE_URL);
+    }
+
+    /**
+     * Constructor
+     * @param dumpBaseUrl Location of the dumps (with a trailing slash).
+     */
+    public DumpUrlResolver(String dumpBaseUrl) {
+        this.dumpBaseUrl = dumpBaseUrl;
+    }
+
+
+    /**
+     * Resolves the dump URL of a wiki.
+     * @param item The wiki.
+     * @return The URL of the dump; null if no candidate exists.
+     */
+    public String resolve(ExpandedWikiaItem item) {
+        return resolve(item.getDomain(), item.getName());
+    }
+
+    /**
+     * Resolves the dump URL of a wiki.
+     * @param domain The domain (or base URL) of the wiki, e.g. babylon5.wikia.com.
+     * @param name The name of the wiki, e.g. "Babylon 5 Wiki"; may be null.
+     * @return The URL of the dump; null if no candidate exists.
+     */
+    public String resolve(String domain, String name) {
+        List<String> candidateUrls = getCandidateUrls(domain, name);
+        if (candidateUrls.isEmpty()) {
+            return null;
+        }
+
+        int[] responseCodes;
+        try {
+            responseCodes = headPipelined(candidateUrls);
+        } catch (IOException ioe) {
+            logger.logMessage(Level.DEBUG,MODULE,CLASS,"Pipelined HEAD requests failed for " + domain + ": " + ioe.toString());
+            responseCodes = new int[candidateUrls.size()];
+            Arrays.fill(responseCodes, -1);
+        }
+
+        for (int i = 0; i < candidateUrls.size(); i++) {
+            int responseCode = responseCodes[i];
+            if (responseCode == -1 || (responseCode >= 300 && responseCode < 400)) {
+                // not answered on the pipelined connection or redirected
+                responseCode = head(candidateUrls.get(i));
+            }
+            if (responseCode == HttpURLConnection.HTTP_OK) {
+                return candidateUrls.get(i);
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * @param domain The domain (or base URL) of the wiki.
+     * @param name The name of the wiki; may be null.
+     * @return The candidate dump URLs in the order in which they are tried.
+     */
+    public List<String> getCandidateUrls(String domain, String name) {
+        ArrayList<String> candidateUrls = new ArrayList<>();
+        for (String databaseName : getDatabaseNameCandidates(domain, name)) {
+            for (String suffix : DUMP_FILE_SUFFIXES) {
+                candidateUrls.add(getDumpUrl(databaseName, suffix));
+            }
+        }
+        return candidateUrls;
+    }
+
+    /**
+     * Derives the possible database names of a wiki: the subdomain (a language prefix is part of the name, e.g.
+     * deharrypotter for de.harrypotter.wikia.com) and the subdomain without hyphens. Only if there is no domain, the
+     * name of the wiki in lower case letters and digits (with and without the word "wiki" at the end) is used, as
+     * names are not unique and could resolve to the dump of another wiki.
+     * @param domain The domain (or base URL) of the wiki.
+     * @param name The name of the wiki; may be null.
+     * @return The candidate database names in the order of their likelihood.
+     */
+    public static List<String> getDatabaseNameCandidates(String domain, String name) {
+        LinkedHashSet<String> candidates = new LinkedHashSet<>();
+
+        String subdomain = getSubdomain(domain);
+        if (!subdomain.isEmpty()) {
+            candidates.add(subdomain.replace(".", ""));
+            candidates.add(subdomain.replace(".", "").replace("-", ""));
+        } else if (name != null) {
+            String normalizedName = name.toLowerCase(Locale.ENGLISH).replaceAll("[^a-z0-9]", "");
+            if (normalizedName.endsWith("wiki") && normalizedName.length() > 4) {
+                candidates.add(normalizedName.substring(0, normalizedName.length() - 4));
+            }
+            if (!normalizedName.isEmpty()) {
+                candidates.add(normalizedName);
+            }
+        }
+        candidates.remove("");
+        return new ArrayList<>(candidates);
+    }
+
+    /**
+     * @param databaseName The database name of the wiki.
+     * @param suffix The suffix of the dump file.
+     * @return The URL of the dump, e.g. .../b/ba/babylon5_pages_current.xml.7z.
+     */
+    String getDumpUrl(String databaseName, String suffix) {
+        return dumpBaseUrl + databaseName.substring(0, 1) + "/" + databaseName.substring(0, Math.min(2, databaseName.length()))
+                + "/" + databaseName + suffix;
+    }
+
+    /**
+     * @return The subdomain of the domain without the two labels of the host, e.g. de.harrypotter for
+     * http://de.harrypotter.wikia.com/.
+     */
+    private static String getSubdomain(String domain) {
+        if (domain == null) {
+            return "";
+        }
+        String host = domain.trim().toLowerCase(Locale.ENGLISH).replaceFirst("^[a-z]+://", "");
+        int endOfHost = host.indexOf('/');
+        if (endOfHost >= 0) {
+            host = host.substring(0, endOfHost);
+        }
+        String[] labels = host.split("\\.");
+        if (labels.length < 3) {
+            return labels.length == 1 ? labels[0] : "";
+        }
+        return String.join(".", Arrays.asList(labels).subList(0, labels.length - 2));
+    }
+
+
+    /**
+     * Sends HEAD requests for all URLs on one connection without waiting for the responses (HTTP/1.1 pipelining).
+     * All URLs have to be on the same host. Reading stops at the first successful response, as the URLs are in the
+     * order of preference.
+     * @param urls The URLs.
+     * @return The response codes; -1 for requests that were not answered.
+     * @throws IOException if the connection fails.
+     */
+    int[] headPipelined(List<String> urls) throws IOException {
+        int[] responseCodes = new int[urls.size()];
+        Arrays.fill(responseCodes, -1);
+
+        URL first = new URL(urls.get(0));
+        String host = first.getHost();
+        int port = first.getPort() == -1 ? first.getDefaultPort() : first.getPort();
+        if (!"http".equals(first.getProtocol())) {
+            return responseCodes;
+        }
+
+        StringBuilder requests = new StringBuilder();
+        for (int i = 0; i < urls.size(); i++) {
+            URL url = new URL(urls.get(i));
+            boolean last = i == urls.size() - 1;
+            requests.append("HEAD ").append(url.getFile()).append(" HTTP/1.1\r\n")
+                    .append("Host: ").append(host).append(first.getPort() == -1 ? "" : ":" + port).append("\r\n")
+                    .append("Connection: ").append(last ? "close" : "keep-alive").append("\r\n\r\n");
+        }
+
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_IN_MILLISECONDS);
+            socket.setSoTimeout(READ_TIMEOUT_IN_MILLISECONDS);
+            OutputStream out = socket.getOutputStream();
+            out.write(requests.toString().getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            for (int i = 0; i < urls.size(); i++) {
+                String statusLine = readLine(in);
+                if (statusLine == null || !statusLine.startsWith("HTTP/")) {
+                    break;
+                }
+                String[] parts = statusLine.split(" ");
+                responseCodes[i] = parts.length > 1 ? Integer.parseInt(parts[1]) : -1;
+
+                // headers; a response to HEAD has no body
+                boolean closed = false;
+                String header;
+                while ((header = readLine(in)) != null && !header.isEmpty()) {
+                    closed |= header.toLowerCase(Locale.ENGLISH).replace(" ", "").equals("connection:close");
+                }
+                if (responseCodes[i] == HttpURLConnection.HTTP_OK || closed || header == null) {
+                    break;
+                }
+            }
+        } catch (NumberFormatException nfe) {
+            throw new IOException("Malformed response from " + host, nfe);
+        }
+        return responseCodes;
+    }
+
+    /**
+     * Sends a single HEAD request (following redirects).
+     * @param url The URL.
+     * @return The response code; -1 if the request failed.
+     */
+    private static int head(String url) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setConnectTimeout(CONNECT_TIMEOUT_IN_MILLISECONDS);
+            connection.setReadTimeout(READ_TIMEOUT_IN_MILLISECONDS);
+            connection.setRequestMethod("HEAD");
+            try {
+                return connection.getResponseCode();
+            } finally {
+                connection.disconnect();
+            }
+        } catch (IOException ioe) {
+            logger.logMessage(Level.DEBUG,MODULE,CLASS,"HEAD request failed for " + url + ": " + ioe.toString());
+            return -1;
+        }
+    }
+
+    /**
+     * @return The next line without CRLF; null at the end of the stream.
+     */
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c == '\n') {
+                int length = line.length();
+                if (length > 0 && line.charAt(length - 1) == '\r') {
+                    line.setLength(length - 1);
+                }
+                return line.toString();
+            }
+            line.append((char) c);
+        }
+        return line.length() == 0 ? null : line.toString();
+    }
+
+}
@@ -1,23 +1,80 @@
 package applications.wikiaDumpRequester.controller;
 
+import applications.wikiaDumpRequester.util.AccessTokenProvider;
+import applications.wikiaDumpRequester.util.SucceededUrlsRecord;
+import applications.wikiaStatistics.util.WikiaOverviewStore;
 import loggingService.MessageLogger;
-import utils.IOoperations;
 import applications.wikiaDumpRequester.model.WikiaUser;
 import applications.wikiaDumpRequester.util.WikiaNewDumpRequest;
+import utils.TokenBucket;
 
+import java.io.File;
 import java.io.IOException;
-import java.net.ConnectException;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.MissingResourceException;
 import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.log4j.Level;
 
 
+/**
+ * Requests dumps for many wikis concurrently.
+ * The requests are limited by a token bucket (requests per second) and by the number of requests in flight. Failed
+ * requests (connection problems, HTTP 429 and 5xx) are repeated with exponential backoff and jitter; rejected access
+ * tokens (HTTP 401 and 403) are renewed. Every URL for which the request succeeded is recorded in a file, so a restart
+ * skips those URLs.
+ */
 public class WikiaDumpRequesterExecutor {
 
     private static MessageLogger logger=new MessageLogger();
     private static final String MODULE="wikiDumpRequester";
     private static final String CLASS=WikiaDumpRequesterExecutor.class.getName();
-    private static ArrayList<String> urlsThatDidNotWork;
+
+    // defaults of the optional configuration keys
+    private static final double DEFAULT_REQUESTS_PER_SECOND = 10;
+    private static final int DEFAULT_REQUESTS_IN_FLIGHT = 8;
+    private static final int DEFAULT_RETRIES = 5;
+    private static final long DEFAULT_TOKEN_REFRESH_INTERVAL_IN_MINUTES = 30;
+
+    private final WikiaNewDumpRequest requester = new WikiaNewDumpRequest();
+    private final AccessTokenProvider tokenProvider;
+    private final TokenBucket rateLimiter;
+    private final int maxRequestsInFlight;
+    private final int maxRetries;
+    private final File succeededUrlsFile;
+
+    // backoff of the first retry; doubled for every further retry
+    private long baseBackoffInMilliseconds = 1000;
+    private long maxBackoffInMilliseconds = 60000;
+
+    private final ConcurrentLinkedQueue<String> urlsThatDidNotWork = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger numberOfWikisProcessed = new AtomicInteger();
+
+
+    /**
+     * Constructor
+     * @param user The user whose access token is used.
+     * @param requestsPerSecond Maximal number of requests per second.
+     * @param maxRequestsInFlight Maximal number of concurrent requests.
+     * @param maxRetries Maximal number of retries of a failed request.
+     * @param tokenRefreshIntervalInMilliseconds Age after which the access token is renewed.
+     * @param succeededUrlsFile File in which the URLs with successful requests are recorded.
+     */
+    public WikiaDumpRequesterExecutor(WikiaUser user, double requestsPerSecond, int maxRequestsInFlight, int maxRetries,
+                                      long tokenRefreshIntervalInMilliseconds, File succeededUrlsFile) {
+        this.tokenProvider = new AccessTokenProvider(user, tokenRefreshIntervalInMilliseconds);
+        this.rateLimiter = new TokenBucket(requestsPerSecond, maxRequestsInFlight);
+        this.maxRequestsInFlight = Math.max(maxRequestsInFlight, 1);
+        this.maxRetries = Math.max(maxRetries, 0);
+        this.succeededUrlsFile = succeededUrlsFile;
+    }
 
 
     /**
@@ -29,82 +86,185 @@ public class WikiaDumpRequesterExecutor {
 
     /**
      * Request a dump from wikia.
+     * The rate, the number of requests in flight, the number of retries and the token refresh interval can be set in
+     * config.properties (dumpRequestsPerSecond, dumpRequestsInFlight, dumpRequestRetries, accessTokenRefreshMinutes).
      * @param beginAtLine Line of URL list where the requesting shall start.
      */
     public static void requestDumpsForAllWikis(int beginAtLine) {
 
+        String directory = ResourceBundle.getBundle("credentials").getString("directory");
         WikiaUser user = new WikiaUser(ResourceBundle.getBundle("credentials").getString("username"),
                          ResourceBundle.getBundle("credentials").getString("password"));
-        String filepath = ResourceBundle.getBundle("credentials").getString("directory") + "/wikiaAllOverview.csv";
 
         // user output
-        logger.logMessage(Level.INFO,MODULE,CLASS,"Credentials:\nUsername: " + ResourceBundle.getBundle("credentials").getString("username")
-                         + "\nPassword: " + ResourceBundle.getBundle("credentials").getString("password"));
-
-        WikiaNewDumpRequest requester = new WikiaNewDumpRequest();
-        ArrayList<String> urls = IOoperations.getUrls(filepath);
-
-        String token = user.getAccessToken();
-        logger.logMessage(Level.INFO,MODULE,CLASS,"Token: " + token);
+        logger.logMessage(Level.INFO,MODULE,CLASS,"Credentials:\nUsername: " + user.getUserName());
 
-        urlsThatDidNotWork = new ArrayList<String>();
-        int numberOfWikisProcessed = 0; // number of URLs that were processed
+        ArrayList<String> urls = new ArrayList<String>();
+        try {
+            WikiaOverviewStore store = WikiaOverviewStore.load(new File(directory + "/wikiaAllOverview.csv"));
+            for (int row = 0; row < store.getNumberOfRows(); row++) {
+                urls.add(store.getUrl(row) + "wiki/Special:Statistics");
+            }
+        } catch (IOException ioe) {
+            logger.logMessage(Level.FATAL,MODULE,CLASS,ioe.toString());
+            return;
+        }
 
         int index = Math.max(beginAtLine - 1, 0); // subtract 1 because first entry of array list is 0
 
-        while (index < urls.size()) {
-            String url = urls.get(index);
-            System.out.println(url);
+        WikiaDumpRequesterExecutor executor = new WikiaDumpRequesterExecutor(user,
+                Double.parseDouble(getConfigurationValue("dumpRequestsPerSecond", Double.toString(DEFAULT_REQUESTS_PER_SECOND))),
+                Integer.parseInt(getConfigurationValue("dumpRequestsInFlight", Integer.toString(DEFAULT_REQUESTS_IN_FLIGHT))),
+                Integer.parseInt(getConfigurationValue("dumpRequestRetries", Integer.toString(DEFAULT_RETRIES))),
+                TimeUnit.MINUTES.toMillis(Long.parseLong(getConfigurationValue("accessTokenRefreshMinutes", Long.toString(DEFAULT_TOKEN_REFRESH_INTERVAL_IN_MINUTES)))),
+                new File(directory + "/dumpRequestsSucceeded.txt"));
 
-            try {
-                requester.RequestNewWikiaDump(token, url);
-                System.out.println("Number of Wikis processed: " + ++numberOfWikisProcessed);
-                try {
-                    // wait for some milliseconds to avoid connection errors:
-                    // TODO:I do not know whether we need that or whether it helps!
-                    Thread.sleep(25);
-                } catch (InterruptedException ie) {
-                    logger.logMessage(Level.FATAL,MODULE,CLASS,ie.toString());
-                }
+        executor.requestDumps(urls.subList(Math.min(index, urls.size()), urls.size()));
+    }
 
-            } catch (ConnectException ce) {
-                logger.logMessage(Level.FATAL,MODULE,CLASS,"A ConnectException occurred. It will be handled...");
-                logger.logMessage(Level.INFO,MODULE,CLASS,"Wait for a few seconds.");
 
-                // not sure whether we need re-instantiation
-                user = null;
-                requester = null;
+    /**
+     * Requests the dumps of the given URLs. URLs that were requested successfully in an earlier run are skipped.
+     * @param urls URLs of the statistics pages of the wikis, e.g. http://gameofthrones.wikia.com/wiki/Special:Statistics
+     * @return The URLs for which the request did not succeed.
+     */
+    public ArrayList<String> requestDumps(List<String> urls) {
 
-                try {
-                    // wait for one minute:
-                    // TODO: evaulate whether shorter time is more appropriate!
-                    Thread.sleep(60000);
+        urlsThatDidNotWork.clear();
+        ExecutorService threadPool = Executors.newFixedThreadPool(maxRequestsInFlight);
+        Semaphore requestsInFlight = new Semaphore(maxRequestsInFlight);
+
+        try (SucceededUrlsRecord succeededUrls = new SucceededUrlsRecord(succeededUrlsFile)) {
+            logger.logMessage(Level.INFO,MODULE,CLASS,succeededUrls.size() + " URLs were requested successfully before and are skipped.");
 
-                } catch (InterruptedException ie) {
-                    logger.logMessage(Level.FATAL,MODULE,CLASS,ie.toString());
+            for (String url : urls) {
+                if (succeededUrls.contains(url)) {
+                    continue;
                 }
 
-                // re-instantiate objects, I am not sure, whether this helps
-                user = new WikiaUser(ResourceBundle.getBundle("credentials").getString("username"),
-                                  ResourceBundle.getBundle("credentials").getString("password"));
-                requester = new WikiaNewDumpRequest();
+                // do not queue more URLs than can be processed
+                requestsInFlight.acquire();
+                threadPool.execute(() -> {
+                    try {
+                        requestDump(url, succeededUrls);
+                    } finally {
+                        requestsInFlight.release();
+                    }
+                });
+            }
+
+            threadPool.shutdown();
+            threadPool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+
+        } catch (IOException ioe) {
+            logger.logMessage(Level.FATAL,MODULE,CLASS,"Record of succeeded URLs cannot be used: " + ioe.toString());
+        } catch (InterruptedException ie) {
+            logger.logMessage(Level.FATAL,MODULE,CLASS,ie.toString());
+            Thread.currentThread().interrupt();
+        } finally {
+            threadPool.shutdownNow();
+        }
+
+        logger.logMessage(Level.INFO,MODULE,CLASS,"Dumps for all URLs requested.");
+        if (!urlsThatDidNotWork.isEmpty()) {
+            logger.logMessage(Level.WARN,MODULE,CLASS,"URLS that did not work:\n" + String.join("\n", urlsThatDidNotWork));
+        }
+        return new ArrayList<>(urlsThatDidNotWork);
+    }
 
-                logger.logMessage(Level.INFO,MODULE,CLASS,"Request a new access token...");
-                token = user.getAccessToken();
 
-                logger.logMessage(Level.INFO,MODULE,CLASS,"Continue with next URL.");
+    /**
+     * Requests the dump of one URL, including the retries.
+     * @param url The URL.
+     * @param succeededUrls Record to which the URL is added if the request succeeds.
+     */
+    private void requestDump(String url, SucceededUrlsRecord succeededUrls) {
+        for (int attempt = 0; attempt <= maxRetries; attempt++) {
+            String token = tokenProvider.getToken();
+            int responseCode;
+            try {
+                rateLimiter.acquire();
+                responseCode = requester.RequestNewWikiaDump(token, url);
+            } catch (IOException ioe) {
+                // e.g. ConnectException or timeout
+                logger.logMessage(Level.WARN,MODULE,CLASS,"Request for " + url + " failed: " + ioe.toString());
+                responseCode = 0;
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
                 urlsThatDidNotWork.add(url);
-            } catch (IOException ioe){
-                logger.logMessage(Level.FATAL,MODULE,CLASS,ioe.toString());
+                return;
             }
 
-            index++;
-        } // end of loop through URLs
+            if (responseCode >= 200 && responseCode < 400) {
+                try {
+                    succeededUrls.add(url);
+                } catch (IOException ioe) {
+                    logger.logMessage(Level.FATAL,MODULE,CLASS,"Could not record " + url + ": " + ioe.toString());
+                }
+                int processed = numberOfWikisProcessed.incrementAndGet();
+                if (processed % 1000 == 0) {
+                    logger.logMessage(Level.INFO,MODULE,CLASS,"Number of Wikis processed: " + processed);
+                }
+                return;
+            }
 
-        logger.logMessage(Level.INFO,MODULE,CLASS,"Tokens for all URLs requested.");
-        System.out.println("URLS that did not work:");
-        for(String s : urlsThatDidNotWork){
-            System.out.println(s);
+            if (responseCode == 401 || responseCode == 403) {
+                // the token was rejected -> renew it and repeat without waiting
+                tokenProvider.invalidate(token);
+            } else if (responseCode == 0 || responseCode == 429 || responseCode >= 500) {
+                if (attempt < maxRetries && !sleepBeforeRetry(attempt)) {
+                    break;
+                }
+            } else {
+                // the request cannot succeed (e.g. 404 or malformed URL)
+                logger.logMessage(Level.WARN,MODULE,CLASS,"Request for " + url + " was rejected with response code " + responseCode + ".");
+                break;
+            }
         }
+        urlsThatDidNotWork.add(url);
     }
+
+
+    /**
+     * Waits before a retry: exponential backoff with full jitter.
+     * @param attempt Number of the failed attempt (starting with 0).
+     * @return False if the thread was interrupted.
+     */
+    private boolean sleepBeforeRetry(int attempt) {
+        long backoff = Math.min(maxBackoffInMilliseconds, baseBackoffInMilliseconds << Math.min(attempt, 30));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(backoff + 1));
+            return true;
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+
+    /**
+     * Reads an optional value from config.properties.
+     * @param key The key.
+     * @param defaultValue Value to be used if the key is not set.
+     * @return The configured or the default value.
+     */
+    private static String getConfigurationValue(String key, String defaultValue) {
+        try {
+            return ResourceBundle.getBundle("config").getString(key);
+        } catch (MissingResourceException mre) {
+            return defaultValue;
+        }
+    }
+
+
+    /**
+     * Sets the backoff of the retries (used by tests).
+     * @param baseBackoffInMilliseconds Maximal backoff of the first retry.
+     * @param maxBackoffInMilliseconds Upper bound of the backoff.
+     */
+    void setBackoff(long baseBackoffInMilliseconds, long maxBackoffInMilliseconds) {
+        this.baseBackoffInMilliseconds = baseBackoffInMilliseconds;
+        this.maxBackoffInMilliseconds = maxBackoffInMilliseconds;
+    }
+
 }
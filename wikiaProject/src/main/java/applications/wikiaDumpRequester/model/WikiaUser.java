@@ -17,14 +17,26 @@ public class WikiaUser {
 
     private String userName;
     private String userPassword;
+    private String accessTokenURL;
     private static MessageLogger logger=new MessageLogger();
     private static final String MODULE="wikiDumpRequester";
     private static final String CLASS=WikiaUser.class.getName();
 
 
     public WikiaUser(String userName, String userPassword){
+        this(userName, userPassword, ResourceBundle.getBundle("credentials").getString("accessTokenURL"));
+    }
+
+    /**
+     * Constructor
+     * @param userName Name of the user.
+     * @param userPassword Password of the user.
+     * @param accessTokenURL URL of the service handing out access tokens.
+     */
+    public WikiaUser(String userName, String userPassword, String accessTokenURL){
         this.userName=userName;
         this.userPassword=userPassword;
+        this.accessTokenURL=accessTokenURL;
     }
 
 
@@ -46,7 +58,6 @@ public class WikiaUser {
 
     public String getAccessToken(){
 
-        String accessTokenURL=ResourceBundle.getBundle("credentials").getString("accessTokenURL");
         String responseMessage="";
         String responseMessageLine="";
         String userAccessToken="";
@@ -77,8 +88,6 @@ public class WikiaUser {
                 responseMessage+= responseMessageLine;
             }
 
-            logger.logMessage(Level.INFO,MODULE,CLASS,responseMessage);
-
             //parse response message to get access token
             userAccessToken = responseMessage.substring(responseMessage.indexOf(":") + 2, responseMessage.indexOf(",") - 1);
 
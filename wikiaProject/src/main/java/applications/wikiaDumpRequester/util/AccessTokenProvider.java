@@ -0,0 +1,64 @@
+package applications.wikiaDumpRequester.util;
+
+import applications.wikiaDumpRequester.model.WikiaUser;
+import loggingService.MessageLogger;
+import org.apache.log4j.Level;
+
+/**
+ * Hands out the access token of a user to concurrent requesters.
+ * The token is renewed proactively when it is older than the refresh interval and on demand when a request was
+ * rejected; concurrent rejections of the same token lead to only one renewal.
+ */
+public class AccessTokenProvider {
+
+    private static MessageLogger logger=new MessageLogger();
+    private static final String MODULE="wikiDumpRequester";
+    private static final String CLASS=AccessTokenProvider.class.getName();
+
+    private final WikiaUser user;
+    private final long refreshIntervalInMilliseconds;
+
+    private String token;
+    private long tokenTime;
+
+
+    /**
+     * Constructor
+     * @param user The user whose token is used.
+     * @param refreshIntervalInMilliseconds Age after which a token is renewed before it is handed out.
+     */
+    public AccessTokenProvider(WikiaUser user, long refreshIntervalInMilliseconds) {
+        this.user = user;
+        this.refreshIntervalInMilliseconds = refreshIntervalInMilliseconds;
+    }
+
+
+    /**
+     * @return A valid token; renewed if it is too old.
+     */
+    public synchronized String getToken() {
+        if (token == null || System.currentTimeMillis() - tokenTime >= refreshIntervalInMilliseconds) {
+            renewToken();
+        }
+        return token;
+    }
+
+
+    /**
+     * Marks a token as rejected. The token is renewed unless another thread renewed it already.
+     * @param rejectedToken The token that was rejected by the server.
+     */
+    public synchronized void invalidate(String rejectedToken) {
+        if (rejectedToken != null && rejectedToken.equals(token)) {
+            renewToken();
+        }
+    }
+
+
+    private void renewToken() {
+        logger.logMessage(Level.INFO,MODULE,CLASS,"Request a new access token...");
+        token = user.getAccessToken();
+        tokenTime = System.currentTimeMillis();
+    }
+
+}
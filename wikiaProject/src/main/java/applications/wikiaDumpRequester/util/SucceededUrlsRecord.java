@@ -0,0 +1,82 @@
+package applications.wikiaDumpRequester.util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+
+/**
+ * Persistent, append-only record of the URLs for which a dump was requested successfully (one URL per line).
+ * Every URL is flushed as soon as it is recorded, so a restarted requester can skip the URLs of an interrupted run.
+ */
+public class SucceededUrlsRecord implements Closeable {
+
+    private final HashSet<String> succeededUrls = new HashSet<>();
+    private final BufferedWriter writer;
+
+
+    /**
+     * Constructor; reads the URLs recorded so far.
+     * @param recordFile The file of the record; created if it does not exist.
+     * @throws IOException if the file cannot be read or opened for writing.
+     */
+    public SucceededUrlsRecord(File recordFile) throws IOException {
+        if (recordFile.exists()) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(recordFile), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isEmpty()) {
+                        succeededUrls.add(line);
+                    }
+                }
+            }
+        }
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(recordFile, true), StandardCharsets.UTF_8));
+    }
+
+
+    /**
+     * @param url The URL.
+     * @return True if a dump was already requested successfully for the URL.
+     */
+    public synchronized boolean contains(String url) {
+        return succeededUrls.contains(url);
+    }
+
+
+    /**
+     * Records a URL.
+     * @param url The URL for which a dump was requested successfully.
+     * @throws IOException if the record cannot be written.
+     */
+    public synchronized void add(String url) throws IOException {
+        if (succeededUrls.add(url)) {
+            writer.write(url);
+            writer.newLine();
+            writer.flush();
+        }
+    }
+
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+
+
+    /*
+    ONLY GETTERS BELOW.
+     */
+
+    public synchronized int size() {
+        return succeededUrls.size();
+    }
+
+}
@@ -3,7 +3,6 @@ package applications.wikiaDumpRequester.util;
 import loggingService.MessageLogger;
 
 import java.io.IOException;
-import java.io.OutputStreamWriter;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -16,50 +15,46 @@ public class WikiaNewDumpRequest {
     private static final String MODULE="wikiDumpRequester";
     private static final String CLASS=WikiaNewDumpRequest.class.getName();
 
+    // timeouts of a single request
+    private static final int CONNECT_TIMEOUT_IN_MILLISECONDS = 10000;
+    private static final int READ_TIMEOUT_IN_MILLISECONDS = 30000;
+
     /**
      * This method requests a dump for the given URL.
      * @param accessToken : access token received from Wikia for respective access credentials
      * @param WikiaURL : URL of Wikia Wiki Statistics page , e.g : http://gameofthrones.wikia.com/wiki/Special:Statistics
+     * @return HTTP response code of the request; -1 if the URL is malformed.
+     * @throws IOException if the connection fails.
      */
-    public void RequestNewWikiaDump(String accessToken,String WikiaURL) throws IOException{
+    public int RequestNewWikiaDump(String accessToken,String WikiaURL) throws IOException{
         try {
             //Initialize URL object
             URL url = new URL(WikiaURL);
 
             HttpURLConnection newDumpRequestConnection = (HttpURLConnection) url.openConnection();
+            newDumpRequestConnection.setConnectTimeout(CONNECT_TIMEOUT_IN_MILLISECONDS);
+            newDumpRequestConnection.setReadTimeout(READ_TIMEOUT_IN_MILLISECONDS);
             newDumpRequestConnection.setDoOutput(true);
             newDumpRequestConnection.setRequestMethod("POST");
 
             //Pass access token as cookie in HTTP request
             newDumpRequestConnection.setRequestProperty("Cookie", "access_token=" + accessToken);
 
-            //Get response stream
-            OutputStreamWriter requestMessage = new OutputStreamWriter(newDumpRequestConnection.getOutputStream());
-
-
-                /*
-               // This code is writtern to debug response message.
-                String line="";
-                BufferedReader reader;
-                reader = new
-                    BufferedReader(new InputStreamReader(newDumpRequestConnection.getInputStream()));
-
-                 while ((line = reader.readLine()) != null) {
-                    System.out.println(line);
-                }
-
-                reader.close();
-                //debug code ends here
-                */
-
-            logger.logMessage(Level.INFO,MODULE,CLASS,"HTTP Response Code : " + newDumpRequestConnection.getResponseCode() +
-                             "HTTP Response Message :  " + newDumpRequestConnection.getResponseMessage());
-
-            requestMessage.close();
+            try {
+                //Send the (empty) request body
+                newDumpRequestConnection.getOutputStream().close();
+
+                int responseCode = newDumpRequestConnection.getResponseCode();
+                logger.logMessage(Level.DEBUG,MODULE,CLASS,"HTTP Response Code : " + responseCode +
+                                 " HTTP Response Message : " + newDumpRequestConnection.getResponseMessage() + " (" + WikiaURL + ")");
+                return responseCode;
+            } finally {
+                newDumpRequestConnection.disconnect();
+            }
         } catch(MalformedURLException mue){
             logger.logMessage(Level.FATAL,MODULE,CLASS,mue.toString());
+            return -1;
         }
     }
 
 }
-
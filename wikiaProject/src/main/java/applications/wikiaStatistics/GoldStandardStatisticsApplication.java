@@ -8,6 +8,7 @@ import applications.wikiaStatistics.controller.GoldStandardStatistics;
  * Please note that all evaluation files have to be in one directory.
  * You have to define the directory in the path variable below.
  * You will find the evaluation result saved as <root>/statistics/goldStandardStatistics.txt
+ * (and as .json and .csv)
  */
 public class GoldStandardStatisticsApplication {
 
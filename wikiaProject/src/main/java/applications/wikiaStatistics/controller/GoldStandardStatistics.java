@@ -1,28 +1,50 @@
 package applications.wikiaStatistics.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import loggingService.MessageLogger;
+import org.apache.log4j.Level;
 import utils.IOoperations;
-import java.io.BufferedReader;
+
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.ResourceBundle;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
 
 /**
  * This class allows to calculate and to persist statistics about the gold standard.
+ * The evaluation files are scanned in parallel on byte level (the markers that are looked for are ASCII, so no
+ * decoding is required); the counts of the single files are merged into shared counters.
  */
 public class GoldStandardStatistics {
 
+    private static MessageLogger logger = new MessageLogger();
+    private static final String MODULE = "wikiaStatistics";
+    private static final String CLASS = GoldStandardStatistics.class.getName();
+
+    // markers in lower case; the lines are compared ignoring the (ASCII) case
+    private static final byte[] RESOURCE_MARKER = "/resource/".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PROPERTY_MARKER = "/property/".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ONTOLOGY_MARKER = "/ontology/".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL_MARKER = "<null>".getBytes(StandardCharsets.US_ASCII);
+
     // path to directory where all evaluation files are located
     File evaluationDirectory;
 
-    int numberOfResourcesMappingToNull = 0;
-    int numberOfResourcesMappingToDBpedia = 0;
-    int numberOfPropertiesMappingToNull = 0;
-    int numberOfPropertiesMappingToDBpedia = 0;
-    int numberOfClassesMappingToNull = 0;
-    int numberOfClassesMappingToDBpedia = 0;
-    int numberOfEvaluationFiles = 0;
+    LongAdder numberOfResourcesMappingToNull = new LongAdder();
+    LongAdder numberOfResourcesMappingToDBpedia = new LongAdder();
+    LongAdder numberOfPropertiesMappingToNull = new LongAdder();
+    LongAdder numberOfPropertiesMappingToDBpedia = new LongAdder();
+    LongAdder numberOfClassesMappingToNull = new LongAdder();
+    LongAdder numberOfClassesMappingToDBpedia = new LongAdder();
+    LongAdder numberOfEvaluationFiles = new LongAdder();
     private ArrayList<String> linesNotProcessed = new ArrayList<String>();
 
 
@@ -41,73 +63,126 @@ public class GoldStandardStatistics {
     public GoldStandardStatistics(File evaluationDirectory) {
         this.evaluationDirectory = evaluationDirectory;
         if (!evaluationDirectory.isDirectory()) {
-            System.out.println("ERROR: Given Evaluation Directory (" + evaluationDirectory.getAbsolutePath() + ") is no directory.");
+            logger.logMessage(Level.FATAL, MODULE, CLASS, "Given Evaluation Directory (" + evaluationDirectory.getAbsolutePath() + ") is no directory.");
+            return;
         }
         calculateGoldStandardStatistics();
     }
 
     private void calculateGoldStandardStatistics() {
-        for (File evaluationFile : evaluationDirectory.listFiles()) {
-
-            BufferedReader reader = null;
-            if (evaluationFile.getName().endsWith("ttl")) {
-                numberOfEvaluationFiles++;
-                System.out.println("Processing file " + evaluationFile.getName());
-
-                try {
-                    reader = new BufferedReader(new FileReader(evaluationFile));
-                    String line;
-
-                    while ((line = reader.readLine()) != null) {
-
-                        line = line.toLowerCase();
-
-                        if (! (line.startsWith("#") || line.equals("") || line.equals(" ") || line.equals("\n")) ) {
-                            // -> line is not a comment, nor empty
-
-                            if (line.contains("/resource/")) {
-                                if (line.contains("<null>")) {
-                                    numberOfResourcesMappingToNull++;
-                                } else {
-                                    numberOfResourcesMappingToDBpedia++;
-                                }
-                            } else if (line.contains("/property/")) {
-                                if (line.contains("<null>")) {
-                                    numberOfPropertiesMappingToNull++;
-                                } else {
-                                    numberOfPropertiesMappingToDBpedia++;
-                                }
-                            } else if (line.contains("/ontology/")) {
-                                if (line.contains("<null>")) {
-                                    numberOfClassesMappingToNull++;
-                                } else {
-                                    numberOfClassesMappingToDBpedia++;
-                                }
-                            } else {
-
-                                boolean lineEmpty = true;
-                                for(char i : line.toCharArray()){
-                                    if(i < 128);
-                                    lineEmpty = false;
-                                }
-
-                                if(!lineEmpty) {
-                                    System.out.println("The following line could not be assigned: ");
-                                    System.out.println(line);
-                                    linesNotProcessed.add(line);
-                                }
-                            }
-                        }
-                    } // end of if line starts with #
-
-                } catch (IOException ioe) {
-                    ioe.printStackTrace();
-                }
-            } // end of if evaluation file ends with ttl
-        } // end of loop through all evaluation files in directory
+        File[] files = evaluationDirectory.listFiles();
+        Arrays.sort(files);
+
+        // the lines that could not be assigned are collected per file to keep the order of a sequential run
+        List<List<String>> linesNotProcessedPerFile = Arrays.stream(files)
+                .parallel()
+                .filter(file -> file.getName().endsWith("ttl"))
+                .map(this::processEvaluationFile)
+                .collect(Collectors.toList());
+
+        for (List<String> lines : linesNotProcessedPerFile) {
+            linesNotProcessed.addAll(lines);
+        }
     } // end of method calculateGoldStandardStatistics()
 
 
+    /**
+     * Counts the mappings of one evaluation file and adds them to the counters.
+     * @param evaluationFile The evaluation file.
+     * @return The lines that could not be assigned (in lower case).
+     */
+    private List<String> processEvaluationFile(File evaluationFile) {
+        logger.logMessage(Level.DEBUG, MODULE, CLASS, "Processing file " + evaluationFile.getName());
+        ArrayList<String> unassignedLines = new ArrayList<>();
+
+        byte[] content;
+        try {
+            content = Files.readAllBytes(evaluationFile.toPath());
+        } catch (IOException ioe) {
+            logger.logMessage(Level.FATAL, MODULE, CLASS, "Could not read " + evaluationFile.getAbsolutePath() + ": " + ioe.getMessage());
+            return unassignedLines;
+        }
+        numberOfEvaluationFiles.increment();
+
+        // partial counts of this file: resources, properties, classes (each to null and to DBpedia)
+        long[] counts = new long[6];
+
+        int lineStart = 0;
+        while (lineStart < content.length) {
+            int lineEnd = lineStart;
+            while (lineEnd < content.length && content[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            int nextLineStart = lineEnd + 1;
+            if (lineEnd > lineStart && content[lineEnd - 1] == '\r') {
+                lineEnd--;
+            }
+
+            int length = lineEnd - lineStart;
+            boolean skip = length == 0 || content[lineStart] == '#' || (length == 1 && content[lineStart] == ' ');
+
+            if (!skip) {
+                // -> line is not a comment, nor empty
+                int category;
+                if (contains(content, lineStart, lineEnd, RESOURCE_MARKER)) {
+                    category = 0;
+                } else if (contains(content, lineStart, lineEnd, PROPERTY_MARKER)) {
+                    category = 2;
+                } else if (contains(content, lineStart, lineEnd, ONTOLOGY_MARKER)) {
+                    category = 4;
+                } else {
+                    category = -1;
+                    unassignedLines.add(new String(content, lineStart, length, StandardCharsets.UTF_8).toLowerCase());
+                }
+
+                if (category >= 0) {
+                    counts[contains(content, lineStart, lineEnd, NULL_MARKER) ? category : category + 1]++;
+                }
+            }
+            lineStart = nextLineStart;
+        }
+
+        numberOfResourcesMappingToNull.add(counts[0]);
+        numberOfResourcesMappingToDBpedia.add(counts[1]);
+        numberOfPropertiesMappingToNull.add(counts[2]);
+        numberOfPropertiesMappingToDBpedia.add(counts[3]);
+        numberOfClassesMappingToNull.add(counts[4]);
+        numberOfClassesMappingToDBpedia.add(counts[5]);
+
+        for (String line : unassignedLines) {
+            logger.logMessage(Level.WARN, MODULE, CLASS, "The following line of " + evaluationFile.getName() + " could not be assigned: " + line);
+        }
+        return unassignedLines;
+    }
+
+
+    /**
+     * Checks whether the given byte range contains the pattern, ignoring the case of ASCII letters.
+     * @param content The bytes.
+     * @param from Start of the range (inclusive).
+     * @param to End of the range (exclusive).
+     * @param lowerCasePattern The pattern in lower case.
+     * @return True if the pattern is contained.
+     */
+    static boolean contains(byte[] content, int from, int to, byte[] lowerCasePattern) {
+        int last = to - lowerCasePattern.length;
+        outer:
+        for (int i = from; i <= last; i++) {
+            for (int j = 0; j < lowerCasePattern.length; j++) {
+                byte b = content[i + j];
+                if (b >= 'A' && b <= 'Z') {
+                    b += 'a' - 'A';
+                }
+                if (b != lowerCasePattern[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+
     /**
      * Print information about the gold standard on the console.
      */
@@ -127,28 +202,28 @@ public class GoldStandardStatistics {
         StringBuffer buffer = new StringBuffer();
 
         buffer.append("Total number of mappings: " + getTotalNumberOfMappings()+ "\n" );
-        buffer.append("Number of evaluation files: " + numberOfEvaluationFiles+ "\n" );
+        buffer.append("Number of evaluation files: " + getNumberOfEvaluationFiles() + "\n" );
         buffer.append("\n"+ "\n" );
 
         buffer.append("Resource Mappings"+ "\n" );
-        buffer.append("Number of resource mappings: " + (numberOfResourcesMappingToNull + numberOfResourcesMappingToDBpedia) + "\n" );
-        buffer.append("Number of resources mapped to DBpedia: " + numberOfResourcesMappingToDBpedia+ "\n" );
-        buffer.append("Number of resources mapped to <null>: " + numberOfResourcesMappingToNull+ "\n" );
-        buffer.append("Percentage of resources already in DBpedia: " + ((double) numberOfResourcesMappingToDBpedia / (numberOfResourcesMappingToDBpedia + numberOfResourcesMappingToNull)) + "\n");
+        buffer.append("Number of resource mappings: " + (getNumberOfResourcesMappingToNull() + getNumberOfResourcesMappingToDBpedia()) + "\n" );
+        buffer.append("Number of resources mapped to DBpedia: " + getNumberOfResourcesMappingToDBpedia() + "\n" );
+        buffer.append("Number of resources mapped to <null>: " + getNumberOfResourcesMappingToNull() + "\n" );
+        buffer.append("Percentage of resources already in DBpedia: " + share(getNumberOfResourcesMappingToDBpedia(), getNumberOfResourcesMappingToNull()) + "\n");
         buffer.append("\n"+ "\n" );
 
         buffer.append("Property Mappings"+ "\n" );
-        buffer.append("Number of property mappings: " + (numberOfPropertiesMappingToNull + numberOfPropertiesMappingToDBpedia) + "\n" );
-        buffer.append("Number of properties mapped to DBpedia: " + numberOfPropertiesMappingToDBpedia+ "\n" );
-        buffer.append("Number of properties mapped to <null>: " + numberOfPropertiesMappingToNull+ "\n" );
-        buffer.append("Percentage of properties already in DBpedia: " + ((double) numberOfPropertiesMappingToDBpedia / (numberOfPropertiesMappingToDBpedia + numberOfPropertiesMappingToNull)) + "\n");
+        buffer.append("Number of property mappings: " + (getNumberOfPropertiesMappingToNull() + getNumberOfPropertiesMappingToDBpedia()) + "\n" );
+        buffer.append("Number of properties mapped to DBpedia: " + getNumberOfPropertiesMappingToDBpedia() + "\n" );
+        buffer.append("Number of properties mapped to <null>: " + getNumberOfPropertiesMappingToNull() + "\n" );
+        buffer.append("Percentage of properties already in DBpedia: " + share(getNumberOfPropertiesMappingToDBpedia(), getNumberOfPropertiesMappingToNull()) + "\n");
         buffer.append("\n"+ "\n" );
 
         buffer.append("Class Mappings"+ "\n" );
-        buffer.append("Number of class mappings: " + (numberOfClassesMappingToNull + numberOfClassesMappingToDBpedia) + "\n" );
-        buffer.append("Number of classes mapped to DBpedia: " + numberOfClassesMappingToDBpedia+ "\n" );
-        buffer.append("Number of classes mapped to <null>: " + numberOfClassesMappingToNull+ "\n" );
-        buffer.append("Percentage of classes already in DBpedia: " + ((double) numberOfClassesMappingToDBpedia / (numberOfClassesMappingToDBpedia + numberOfClassesMappingToNull)) + "\n");
+        buffer.append("Number of class mappings: " + (getNumberOfClassesMappingToNull() + getNumberOfClassesMappingToDBpedia()) + "\n" );
+        buffer.append("Number of classes mapped to DBpedia: " + getNumberOfClassesMappingToDBpedia() + "\n" );
+        buffer.append("Number of classes mapped to <null>: " + getNumberOfClassesMappingToNull() + "\n" );
+        buffer.append("Percentage of classes already in DBpedia: " + share(getNumberOfClassesMappingToDBpedia(), getNumberOfClassesMappingToNull()) + "\n");
         buffer.append("\n"+ "\n" );
 
         buffer.append("The following lines could not be processed:"+ "\n" );
@@ -160,19 +235,74 @@ public class GoldStandardStatistics {
     }
 
 
+    /**
+     * Get a JSON representation of the statistics.
+     * @return JSON object with the counts per mapping type and the lines that could not be processed.
+     */
+    public String getResultRepresentationAsJson() {
+        LinkedHashMap<String, Object> result = new LinkedHashMap<>();
+        result.put("totalNumberOfMappings", getTotalNumberOfMappings());
+        result.put("numberOfEvaluationFiles", getNumberOfEvaluationFiles());
+        result.put("resources", getJsonRepresentationOfMappingType(getNumberOfResourcesMappingToDBpedia(), getNumberOfResourcesMappingToNull()));
+        result.put("properties", getJsonRepresentationOfMappingType(getNumberOfPropertiesMappingToDBpedia(), getNumberOfPropertiesMappingToNull()));
+        result.put("classes", getJsonRepresentationOfMappingType(getNumberOfClassesMappingToDBpedia(), getNumberOfClassesMappingToNull()));
+        result.put("linesNotProcessed", linesNotProcessed);
+
+        try {
+            return new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(result);
+        } catch (IOException ioe) {
+            logger.logMessage(Level.FATAL, MODULE, CLASS, ioe.getMessage());
+            return "{}";
+        }
+    }
+
+    private static LinkedHashMap<String, Object> getJsonRepresentationOfMappingType(long mappedToDBpedia, long mappedToNull) {
+        LinkedHashMap<String, Object> result = new LinkedHashMap<>();
+        result.put("mappings", mappedToDBpedia + mappedToNull);
+        result.put("mappedToDBpedia", mappedToDBpedia);
+        result.put("mappedToNull", mappedToNull);
+        double share = share(mappedToDBpedia, mappedToNull);
+        result.put("shareInDBpedia", Double.isNaN(share) ? null : share);
+        return result;
+    }
+
+
+    /**
+     * Get a CSV representation of the statistics (one line per mapping type).
+     * @return CSV with a header line.
+     */
+    public String getResultRepresentationAsCsv() {
+        return "type;mappings;mappedToDBpedia;mappedToNull\n"
+                + "resources;" + (getNumberOfResourcesMappingToDBpedia() + getNumberOfResourcesMappingToNull()) + ";" + getNumberOfResourcesMappingToDBpedia() + ";" + getNumberOfResourcesMappingToNull() + "\n"
+                + "properties;" + (getNumberOfPropertiesMappingToDBpedia() + getNumberOfPropertiesMappingToNull()) + ";" + getNumberOfPropertiesMappingToDBpedia() + ";" + getNumberOfPropertiesMappingToNull() + "\n"
+                + "classes;" + (getNumberOfClassesMappingToDBpedia() + getNumberOfClassesMappingToNull()) + ";" + getNumberOfClassesMappingToDBpedia() + ";" + getNumberOfClassesMappingToNull() + "\n"
+                + "total;" + getTotalNumberOfMappings() + ";" + (getNumberOfResourcesMappingToDBpedia() + getNumberOfPropertiesMappingToDBpedia() + getNumberOfClassesMappingToDBpedia())
+                + ";" + (getNumberOfResourcesMappingToNull() + getNumberOfPropertiesMappingToNull() + getNumberOfClassesMappingToNull()) + "\n";
+    }
+
+
+    /**
+     * @return Share of the mappings to DBpedia; NaN if there are no mappings.
+     */
+    private static double share(long mappedToDBpedia, long mappedToNull) {
+        return (double) mappedToDBpedia / (mappedToDBpedia + mappedToNull);
+    }
+
+
     /**
      * Returns the total number of mappings existing in the gold standard.
      * @return
      */
-    public int getTotalNumberOfMappings() {
-        return numberOfClassesMappingToNull + numberOfClassesMappingToDBpedia + numberOfPropertiesMappingToNull
-                + numberOfPropertiesMappingToDBpedia + numberOfResourcesMappingToNull + numberOfResourcesMappingToDBpedia;
+    public long getTotalNumberOfMappings() {
+        return getNumberOfClassesMappingToNull() + getNumberOfClassesMappingToDBpedia() + getNumberOfPropertiesMappingToNull()
+                + getNumberOfPropertiesMappingToDBpedia() + getNumberOfResourcesMappingToNull() + getNumberOfResourcesMappingToDBpedia();
 
     }
 
 
     /**
      * Write the statistics about the gold standard into <root>/statistics
+     * (goldStandardStatistics.txt, goldStandardStatistics.json and goldStandardStatistics.csv).
      */
     public void writeGoldStandardStatisticsIntoFile(){
         String pathToRoot = ResourceBundle.getBundle("config").getString("pathToRootDirectory");
@@ -182,8 +312,46 @@ public class GoldStandardStatistics {
             IOoperations.createDirectory(pathToRoot + "/statistics");
         }
 
-        File f = new File(pathToRoot + "/statistics/goldStandardStatistics.txt");
-        IOoperations.writeContentToFile(f, getResultRepresentationAsString());
+        IOoperations.writeContentToFile(new File(pathToRoot + "/statistics/goldStandardStatistics.txt"), getResultRepresentationAsString());
+        IOoperations.writeContentToFile(new File(pathToRoot + "/statistics/goldStandardStatistics.json"), getResultRepresentationAsJson());
+        IOoperations.writeContentToFile(new File(pathToRoot + "/statistics/goldStandardStatistics.csv"), getResultRepresentationAsCsv());
+    }
+
+
+    /*
+    ONLY GETTERS BELOW.
+     */
+
+    public long getNumberOfResourcesMappingToNull() {
+        return numberOfResourcesMappingToNull.sum();
+    }
+
+    public long getNumberOfResourcesMappingToDBpedia() {
+        return numberOfResourcesMappingToDBpedia.sum();
+    }
+
+    public long getNumberOfPropertiesMappingToNull() {
+        return numberOfPropertiesMappingToNull.sum();
+    }
+
+    public long getNumberOfPropertiesMappingToDBpedia() {
+        return numberOfPropertiesMappingToDBpedia.sum();
+    }
+
+    public long getNumberOfClassesMappingToNull() {
+        return numberOfClassesMappingToNull.sum();
+    }
+
+    public long getNumberOfClassesMappingToDBpedia() {
+        return numberOfClassesMappingToDBpedia.sum();
+    }
+
+    public long getNumberOfEvaluationFiles() {
+        return numberOfEvaluationFiles.sum();
+    }
+
+    public ArrayList<String> getLinesNotProcessed() {
+        return linesNotProcessed;
     }
 
 }
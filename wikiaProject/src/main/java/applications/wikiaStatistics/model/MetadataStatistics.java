@@ -2,12 +2,19 @@ package applications.wikiaStatistics.model;
 
 
 import loggingService.MessageLogger;
+import utils.ObjectLongMap;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.ResourceBundle;
 import org.apache.log4j.Level;
 
@@ -15,14 +22,35 @@ import java.io.PrintWriter;
 
 /**
  * This class represents a statistics object with various information.
+ * The statistics are an accumulator: several objects can be filled in parallel (e.g. one per chunk of wikis) and then
+ * be combined with {@link #merge(MetadataStatistics)}. All counters are primitive longs.
  */
 public class MetadataStatistics {
 
-    private HashMap<String, Integer> languageCounts; // For mapping language (key) to the number of wikis in that language (value)
-    private HashMap<String, Integer> topicCounts;
-    private HashMap<String, Integer> hubCounts;
-    private int numberOfArticles;
-    private int numberOfPages;
+    /**
+     * Default number of wikis kept for {@link #getTopWikisByArticles()}.
+     */
+    public static final int DEFAULT_TOP_K = 10;
+
+    // comparator of the top-k heap: the smallest number of articles is at the head
+    private static final Comparator<WikiArticleCount> ARTICLE_COUNT_ORDER =
+            Comparator.<WikiArticleCount>comparingLong(wiki -> wiki.numberOfArticles).thenComparing(wiki -> wiki.url, Comparator.reverseOrder());
+
+    // language codes of the 'wikiaLanguageCodes' file; loaded once for all objects
+    private static volatile HashSet<String> languageCodes;
+
+    private ObjectLongMap<String> languageCounts; // For mapping language (key) to the number of wikis in that language (value)
+    private ObjectLongMap<String> topicCounts;
+    private ObjectLongMap<String> hubCounts;
+    private long numberOfArticles;
+    private long numberOfPages;
+
+    // article counts of the single wikis (for the percentiles)
+    private long[] articleCounts = new long[64];
+    private int numberOfArticleCounts = 0;
+
+    private final int topK;
+    private final PriorityQueue<WikiArticleCount> topWikisByArticles;
 
     private static MessageLogger logger=new MessageLogger();
     private static final String MODULE="wikiaStatistics";
@@ -34,50 +62,186 @@ public class MetadataStatistics {
      * Initialize variables
      */
     public MetadataStatistics() {
-        this.languageCounts = initializeHashMap();
-        topicCounts = new HashMap<String, Integer>();
-        hubCounts = new HashMap<String, Integer>();
+        this(DEFAULT_TOP_K);
+    }
+
+    /**
+     * Constructor
+     * @param topK Number of wikis kept for {@link #getTopWikisByArticles()}.
+     */
+    public MetadataStatistics(int topK) {
+        this.languageCounts = new ObjectLongMap<>();
+        for (String languageCode : getLanguageCodes()) {
+            languageCounts.add(languageCode, 0);
+        }
+        topicCounts = new ObjectLongMap<>();
+        hubCounts = new ObjectLongMap<>();
         this.numberOfArticles = 0;
         this.numberOfPages = 0;
+        this.topK = Math.max(topK, 0);
+        this.topWikisByArticles = new PriorityQueue<>(this.topK + 1, ARTICLE_COUNT_ORDER);
+    }
+
+
+    /**
+     * Counts wikis for a language. Candidates that are no language code of the 'wikiaLanguageCodes' file are counted
+     * for english.
+     *
+     * @param languageCandidate The language candidate (e.g. the subdomain of the wiki url).
+     * @param numberOfWikis Number of wikis to be counted.
+     */
+    public void addLanguage(String languageCandidate, long numberOfWikis) {
+        languageCounts.add(languageCounts.containsKey(languageCandidate) ? languageCandidate : "en", numberOfWikis);
     }
 
+    /**
+     * Counts wikis for a hub.
+     * @param hub The hub.
+     * @param numberOfWikis Number of wikis to be counted.
+     */
+    public void addHub(String hub, long numberOfWikis) {
+        hubCounts.add(hub, numberOfWikis);
+    }
 
-    public HashMap<String, Integer> getHubCounts() {
-        return hubCounts;
+    /**
+     * Counts wikis for a topic.
+     * @param topic The topic.
+     * @param numberOfWikis Number of wikis to be counted.
+     */
+    public void addTopic(String topic, long numberOfWikis) {
+        topicCounts.add(topic, numberOfWikis);
     }
 
-    public HashMap<String, Integer> getLanguageCounts() {
-        return languageCounts;
+    /**
+     * Adds the articles of one wiki.
+     * @param url URL of the wiki.
+     * @param articles Number of articles of the wiki.
+     */
+    public void addArticles(String url, long articles) {
+        numberOfArticles += articles;
+
+        if (numberOfArticleCounts == articleCounts.length) {
+            articleCounts = Arrays.copyOf(articleCounts, numberOfArticleCounts * 2);
+        }
+        articleCounts[numberOfArticleCounts++] = articles;
+
+        offerTopWiki(new WikiArticleCount(url, articles));
     }
 
-    public HashMap<String, Integer> getTopicCounts() { return topicCounts; }
+    /**
+     * Adds the pages of one wiki.
+     * @param pages Number of pages of the wiki.
+     */
+    public void addPages(long pages) {
+        numberOfPages += pages;
+    }
 
-    public void setLanguageCounts(HashMap<String, Integer> languageCounts) {
-        this.languageCounts = languageCounts;
+    private void offerTopWiki(WikiArticleCount wiki) {
+        if (topK == 0) {
+            return;
+        }
+        if (topWikisByArticles.size() < topK) {
+            topWikisByArticles.add(wiki);
+        } else if (ARTICLE_COUNT_ORDER.compare(wiki, topWikisByArticles.peek()) > 0) {
+            topWikisByArticles.poll();
+            topWikisByArticles.add(wiki);
+        }
     }
 
-    public int getNumberOfArticles() {
-        return numberOfArticles;
+
+    /**
+     * Combines the statistics of another object into this object.
+     * @param other The statistics to be merged; it is not changed.
+     * @return This object.
+     */
+    public MetadataStatistics merge(MetadataStatistics other) {
+        languageCounts.addAll(other.languageCounts);
+        topicCounts.addAll(other.topicCounts);
+        hubCounts.addAll(other.hubCounts);
+        numberOfArticles += other.numberOfArticles;
+        numberOfPages += other.numberOfPages;
+
+        if (numberOfArticleCounts + other.numberOfArticleCounts > articleCounts.length) {
+            articleCounts = Arrays.copyOf(articleCounts, Math.max(articleCounts.length * 2, numberOfArticleCounts + other.numberOfArticleCounts));
+        }
+        System.arraycopy(other.articleCounts, 0, articleCounts, numberOfArticleCounts, other.numberOfArticleCounts);
+        numberOfArticleCounts += other.numberOfArticleCounts;
+
+        for (WikiArticleCount wiki : other.topWikisByArticles) {
+            offerTopWiki(wiki);
+        }
+        return this;
     }
 
-    public void setNumberOfArticles(int numberOfArticles) {
-        this.numberOfArticles = numberOfArticles;
+
+    /**
+     * Returns a percentile of the article counts of the wikis (nearest-rank method).
+     * @param percent The percentile, e.g. 50 for the median; between 0 (exclusive) and 100 (inclusive).
+     * @return The number of articles; 0 if no wiki was counted.
+     */
+    public long getArticleCountPercentile(double percent) {
+        if (numberOfArticleCounts == 0) {
+            return 0;
+        }
+        long[] sortedArticleCounts = Arrays.copyOf(articleCounts, numberOfArticleCounts);
+        Arrays.sort(sortedArticleCounts);
+        int rank = (int) Math.ceil(percent / 100.0 * numberOfArticleCounts);
+        return sortedArticleCounts[Math.min(Math.max(rank, 1), numberOfArticleCounts) - 1];
     }
 
-    public int getNumberOfPages() {
+
+    /**
+     * @return The wikis with the most articles in descending order.
+     */
+    public ArrayList<WikiArticleCount> getTopWikisByArticles() {
+        ArrayList<WikiArticleCount> result = new ArrayList<>(topWikisByArticles);
+        result.sort(Collections.reverseOrder(ARTICLE_COUNT_ORDER));
+        return result;
+    }
+
+
+    public HashMap<String, Long> getHubCounts() {
+        return hubCounts.toHashMap();
+    }
+
+    public HashMap<String, Long> getLanguageCounts() {
+        return languageCounts.toHashMap();
+    }
+
+    public HashMap<String, Long> getTopicCounts() { return topicCounts.toHashMap(); }
+
+    public long getNumberOfArticles() {
+        return numberOfArticles;
+    }
+
+    public long getNumberOfPages() {
         return numberOfPages;
     }
 
-    public void setNumberOfPages(int numberOfPages) {
-        this.numberOfPages = numberOfPages;
+    public void setHubCounts(Map<String, Long> hubCounts) {
+        this.hubCounts = toObjectLongMap(hubCounts);
+    }
+
+    public void setLanguageCounts(Map<String, Long> languageCounts) {
+        this.languageCounts = toObjectLongMap(languageCounts);
+    }
+
+    public void setTopicCounts(Map<String, Long> topicCounts) {
+        this.topicCounts = toObjectLongMap(topicCounts);
+    }
+
+    public void setNumberOfArticles(long numberOfArticles) {
+        this.numberOfArticles = numberOfArticles;
     }
 
-    public void setTopicCounts(HashMap<String, Integer> topicCounts) {
-        this.topicCounts = topicCounts;
+    public void setNumberOfPages(long numberOfPages) {
+        this.numberOfPages = numberOfPages;
     }
 
-    public void setHubCounts(HashMap<String, Integer> topicCounts) {
-        this.hubCounts = hubCounts;
+    private static ObjectLongMap<String> toObjectLongMap(Map<String, Long> counts) {
+        ObjectLongMap<String> result = new ObjectLongMap<>();
+        counts.forEach(result::add);
+        return result;
     }
 
 
@@ -87,32 +251,46 @@ public class MetadataStatistics {
                 "Languages = " + languageCounts + "\n" +
                 "Number of articles = " + numberOfArticles + "\n" +
                 "Number of pages = " + numberOfPages + "\n" +
+                "Articles per wiki (median / 90th / 99th percentile) = " + getArticleCountPercentile(50) + " / "
+                + getArticleCountPercentile(90) + " / " + getArticleCountPercentile(99) + "\n" +
+                "Wikis with most articles = " + getTopWikisByArticles() + "\n" +
                 "Hubs = " + hubCounts + "\n" +
                 "Topics = " + topicCounts + "\n";
     }
 
     /**
-     * Initialize the language HashMap with language codes of 'wikiaLanguageCodes' file and occurrence of zero.
-     * Called by constructor.
+     * Returns the language codes of the 'wikiaLanguageCodes' file. The file is read only once.
      *
-     * @return initialized HashMap
+     * @return The language codes.
      */
-    private HashMap<String, Integer> initializeHashMap() {
-        BufferedReader bufferedReader;
+    private static HashSet<String> getLanguageCodes() {
+        if (languageCodes == null) {
+            synchronized (MetadataStatistics.class) {
+                if (languageCodes == null) {
+                    languageCodes = readLanguageCodes();
+                }
+            }
+        }
+        return languageCodes;
+    }
+
+    /**
+     * Reads the language codes of 'wikiaLanguageCodes' file.
+     *
+     * @return The language codes.
+     */
+    private static HashSet<String> readLanguageCodes() {
         String readLine;
         String[] tokens;
-        HashMap<String, Integer> languageCounts = new HashMap<String, Integer>();
-
-        String directoryPath = ResourceBundle.getBundle("config").getString("pathToRootDirectory");
+        HashSet<String> languageCodes = new HashSet<String>();
 
-        try {
-            bufferedReader = new BufferedReader(new FileReader("./wikiaProject/src/main/resources/files/wikiaLanguageCodes.csv"));
+        try (BufferedReader bufferedReader = new BufferedReader(new FileReader("./wikiaProject/src/main/resources/files/wikiaLanguageCodes.csv"))) {
 
             while ((readLine = bufferedReader.readLine()) != null) {
                 tokens = readLine.split(";");
 
-                if (!tokens[0].isEmpty()) {
-                    languageCounts.put(tokens[0], 0);
+                if (tokens.length > 0 && !tokens[0].isEmpty()) {
+                    languageCodes.add(tokens[0]);
                 }
             }
 
@@ -120,7 +298,7 @@ public class MetadataStatistics {
             logger.logMessage(Level.FATAL ,MODULE,CLASS,"HashMap has not been initialized." + ioe.toString());
         }
 
-        return languageCounts;
+        return languageCodes;
     }
 
     /**
@@ -128,19 +306,8 @@ public class MetadataStatistics {
      *
      * @param occurrences
      */
-    public void limitTopLanguages(int occurrences) {
-        HashMap<String, Integer> limitedLanguages = new HashMap<String, Integer>();
-
-        for (Map.Entry<String, Integer> entry : this.getLanguageCounts().entrySet()) {
-
-            if(entry.getValue() >= occurrences) {
-                // add entries with at minimum specified number of occurrences
-                limitedLanguages.put(entry.getKey(), entry.getValue());
-            }
-
-        }
-
-        this.setLanguageCounts(limitedLanguages);
+    public void limitTopLanguages(long occurrences) {
+        languageCounts.retainIf(count -> count >= occurrences);
     }
 
 
@@ -169,4 +336,24 @@ public class MetadataStatistics {
         }
     }
 
+
+    /**
+     * Number of articles of a single wiki.
+     */
+    public static class WikiArticleCount {
+
+        public final String url;
+        public final long numberOfArticles;
+
+        public WikiArticleCount(String url, long numberOfArticles) {
+            this.url = url;
+            this.numberOfArticles = numberOfArticles;
+        }
+
+        @Override
+        public String toString() {
+            return url + " (" + numberOfArticles + ")";
+        }
+    }
+
 }
@@ -0,0 +1,454 @@
+package applications.wikiaStatistics.util;
+
+import loggingService.MessageLogger;
+import org.apache.log4j.Level;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+
+/**
+ * Columnar binary cache of the wikiaAllOverview.csv file.
+ * The CSV file is parsed only once; the columns needed by the statistics and the downloaders are written to a binary
+ * file next to it (wikiaAllOverview.bin) which is memory-mapped by all later readers. The cache is rebuilt
+ * automatically when the size or the modification time of the CSV file changed.
+ *
+ * Hub, topic and language are dictionary-encoded (one int code per wiki, -1 if the value is missing), the article and
+ * page counts are stored as ints ({@link #NO_NUMBER} if the CSV value is not a number). Aggregations are therefore
+ * plain scans over int columns.
+ *
+ * The language column holds the language candidate taken from the URL: the part between "http://" and the first dot
+ * (e.g. "de" for http://de.harrypotter.wikia.com/). Whether the candidate is an actual language code is decided by
+ * the caller.
+ */
+public class WikiaOverviewStore {
+
+    /**
+     * Columns of the store.
+     */
+    public enum Column {
+        ID(false), LANGUAGE(true), HUB(true), TOPIC(true), ARTICLES(false), PAGES(false);
+
+        private final boolean dictionaryEncoded;
+
+        Column(boolean dictionaryEncoded) {
+            this.dictionaryEncoded = dictionaryEncoded;
+        }
+
+        /**
+         * @return True if the values of the column are codes of a dictionary.
+         */
+        public boolean isDictionaryEncoded() {
+            return dictionaryEncoded;
+        }
+    }
+
+    /**
+     * Value of a dictionary-encoded column if the CSV value is missing.
+     */
+    public static final int NO_VALUE = -1;
+
+    /**
+     * Value of a number column if the CSV value is not a number.
+     */
+    public static final int NO_NUMBER = Integer.MIN_VALUE;
+
+    // positions in the CSV file (see ExpandedWikiaItem.getHeader())
+    private static final int ID_TOKEN = 0;
+    private static final int URL_TOKEN = 1;
+    private static final int HUB_TOKEN = 7;
+    private static final int TOPIC_TOKEN = 8;
+    private static final int ARTICLES_TOKEN = 11;
+    private static final int PAGES_TOKEN = 12;
+
+    private static final int MAGIC_NUMBER = 0x57414f56; // "WAOV"
+    private static final int VERSION = 1;
+
+    private static MessageLogger logger = new MessageLogger();
+    private static final String MODULE = "wikiaStatistics";
+    private static final String CLASS = WikiaOverviewStore.class.getName();
+
+    private final int numberOfRows;
+    private final EnumMap<Column, IntBuffer> columns = new EnumMap<>(Column.class);
+    private final EnumMap<Column, String[]> dictionaries = new EnumMap<>(Column.class);
+    private final IntBuffer urlOffsets;
+    private final ByteBuffer urlBytes;
+
+
+    /**
+     * Constructor; reads the header of a mapped cache file.
+     * @param buffer The mapped cache file.
+     * @throws IOException if the file is no valid cache file.
+     */
+    private WikiaOverviewStore(ByteBuffer buffer) throws IOException {
+        if (buffer.getInt() != MAGIC_NUMBER || buffer.getInt() != VERSION) {
+            throw new IOException("Not a wikiaAllOverview cache file of version " + VERSION + ".");
+        }
+        buffer.getLong(); // length of the CSV file
+        buffer.getLong(); // modification time of the CSV file
+        numberOfRows = buffer.getInt();
+
+        for (Column column : Column.values()) {
+            if (column.isDictionaryEncoded()) {
+                String[] dictionary = new String[buffer.getInt()];
+                for (int i = 0; i < dictionary.length; i++) {
+                    byte[] value = new byte[buffer.getInt()];
+                    buffer.get(value);
+                    dictionary[i] = new String(value, StandardCharsets.UTF_8);
+                }
+                dictionaries.put(column, dictionary);
+            }
+        }
+
+        for (Column column : Column.values()) {
+            columns.put(column, sliceIntColumn(buffer, numberOfRows));
+        }
+        urlOffsets = sliceIntColumn(buffer, numberOfRows + 1);
+        urlBytes = buffer.slice();
+    }
+
+
+    /**
+     * Returns the store of the given overview file. The cache file is built if it does not exist or is outdated.
+     * @param overviewFile The wikiaAllOverview.csv file.
+     * @return The store.
+     * @throws IOException if neither the cache can be read nor the CSV file can be parsed.
+     */
+    public static WikiaOverviewStore load(File overviewFile) throws IOException {
+        File cacheFile = getCacheFile(overviewFile);
+        if (!isUpToDate(cacheFile, overviewFile)) {
+            build(overviewFile, cacheFile);
+        }
+        return open(cacheFile);
+    }
+
+
+    /**
+     * Memory-maps an existing cache file.
+     * @param cacheFile The cache file.
+     * @return The store.
+     * @throws IOException if the file cannot be read or is no cache file.
+     */
+    public static WikiaOverviewStore open(File cacheFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new WikiaOverviewStore(buffer);
+        }
+    }
+
+
+    /**
+     * Parses the CSV file and writes the cache file. The file is written to a temporary file first, so readers never
+     * see a partially written cache.
+     * @param overviewFile The wikiaAllOverview.csv file.
+     * @param cacheFile The cache file to be written.
+     * @throws IOException if reading or writing fails.
+     */
+    public static void build(File overviewFile, File cacheFile) throws IOException {
+        logger.logMessage(Level.INFO, MODULE, CLASS, "Building the columnar cache of " + overviewFile.getName() + ".");
+
+        long overviewFileLength = overviewFile.length();
+        long overviewFileLastModified = overviewFile.lastModified();
+
+        EnumMap<Column, Dictionary> dictionaryBuilders = new EnumMap<>(Column.class);
+        EnumMap<Column, IntColumnBuilder> columnBuilders = new EnumMap<>(Column.class);
+        for (Column column : Column.values()) {
+            columnBuilders.put(column, new IntColumnBuilder());
+            if (column.isDictionaryEncoded()) {
+                dictionaryBuilders.put(column, new Dictionary());
+            }
+        }
+        IntColumnBuilder urlOffsetBuilder = new IntColumnBuilder();
+        ByteArrayOutputStream urlBuilder = new ByteArrayOutputStream();
+        urlOffsetBuilder.add(0);
+
+        int numberOfRows = 0;
+        // malformed input is replaced instead of aborting the build
+        try (BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(new FileInputStream(overviewFile), StandardCharsets.UTF_8))) {
+
+            // ignore header line
+            bufferedReader.readLine();
+
+            String line;
+            while ((line = bufferedReader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String[] tokens = line.split(";");
+                String url = getToken(tokens, URL_TOKEN);
+
+                columnBuilders.get(Column.ID).add(parseNumber(getToken(tokens, ID_TOKEN)));
+                columnBuilders.get(Column.LANGUAGE).add(dictionaryBuilders.get(Column.LANGUAGE).encode(getLanguageCandidate(url)));
+                columnBuilders.get(Column.HUB).add(dictionaryBuilders.get(Column.HUB).encode(getOptionalToken(tokens, HUB_TOKEN)));
+                columnBuilders.get(Column.TOPIC).add(dictionaryBuilders.get(Column.TOPIC).encode(getOptionalToken(tokens, TOPIC_TOKEN)));
+                columnBuilders.get(Column.ARTICLES).add(parseNumber(getToken(tokens, ARTICLES_TOKEN)));
+                columnBuilders.get(Column.PAGES).add(parseNumber(getToken(tokens, PAGES_TOKEN)));
+
+                if (url != null) {
+                    urlBuilder.write(url.getBytes(StandardCharsets.UTF_8));
+                } else {
+                    logger.logMessage(Level.WARN, MODULE, CLASS, "Line without URL in " + overviewFile.getName() + ": " + line);
+                }
+                urlOffsetBuilder.add(urlBuilder.size());
+                numberOfRows++;
+            }
+        }
+
+        File temporaryFile = new File(cacheFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile), 1 << 16))) {
+            out.writeInt(MAGIC_NUMBER);
+            out.writeInt(VERSION);
+            out.writeLong(overviewFileLength);
+            out.writeLong(overviewFileLastModified);
+            out.writeInt(numberOfRows);
+
+            for (Column column : Column.values()) {
+                if (column.isDictionaryEncoded()) {
+                    ArrayList<String> values = dictionaryBuilders.get(column).values;
+                    out.writeInt(values.size());
+                    for (String value : values) {
+                        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                        out.writeInt(bytes.length);
+                        out.write(bytes);
+                    }
+                }
+            }
+            for (Column column : Column.values()) {
+                columnBuilders.get(column).writeTo(out);
+            }
+            urlOffsetBuilder.writeTo(out);
+            urlBuilder.writeTo(out);
+        }
+        try {
+            Files.move(temporaryFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException amnse) {
+            Files.move(temporaryFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        logger.logMessage(Level.INFO, MODULE, CLASS, "Cached " + numberOfRows + " wikis in " + cacheFile.getName() + ".");
+    }
+
+
+    /**
+     * @param overviewFile The wikiaAllOverview.csv file.
+     * @return The cache file belonging to the overview file.
+     */
+    public static File getCacheFile(File overviewFile) {
+        String name = overviewFile.getName();
+        int extensionIndex = name.lastIndexOf('.');
+        String baseName = extensionIndex > 0 ? name.substring(0, extensionIndex) : name;
+        return new File(overviewFile.getAbsoluteFile().getParentFile(), baseName + ".bin");
+    }
+
+
+    /**
+     * Checks whether the cache file was built from the current version of the overview file.
+     */
+    private static boolean isUpToDate(File cacheFile, File overviewFile) {
+        if (!cacheFile.isFile()) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(24);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // read the complete header
+            }
+            header.flip();
+            return header.remaining() == 24
+                    && header.getInt() == MAGIC_NUMBER
+                    && header.getInt() == VERSION
+                    && header.getLong() == overviewFile.length()
+                    && header.getLong() == overviewFile.lastModified();
+        } catch (IOException ioe) {
+            return false;
+        }
+    }
+
+
+    /**
+     * @param url The URL of a wiki, e.g. "http://de.harrypotter.wikia.com/".
+     * @return The part between "http://" and the first dot; null if the URL does not contain a dot.
+     */
+    static String getLanguageCandidate(String url) {
+        if (url == null || url.indexOf('.') < 7) {
+            return null;
+        }
+        return url.substring(7, url.indexOf('.'));
+    }
+
+    private static String getToken(String[] tokens, int index) {
+        return index < tokens.length ? tokens[index] : null;
+    }
+
+    /**
+     * @return The token; null if it is missing, empty or "null".
+     */
+    private static String getOptionalToken(String[] tokens, int index) {
+        String token = getToken(tokens, index);
+        return token == null || token.isEmpty() || token.equalsIgnoreCase("null") ? null : token;
+    }
+
+    private static int parseNumber(String token) {
+        try {
+            return Integer.parseInt(token);
+        } catch (NumberFormatException nfe) {
+            return NO_NUMBER;
+        }
+    }
+
+    private static IntBuffer sliceIntColumn(ByteBuffer buffer, int length) {
+        ByteBuffer slice = buffer.slice();
+        slice.limit(length * 4);
+        buffer.position(buffer.position() + length * 4);
+        return slice.asIntBuffer();
+    }
+
+
+    /**
+     * Counts the occurrences of each value of a dictionary-encoded column.
+     * @param column A dictionary-encoded column.
+     * @return Array with the number of wikis per dictionary code (missing values are not counted).
+     */
+    public int[] getValueCounts(Column column) {
+        int[] counts = new int[getDictionary(column).length];
+        IntBuffer values = columns.get(column);
+        for (int row = 0; row < numberOfRows; row++) {
+            int code = values.get(row);
+            if (code >= 0) {
+                counts[code]++;
+            }
+        }
+        return counts;
+    }
+
+
+    /**
+     * Returns the value of a column.
+     * @param column The column.
+     * @param row The row (0 is the first wiki after the header line).
+     * @return The number, the dictionary code, {@link #NO_VALUE} or {@link #NO_NUMBER}.
+     */
+    public int get(Column column, int row) {
+        return columns.get(column).get(row);
+    }
+
+
+    /**
+     * Returns the decoded value of a dictionary-encoded column.
+     * @param column A dictionary-encoded column.
+     * @param row The row.
+     * @return The value; null if the value is missing.
+     */
+    public String getValue(Column column, int row) {
+        int code = get(column, row);
+        return code == NO_VALUE ? null : getDictionary(column)[code];
+    }
+
+
+    /**
+     * @param row The row.
+     * @return URL of the wiki in the given row.
+     */
+    public String getUrl(int row) {
+        int start = urlOffsets.get(row);
+        byte[] bytes = new byte[urlOffsets.get(row + 1) - start];
+        ByteBuffer url = urlBytes.duplicate();
+        url.position(start);
+        url.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     * Dictionary of a column in the order of the codes.
+     * @param column A dictionary-encoded column.
+     * @return The values.
+     */
+    public String[] getDictionary(Column column) {
+        String[] dictionary = dictionaries.get(column);
+        if (dictionary == null) {
+            throw new IllegalArgumentException("Column " + column + " is not dictionary-encoded.");
+        }
+        return dictionary;
+    }
+
+
+    /**
+     * Dictionary under construction: assigns consecutive codes to the values.
+     */
+    private static class Dictionary {
+
+        private final HashMap<String, Integer> codes = new HashMap<>();
+        private final ArrayList<String> values = new ArrayList<>();
+
+        /**
+         * @param value The value; null if the value is missing.
+         * @return The code of the value or {@link #NO_VALUE}.
+         */
+        int encode(String value) {
+            if (value == null) {
+                return NO_VALUE;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+    }
+
+
+    /**
+     * Growable int array.
+     */
+    private static class IntColumnBuilder {
+
+        private int[] values = new int[1024];
+        private int size = 0;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            for (int i = 0; i < size; i++) {
+                out.writeInt(values[i]);
+            }
+        }
+    }
+
+
+    /*
+    ONLY GETTERS BELOW.
+     */
+
+    public int getNumberOfRows() {
+        return numberOfRows;
+    }
+
+}
@@ -11,6 +11,7 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.ResourceBundle;
+import java.util.stream.IntStream;
 import org.apache.log4j.Level;
 
 
@@ -26,6 +27,9 @@ public class WikiaStatisticsTools {
     private static final String MODULE="wikiaStatistics";
     private static final String CLASS=WikiaStatisticsTools.class.getName();
 
+    // number of wikis that are aggregated by one task
+    private static final int STATISTICS_CHUNK_SIZE = 1 << 16;
+
 
 
     /**
@@ -80,80 +84,105 @@ public class WikiaStatisticsTools {
      * @return created MetadataStatistics object
      */
     public static MetadataStatistics getMetadataStatistics() {
-        String[] tokens;
-        String possibleLanguageCode;
-        MetadataStatistics statistics = new MetadataStatistics();
-
-        try {
-            BufferedReader bufferedReader = new BufferedReader(new FileReader(new File(statisticsDirectoryPath + "/wikiaAllOverview.csv")));
-            String readLine;
-
-            // ignore header line
-            bufferedReader.readLine();
-
-            // read wiki metadata information one after another
-            while ((readLine = bufferedReader.readLine()) != null) {
-                tokens = readLine.split(";");
-
-                logger.logMessage(Level.INFO,MODULE,CLASS,"Processing: " + tokens[1]);
-
-                // count language codes, default english
-
-                // tokens[1] refers to the url row, url has to contain at least one dot
-                if (tokens[1].indexOf(".") != -1) {
-
-                    // retrieve string between "http://" and first dot as possible language code
-                    possibleLanguageCode = tokens[1].substring(7, tokens[1].indexOf("."));
+        return getMetadataStatistics(new File(statisticsDirectoryPath + "/wikiaAllOverview.csv"));
+    }
 
-                    // find out if it is an actual language code
-                    if (statistics.getLanguageCounts().containsKey(possibleLanguageCode)) {
-                        // count +1 for this language code
-                        statistics.getLanguageCounts().put(possibleLanguageCode, statistics.getLanguageCounts().get(possibleLanguageCode) + 1);
 
-                    } else {
-                        // if no specific language code exists, count +1 for english
-                        statistics.getLanguageCounts().put("en", statistics.getLanguageCounts().get("en") + 1);
+    /**
+     * Creates a MetadataStatistics object with variables including statistics.
+     * The statistics are calculated on the columnar cache of the overview file (see {@link WikiaOverviewStore}): the
+     * wikis are split into chunks that are aggregated in parallel and merged afterwards.
+     *
+     * @param overviewFile The wikiaAllOverview.csv file.
+     * @return created MetadataStatistics object
+     */
+    public static MetadataStatistics getMetadataStatistics(File overviewFile) {
+        WikiaOverviewStore store;
+        try {
+            store = WikiaOverviewStore.load(overviewFile);
+        } catch (IOException ioe) {
+            logger.logMessage(Level.FATAL,MODULE,CLASS,ioe.toString());
+            return new MetadataStatistics();
+        }
+        logger.logMessage(Level.INFO,MODULE,CLASS,"Processing " + store.getNumberOfRows() + " wikis.");
+
+        int numberOfChunks = (store.getNumberOfRows() + STATISTICS_CHUNK_SIZE - 1) / STATISTICS_CHUNK_SIZE;
+        return IntStream.range(0, numberOfChunks)
+                .parallel()
+                .mapToObj(chunk -> getMetadataStatistics(store, chunk * STATISTICS_CHUNK_SIZE,
+                        Math.min((chunk + 1) * STATISTICS_CHUNK_SIZE, store.getNumberOfRows())))
+                .reduce(MetadataStatistics::merge)
+                .orElseGet(MetadataStatistics::new);
+    }
 
-                    }
 
-                    // count number of overall articles (tokens[11]) and pages (tokens[12])
-                    try {
-                        statistics.setNumberOfArticles(statistics.getNumberOfArticles() + Integer.parseInt(tokens[11]));
-                        statistics.setNumberOfPages(statistics.getNumberOfPages() + Integer.parseInt(tokens[12]));
+    /**
+     * Calculates the statistics of a range of wikis. The values are counted per dictionary code in primitive arrays
+     * and only converted once per chunk.
+     *
+     * @param store The overview store.
+     * @param fromRow First row (inclusive).
+     * @param toRow Last row (exclusive).
+     * @return The statistics of the range.
+     */
+    private static MetadataStatistics getMetadataStatistics(WikiaOverviewStore store, int fromRow, int toRow) {
+        MetadataStatistics statistics = new MetadataStatistics();
 
-                    } catch (NumberFormatException ne) {
-                        logger.logMessage(Level.WARN,MODULE,CLASS,"Articles/pages of URL " + tokens[1] + " do not include an integer value.");
-                    }
-                }
+        long[] languageCandidateCounts = new long[store.getDictionary(WikiaOverviewStore.Column.LANGUAGE).length];
+        long[] hubCounts = new long[store.getDictionary(WikiaOverviewStore.Column.HUB).length];
+        long[] topicCounts = new long[store.getDictionary(WikiaOverviewStore.Column.TOPIC).length];
 
-                // add hub
-                if(!tokens[7].equalsIgnoreCase("null") && !tokens[7].equalsIgnoreCase("")  && tokens[7] != null ){
-                    if(statistics.getHubCounts().containsKey(tokens[7])){
-                        // key already in store, increment by 1
-                        statistics.getHubCounts().put(tokens[7], statistics.getHubCounts().get(tokens[7])  + 1 );
-                    } else {
-                        // key not in store, initialize
-                        statistics.getHubCounts().put(tokens[7], 1);
-                    }
-                }
+        for (int row = fromRow; row < toRow; row++) {
 
-               // add topic
-                if(!tokens[8].equalsIgnoreCase("null") && !tokens[8].equalsIgnoreCase("") && tokens[8] != null ){
-                    if(statistics.getTopicCounts().containsKey(tokens[8])){
-                        // key already in store, increment by 1
-                        statistics.getTopicCounts().put(tokens[8], statistics.getTopicCounts().get(tokens[8])  + 1 );
-                    } else {
-                        // key not in store, initialize
-                        statistics.getTopicCounts().put(tokens[8], 1);
-                    }
-                }
+            // add hub and topic
+            int hub = store.get(WikiaOverviewStore.Column.HUB, row);
+            if (hub != WikiaOverviewStore.NO_VALUE) {
+                hubCounts[hub]++;
+            }
+            int topic = store.get(WikiaOverviewStore.Column.TOPIC, row);
+            if (topic != WikiaOverviewStore.NO_VALUE) {
+                topicCounts[topic]++;
+            }
 
-            } // end of while loop
+            // languages, articles and pages are only counted for wikis with a language candidate (a dot in the url)
+            int languageCandidate = store.get(WikiaOverviewStore.Column.LANGUAGE, row);
+            if (languageCandidate == WikiaOverviewStore.NO_VALUE) {
+                continue;
+            }
+            languageCandidateCounts[languageCandidate]++;
 
-            bufferedReader.close();
+            int articles = store.get(WikiaOverviewStore.Column.ARTICLES, row);
+            int pages = store.get(WikiaOverviewStore.Column.PAGES, row);
+            if (articles == WikiaOverviewStore.NO_NUMBER) {
+                logger.logMessage(Level.WARN,MODULE,CLASS,"Articles/pages of URL " + store.getUrl(row) + " do not include an integer value.");
+                continue;
+            }
+            statistics.addArticles(store.getUrl(row), articles);
+            if (pages == WikiaOverviewStore.NO_NUMBER) {
+                logger.logMessage(Level.WARN,MODULE,CLASS,"Articles/pages of URL " + store.getUrl(row) + " do not include an integer value.");
+            } else {
+                statistics.addPages(pages);
+            }
+        }
 
-        } catch (IOException ioe) {
-            logger.logMessage(Level.FATAL,MODULE,CLASS,ioe.toString());
+        // count language codes, default english: the language candidates are resolved once per dictionary entry
+        String[] languageCandidates = store.getDictionary(WikiaOverviewStore.Column.LANGUAGE);
+        for (int code = 0; code < languageCandidates.length; code++) {
+            if (languageCandidateCounts[code] > 0) {
+                statistics.addLanguage(languageCandidates[code], languageCandidateCounts[code]);
+            }
+        }
+        String[] hubs = store.getDictionary(WikiaOverviewStore.Column.HUB);
+        for (int code = 0; code < hubs.length; code++) {
+            if (hubCounts[code] > 0) {
+                statistics.addHub(hubs[code], hubCounts[code]);
+            }
+        }
+        String[] topics = store.getDictionary(WikiaOverviewStore.Column.TOPIC);
+        for (int code = 0; code < topics.length; code++) {
+            if (topicCounts[code] > 0) {
+                statistics.addTopic(topics[code], topicCounts[code]);
+            }
         }
 
         return statistics;
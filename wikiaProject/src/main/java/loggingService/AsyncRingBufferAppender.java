@@ -0,0 +1,232 @@
+package loggingService;
+
+import org.apache.log4j.Appender;
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.helpers.AppenderAttachableImpl;
+import org.apache.log4j.spi.AppenderAttachable;
+import org.apache.log4j.spi.LoggingEvent;
+
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * log4j appender that hands the events to a background thread via a bounded ring buffer; the background thread
+ * writes them to the attached appenders (appender-ref in log4j.xml).
+ * Logging threads do not wait for DEBUG and INFO messages: if the buffer is full, the event is dropped and counted.
+ * The number of dropped events is logged as a warning as soon as there is space again. Warnings and errors are never
+ * dropped; if the buffer is full, they are written to the attached appenders by the logging thread itself.
+ * Closing the appender writes all buffered events.
+ */
+public class AsyncRingBufferAppender extends AppenderSkeleton implements AppenderAttachable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final int BATCH_SIZE = 256;
+
+    private final AppenderAttachableImpl appenders = new AppenderAttachableImpl();
+    private final AtomicLong numberOfDroppedEvents = new AtomicLong();
+
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+    private ArrayBlockingQueue<LoggingEvent> buffer;
+    private Thread dispatcher;
+    private volatile boolean stopped = false;
+
+
+    /**
+     * Creates the buffer and starts the background thread; called by log4j after the parameters are set.
+     */
+    @Override
+    public void activateOptions() {
+        buffer = new ArrayBlockingQueue<>(Math.max(bufferSize, 1));
+        dispatcher = new Thread(this::dispatch, "log4j-" + (getName() == null ? "async" : getName()));
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+
+    @Override
+    protected void append(LoggingEvent event) {
+        if (buffer == null) {
+            activateOptions();
+        }
+
+        // the thread dependent information has to be taken now, not in the background thread
+        event.getNDC();
+        event.getThreadName();
+        event.getMDCCopy();
+        event.getRenderedMessage();
+
+        if (!buffer.offer(event)) {
+            if (event.getLevel().isGreaterOrEqual(Level.WARN)) {
+                appendToAttachedAppenders(event);
+            } else {
+                numberOfDroppedEvents.incrementAndGet();
+            }
+        }
+    }
+
+
+    /**
+     * Loop of the background thread.
+     */
+    private void dispatch() {
+        ArrayList<LoggingEvent> batch = new ArrayList<>(BATCH_SIZE);
+        try {
+            while (!stopped || !buffer.isEmpty()) {
+                LoggingEvent first = buffer.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, BATCH_SIZE - 1);
+                dispatchBatch(batch);
+            }
+        } catch (InterruptedException ie) {
+            // closed: the remaining events are written by close()
+        }
+    }
+
+    private void dispatchBatch(ArrayList<LoggingEvent> batch) {
+        long dropped = numberOfDroppedEvents.getAndSet(0);
+        if (dropped > 0) {
+            LoggingEvent first = batch.get(0);
+            appendToAttachedAppenders(new LoggingEvent(AsyncRingBufferAppender.class.getName(),
+                    Logger.getLogger(first.getLoggerName()), Level.WARN,
+                    dropped + " log messages were dropped because the logging buffer was full.", null));
+        }
+        for (LoggingEvent event : batch) {
+            appendToAttachedAppenders(event);
+        }
+        batch.clear();
+    }
+
+    private void appendToAttachedAppenders(LoggingEvent event) {
+        synchronized (appenders) {
+            appenders.appendLoopOnAppenders(event);
+        }
+    }
+
+
+    /**
+     * Writes the buffered events and closes the attached appenders.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            stopped = true;
+        }
+
+        if (dispatcher != null) {
+            try {
+                dispatcher.join(5000);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+            dispatcher.interrupt();
+        }
+
+        if (buffer != null) {
+            ArrayList<LoggingEvent> remaining = new ArrayList<>(buffer.size());
+            buffer.drainTo(remaining);
+            if (!remaining.isEmpty()) {
+                dispatchBatch(remaining);
+            }
+        }
+
+        synchronized (appenders) {
+            Enumeration<?> attachedAppenders = appenders.getAllAppenders();
+            while (attachedAppenders != null && attachedAppenders.hasMoreElements()) {
+                ((Appender) attachedAppenders.nextElement()).close();
+            }
+        }
+    }
+
+
+    @Override
+    public boolean requiresLayout() {
+        return false;
+    }
+
+
+    @Override
+    public void addAppender(Appender newAppender) {
+        synchronized (appenders) {
+            appenders.addAppender(newAppender);
+        }
+    }
+
+    @Override
+    public Enumeration<?> getAllAppenders() {
+        synchronized (appenders) {
+            return appenders.getAllAppenders();
+        }
+    }
+
+    @Override
+    public Appender getAppender(String name) {
+        synchronized (appenders) {
+            return appenders.getAppender(name);
+        }
+    }
+
+    @Override
+    public boolean isAttached(Appender appender) {
+        synchronized (appenders) {
+            return appenders.isAttached(appender);
+        }
+    }
+
+    @Override
+    public void removeAllAppenders() {
+        synchronized (appenders) {
+            appenders.removeAllAppenders();
+        }
+    }
+
+    @Override
+    public void removeAppender(Appender appender) {
+        synchronized (appenders) {
+            appenders.removeAppender(appender);
+        }
+    }
+
+    @Override
+    public void removeAppender(String name) {
+        synchronized (appenders) {
+            appenders.removeAppender(name);
+        }
+    }
+
+
+    /**
+     * @param bufferSize Number of events the buffer can hold (parameter "bufferSize" in log4j.xml).
+     */
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+
+    /*
+    ONLY GETTERS BELOW.
+     */
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * @return Number of events dropped since the last warning about dropped events.
+     */
+    public long getNumberOfDroppedEvents() {
+        return numberOfDroppedEvents.get();
+    }
+
+}
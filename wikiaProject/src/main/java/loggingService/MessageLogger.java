@@ -1,9 +1,8 @@
 package loggingService;
 
-import org.apache.log4j.FileAppender;
+import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 import org.apache.log4j.Level;
-import org.apache.log4j.RollingFileAppender;
 import org.apache.log4j.xml.DOMConfigurator;
 
 import java.util.ResourceBundle;
@@ -13,21 +12,30 @@ import java.util.ResourceBundle;
  * This class will log message according to
  * serverity level in a log file
  *
+ * log4j is configured only once per JVM (on first use), no matter how many MessageLogger objects are created.
+ * The level is checked before a message is formatted; use the parameterized
+ * {@link #logMessage(Level, String, String, String, Object...)} in loops so that disabled messages cost nothing.
+ * The appenders of log4j.xml are fed by an {@link AsyncRingBufferAppender}, so logging does not block the caller.
  *
 **/
 public class MessageLogger {
 
-    public static Logger LOGGER;
-    String log4jFileConfigFile=this.getClass().getClassLoader().getResource("log4j.xml").getPath();
-    private static String pathToRootDirectory = ResourceBundle.getBundle("config").getString("pathToRootDirectory");
+    public static Logger LOGGER = Configuration.LOGGER;
 
     /**
      * Constructor for class Message Logger
      */
     public MessageLogger(){
-        System.setProperty("rootDirectory", pathToRootDirectory);
-        DOMConfigurator.configure(log4jFileConfigFile);
-        LOGGER = Logger.getLogger("wikia.logger");
+        // the configuration is done once in the holder class
+    }
+
+
+    /**
+     * @param messagePriority priority message (DEBUG,INFO,WARN,ERROR,FATAL)
+     * @return True if messages of the given priority are logged.
+     */
+    public boolean isEnabled(Level messagePriority) {
+        return LOGGER.isEnabledFor(toLoggedLevel(messagePriority));
     }
 
 
@@ -44,31 +52,89 @@ public class MessageLogger {
                            String className,
                            String message){
 
+        Level level = toLoggedLevel(messagePriority);
+        if (!LOGGER.isEnabledFor(level)) {
+            return;
+        }
+        LOGGER.log(level, module + " - " + className + " - " + message);
+    }
 
 
-        String logMessage = module
-                + " - " + className + " - "+message;
-
+    /**
+     * Logs a parameterized message; every {} in the pattern is replaced by the next argument.
+     * The message is only formatted if the priority is enabled.
+     * @param messagePriority priority message (DEBUG,INFO,WARN,ERROR,FATAL)
+     * @param module name of package
+     * @param className name of the class from where logging message is initiated
+     * @param messagePattern log message with {} placeholders, e.g. "Processing: {}"
+     * @param arguments values of the placeholders
+     */
+    public void logMessage(Level messagePriority,
+                           String module,
+                           String className,
+                           String messagePattern,
+                           Object... arguments){
 
+        Level level = toLoggedLevel(messagePriority);
+        if (!LOGGER.isEnabledFor(level)) {
+            return;
+        }
+        LOGGER.log(level, module + " - " + className + " - " + format(messagePattern, arguments));
+    }
 
 
-        if(messagePriority==Level.DEBUG){
-          LOGGER.debug(logMessage);
-        }
-        else if(messagePriority==Level.INFO){
-            LOGGER.info(logMessage);
-        }
-        else if(messagePriority==Level.WARN ){
-            LOGGER.warn(logMessage);
+    /**
+     * Replaces the {} placeholders of a pattern by the arguments.
+     * Surplus placeholders are kept, surplus arguments are ignored.
+     * @param messagePattern Pattern with {} placeholders.
+     * @param arguments Values of the placeholders.
+     * @return The formatted message.
+     */
+    static String format(String messagePattern, Object... arguments) {
+        if (messagePattern == null || arguments == null || arguments.length == 0) {
+            return messagePattern;
         }
-        else if(messagePriority==Level.ERROR){
-            LOGGER.error(logMessage);
+        StringBuilder result = new StringBuilder(messagePattern.length() + 16 * arguments.length);
+        int start = 0;
+        int argumentIndex = 0;
+        int placeholder;
+        while (argumentIndex < arguments.length && (placeholder = messagePattern.indexOf("{}", start)) >= 0) {
+            result.append(messagePattern, start, placeholder).append(arguments[argumentIndex++]);
+            start = placeholder + 2;
         }
-        else if(messagePriority==Level.FATAL){
-            LOGGER.fatal(logMessage);
+        return result.append(messagePattern, start, messagePattern.length()).toString();
+    }
+
+
+    /**
+     * Levels other than DEBUG, INFO, WARN, ERROR and FATAL are logged as INFO.
+     * @param messagePriority The requested priority.
+     * @return The priority used for logging.
+     */
+    private static Level toLoggedLevel(Level messagePriority) {
+        if (messagePriority == Level.DEBUG || messagePriority == Level.INFO || messagePriority == Level.WARN
+                || messagePriority == Level.ERROR || messagePriority == Level.FATAL) {
+            return messagePriority;
         }
-        else {
-            LOGGER.info(logMessage);
+        return Level.INFO;
+    }
+
+
+    /**
+     * Holder of the log4j configuration; initialized by the JVM exactly once, on first use.
+     */
+    private static class Configuration {
+
+        private static final Logger LOGGER;
+
+        static {
+            String pathToRootDirectory = ResourceBundle.getBundle("config").getString("pathToRootDirectory");
+            System.setProperty("rootDirectory", pathToRootDirectory);
+            DOMConfigurator.configure(MessageLogger.class.getClassLoader().getResource("log4j.xml"));
+            LOGGER = Logger.getLogger("wikia.logger");
+
+            // write the messages still buffered by the asynchronous appender when the program ends
+            Runtime.getRuntime().addShutdownHook(new Thread(LogManager::shutdown, "log4j-shutdown"));
         }
     }
 }
@@ -0,0 +1,40 @@
+package metricsService;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A monotonically increasing count (e.g. of bytes or triples) that can be incremented by many threads.
+ * Rates are derived by the reporter from the difference of two reports.
+ */
+public class Counter {
+
+    private final LongAdder count = new LongAdder();
+
+
+    /**
+     * Increments the count by one.
+     */
+    public void increment() {
+        count.increment();
+    }
+
+    /**
+     * Increments the count.
+     * @param amount Amount to be added; negative amounts are ignored.
+     */
+    public void add(long amount) {
+        if (amount > 0) {
+            count.add(amount);
+        }
+    }
+
+
+    /*
+    ONLY GETTERS BELOW.
+     */
+
+    public long getCount() {
+        return count.sum();
+    }
+
+}
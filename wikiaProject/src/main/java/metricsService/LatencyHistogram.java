@@ -0,0 +1,126 @@
+package metricsService;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of durations in nanoseconds with a fixed memory footprint.
+ * The buckets are log-linear (as in HdrHistogram): values below 128 are counted exactly, larger values in buckets whose
+ * width is at most 1/64 of their lower bound. Percentiles therefore have a relative error below 1.6 %.
+ */
+public class LatencyHistogram {
+
+    // values below 2^SUB_BUCKET_BITS are counted exactly
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKET_COUNT = SUB_BUCKET_COUNT / 2;
+    private static final int NUMBER_OF_BUCKETS = SUB_BUCKET_COUNT + (63 - SUB_BUCKET_BITS) * HALF_SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(NUMBER_OF_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+
+    /**
+     * Records a duration.
+     * @param nanoseconds The duration; negative values are recorded as 0.
+     */
+    public void recordValue(long nanoseconds) {
+        long value = Math.max(nanoseconds, 0);
+        counts.incrementAndGet(getBucketIndex(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Records the time elapsed since the given start.
+     * @param startNanoTime Start as returned by {@link System#nanoTime()}.
+     */
+    public void recordNanosSince(long startNanoTime) {
+        recordValue(System.nanoTime() - startNanoTime);
+    }
+
+
+    /**
+     * Returns a percentile of the recorded durations (the upper bound of the bucket containing it).
+     * @param percent The percentile, e.g. 99 for the 99th percentile; between 0 and 100.
+     * @return The duration in nanoseconds; 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(double percent) {
+        long[] snapshot = new long[NUMBER_OF_BUCKETS];
+        long total = 0;
+        for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(Math.min(Math.max(percent, 0), 100) / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(getHighestValueOfBucket(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+
+    /**
+     * @param value A non-negative value.
+     * @return Index of the bucket of the value.
+     */
+    static int getBucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        int subBucket = (int) (value >>> shift); // between HALF_SUB_BUCKET_COUNT and SUB_BUCKET_COUNT - 1
+        return SUB_BUCKET_COUNT + (shift - 1) * HALF_SUB_BUCKET_COUNT + subBucket - HALF_SUB_BUCKET_COUNT;
+    }
+
+    /**
+     * @param index Index of a bucket.
+     * @return The largest value counted in the bucket.
+     */
+    static long getHighestValueOfBucket(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / HALF_SUB_BUCKET_COUNT + 1;
+        long subBucket = (index - SUB_BUCKET_COUNT) % HALF_SUB_BUCKET_COUNT + HALF_SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+
+    /*
+    ONLY GETTERS BELOW.
+     */
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @return Mean duration in nanoseconds; 0 if nothing was recorded.
+     */
+    public double getMean() {
+        long numberOfValues = getCount();
+        return numberOfValues == 0 ? 0 : (double) getSum() / numberOfValues;
+    }
+
+}
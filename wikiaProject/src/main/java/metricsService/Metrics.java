@@ -0,0 +1,218 @@
+package metricsService;
+
+import loggingService.MessageLogger;
+import org.apache.log4j.Level;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * Registry of the pipeline metrics: counters (bytes, triples, wikis), latency histograms (per wiki) and gauges (queue
+ * depths, cache statistics). Metrics are created on first use by name and can be updated from any thread.
+ *
+ * {@link #startReporting()} exposes all metrics via JMX (wikia:type=Metrics) and writes them periodically to
+ * /<root>/logs/metrics.json and /<root>/logs/metrics.prom (Prometheus text format).
+ */
+public class Metrics {
+
+    private static MessageLogger logger=new MessageLogger();
+    private static final String MODULE="Metrics";
+    private static final String CLASS=Metrics.class.getName();
+
+    /**
+     * Name under which the metrics are registered in JMX.
+     */
+    public static final String OBJECT_NAME = "wikia:type=Metrics";
+
+    private static final long DEFAULT_REPORT_INTERVAL_IN_SECONDS = 10;
+    private static final Pattern NAME_PATTERN = Pattern.compile("[a-z][a-z0-9_]*");
+
+    private static final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, DoubleSupplier> gauges = new ConcurrentHashMap<>();
+
+    private static MetricsReporter reporter;
+
+
+    private Metrics() {
+        // only static methods
+    }
+
+
+    /**
+     * @param name Name of the counter in snake case, e.g. download_bytes.
+     * @return The counter of the given name; created on first use.
+     */
+    public static Counter counter(String name) {
+        Counter counter = counters.get(name);
+        return counter != null ? counter : counters.computeIfAbsent(checkName(name), key -> new Counter());
+    }
+
+    /**
+     * @param name Name of the histogram in snake case, e.g. mapping_wiki_latency.
+     * @return The histogram of the given name; created on first use.
+     */
+    public static LatencyHistogram histogram(String name) {
+        LatencyHistogram histogram = histograms.get(name);
+        return histogram != null ? histogram : histograms.computeIfAbsent(checkName(name), key -> new LatencyHistogram());
+    }
+
+    /**
+     * Registers a gauge, i.e. a value that is read whenever the metrics are reported. A gauge of the same name is
+     * replaced.
+     * @param name Name of the gauge in snake case, e.g. download_wikis_remaining.
+     * @param gauge Supplier of the current value; has to be thread-safe and fast.
+     */
+    public static void gauge(String name, DoubleSupplier gauge) {
+        gauges.put(checkName(name), gauge);
+    }
+
+    /**
+     * Registers the gauges name_hits, name_misses and name_hit_ratio of a cache.
+     * @param name Name of the cache in snake case.
+     * @param hitCount Supplier of the number of hits.
+     * @param missCount Supplier of the number of misses.
+     */
+    public static void cacheGauges(String name, LongSupplier hitCount, LongSupplier missCount) {
+        gauge(name + "_hits", hitCount::getAsLong);
+        gauge(name + "_misses", missCount::getAsLong);
+        gauge(name + "_hit_ratio", () -> {
+            long hits = hitCount.getAsLong();
+            long lookups = hits + missCount.getAsLong();
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        });
+    }
+
+
+    /**
+     * Returns the current values of all metrics as flat name-value pairs (as exposed via JMX).
+     * Histograms are flattened into name_count, name_mean_ms, name_p50_ms, name_p90_ms, name_p99_ms and name_max_ms.
+     * @return Sorted map of metric names to values.
+     */
+    public static TreeMap<String, Double> snapshot() {
+        TreeMap<String, Double> result = new TreeMap<>();
+        for (Map.Entry<String, Counter> counter : counters.entrySet()) {
+            result.put(counter.getKey(), (double) counter.getValue().getCount());
+        }
+        for (Map.Entry<String, LatencyHistogram> histogram : histograms.entrySet()) {
+            String name = histogram.getKey();
+            LatencyHistogram values = histogram.getValue();
+            result.put(name + "_count", (double) values.getCount());
+            result.put(name + "_mean_ms", toMilliseconds(values.getMean()));
+            result.put(name + "_p50_ms", toMilliseconds(values.getValueAtPercentile(50)));
+            result.put(name + "_p90_ms", toMilliseconds(values.getValueAtPercentile(90)));
+            result.put(name + "_p99_ms", toMilliseconds(values.getValueAtPercentile(99)));
+            result.put(name + "_max_ms", toMilliseconds(values.getMax()));
+        }
+        for (Map.Entry<String, DoubleSupplier> gauge : gauges.entrySet()) {
+            result.put(gauge.getKey(), readGauge(gauge.getValue()));
+        }
+        return result;
+    }
+
+
+    /**
+     * Registers the metrics in JMX and starts writing them periodically into the logs directory of the root directory.
+     * The interval can be set with metricsReportIntervalSeconds in config.properties (0 disables the files).
+     * Calling the method again has no effect.
+     */
+    public static synchronized void startReporting() {
+        long interval = DEFAULT_REPORT_INTERVAL_IN_SECONDS;
+        try {
+            interval = Long.parseLong(ResourceBundle.getBundle("config").getString("metricsReportIntervalSeconds").trim());
+        } catch (MissingResourceException | NumberFormatException e) {
+            // use default
+        }
+        String pathToRootDirectory = ResourceBundle.getBundle("config").getString("pathToRootDirectory");
+        startReporting(new File(pathToRootDirectory + "/logs"), interval);
+    }
+
+    /**
+     * Registers the metrics in JMX and starts writing them periodically into the given directory.
+     * Calling the method again has no effect.
+     * @param directory Directory of metrics.json and metrics.prom.
+     * @param intervalInSeconds Interval of the reports; 0 or less: no files are written.
+     */
+    public static synchronized void startReporting(File directory, long intervalInSeconds) {
+        registerMBean();
+        if (reporter != null || intervalInSeconds <= 0) {
+            return;
+        }
+        reporter = new MetricsReporter(directory);
+        reporter.start(intervalInSeconds);
+        logger.logMessage(Level.INFO,MODULE,CLASS,"Metrics are written every {} seconds to {}", intervalInSeconds, directory.getPath());
+    }
+
+    /**
+     * Stops the periodic reports after writing a last report.
+     */
+    public static synchronized void stopReporting() {
+        if (reporter != null) {
+            reporter.stop();
+            reporter = null;
+        }
+    }
+
+
+    private static void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new MetricsMBean(), name);
+            }
+        } catch (JMException jme) {
+            logger.logMessage(Level.ERROR,MODULE,CLASS,"Metrics could not be registered in JMX: " + jme.toString());
+        }
+    }
+
+
+    static double readGauge(DoubleSupplier gauge) {
+        try {
+            return gauge.getAsDouble();
+        } catch (RuntimeException re) {
+            // e.g. a gauge of an object that is in an inconsistent state; the report must not fail
+            return Double.NaN;
+        }
+    }
+
+    static double toMilliseconds(double nanoseconds) {
+        return nanoseconds / 1000000.0;
+    }
+
+    private static String checkName(String name) {
+        if (name == null || !NAME_PATTERN.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid metric name (expected snake case): " + name);
+        }
+        return name;
+    }
+
+
+    /*
+    ONLY GETTERS BELOW.
+     */
+
+    static Map<String, Counter> getCounters() {
+        return counters;
+    }
+
+    static Map<String, LatencyHistogram> getHistograms() {
+        return histograms;
+    }
+
+    static Map<String, DoubleSupplier> getGauges() {
+        return gauges;
+    }
+
+}
@@ -0,0 +1,67 @@
+package metricsService;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.ReflectionException;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Read-only JMX view of {@link Metrics}: every value of {@link Metrics#snapshot()} is an attribute of type Double.
+ * The attributes are determined on every call, so metrics created later appear as well.
+ */
+class MetricsMBean implements DynamicMBean {
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Double value = Metrics.snapshot().get(attribute);
+        if (value == null) {
+            throw new AttributeNotFoundException("No metric " + attribute);
+        }
+        return value;
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        TreeMap<String, Double> snapshot = Metrics.snapshot();
+        AttributeList result = new AttributeList();
+        for (String attribute : attributes) {
+            Double value = snapshot.get(attribute);
+            if (value != null) {
+                result.add(new Attribute(attribute, value));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("The metrics are read-only.");
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        ArrayList<MBeanAttributeInfo> attributes = new ArrayList<>();
+        for (Map.Entry<String, Double> metric : Metrics.snapshot().entrySet()) {
+            attributes.add(new MBeanAttributeInfo(metric.getKey(), Double.class.getName(), metric.getKey(), true, false, false));
+        }
+        return new MBeanInfo(Metrics.class.getName(), "Metrics of the wikia pipeline",
+                attributes.toArray(new MBeanAttributeInfo[0]), null, null, null);
+    }
+
+}
@@ -0,0 +1,205 @@
+package metricsService;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import loggingService.MessageLogger;
+import org.apache.log4j.Level;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Writes the {@link Metrics} periodically into metrics.json (including the rates of the counters since the previous
+ * report) and metrics.prom (Prometheus text format). The files are replaced atomically, so readers never see a
+ * partially written file.
+ */
+class MetricsReporter {
+
+    private static MessageLogger logger=new MessageLogger();
+    private static final String MODULE="Metrics";
+    private static final String CLASS=MetricsReporter.class.getName();
+
+    private static final String PROMETHEUS_PREFIX = "wikia_";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    private final File directory;
+    private final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    // counter values of the previous report (for the rates)
+    private final HashMap<String, Long> previousCounts = new HashMap<>();
+    private long previousReportTime = System.nanoTime();
+
+    private ScheduledExecutorService scheduler;
+    private Thread shutdownHook;
+
+
+    /**
+     * Constructor
+     * @param directory Directory of the metric files.
+     */
+    MetricsReporter(File directory) {
+        this.directory = directory;
+    }
+
+
+    /**
+     * Starts the periodic reports; a last report is written when the JVM shuts down.
+     * @param intervalInSeconds Interval of the reports.
+     */
+    void start(long intervalInSeconds) {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::report, intervalInSeconds, intervalInSeconds, TimeUnit.SECONDS);
+        shutdownHook = new Thread(this::report, "metrics-reporter-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Stops the periodic reports and writes a last report.
+     */
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            try {
+                scheduler.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (shutdownHook != null) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException ise) {
+                // the JVM is shutting down already
+            }
+        }
+        report();
+    }
+
+
+    /**
+     * Writes the current values of all metrics.
+     */
+    synchronized void report() {
+        try {
+            if (!directory.exists()) {
+                directory.mkdirs();
+            }
+            writeAtomically(new File(directory, "metrics.prom"), getPrometheusText());
+            writeAtomically(new File(directory, "metrics.json"), mapper.writeValueAsString(getJsonRepresentation()));
+        } catch (IOException ioe) {
+            logger.logMessage(Level.ERROR,MODULE,CLASS,"Metrics could not be written: " + ioe.toString());
+        }
+    }
+
+
+    /**
+     * @return The metrics as nested maps: counters (total and per second), histograms (in milliseconds) and gauges.
+     */
+    LinkedHashMap<String, Object> getJsonRepresentation() {
+        long now = System.nanoTime();
+        double elapsedSeconds = Math.max(now - previousReportTime, 1) / 1e9;
+        previousReportTime = now;
+
+        TreeMap<String, Object> counters = new TreeMap<>();
+        for (Map.Entry<String, Counter> counter : Metrics.getCounters().entrySet()) {
+            long count = counter.getValue().getCount();
+            Long previousCount = previousCounts.put(counter.getKey(), count);
+            LinkedHashMap<String, Object> values = new LinkedHashMap<>();
+            values.put("total", count);
+            values.put("per_second", (count - (previousCount == null ? 0 : previousCount)) / elapsedSeconds);
+            counters.put(counter.getKey(), values);
+        }
+
+        TreeMap<String, Object> histograms = new TreeMap<>();
+        for (Map.Entry<String, LatencyHistogram> histogram : Metrics.getHistograms().entrySet()) {
+            LatencyHistogram latencies = histogram.getValue();
+            LinkedHashMap<String, Object> values = new LinkedHashMap<>();
+            values.put("count", latencies.getCount());
+            values.put("mean_ms", Metrics.toMilliseconds(latencies.getMean()));
+            for (double quantile : QUANTILES) {
+                values.put("p" + formatQuantile(quantile * 100) + "_ms", Metrics.toMilliseconds(latencies.getValueAtPercentile(quantile * 100)));
+            }
+            values.put("max_ms", Metrics.toMilliseconds(latencies.getMax()));
+            histograms.put(histogram.getKey(), values);
+        }
+
+        TreeMap<String, Object> gauges = new TreeMap<>();
+        for (Map.Entry<String, DoubleSupplier> gauge : Metrics.getGauges().entrySet()) {
+            gauges.put(gauge.getKey(), Metrics.readGauge(gauge.getValue()));
+        }
+
+        LinkedHashMap<String, Object> result = new LinkedHashMap<>();
+        result.put("timestamp", Instant.now().toString());
+        result.put("counters", counters);
+        result.put("histograms", histograms);
+        result.put("gauges", gauges);
+        return result;
+    }
+
+
+    /**
+     * @return The metrics in the Prometheus text format; histograms are summaries in seconds.
+     */
+    String getPrometheusText() {
+        StringBuilder result = new StringBuilder();
+
+        for (Map.Entry<String, Counter> counter : new TreeMap<>(Metrics.getCounters()).entrySet()) {
+            String name = PROMETHEUS_PREFIX + counter.getKey() + "_total";
+            result.append("# TYPE ").append(name).append(" counter\n");
+            result.append(name).append(' ').append(counter.getValue().getCount()).append('\n');
+        }
+
+        for (Map.Entry<String, LatencyHistogram> histogram : new TreeMap<>(Metrics.getHistograms()).entrySet()) {
+            String name = PROMETHEUS_PREFIX + histogram.getKey() + "_seconds";
+            LatencyHistogram latencies = histogram.getValue();
+            result.append("# TYPE ").append(name).append(" summary\n");
+            for (double quantile : QUANTILES) {
+                result.append(name).append("{quantile=\"").append(quantile).append("\"} ")
+                        .append(latencies.getValueAtPercentile(quantile * 100) / 1e9).append('\n');
+            }
+            result.append(name).append("_sum ").append(latencies.getSum() / 1e9).append('\n');
+            result.append(name).append("_count ").append(latencies.getCount()).append('\n');
+        }
+
+        for (Map.Entry<String, DoubleSupplier> gauge : new TreeMap<>(Metrics.getGauges()).entrySet()) {
+            String name = PROMETHEUS_PREFIX + gauge.getKey();
+            result.append("# TYPE ").append(name).append(" gauge\n");
+            result.append(name).append(' ').append(Metrics.readGauge(gauge.getValue())).append('\n');
+        }
+        return result.toString();
+    }
+
+
+    private static String formatQuantile(double percent) {
+        return percent == Math.rint(percent) ? Long.toString((long) percent) : Double.toString(percent).replace('.', '_');
+    }
+
+    private static void writeAtomically(File file, String content) throws IOException {
+        Path temporaryFile = new File(file.getPath() + ".tmp").toPath();
+        Files.write(temporaryFile, content.getBytes(StandardCharsets.UTF_8));
+        try {
+            Files.move(temporaryFile, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ioe) {
+            // e.g. a file system without atomic moves
+            Files.move(temporaryFile, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+}
@@ -0,0 +1,205 @@
+package utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * A blocked Bloom filter of strings.
+ * Each string is hashed into one block of 512 bits (one cache line) in which one bit of each of the eight 64 bit words is
+ * set, so a query touches a single cache line. With the default of 12 bits per string, about 1% of the strings that were
+ * not added are reported as (possibly) contained; strings that were added are always reported as contained.
+ * The filter is not synchronized for writes; concurrent queries are safe once all strings were added.
+ */
+public class BlockedBloomFilter {
+
+    private static final int WORDS_PER_BLOCK = 8;
+    private static final int FILE_MAGIC = 0x424c4f4f; // "BLOO"
+    private static final int FILE_VERSION = 1;
+
+    /**
+     * Bits per string if not specified otherwise.
+     */
+    public static final int DEFAULT_BITS_PER_KEY = 12;
+
+    // odd constants for the bit positions within the words of a block
+    private static final long[] SALTS = {
+            0x47b6137bL, 0x44974d91L, 0x8824ad5bL, 0xa2b7289dL,
+            0x705495c7L, 0x2df1424bL, 0x9efc4947L, 0x5c6bfb31L};
+
+    private final long[] words;
+    private final int numberOfBlocks;
+    private long numberOfKeys = 0;
+
+
+    /**
+     * Constructor
+     * @param expectedNumberOfKeys Expected number of strings to be added.
+     * @param bitsPerKey Bits per string; more bits give fewer false positives.
+     */
+    public BlockedBloomFilter(long expectedNumberOfKeys, int bitsPerKey) {
+        long numberOfBits = Math.max(expectedNumberOfKeys, 1) * Math.max(bitsPerKey, 1);
+        long blocks = (numberOfBits + 64 * WORDS_PER_BLOCK - 1) / (64 * WORDS_PER_BLOCK);
+        if (blocks > Integer.MAX_VALUE / WORDS_PER_BLOCK) {
+            throw new IllegalArgumentException("Bloom filter too large: " + expectedNumberOfKeys + " keys");
+        }
+        this.numberOfBlocks = (int) blocks;
+        this.words = new long[numberOfBlocks * WORDS_PER_BLOCK];
+    }
+
+    /**
+     * Constructor with {@link #DEFAULT_BITS_PER_KEY}.
+     * @param expectedNumberOfKeys Expected number of strings to be added.
+     */
+    public BlockedBloomFilter(long expectedNumberOfKeys) {
+        this(expectedNumberOfKeys, DEFAULT_BITS_PER_KEY);
+    }
+
+    private BlockedBloomFilter(long[] words, long numberOfKeys) {
+        this.words = words;
+        this.numberOfBlocks = words.length / WORDS_PER_BLOCK;
+        this.numberOfKeys = numberOfKeys;
+    }
+
+
+    /**
+     * Adds a string.
+     * @param key The string.
+     */
+    public void put(String key) {
+        long hash = hash(key, false);
+        int offset = getBlockOffset(hash);
+        for (int i = 0; i < WORDS_PER_BLOCK; i++) {
+            words[offset + i] |= getBit(hash, i);
+        }
+        numberOfKeys++;
+    }
+
+    /**
+     * @param key The string.
+     * @return False if the string was definitely not added; true if it was probably added.
+     */
+    public boolean mightContain(String key) {
+        return mightContain(hash(key, false));
+    }
+
+    /**
+     * Queries the lower case of a string (as returned by {@link String#toLowerCase()}). ASCII strings are hashed
+     * without creating the lower case string.
+     * @param key The string in any case.
+     * @return False if the lower case of the string was definitely not added; true if it was probably added.
+     */
+    public boolean mightContainIgnoreCase(String key) {
+        if (LowerCase.isAsciiLowerCaseExact(key)) {
+            return mightContain(hash(key, true));
+        }
+        return mightContain(hash(key.toLowerCase(), false));
+    }
+
+    private boolean mightContain(long hash) {
+        int offset = getBlockOffset(hash);
+        for (int i = 0; i < WORDS_PER_BLOCK; i++) {
+            long bit = getBit(hash, i);
+            if ((words[offset + i] & bit) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Writes the filter into a file (replacing it only once the file is complete).
+     * @param file The file.
+     * @throws IOException if the file cannot be written.
+     */
+    public void writeToFile(File file) throws IOException {
+        File temporaryFile = new File(file.getPath() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile), 1 << 16))) {
+            output.writeInt(FILE_MAGIC);
+            output.writeInt(FILE_VERSION);
+            output.writeLong(numberOfKeys);
+            output.writeInt(words.length);
+            for (long word : words) {
+                output.writeLong(word);
+            }
+        }
+        Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads a filter written by {@link #writeToFile(File)}.
+     * @param file The file.
+     * @return The filter.
+     * @throws IOException if the file cannot be read or is not a filter file.
+     */
+    public static BlockedBloomFilter readFromFile(File file) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            if (input.readInt() != FILE_MAGIC || input.readInt() != FILE_VERSION) {
+                throw new IOException(file.getPath() + " is not a Bloom filter file.");
+            }
+            long numberOfKeys = input.readLong();
+            int numberOfWords = input.readInt();
+            if (numberOfWords <= 0 || numberOfWords % WORDS_PER_BLOCK != 0) {
+                throw new IOException(file.getPath() + " is corrupt.");
+            }
+            long[] words = new long[numberOfWords];
+            for (int i = 0; i < numberOfWords; i++) {
+                words[i] = input.readLong();
+            }
+            return new BlockedBloomFilter(words, numberOfKeys);
+        }
+    }
+
+
+    private int getBlockOffset(long hash) {
+        // upper 32 bits select the block (multiply-shift instead of a modulo)
+        return (int) (((hash >>> 32) * numberOfBlocks) >>> 32) * WORDS_PER_BLOCK;
+    }
+
+    private static long getBit(long hash, int word) {
+        // lower 32 bits select one bit per word
+        return 1L << ((((hash & 0xffffffffL) * SALTS[word]) & 0xffffffffL) >>> 26);
+    }
+
+    /**
+     * 64 bit FNV-1a hash of the characters, finished with the mixing function of MurmurHash3.
+     */
+    private static long hash(String key, boolean toLowerCaseAscii) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (toLowerCaseAscii) {
+                c = LowerCase.toLowerCaseAscii(c);
+            }
+            hash = (hash ^ c) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+
+    /*
+    ONLY GETTERS BELOW.
+     */
+
+    public long getNumberOfKeys() {
+        return numberOfKeys;
+    }
+
+    public long getSizeInBytes() {
+        return 8L * words.length;
+    }
+
+}
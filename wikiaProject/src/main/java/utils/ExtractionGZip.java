@@ -17,13 +17,21 @@ public class ExtractionGZip
     private static MessageLogger logger=new MessageLogger();
     private static final String MODULE="Utils";
     private static final String CLASS=ExtractionGZip.class.getName();
-    private static String downloadedDirectoryPath = ResourceBundle.getBundle("config").getString("pathToRootDirectory") + "/downloadedWikis";
+    private String downloadedDirectoryPath;
     private String directoryExtracted;
 
     /**
      * Constructor for Extraction GZip Class
      */
     public ExtractionGZip() {
+        this(ResourceBundle.getBundle("config").getString("pathToRootDirectory") + "/downloadedWikis");
+    }
+
+    /**
+     * @param downloadedDirectoryPath The directory with the downloaded dumps (downloadedWikis).
+     */
+    ExtractionGZip(String downloadedDirectoryPath) {
+        this.downloadedDirectoryPath = downloadedDirectoryPath;
         directoryExtracted = downloadedDirectoryPath + "/decompressed/";
         IOoperations.createDirectory(directoryExtracted);
     }
@@ -118,6 +126,9 @@ public class ExtractionGZip
     /**
      * Unzips all Gzip files of the wikiaDumps/downloaded/gz folder
      * into the wikiaDumps/extractedgz folder
+     * Files that were already decompressed during the download are skipped (the decompressed dump has the
+     * modification time of its archive, see {@link StreamingDumpTee#save}); an archive that was downloaded again
+     * afterwards is decompressed again.
      *
      */
     public void extractAllGZipFilesIntoDesignatedFolder() {
@@ -125,6 +136,12 @@ public class ExtractionGZip
         File folder = new File(foldergz);
 
         for (File filegz : folder.listFiles()) {
+            // already decompressed while it was downloaded (StreamingDumpTee)
+            File decompressedFile = StreamingDumpTee.getDecompressedFile(filegz, new File(this.directoryExtracted));
+            if (decompressedFile.exists() && decompressedFile.lastModified() >= filegz.lastModified()) {
+                logger.logMessage(Level.INFO,MODULE,CLASS,"Already decompressed: " + filegz.getAbsolutePath());
+                continue;
+            }
             logger.logMessage(Level.INFO,MODULE,CLASS,"Extraction for following gz file is started: " + filegz.getAbsolutePath());
             extractGzipFile(filegz.getAbsolutePath(),
                     this.directoryExtracted);
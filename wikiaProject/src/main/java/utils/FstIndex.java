@@ -0,0 +1,521 @@
+package utils;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.SortedMap;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable map of strings to values, compiled into a minimal acyclic finite-state transducer.
+ * The keys (e.g. lower-cased IRIs) are stored in an automaton in which common prefixes and suffixes are shared; walking
+ * the automaton along a key yields the ordinal of the key, i.e. its position among the sorted keys. The values (e.g. the
+ * IRIs in their canonical case) are stored in the order of the ordinals.
+ *
+ * The index is kept in flat int and char buffers. It can be written into a file together with other indexes and
+ * memory-mapped from there, so loading does not parse anything, and lookups of ordinals do not create objects.
+ * Besides exact lookups, the keys with a given prefix or within an edit distance can be enumerated.
+ */
+public class FstIndex {
+
+    private static final int FILE_MAGIC = 0x46535449; // "FSTI"
+    private static final int FILE_VERSION = 1;
+
+    // flattened automaton; state 0 is the start state
+    private final ByteBuffer data;
+    private final int size;
+    private final int numberOfStates;
+    private final IntBuffer stateFirstTransition; // transitions of state s: [first(s), first(s + 1))
+    private final IntBuffer stateFinal; // 1 if a key ends in the state
+    private final CharBuffer transitionLabels; // sorted per state
+    private final IntBuffer transitionTargets;
+    private final IntBuffer transitionOrdinals; // number of keys that are smaller than all keys through the transition
+    private final IntBuffer valueOffsets;
+    private final CharBuffer valueChars;
+
+
+    /**
+     * Reads an index from the current position of the buffer and advances the position to the end of the index.
+     * @param buffer A buffer with an index written by {@link #writeTo(DataOutputStream)}.
+     */
+    private FstIndex(ByteBuffer buffer) {
+        int start = buffer.position();
+        size = buffer.getInt();
+        numberOfStates = buffer.getInt();
+        int numberOfTransitions = buffer.getInt();
+        int numberOfValueChars = buffer.getInt();
+
+        stateFirstTransition = slice(buffer, 4 * (numberOfStates + 1)).asIntBuffer();
+        stateFinal = slice(buffer, 4 * numberOfStates).asIntBuffer();
+        transitionLabels = slice(buffer, 2 * numberOfTransitions).asCharBuffer();
+        transitionTargets = slice(buffer, 4 * numberOfTransitions).asIntBuffer();
+        transitionOrdinals = slice(buffer, 4 * numberOfTransitions).asIntBuffer();
+        valueOffsets = slice(buffer, 4 * (size + 1)).asIntBuffer();
+        valueChars = slice(buffer, 2 * numberOfValueChars).asCharBuffer();
+
+        ByteBuffer section = buffer.duplicate();
+        ((Buffer) section).position(start);
+        ((Buffer) section).limit(buffer.position());
+        data = section.slice();
+    }
+
+
+    /**
+     * Compiles an index.
+     * @param entries The keys and values; the keys are sorted by {@link String#compareTo(String)} (i.e. a TreeMap
+     *                without comparator).
+     * @return The index.
+     */
+    public static FstIndex build(SortedMap<String, String> entries) {
+        Builder builder = new Builder();
+        for (String key : entries.keySet()) {
+            builder.add(key);
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream output = new DataOutputStream(bytes)) {
+                builder.writeTo(output, entries.values());
+            }
+            return new FstIndex(ByteBuffer.wrap(bytes.toByteArray()));
+        } catch (IOException ioe) {
+            // cannot happen for a ByteArrayOutputStream
+            throw new IllegalStateException(ioe);
+        }
+    }
+
+
+    /**
+     * @param key A key.
+     * @return The ordinal of the key (0 to size - 1); -1 if the key is not contained.
+     */
+    public int getOrdinal(String key) {
+        return getOrdinal(key, false);
+    }
+
+    /**
+     * Looks up the lower case of a key (as returned by {@link String#toLowerCase()}); the keys of the index have to be
+     * lower-cased. ASCII keys are lower-cased while walking the automaton, so no lower case string is created.
+     * @param key A key in any case.
+     * @return The ordinal of the lower-cased key; -1 if it is not contained.
+     */
+    public int getOrdinalIgnoreCase(String key) {
+        if (LowerCase.isAsciiLowerCaseExact(key)) {
+            return getOrdinal(key, true);
+        }
+        return getOrdinal(key.toLowerCase(), false);
+    }
+
+    private int getOrdinal(String key, boolean toLowerCaseAscii) {
+        int state = 0;
+        int ordinal = 0;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (toLowerCaseAscii) {
+                c = LowerCase.toLowerCaseAscii(c);
+            }
+            int transition = findTransition(state, c);
+            if (transition < 0) {
+                return -1;
+            }
+            ordinal += transitionOrdinals.get(transition);
+            state = transitionTargets.get(transition);
+        }
+        return stateFinal.get(state) != 0 ? ordinal : -1;
+    }
+
+    /**
+     * @param ordinal An ordinal (0 to size - 1).
+     * @return The value of the key with the given ordinal.
+     */
+    public String getValue(int ordinal) {
+        int start = valueOffsets.get(ordinal);
+        char[] value = new char[valueOffsets.get(ordinal + 1) - start];
+        for (int i = 0; i < value.length; i++) {
+            value[i] = valueChars.get(start + i);
+        }
+        return new String(value);
+    }
+
+    /**
+     * @param key A key in any case.
+     * @return The value of the lower-cased key; null if it is not contained.
+     */
+    public String getValueIgnoreCase(String key) {
+        int ordinal = getOrdinalIgnoreCase(key);
+        return ordinal < 0 ? null : getValue(ordinal);
+    }
+
+
+    /**
+     * Passes the ordinals of all keys that start with the given prefix in ascending order to the consumer.
+     * @param prefix The prefix (in the case of the keys).
+     * @param consumer Consumer of the ordinals.
+     */
+    public void forEachWithPrefix(String prefix, IntConsumer consumer) {
+        int state = 0;
+        int ordinal = 0;
+        for (int i = 0; i < prefix.length(); i++) {
+            int transition = findTransition(state, prefix.charAt(i));
+            if (transition < 0) {
+                return;
+            }
+            ordinal += transitionOrdinals.get(transition);
+            state = transitionTargets.get(transition);
+        }
+        enumerate(state, ordinal, consumer);
+    }
+
+    private void enumerate(int state, int ordinal, IntConsumer consumer) {
+        if (stateFinal.get(state) != 0) {
+            consumer.accept(ordinal);
+        }
+        for (int transition = stateFirstTransition.get(state); transition < stateFirstTransition.get(state + 1); transition++) {
+            enumerate(transitionTargets.get(transition), ordinal + transitionOrdinals.get(transition), consumer);
+        }
+    }
+
+    /**
+     * Passes the ordinals of all keys whose Levenshtein distance to the given key is at most the given distance in
+     * ascending order to the consumer. Branches of the automaton that cannot lead to such a key are not visited.
+     * @param key The key (in the case of the keys).
+     * @param maximumDistance Maximal number of inserted, deleted or replaced characters.
+     * @param consumer Consumer of the ordinals.
+     */
+    public void forEachWithinDistance(String key, int maximumDistance, IntConsumer consumer) {
+        int[] row = new int[key.length() + 1];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = i;
+        }
+        enumerateWithinDistance(0, 0, key, row, maximumDistance, consumer);
+    }
+
+    private void enumerateWithinDistance(int state, int ordinal, String key, int[] row, int maximumDistance, IntConsumer consumer) {
+        if (stateFinal.get(state) != 0 && row[key.length()] <= maximumDistance) {
+            consumer.accept(ordinal);
+        }
+        for (int transition = stateFirstTransition.get(state); transition < stateFirstTransition.get(state + 1); transition++) {
+            char c = transitionLabels.get(transition);
+            int[] nextRow = new int[row.length];
+            nextRow[0] = row[0] + 1;
+            int minimum = nextRow[0];
+            for (int i = 1; i < row.length; i++) {
+                int replace = row[i - 1] + (key.charAt(i - 1) == c ? 0 : 1);
+                nextRow[i] = Math.min(replace, Math.min(row[i] + 1, nextRow[i - 1] + 1));
+                minimum = Math.min(minimum, nextRow[i]);
+            }
+            if (minimum <= maximumDistance) {
+                enumerateWithinDistance(transitionTargets.get(transition), ordinal + transitionOrdinals.get(transition),
+                        key, nextRow, maximumDistance, consumer);
+            }
+        }
+    }
+
+
+    /**
+     * Writes the index (can be read again with {@link #readFile(File)} if written by {@link #writeFile(File, FstIndex...)}).
+     * @param output The output.
+     * @throws IOException if the output cannot be written.
+     */
+    public void writeTo(DataOutputStream output) throws IOException {
+        ByteBuffer bytes = data.duplicate();
+        byte[] buffer = new byte[1 << 16];
+        while (bytes.hasRemaining()) {
+            int length = Math.min(buffer.length, bytes.remaining());
+            bytes.get(buffer, 0, length);
+            output.write(buffer, 0, length);
+        }
+    }
+
+    /**
+     * Writes several indexes into one file (replacing it only once the file is complete).
+     * @param file The file.
+     * @param indexes The indexes.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void writeFile(File file, FstIndex... indexes) throws IOException {
+        File temporaryFile = new File(file.getPath() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile), 1 << 16))) {
+            output.writeInt(FILE_MAGIC);
+            output.writeInt(FILE_VERSION);
+            output.writeInt(indexes.length);
+            for (FstIndex index : indexes) {
+                index.writeTo(output);
+            }
+        }
+        Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Memory-maps a file written by {@link #writeFile(File, FstIndex...)}.
+     * @param file The file.
+     * @return The indexes in the order in which they were written.
+     * @throws IOException if the file cannot be read or is not an index file.
+     */
+    public static FstIndex[] readFile(File file) throws IOException {
+        ByteBuffer buffer;
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if (buffer.getInt() != FILE_MAGIC || buffer.getInt() != FILE_VERSION) {
+                throw new IOException(file.getPath() + " is not an index file.");
+            }
+            FstIndex[] indexes = new FstIndex[buffer.getInt()];
+            for (int i = 0; i < indexes.length; i++) {
+                indexes[i] = new FstIndex(buffer);
+            }
+            return indexes;
+        } catch (RuntimeException re) {
+            // e.g. a truncated file
+            throw new IOException(file.getPath() + " is corrupt.", re);
+        }
+    }
+
+
+    /**
+     * @return The index of the transition of the state with the given label; -1 if there is none.
+     */
+    private int findTransition(int state, char label) {
+        int low = stateFirstTransition.get(state);
+        int high = stateFirstTransition.get(state + 1) - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            char middleLabel = transitionLabels.get(middle);
+            if (middleLabel < label) {
+                low = middle + 1;
+            } else if (middleLabel > label) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int length) {
+        ByteBuffer slice = buffer.duplicate();
+        ((Buffer) slice).limit(buffer.position() + length);
+        ((Buffer) buffer).position(buffer.position() + length);
+        return slice.slice();
+    }
+
+
+    /**
+     * Builds the minimal automaton from sorted keys (incremental construction by Daciuk et al.): states that are
+     * complete, i.e. not on the path of the last key, are replaced by an equivalent registered state if there is one.
+     */
+    private static class Builder {
+
+        private final HashMap<BuilderState, BuilderState> register = new HashMap<>();
+        private final ArrayList<BuilderState> path = new ArrayList<>();
+        private String previousKey = null;
+
+        Builder() {
+            path.add(new BuilderState());
+        }
+
+        void add(String key) {
+            if (previousKey != null && previousKey.compareTo(key) >= 0) {
+                throw new IllegalArgumentException("Keys are not sorted or not distinct: " + previousKey + ", " + key);
+            }
+            int commonPrefixLength = 0;
+            if (previousKey != null) {
+                int maximumLength = Math.min(previousKey.length(), key.length());
+                while (commonPrefixLength < maximumLength && previousKey.charAt(commonPrefixLength) == key.charAt(commonPrefixLength)) {
+                    commonPrefixLength++;
+                }
+            }
+            replaceOrRegister(commonPrefixLength);
+
+            BuilderState state = path.get(commonPrefixLength);
+            for (int i = commonPrefixLength; i < key.length(); i++) {
+                BuilderState next = new BuilderState();
+                state.addTransition(key.charAt(i), next);
+                path.add(next);
+                state = next;
+            }
+            state.isFinal = true;
+            previousKey = key;
+        }
+
+        /**
+         * Completes the states of the path below the given depth.
+         */
+        private void replaceOrRegister(int depth) {
+            for (int i = path.size() - 1; i > depth; i--) {
+                BuilderState state = path.remove(i);
+                BuilderState registered = register.get(state);
+                if (registered != null) {
+                    path.get(i - 1).setLastTarget(registered);
+                } else {
+                    register.put(state, state);
+                }
+            }
+        }
+
+        void writeTo(DataOutputStream output, Iterable<String> values) throws IOException {
+            replaceOrRegister(0);
+            BuilderState root = path.get(0);
+
+            // number the states in depth-first order and count the keys below each state
+            ArrayList<BuilderState> states = new ArrayList<>();
+            int size = number(root, states);
+            int numberOfTransitions = 0;
+            for (BuilderState state : states) {
+                numberOfTransitions += state.numberOfTransitions;
+            }
+            ArrayList<String> valueList = new ArrayList<>(size);
+            int numberOfValueChars = 0;
+            for (String value : values) {
+                valueList.add(value);
+                numberOfValueChars += value.length();
+            }
+
+            output.writeInt(size);
+            output.writeInt(states.size());
+            output.writeInt(numberOfTransitions);
+            output.writeInt(numberOfValueChars);
+
+            int transition = 0;
+            for (BuilderState state : states) {
+                output.writeInt(transition);
+                transition += state.numberOfTransitions;
+            }
+            output.writeInt(transition);
+            for (BuilderState state : states) {
+                output.writeInt(state.isFinal ? 1 : 0);
+            }
+            for (BuilderState state : states) {
+                for (int i = 0; i < state.numberOfTransitions; i++) {
+                    output.writeChar(state.labels[i]);
+                }
+            }
+            for (BuilderState state : states) {
+                for (int i = 0; i < state.numberOfTransitions; i++) {
+                    output.writeInt(state.targets[i].number);
+                }
+            }
+            for (BuilderState state : states) {
+                int ordinal = state.isFinal ? 1 : 0;
+                for (int i = 0; i < state.numberOfTransitions; i++) {
+                    output.writeInt(ordinal);
+                    ordinal += state.targets[i].numberOfKeys;
+                }
+            }
+            int offset = 0;
+            for (String value : valueList) {
+                output.writeInt(offset);
+                offset += value.length();
+            }
+            output.writeInt(offset);
+            for (String value : valueList) {
+                output.writeChars(value);
+            }
+        }
+
+        /**
+         * @return The number of keys below the state.
+         */
+        private int number(BuilderState state, ArrayList<BuilderState> states) {
+            if (state.number >= 0) {
+                return state.numberOfKeys;
+            }
+            state.number = states.size();
+            states.add(state);
+            int numberOfKeys = state.isFinal ? 1 : 0;
+            for (int i = 0; i < state.numberOfTransitions; i++) {
+                numberOfKeys += number(state.targets[i], states);
+            }
+            state.numberOfKeys = numberOfKeys;
+            return numberOfKeys;
+        }
+    }
+
+
+    /**
+     * Mutable state while building. Two complete states are equal if they are both final or not and have the same
+     * transitions to the same (registered) states.
+     */
+    private static class BuilderState {
+
+        char[] labels = new char[2];
+        BuilderState[] targets = new BuilderState[2];
+        int numberOfTransitions = 0;
+        boolean isFinal = false;
+        int number = -1;
+        int numberOfKeys = 0;
+
+        void addTransition(char label, BuilderState target) {
+            if (numberOfTransitions == labels.length) {
+                labels = Arrays.copyOf(labels, numberOfTransitions * 2);
+                targets = Arrays.copyOf(targets, numberOfTransitions * 2);
+            }
+            labels[numberOfTransitions] = label;
+            targets[numberOfTransitions] = target;
+            numberOfTransitions++;
+        }
+
+        void setLastTarget(BuilderState target) {
+            targets[numberOfTransitions - 1] = target;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof BuilderState)) {
+                return false;
+            }
+            BuilderState other = (BuilderState) object;
+            if (isFinal != other.isFinal || numberOfTransitions != other.numberOfTransitions) {
+                return false;
+            }
+            for (int i = 0; i < numberOfTransitions; i++) {
+                if (labels[i] != other.labels[i] || targets[i] != other.targets[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = isFinal ? 1 : 0;
+            for (int i = 0; i < numberOfTransitions; i++) {
+                hash = 31 * hash + labels[i];
+                hash = 31 * hash + System.identityHashCode(targets[i]);
+            }
+            return hash;
+        }
+    }
+
+
+    /*
+    ONLY GETTERS BELOW.
+     */
+
+    /**
+     * @return Number of keys.
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getNumberOfStates() {
+        return numberOfStates;
+    }
+
+}
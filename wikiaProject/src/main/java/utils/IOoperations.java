@@ -6,6 +6,7 @@ import org.apache.tools.ant.DirectoryScanner;
 import java.io.*;
 import java.nio.file.Files;
 import java.util.*;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.apache.log4j.Level;
@@ -21,6 +22,22 @@ public class IOoperations {
     private static final String CLASS=IOoperations.class.getName();
     private static String rootDirectoryPath = ResourceBundle.getBundle("config").getString("pathToRootDirectory");
 
+    /**
+     * Output profile of the extraction (extractionOutputProfile in config.properties): a single uncompressed
+     * N-Triples stream per dataset that is only read once by the postprocessing.
+     */
+    public static final String INTERMEDIATE_OUTPUT_PROFILE = "intermediate";
+
+    /**
+     * Output profile of the extraction: the formats of extraction.template.properties (bzip2 compressed triples) for
+     * artifacts that are published as they are.
+     */
+    public static final String PUBLISH_OUTPUT_PROFILE = "publish";
+
+    // format of the intermediate profile; no codec suffix -> the extraction framework writes uncompressed files
+    private static final String INTERMEDIATE_FORMAT_KEY = "format.ttl";
+    private static final String INTERMEDIATE_FORMAT = "turtle-triples;uri-policy.iri";
+
 
     /**
      * This method receives an array of file paths and merges the files into the specified target file
@@ -192,45 +209,99 @@ public class IOoperations {
 
     /**
      * Write the mappings file to the disk.
+     * The mappings are streamed into the file without building the file content in memory (compressed and sorted
+     * like all mapping files, see {@link #writeMappingsToFile(Map, Function, File, String, boolean)}).
      *
-     * @param entitiesMapping       A HashSet of Strings, each representing one line to be written to the mapping file.
+     * @param entitiesMapping       A HashMap with key = entity of the wiki and value = mapped entity.
      * @param pathToFileToBeWritten
      */
     public static void writeMappingContentsToFile(HashMap<String, String> entitiesMapping, File pathToFileToBeWritten, String ontology, boolean includeNullMappings) {
 
-        StringBuffer contentToWrite = new StringBuffer();
-        Iterator iterator = entitiesMapping.entrySet().iterator();
-
-        while (iterator.hasNext()) {
-            HashMap.Entry<String, String> entry = (HashMap.Entry<String, String>) iterator.next();
+        writeMappingsToFile(entitiesMapping, Function.identity(), pathToFileToBeWritten, ontology, includeNullMappings);
+    }
 
-            if (entry.getValue() == null)
-                continue;
 
-            // exclude null mappings if includeNullMappings is false
-            if (!includeNullMappings && entry.getValue().equals("<null>"))
-                continue;
+    /**
+     * Streams the mappings of a mapper into a mapping file. The entity of the wiki is transformed on the fly, so no
+     * second map with the transformed entities is built. Compression and sorting are taken from config.properties
+     * (see {@link NTriplesSink#createConfiguredSink(File)}).
+     *
+     * @param entitiesMapping       A map with key = entity as mapped and value = mapped entity.
+     * @param entityTransformation  Transformation of the key into the entity to be written, e.g. into the target namespace.
+     * @param pathToFileToBeWritten The mapping file.
+     * @param ontology              The mapping predicate.
+     * @param includeNullMappings   True if mappings to "<null>" shall be written.
+     */
+    public static void writeMappingsToFile(Map<String, String> entitiesMapping, Function<String, String> entityTransformation,
+                                           File pathToFileToBeWritten, String ontology, boolean includeNullMappings) {
 
-            contentToWrite.append(entry.getKey() + " " + ontology + " " + entry.getValue() + " .\n");
+        try (NTriplesSink sink = NTriplesSink.createConfiguredSink(pathToFileToBeWritten)) {
+            for (Map.Entry<String, String> entry : entitiesMapping.entrySet()) {
+                writeMapping(sink, entityTransformation.apply(entry.getKey()), ontology, entry.getValue(), includeNullMappings);
+            }
+        } catch (Exception exception) {
+            logger.logMessage(Level.FATAL,MODULE,CLASS, exception.getMessage());
         }
+    }
 
-        try {
-            // Initialize file Writer Objects
-            PrintWriter fileWriter = new PrintWriter(pathToFileToBeWritten, "UTF-8");
-
-            // Writing Process
-            fileWriter.write(contentToWrite.toString());
-
-            // Close file Writer
-            fileWriter.close();
 
+    /**
+     * Maps the entities of a (possibly spilled) set chunk by chunk and streams the mappings into a mapping file, so
+     * neither all entities nor all mappings of a huge wiki have to be on the heap at once.
+     *
+     * @param entities              The entities to be mapped.
+     * @param chunkSize             Maximal number of entities that are mapped at once (if the set was spilled).
+     * @param mapping               The mapping of a chunk, e.g. the mapAll method of a mapper.
+     * @param entityTransformation  Transformation of the key into the entity to be written, e.g. into the target namespace.
+     * @param pathToFileToBeWritten The mapping file.
+     * @param ontology              The mapping predicate.
+     * @param includeNullMappings   True if mappings to "<null>" shall be written.
+     */
+    public static void writeMappingsToFile(SpillingStringSet entities, int chunkSize,
+                                           Function<Collection<String>, ? extends Map<String, String>> mapping,
+                                           Function<String, String> entityTransformation,
+                                           File pathToFileToBeWritten, String ontology, boolean includeNullMappings) {
+
+        try (NTriplesSink sink = NTriplesSink.createConfiguredSink(pathToFileToBeWritten)) {
+            entities.forEachChunk(chunkSize, chunk -> {
+                try {
+                    for (Map.Entry<String, String> entry : mapping.apply(chunk).entrySet()) {
+                        writeMapping(sink, entityTransformation.apply(entry.getKey()), ontology, entry.getValue(), includeNullMappings);
+                    }
+                } catch (IOException ioe) {
+                    throw new UncheckedIOException(ioe);
+                }
+            });
         } catch (Exception exception) {
-            exception.printStackTrace();
             logger.logMessage(Level.FATAL,MODULE,CLASS, exception.getMessage());
         }
     }
 
 
+    /**
+     * Writes a single mapping into a sink unless it is to be excluded.
+     *
+     * @param sink The sink to write to.
+     * @param entity The entity of the wiki.
+     * @param ontology The mapping predicate, e.g. "<http://www.w3.org/2002/07/owl#sameAs>".
+     * @param mappedEntity The mapped entity; mappings to null are never written, mappings to "<null>" only if
+     *                     includeNullMappings is true.
+     * @param includeNullMappings True if mappings to "<null>" shall be written.
+     * @throws IOException if writing fails.
+     */
+    public static void writeMapping(NTriplesSink sink, String entity, String ontology, String mappedEntity, boolean includeNullMappings) throws IOException {
+
+        if (mappedEntity == null)
+            return;
+
+        // exclude null mappings if includeNullMappings is false
+        if (!includeNullMappings && mappedEntity.equals("<null>"))
+            return;
+
+        sink.writeTriple(entity, ontology, mappedEntity);
+    }
+
+
     /**
      * This function reads DBpedia pageids. pageIds file
      * Make sure that the folder "pageids" exists in the root directory
@@ -364,6 +435,26 @@ public class IOoperations {
 
     }
 
+    /**
+     * Opens a text file for reading. Files ending with ".bz2" are decompressed while they are read (large ones on
+     * several threads, see {@link ParallelBzip2InputStream}), so no uncompressed copy has to be written; the same
+     * holds for files ending with ".gz".
+     *
+     * @param file The file to read.
+     * @return A reader of the (decompressed) content.
+     * @throws IOException if the file cannot be opened.
+     */
+    public static BufferedReader getReader(File file) throws IOException {
+        switch (NTriplesSink.Compression.of(file)) {
+            case BZIP2:
+                return new BufferedReader(new InputStreamReader(ParallelBzip2InputStream.open(file)), 1 << 16);
+            case GZIP:
+                return new BufferedReader(new InputStreamReader(NTriplesSink.Compression.GZIP.decompress(new FileInputStream(file))), 1 << 16);
+            default:
+                return new BufferedReader(new FileReader(file), 1 << 16);
+        }
+    }
+
     /**
      * This function reads DBpedia ontology classes from ontology file
      * Make sure that the folder "ontology" exists
@@ -576,6 +667,9 @@ public class IOoperations {
             //set language code(s) from config file
             extractionProperties.setProperty("languages", languagesToExtract);
 
+            //set output formats
+            applyOutputProfile(extractionProperties, getExtractionOutputProfile());
+
             FileOutputStream extractionPropertiesFile = new FileOutputStream(templateFile.getParentFile() + "//extraction.properties");
 
             System.out.println(extractionPropertiesFilePath);
@@ -588,4 +682,43 @@ public class IOoperations {
             logger.logMessage(Level.FATAL,MODULE,CLASS,ex.toString());
         }
     }
+
+    /**
+     * Sets the output formats of the extraction properties according to the profile. The intermediate profile
+     * replaces all formats by one uncompressed N-Triples format, so every triple is serialized once and no bzip2
+     * compression happens between the extraction and the postprocessing; the publish profile keeps the formats.
+     *
+     * @param extractionProperties The properties of the extraction framework.
+     * @param profile {@link #INTERMEDIATE_OUTPUT_PROFILE} or {@link #PUBLISH_OUTPUT_PROFILE}.
+     */
+    public static void applyOutputProfile(Properties extractionProperties, String profile) {
+        if (PUBLISH_OUTPUT_PROFILE.equals(profile)) {
+            return;
+        }
+        for (String key : extractionProperties.stringPropertyNames()) {
+            if (key.startsWith("format.")) {
+                extractionProperties.remove(key);
+            }
+        }
+        extractionProperties.setProperty(INTERMEDIATE_FORMAT_KEY, INTERMEDIATE_FORMAT);
+    }
+
+    /**
+     * @return The output profile of the extraction (extractionOutputProfile in config.properties);
+     * {@link #INTERMEDIATE_OUTPUT_PROFILE} if it is not configured.
+     */
+    public static String getExtractionOutputProfile() {
+        try {
+            String profile = ResourceBundle.getBundle("config").getString("extractionOutputProfile").trim().toLowerCase();
+            if (PUBLISH_OUTPUT_PROFILE.equals(profile)) {
+                return PUBLISH_OUTPUT_PROFILE;
+            }
+            if (!profile.isEmpty() && !INTERMEDIATE_OUTPUT_PROFILE.equals(profile)) {
+                logger.logMessage(Level.WARN,MODULE,CLASS,"Unknown extractionOutputProfile " + profile + ", using " + INTERMEDIATE_OUTPUT_PROFILE);
+            }
+        } catch (MissingResourceException mre) {
+            // default
+        }
+        return INTERMEDIATE_OUTPUT_PROFILE;
+    }
 }
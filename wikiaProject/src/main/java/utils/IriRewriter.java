@@ -0,0 +1,315 @@
+package utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies a set of rewrite rules to lines in a single left-to-right scan.
+ * The patterns of all rules are compiled into one Aho-Corasick automaton (a table of states by character class), so
+ * each character of a line is looked at once, no matter how many rules there are. Where matches overlap, the one that
+ * starts first wins, and of those the longest one.
+ *
+ * Rules are given as lines of the form {@code <kind> TAB <pattern> TAB <replacement>}; empty lines and lines starting
+ * with # are ignored, and {@code ${name}} in patterns and replacements is replaced by the value of the variable.
+ * Kinds:
+ * - literal: every occurrence of the pattern is replaced.
+ * - host: the host of an http IRI is replaced if the pattern ends it, e.g. "wikipedia.org" rewrites the host of
+ *   "http://en.wikipedia.org/wiki/X" (like the regular expression "http://[a-z.]*wikipedia.org").
+ *
+ * Instances are immutable and can be shared between threads.
+ */
+public class IriRewriter {
+
+    private static final int LITERAL = 0;
+    private static final int HOST = 1;
+    private static final String HTTP = "http://";
+
+    // rules
+    private final int[] kinds;
+    private final String[] replacements;
+
+    // automaton; state 0 is the start state
+    private final int[] asciiClasses = new int[128];
+    private final HashMap<Character, Integer> otherClasses = new HashMap<>();
+    private final int numberOfClasses;
+    private final int[] transitions; // state * numberOfClasses + character class -> state
+    private final int[] depths;
+    private final int[] stateRules; // rule whose pattern leads to the state; -1 if none
+    private final int[] dictionaryLinks; // state of the longest pattern that is a proper suffix; -1 if none
+
+
+    /**
+     * Constructor
+     * @param rules The rules (see class comment).
+     * @param variables The values of the variables used in the rules.
+     * @throws IllegalArgumentException if a rule is malformed.
+     */
+    public IriRewriter(List<String> rules, Map<String, String> variables) {
+        ArrayList<String> patterns = new ArrayList<>();
+        ArrayList<Integer> kindList = new ArrayList<>();
+        ArrayList<String> replacementList = new ArrayList<>();
+
+        for (String rule : rules) {
+            if (rule.trim().isEmpty() || rule.trim().startsWith("#")) {
+                continue;
+            }
+            String[] parts = rule.split("\t", -1);
+            if (parts.length != 3 || parts[1].isEmpty()) {
+                throw new IllegalArgumentException("Malformed rewrite rule: " + rule);
+            }
+            switch (parts[0].trim()) {
+                case "literal":
+                    kindList.add(LITERAL);
+                    break;
+                case "host":
+                    kindList.add(HOST);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown kind of rewrite rule: " + rule);
+            }
+            patterns.add(substituteVariables(parts[1], variables));
+            replacementList.add(substituteVariables(parts[2], variables));
+        }
+
+        kinds = new int[kindList.size()];
+        for (int i = 0; i < kinds.length; i++) {
+            kinds[i] = kindList.get(i);
+        }
+        replacements = replacementList.toArray(new String[0]);
+
+        // every character that occurs in a pattern gets its own class, all others share class 0
+        int classes = 1;
+        for (String pattern : patterns) {
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (getCharacterClass(c) == 0) {
+                    if (c < 128) {
+                        asciiClasses[c] = classes++;
+                    } else {
+                        otherClasses.put(c, classes++);
+                    }
+                }
+            }
+        }
+        numberOfClasses = classes;
+
+        // trie of the patterns
+        ArrayList<int[]> children = new ArrayList<>();
+        ArrayList<Integer> depthList = new ArrayList<>();
+        ArrayList<Integer> ruleList = new ArrayList<>();
+        children.add(new int[numberOfClasses]);
+        depthList.add(0);
+        ruleList.add(-1);
+        for (int rule = 0; rule < patterns.size(); rule++) {
+            String pattern = patterns.get(rule);
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                int characterClass = getCharacterClass(pattern.charAt(i));
+                if (children.get(state)[characterClass] == 0) {
+                    children.get(state)[characterClass] = children.size();
+                    children.add(new int[numberOfClasses]);
+                    depthList.add(i + 1);
+                    ruleList.add(-1);
+                }
+                state = children.get(state)[characterClass];
+            }
+            if (ruleList.get(state) < 0) {
+                // the first of several rules with the same pattern wins
+                ruleList.set(state, rule);
+            }
+        }
+
+        // failure links in breadth-first order turn the trie into a complete transition table
+        int numberOfStates = children.size();
+        transitions = new int[numberOfStates * numberOfClasses];
+        depths = new int[numberOfStates];
+        stateRules = new int[numberOfStates];
+        dictionaryLinks = new int[numberOfStates];
+        int[] failures = new int[numberOfStates];
+
+        int[] queue = new int[numberOfStates];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = 0;
+        dictionaryLinks[0] = -1;
+        while (head < tail) {
+            int state = queue[head++];
+            depths[state] = depthList.get(state);
+            stateRules[state] = ruleList.get(state);
+            if (state != 0) {
+                int failure = failures[state];
+                dictionaryLinks[state] = ruleList.get(failure) >= 0 ? failure : dictionaryLinks[failure];
+            }
+            for (int characterClass = 0; characterClass < numberOfClasses; characterClass++) {
+                int child = children.get(state)[characterClass];
+                int failureTransition = state == 0 ? 0 : transitions[failures[state] * numberOfClasses + characterClass];
+                if (child != 0) {
+                    failures[child] = failureTransition;
+                    transitions[state * numberOfClasses + characterClass] = child;
+                    queue[tail++] = child;
+                } else {
+                    transitions[state * numberOfClasses + characterClass] = failureTransition;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Reads the rules from a file (UTF-8).
+     * @param file The file with one rule per line (see class comment).
+     * @param variables The values of the variables used in the rules.
+     * @return The rewriter.
+     * @throws IOException if the file cannot be read.
+     * @throws IllegalArgumentException if a rule is malformed.
+     */
+    public static IriRewriter fromFile(File file, Map<String, String> variables) throws IOException {
+        return new IriRewriter(Files.readAllLines(file.toPath(), StandardCharsets.UTF_8), variables);
+    }
+
+    /**
+     * @param rules The rules (see class comment).
+     * @param variables Names and values of the variables, alternating.
+     * @return The rewriter.
+     */
+    public static IriRewriter of(String[] rules, String... variables) {
+        HashMap<String, String> variableMap = new HashMap<>();
+        for (int i = 0; i + 1 < variables.length; i += 2) {
+            variableMap.put(variables[i], variables[i + 1]);
+        }
+        return new IriRewriter(Arrays.asList(rules), variableMap);
+    }
+
+
+    /**
+     * Rewrites a line.
+     * @param line The line.
+     * @return The rewritten line; the line itself if no rule matched.
+     */
+    public String rewrite(String line) {
+        StringBuilder output = new StringBuilder(line.length() + 32);
+        return rewrite(line, output) ? output.toString() : line;
+    }
+
+    /**
+     * Rewrites a line into a buffer that can be reused for the next line.
+     * @param line The line.
+     * @param output The buffer; it is cleared first and contains the rewritten line afterwards.
+     * @return True if a rule matched.
+     */
+    public boolean rewrite(CharSequence line, StringBuilder output) {
+        output.setLength(0);
+        int length = line.length();
+        int copiedUntil = 0;
+
+        // leftmost-longest match found so far
+        int matchRule = -1;
+        int matchStart = 0;
+        int matchEnd = 0;
+        int replaceFrom = 0;
+
+        int state = 0;
+        int i = 0;
+        while (i < length || matchRule >= 0) {
+            if (i < length) {
+                state = transitions[state * numberOfClasses + getCharacterClass(line.charAt(i))];
+                i++;
+                if (matchRule < 0 || i - depths[state] <= matchStart) {
+                    // patterns that end here, longest first
+                    for (int s = stateRules[state] >= 0 ? state : dictionaryLinks[state]; s >= 0; s = dictionaryLinks[s]) {
+                        int start = i - depths[s];
+                        if (matchRule >= 0 && start > matchStart) {
+                            break;
+                        }
+                        int from = getReplaceFrom(stateRules[s], line, start, copiedUntil);
+                        if (from >= 0) {
+                            matchRule = stateRules[s];
+                            matchStart = start;
+                            matchEnd = i;
+                            replaceFrom = from;
+                            break;
+                        }
+                    }
+                    continue;
+                }
+                // -> no longer match can start at or before the match found
+            }
+
+            output.append(line, copiedUntil, replaceFrom).append(replacements[matchRule]);
+            copiedUntil = matchEnd;
+            matchRule = -1;
+            // continue after the match
+            i = matchEnd;
+            state = 0;
+        }
+
+        if (copiedUntil == 0) {
+            return false;
+        }
+        output.append(line, copiedUntil, length);
+        return true;
+    }
+
+
+    /**
+     * @return The start of the text to be replaced if the rule applies to the match; -1 otherwise.
+     */
+    private int getReplaceFrom(int rule, CharSequence line, int start, int copiedUntil) {
+        if (kinds[rule] == LITERAL) {
+            return start;
+        }
+        // host: "http://[a-z.]*" has to precede the match
+        int hostStart = start;
+        while (hostStart > copiedUntil && isHostCharacter(line.charAt(hostStart - 1))) {
+            hostStart--;
+        }
+        if (hostStart - HTTP.length() < copiedUntil) {
+            return -1;
+        }
+        for (int j = 0; j < HTTP.length(); j++) {
+            if (line.charAt(hostStart - HTTP.length() + j) != HTTP.charAt(j)) {
+                return -1;
+            }
+        }
+        return hostStart;
+    }
+
+    private static boolean isHostCharacter(char c) {
+        return (c >= 'a' && c <= 'z') || c == '.';
+    }
+
+    private int getCharacterClass(char c) {
+        if (c < 128) {
+            return asciiClasses[c];
+        }
+        Integer characterClass = otherClasses.get(c);
+        return characterClass == null ? 0 : characterClass;
+    }
+
+    private static String substituteVariables(String text, Map<String, String> variables) {
+        for (Map.Entry<String, String> variable : variables.entrySet()) {
+            text = text.replace("${" + variable.getKey() + "}", variable.getValue());
+        }
+        return text;
+    }
+
+
+    /*
+    ONLY GETTERS BELOW.
+     */
+
+    /**
+     * @return Number of rules.
+     */
+    public int getNumberOfRules() {
+        return kinds.length;
+    }
+
+}
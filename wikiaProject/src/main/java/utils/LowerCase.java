@@ -0,0 +1,50 @@
+package utils;
+
+import java.util.Locale;
+
+/**
+ * Helper for case-insensitive lookups of keys that were lower-cased with {@link String#toLowerCase()}: ASCII strings
+ * can be lower-cased char by char while they are hashed or looked up, so no lower case string has to be created.
+ */
+final class LowerCase {
+
+    // String.toLowerCase() equals the ASCII lower case of ASCII strings unless the default locale has special rules for 'I'
+    private static final boolean ASCII_LOWER_CASE_IS_EXACT;
+
+    static {
+        String language = Locale.getDefault().getLanguage();
+        ASCII_LOWER_CASE_IS_EXACT = !language.equals("tr") && !language.equals("az") && !language.equals("lt");
+    }
+
+
+    private LowerCase() {
+        // only static methods
+    }
+
+
+    /**
+     * @param string A string.
+     * @return True if lower-casing the characters with {@link #toLowerCaseAscii(char)} gives the same result as
+     * {@link String#toLowerCase()}.
+     */
+    static boolean isAsciiLowerCaseExact(String string) {
+        if (!ASCII_LOWER_CASE_IS_EXACT) {
+            return false;
+        }
+        for (int i = 0; i < string.length(); i++) {
+            if (string.charAt(i) >= 128) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param c A character.
+     * @return The lower case of an ASCII upper case letter; any other character unchanged.
+     */
+    static char toLowerCaseAscii(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+}
@@ -0,0 +1,125 @@
+package utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * A size-bounded least-recently-used cache whose entries expire after a fixed time to live.
+ * All methods are synchronized so that one instance can be shared between threads.
+ *
+ * @param <K> Type of the keys.
+ * @param <V> Type of the cached values.
+ */
+public class LruCache<K, V> {
+
+    private final int maximumSize;
+    private final long timeToLiveNanos;
+    private final LongSupplier ticker;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    // for the statistics
+    private long hitCount = 0;
+    private long missCount = 0;
+
+
+    /**
+     * Constructor
+     * @param maximumSize Maximal number of entries; the least recently used entry is evicted when it is exceeded.
+     * @param timeToLiveMillis Time in milliseconds after which an entry expires. Zero or less: entries never expire.
+     */
+    public LruCache(int maximumSize, long timeToLiveMillis) {
+        this(maximumSize, timeToLiveMillis, System::nanoTime);
+    }
+
+    /**
+     * Constructor with an exchangeable time source (used by tests).
+     * @param maximumSize Maximal number of entries.
+     * @param timeToLiveMillis Time in milliseconds after which an entry expires.
+     * @param ticker Time source returning nanoseconds.
+     */
+    LruCache(int maximumSize, long timeToLiveMillis, LongSupplier ticker) {
+        this.maximumSize = Math.max(maximumSize, 1);
+        this.timeToLiveNanos = timeToLiveMillis * 1000000L;
+        this.ticker = ticker;
+        this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > LruCache.this.maximumSize;
+            }
+        };
+    }
+
+
+    /**
+     * Returns the cached value for the given key.
+     * @param key The key to look up.
+     * @return The value or null if there is no (valid) entry for the key.
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+        if (timeToLiveNanos > 0 && ticker.getAsLong() - entry.createdAt > timeToLiveNanos) {
+            // -> entry expired
+            entries.remove(key);
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return entry.value;
+    }
+
+    /**
+     * Adds or replaces an entry.
+     * @param key The key.
+     * @param value The value; must not be null.
+     */
+    public synchronized void put(K key, V value) {
+        entries.put(key, new Entry<V>(value, ticker.getAsLong()));
+    }
+
+    /**
+     * Removes all entries. The statistics are kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Number of entries currently held (expired entries that were not accessed yet are included).
+     * @return
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+
+    /**
+     * A cached value together with its creation time.
+     */
+    private static class Entry<V> {
+        final V value;
+        final long createdAt;
+
+        Entry(V value, long createdAt) {
+            this.value = value;
+            this.createdAt = createdAt;
+        }
+    }
+
+}
@@ -0,0 +1,93 @@
+package utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A size-bounded memo cache for results of pure functions that can be shared between threads without locking.
+ * Once the maximum size is reached, all entries are dropped: the cache is meant for small, heavily repeating working
+ * sets (such as templates that occur in many wikis) which are rebuilt quickly.
+ *
+ * @param <K> Type of the keys.
+ * @param <V> Type of the cached values.
+ */
+public class MemoCache<K, V> {
+
+    private final int maximumSize;
+    private final ConcurrentHashMap<K, V> entries;
+
+    // for the statistics
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+
+    /**
+     * Constructor
+     * @param maximumSize Maximal number of entries.
+     */
+    public MemoCache(int maximumSize) {
+        this.maximumSize = Math.max(maximumSize, 1);
+        this.entries = new ConcurrentHashMap<>();
+    }
+
+
+    /**
+     * Returns the cached value for the given key or computes and caches it.
+     * The computation runs outside of any lock, so the same value may be computed more than once by concurrent callers.
+     * Exceptions of the computation are passed on and nothing is cached.
+     * @param key The key to look up.
+     * @param function The function whose result is memoized; has to be free of side effects.
+     * @return The (cached) value. Null values are returned but not cached.
+     */
+    public V get(K key, Function<? super K, ? extends V> function) {
+        V value = entries.get(key);
+        if (value != null) {
+            hitCount.increment();
+            return value;
+        }
+        missCount.increment();
+        value = function.apply(key);
+        if (value != null) {
+            if (entries.size() >= maximumSize) {
+                entries.clear();
+            }
+            entries.put(key, value);
+        }
+        return value;
+    }
+
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+
+    /**
+     * @return Number of entries currently cached.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+
+    /*
+    ONLY GETTERS BELOW.
+     */
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+}
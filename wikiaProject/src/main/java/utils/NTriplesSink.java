@@ -0,0 +1,316 @@
+package utils;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes N-Triples line by line into a file without holding the file content on the heap.
+ * The lines are encoded to UTF-8 directly into a large direct buffer that is flushed to the file (optionally through
+ * a gzip or bz2 compressor) when it is full.
+ * If sorted output is requested, the lines are kept in memory until the sink is closed and written in sorted order
+ * so that the files of different runs can be diffed.
+ * The class is not synchronized; one sink must only be used by one thread.
+ */
+public class NTriplesSink implements Closeable {
+
+    /**
+     * Compression of the written file.
+     */
+    public enum Compression {
+        NONE(""), GZIP(".gz"), BZIP2(".bz2");
+
+        private final String fileExtension;
+
+        Compression(String fileExtension) {
+            this.fileExtension = fileExtension;
+        }
+
+        /**
+         * @return Extension that is appended to the file name, e.g. ".gz".
+         */
+        public String getFileExtension() {
+            return fileExtension;
+        }
+
+        /**
+         * Parses the compression as written in the configuration.
+         * @param name "none", "gzip"/"gz" or "bz2"/"bzip2" (case is ignored).
+         * @return The compression; NONE for unknown names.
+         */
+        public static Compression fromName(String name) {
+            switch (name.trim().toLowerCase()) {
+                case "gzip":
+                case "gz":
+                    return GZIP;
+                case "bz2":
+                case "bzip2":
+                    return BZIP2;
+                default:
+                    return NONE;
+            }
+        }
+
+        /**
+         * @param file A file.
+         * @return The compression of the file (judged by its name).
+         */
+        public static Compression of(File file) {
+            String name = file.getName();
+            return name.endsWith(GZIP.fileExtension) ? GZIP : (name.endsWith(BZIP2.fileExtension) ? BZIP2 : NONE);
+        }
+
+        /**
+         * Looks for a file that may have been written with any compression.
+         * @param directory The directory of the file.
+         * @param uncompressedFileName Name of the file without the extension of the compression, e.g. "resourceMappings.ttl".
+         * @return The existing file (uncompressed preferred); the uncompressed file if none exists.
+         */
+        public static File findFile(File directory, String uncompressedFileName) {
+            for (Compression compression : values()) {
+                File file = new File(directory, uncompressedFileName + compression.fileExtension);
+                if (file.exists()) {
+                    return file;
+                }
+            }
+            return new File(directory, uncompressedFileName);
+        }
+
+        /**
+         * @param file A file that may be compressed.
+         * @return The name of the file without the extension of its compression.
+         */
+        public static String getUncompressedFileName(File file) {
+            String name = file.getName();
+            return name.substring(0, name.length() - of(file).fileExtension.length());
+        }
+
+        /**
+         * @param out The stream to write the compressed data to.
+         * @return A stream that compresses what is written to it.
+         * @throws IOException if the compressor cannot be created.
+         */
+        public OutputStream compress(OutputStream out) throws IOException {
+            switch (this) {
+                case GZIP:
+                    return new GZIPOutputStream(out, 1 << 16);
+                case BZIP2:
+                    return new BZip2CompressorOutputStream(new BufferedOutputStream(out, 1 << 16));
+                default:
+                    return out;
+            }
+        }
+
+        /**
+         * @param in The compressed data.
+         * @return A stream of the decompressed data.
+         * @throws IOException if the data cannot be decompressed.
+         */
+        public InputStream decompress(InputStream in) throws IOException {
+            switch (this) {
+                case GZIP:
+                    return new GZIPInputStream(in, 1 << 16);
+                case BZIP2:
+                    return new BZip2CompressorInputStream(new BufferedInputStream(in, 1 << 16));
+                default:
+                    return in;
+            }
+        }
+    }
+
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    private final File file;
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final ArrayList<String> linesToSort;
+    private long numberOfTriples = 0;
+
+
+    /**
+     * Constructor for an uncompressed, unsorted file.
+     * @param file The file to be written.
+     * @throws IOException if the file cannot be opened.
+     */
+    public NTriplesSink(File file) throws IOException {
+        this(file, Compression.NONE, false);
+    }
+
+    /**
+     * Constructor
+     * @param file The file to be written (the name is used as given, no extension is appended).
+     * @param compression The compression to be applied.
+     * @param sorted True if the lines shall be written in sorted order.
+     * @throws IOException if the file cannot be opened.
+     */
+    public NTriplesSink(File file, Compression compression, boolean sorted) throws IOException {
+        this(file, compression, sorted, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructor with an exchangeable buffer size (used by tests).
+     */
+    NTriplesSink(File file, Compression compression, boolean sorted, int bufferSize) throws IOException {
+        this.file = file;
+        this.buffer = ByteBuffer.allocateDirect(Math.max(bufferSize, 16));
+        this.linesToSort = sorted ? new ArrayList<>() : null;
+
+        FileOutputStream fileOutputStream = new FileOutputStream(file);
+        this.channel = compression == Compression.NONE ? fileOutputStream.getChannel()
+                : Channels.newChannel(compression.compress(fileOutputStream));
+    }
+
+
+    /**
+     * Opens a sink with the compression and sorting set in config.properties
+     * (keys mappingFileCompression and sortMappingFiles; default: uncompressed and unsorted).
+     * @param file The file to be written; the extension of the compression is appended to its name. Readers of the
+     *             file find it with {@link Compression#findFile(File, String)}.
+     * @return The sink.
+     * @throws IOException if the file cannot be opened.
+     */
+    public static NTriplesSink createConfiguredSink(File file) throws IOException {
+        Compression compression = Compression.fromName(getConfigurationValue("mappingFileCompression", "none"));
+        boolean sorted = Boolean.parseBoolean(getConfigurationValue("sortMappingFiles", "false"));
+        return new NTriplesSink(new File(file.getPath() + compression.getFileExtension()), compression, sorted);
+    }
+
+
+    /**
+     * Writes one triple.
+     * @param subject Subject in N-Triples notation, e.g. "<http://dbpedia.org/resource/Stomp>".
+     * @param predicate Predicate in N-Triples notation.
+     * @param object Object in N-Triples notation.
+     * @throws IOException if writing fails.
+     */
+    public void writeTriple(String subject, String predicate, String object) throws IOException {
+        numberOfTriples++;
+        if (linesToSort != null) {
+            linesToSort.add(subject + " " + predicate + " " + object + " .");
+            return;
+        }
+        encode(subject);
+        put((byte) ' ');
+        encode(predicate);
+        put((byte) ' ');
+        encode(object);
+        encode(" .\n");
+    }
+
+
+    /**
+     * Writes the remaining content (the sorted lines if sorting was requested) and closes the file.
+     * @throws IOException if writing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (linesToSort != null) {
+                Collections.sort(linesToSort);
+                for (String line : linesToSort) {
+                    encode(line);
+                    put((byte) '\n');
+                }
+                linesToSort.clear();
+            }
+            flushBuffer();
+        } finally {
+            channel.close();
+        }
+    }
+
+
+    /**
+     * Encodes a string to UTF-8 into the buffer. Unpaired surrogates are written as '?'.
+     * @param text Text to be encoded.
+     * @throws IOException if the buffer has to be flushed and writing fails.
+     */
+    private void encode(String text) throws IOException {
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (buffer.remaining() < 4) {
+                flushBuffer();
+            }
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    private void put(byte b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flushBuffer();
+        }
+        buffer.put(b);
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+
+    /**
+     * Reads an optional value from config.properties.
+     * @param key The key.
+     * @param defaultValue Value to be used if the key is not set.
+     * @return The configured or the default value.
+     */
+    private static String getConfigurationValue(String key, String defaultValue) {
+        try {
+            return ResourceBundle.getBundle("config").getString(key);
+        } catch (MissingResourceException mre) {
+            return defaultValue;
+        }
+    }
+
+
+    /*
+    ONLY GETTERS BELOW.
+     */
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getNumberOfTriples() {
+        return numberOfTriples;
+    }
+
+}
@@ -0,0 +1,477 @@
+package utils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Streaming tokenizer for N-Triples lines, shared by the postprocessing stages.
+ * A line is split into subject, predicate and object; each term is an IRI ({@code <...>}), a blank node
+ * ({@code _:b1}) or a literal ({@code "..."} with escapes and an optional language tag or datatype). The terms are
+ * reported as spans (offsets into the line) of a {@link Triple} that is reused for all lines, so tokenizing does not
+ * create any objects. Unlike the regular expression {@code <[^<]*>}, a literal that contains {@code <} or {@code >}
+ * is kept in one piece.
+ *
+ * The triples of a stream are passed to {@link TripleHandler}s, which are chained with
+ * {@link TripleHandler#andThen(TripleHandler)}: a handler may replace terms of the triple in place or drop it, and the
+ * next handler gets the triple without the line being tokenized again. Comments, empty lines and lines that are not
+ * triples are skipped; anything after the object (e.g. the final ".") is kept in the line but ignored.
+ */
+public class NTriplesTokenizer {
+
+    /**
+     * Number of lines that are handed to a worker at once by
+     * {@link #parseFileInParallel(File, ExecutorService, int, Supplier)}.
+     */
+    public static final int CHUNK_SIZE = 10000;
+
+    /**
+     * Type of a term.
+     */
+    public enum TermType {
+        IRI, BLANK_NODE, LITERAL
+    }
+
+
+    /**
+     * Receives the triples of a stream. The triple is only valid during the call; it is reused for the next line.
+     */
+    @FunctionalInterface
+    public interface TripleHandler {
+
+        /**
+         * @param triple The current triple; its terms may be replaced for the following handlers.
+         * @return False if the triple shall not be passed to the following handlers (e.g. a filter).
+         */
+        boolean handle(Triple triple);
+
+        /**
+         * @param next Handler that receives each triple after this handler.
+         * @return A handler that passes each triple to this handler and, unless this handler drops it, to the next one.
+         */
+        default TripleHandler andThen(TripleHandler next) {
+            return triple -> handle(triple) && next.handle(triple);
+        }
+
+        /**
+         * @param rewriter Rewrite rules.
+         * @return A handler that applies the rules to each term of the triples (see {@link Triple#rewriteTerms}).
+         */
+        static TripleHandler rewriteTerms(IriRewriter rewriter) {
+            StringBuilder buffer = new StringBuilder();
+            return triple -> {
+                triple.rewriteTerms(rewriter, buffer);
+                return true;
+            };
+        }
+    }
+
+
+    /**
+     * A tokenized line. The getters for the terms return them as written in the line, i.e. IRIs with angle brackets
+     * and literals with quotes, language tag and datatype.
+     */
+    public static final class Triple {
+
+        private String line;
+        private int subjectStart;
+        private int subjectEnd;
+        private int predicateStart;
+        private int predicateEnd;
+        private int objectStart;
+        private int objectEnd;
+        private TermType subjectType;
+        private TermType objectType;
+
+        /**
+         * Returns the line with the given terms instead of the terms of the triple.
+         * @param subject The new subject; null to keep the subject.
+         * @param predicate The new predicate; null to keep the predicate.
+         * @param object The new object; null to keep the object.
+         * @return The line with the replaced terms.
+         */
+        public String replaceTerms(String subject, String predicate, String object) {
+            StringBuilder result = new StringBuilder(line.length() + 64);
+            result.append(line, 0, subjectStart);
+            result.append(subject != null ? subject : line.substring(subjectStart, subjectEnd));
+            result.append(line, subjectEnd, predicateStart);
+            result.append(predicate != null ? predicate : line.substring(predicateStart, predicateEnd));
+            result.append(line, predicateEnd, objectStart);
+            result.append(object != null ? object : line.substring(objectStart, objectEnd));
+            result.append(line, objectEnd, line.length());
+            return result.toString();
+        }
+
+        /**
+         * @return A copy of the triple, e.g. to pass a modified triple on while keeping this one.
+         */
+        public Triple copy() {
+            Triple copy = new Triple();
+            copy.line = line;
+            copy.subjectStart = subjectStart;
+            copy.subjectEnd = subjectEnd;
+            copy.predicateStart = predicateStart;
+            copy.predicateEnd = predicateEnd;
+            copy.objectStart = objectStart;
+            copy.objectEnd = objectEnd;
+            copy.subjectType = subjectType;
+            copy.objectType = objectType;
+            return copy;
+        }
+
+        /**
+         * Replaces terms of the triple (in its line) by terms of the same type.
+         * @param subject The new subject; null to keep the subject.
+         * @param predicate The new predicate; null to keep the predicate.
+         * @param object The new object; null to keep the object.
+         */
+        public void setTerms(String subject, String predicate, String object) {
+            if (subject == null && predicate == null && object == null) {
+                return;
+            }
+            int subjectLength = subject != null ? subject.length() : subjectEnd - subjectStart;
+            int predicateLength = predicate != null ? predicate.length() : predicateEnd - predicateStart;
+            int objectLength = object != null ? object.length() : objectEnd - objectStart;
+            int spaceBeforePredicate = predicateStart - subjectEnd;
+            int spaceBeforeObject = objectStart - predicateEnd;
+
+            line = replaceTerms(subject, predicate, object);
+            subjectEnd = subjectStart + subjectLength;
+            predicateStart = subjectEnd + spaceBeforePredicate;
+            predicateEnd = predicateStart + predicateLength;
+            objectStart = predicateEnd + spaceBeforeObject;
+            objectEnd = objectStart + objectLength;
+        }
+
+        /**
+         * Applies rewrite rules to each term of the triple.
+         * @param rewriter The rules.
+         * @param buffer Buffer for the rewritten terms (reused).
+         * @return True if a rule matched.
+         */
+        public boolean rewriteTerms(IriRewriter rewriter, StringBuilder buffer) {
+            String subject = rewriter.rewrite(line.subSequence(subjectStart, subjectEnd), buffer) ? buffer.toString() : null;
+            String predicate = rewriter.rewrite(line.subSequence(predicateStart, predicateEnd), buffer) ? buffer.toString() : null;
+            String object = rewriter.rewrite(line.subSequence(objectStart, objectEnd), buffer) ? buffer.toString() : null;
+            setTerms(subject, predicate, object);
+            return subject != null || predicate != null || object != null;
+        }
+
+        /*
+        ONLY GETTERS BELOW.
+         */
+
+        public String getLine() {
+            return line;
+        }
+
+        public String getSubject() {
+            return line.substring(subjectStart, subjectEnd);
+        }
+
+        public String getPredicate() {
+            return line.substring(predicateStart, predicateEnd);
+        }
+
+        public String getObject() {
+            return line.substring(objectStart, objectEnd);
+        }
+
+        public TermType getSubjectType() {
+            return subjectType;
+        }
+
+        public TermType getObjectType() {
+            return objectType;
+        }
+
+        public int getSubjectStart() {
+            return subjectStart;
+        }
+
+        public int getSubjectEnd() {
+            return subjectEnd;
+        }
+
+        public int getPredicateStart() {
+            return predicateStart;
+        }
+
+        public int getPredicateEnd() {
+            return predicateEnd;
+        }
+
+        public int getObjectStart() {
+            return objectStart;
+        }
+
+        public int getObjectEnd() {
+            return objectEnd;
+        }
+    }
+
+
+    /**
+     * Tokenizes a line.
+     * @param line The line.
+     * @param triple The triple to be filled (reused).
+     * @return True if the line is a triple; false for comments, empty lines and malformed lines.
+     */
+    public static boolean tokenize(String line, Triple triple) {
+        int length = line.length();
+        int position = skipWhitespace(line, 0);
+        if (position >= length || line.charAt(position) == '#') {
+            return false;
+        }
+
+        // subject
+        TermType subjectType = getTermType(line, position);
+        if (subjectType == null || subjectType == TermType.LITERAL) {
+            return false;
+        }
+        int subjectStart = position;
+        int subjectEnd = getTermEnd(line, position, subjectType);
+        if (subjectEnd < 0) {
+            return false;
+        }
+
+        // predicate
+        position = skipWhitespace(line, subjectEnd);
+        if (getTermType(line, position) != TermType.IRI) {
+            return false;
+        }
+        int predicateStart = position;
+        int predicateEnd = getTermEnd(line, position, TermType.IRI);
+        if (predicateEnd < 0) {
+            return false;
+        }
+
+        // object
+        position = skipWhitespace(line, predicateEnd);
+        TermType objectType = getTermType(line, position);
+        if (objectType == null) {
+            return false;
+        }
+        int objectStart = position;
+        int objectEnd = getTermEnd(line, position, objectType);
+        if (objectEnd < 0) {
+            return false;
+        }
+
+        triple.line = line;
+        triple.subjectStart = subjectStart;
+        triple.subjectEnd = subjectEnd;
+        triple.subjectType = subjectType;
+        triple.predicateStart = predicateStart;
+        triple.predicateEnd = predicateEnd;
+        triple.objectStart = objectStart;
+        triple.objectEnd = objectEnd;
+        triple.objectType = objectType;
+        return true;
+    }
+
+
+    /**
+     * Passes all triples of a reader to the handler.
+     * @param reader The reader of N-Triples lines.
+     * @param handler The handler.
+     * @return Number of triples.
+     * @throws IOException if the reader fails.
+     */
+    public static long parse(BufferedReader reader, TripleHandler handler) throws IOException {
+        Triple triple = new Triple();
+        long numberOfTriples = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (tokenize(line, triple)) {
+                numberOfTriples++;
+                handler.handle(triple);
+            }
+        }
+        return numberOfTriples;
+    }
+
+    /**
+     * Passes all triples of a file to the handler.
+     * @param file The N-Triples file; it may be compressed (see {@link IOoperations#getReader(File)}).
+     * @param handler The handler.
+     * @return Number of triples.
+     * @throws IOException if the file cannot be read.
+     */
+    public static long parseFile(File file, TripleHandler handler) throws IOException {
+        try (BufferedReader reader = IOoperations.getReader(file)) {
+            return parse(reader, handler);
+        }
+    }
+
+    /**
+     * Tokenizes the lines of a file in chunks of {@link #CHUNK_SIZE} lines on several workers while the file is
+     * read. Each worker passes its triples to its own handler, so the handlers do not need to be thread-safe; the
+     * order of the triples is not preserved.
+     * @param file The N-Triples file; it may be compressed (see {@link IOoperations#getReader(File)}).
+     * @param executor The executor that runs the workers; it is shared by all files, so it needs at least
+     *                 numberOfWorkers threads.
+     * @param numberOfWorkers Number of workers.
+     * @param handlerFactory Creates one handler per worker.
+     * @param <H> Type of the handlers.
+     * @return The handlers (e.g. to merge their results).
+     * @throws IOException if the file cannot be read.
+     */
+    public static <H extends TripleHandler> List<H> parseFileInParallel(File file, ExecutorService executor, int numberOfWorkers,
+                                                                        Supplier<H> handlerFactory) throws IOException {
+        numberOfWorkers = Math.max(numberOfWorkers, 1);
+        List<String> endOfFile = new ArrayList<>();
+        BlockingQueue<List<String>> chunks = new ArrayBlockingQueue<>(2 * numberOfWorkers);
+        ArrayList<H> handlers = new ArrayList<>();
+        ArrayList<Future<?>> workers = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < numberOfWorkers; i++) {
+                H handler = handlerFactory.get();
+                handlers.add(handler);
+                workers.add(executor.submit(() -> {
+                    Triple triple = new Triple();
+                    List<String> chunk;
+                    while ((chunk = chunks.take()) != endOfFile) {
+                        for (String line : chunk) {
+                            if (tokenize(line, triple)) {
+                                handler.handle(triple);
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            try (BufferedReader reader = IOoperations.getReader(file)) {
+                ArrayList<String> chunk = new ArrayList<>(CHUNK_SIZE);
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    chunk.add(line);
+                    if (chunk.size() == CHUNK_SIZE) {
+                        putChunk(chunks, chunk, workers);
+                        chunk = new ArrayList<>(CHUNK_SIZE);
+                    }
+                }
+                putChunk(chunks, chunk, workers);
+            }
+            for (int i = 0; i < numberOfWorkers; i++) {
+                putChunk(chunks, endOfFile, workers);
+            }
+
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing " + file.getPath(), ie);
+        } catch (ExecutionException ee) {
+            if (ee.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ee.getCause();
+            }
+            throw new IOException("Could not parse " + file.getPath(), ee.getCause());
+        } finally {
+            // workers that still wait for chunks (the file could not be read) must not block the executor
+            for (Future<?> worker : workers) {
+                worker.cancel(true);
+            }
+        }
+        return handlers;
+    }
+
+    /**
+     * Waits until the queue takes the chunk; fails if a worker failed (workers only end at the end of the file).
+     */
+    private static void putChunk(BlockingQueue<List<String>> chunks, List<String> chunk, List<Future<?>> workers)
+            throws InterruptedException, ExecutionException {
+        while (!chunks.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+            for (Future<?> worker : workers) {
+                if (worker.isDone()) {
+                    // rethrows the failure of the worker
+                    worker.get();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The type of the term that starts at the position; null if no term starts there.
+     */
+    private static TermType getTermType(String line, int position) {
+        if (position >= line.length()) {
+            return null;
+        }
+        switch (line.charAt(position)) {
+            case '<':
+                return TermType.IRI;
+            case '"':
+                return TermType.LITERAL;
+            case '_':
+                return position + 1 < line.length() && line.charAt(position + 1) == ':' ? TermType.BLANK_NODE : null;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return The position after the term that starts at the position; -1 if the term is not terminated.
+     */
+    private static int getTermEnd(String line, int position, TermType type) {
+        int length = line.length();
+        switch (type) {
+            case IRI:
+                int end = line.indexOf('>', position + 1);
+                return end < 0 ? -1 : end + 1;
+            case BLANK_NODE:
+                int i = position + 2;
+                while (i < length && !isWhitespace(line.charAt(i))) {
+                    i++;
+                }
+                return i;
+            default:
+                // literal: closing quote that is not escaped
+                int j = position + 1;
+                while (j < length && line.charAt(j) != '"') {
+                    j += line.charAt(j) == '\\' ? 2 : 1;
+                }
+                if (j >= length) {
+                    return -1;
+                }
+                j++;
+                if (j < length && line.charAt(j) == '@') {
+                    j++;
+                    while (j < length && (Character.isLetterOrDigit(line.charAt(j)) || line.charAt(j) == '-')) {
+                        j++;
+                    }
+                } else if (line.startsWith("^^<", j)) {
+                    int datatypeEnd = line.indexOf('>', j + 3);
+                    if (datatypeEnd < 0) {
+                        return -1;
+                    }
+                    j = datatypeEnd + 1;
+                }
+                return j;
+        }
+    }
+
+    private static int skipWhitespace(String line, int position) {
+        while (position < line.length() && isWhitespace(line.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t';
+    }
+
+}
@@ -0,0 +1,75 @@
+package utils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongPredicate;
+
+/**
+ * A map from objects to primitive long counters.
+ * The counters are stored in mutable one-element arrays, so incrementing an existing counter neither boxes nor
+ * allocates. The class is not synchronized; for parallel counting use one map per thread and merge them with
+ * {@link #addAll(ObjectLongMap)}.
+ *
+ * @param <K> Type of the keys.
+ */
+public class ObjectLongMap<K> {
+
+    private final HashMap<K, long[]> counters = new HashMap<>();
+
+
+    /**
+     * Adds a value to the counter of a key (the counter starts at 0).
+     * @param key The key.
+     * @param value The value to be added.
+     */
+    public void add(K key, long value) {
+        long[] counter = counters.get(key);
+        if (counter == null) {
+            counters.put(key, new long[]{value});
+        } else {
+            counter[0] += value;
+        }
+    }
+
+
+    /**
+     * Adds all counters of another map to this map.
+     * @param other The map to be merged into this map.
+     */
+    public void addAll(ObjectLongMap<K> other) {
+        for (Map.Entry<K, long[]> entry : other.counters.entrySet()) {
+            add(entry.getKey(), entry.getValue()[0]);
+        }
+    }
+
+
+    /**
+     * Removes all keys whose counter does not fulfill the given condition.
+     * @param condition The condition for the counters to be kept.
+     */
+    public void retainIf(LongPredicate condition) {
+        counters.values().removeIf(counter -> !condition.test(counter[0]));
+    }
+
+
+    /**
+     * @return A copy of the map with boxed values.
+     */
+    public HashMap<K, Long> toHashMap() {
+        HashMap<K, Long> result = new HashMap<>();
+        for (Map.Entry<K, long[]> entry : counters.entrySet()) {
+            result.put(entry.getKey(), entry.getValue()[0]);
+        }
+        return result;
+    }
+
+    public boolean containsKey(K key) {
+        return counters.containsKey(key);
+    }
+
+    @Override
+    public String toString() {
+        return toHashMap().toString();
+    }
+
+}
@@ -0,0 +1,343 @@
+package utils;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Decompresses a bzip2 file on several threads.
+ * The blocks of a bzip2 stream (at most 900 kB of input each) are compressed independently; they start with a 48 bit
+ * magic number at an arbitrary bit position. The file is memory-mapped and scanned for the magic numbers, each block
+ * is copied into a stream of its own and these streams are decompressed in parallel; the decompressed blocks are
+ * returned in their original order, so the result is the same as that of a sequential decompression. Files that
+ * consist of several concatenated streams (e.g. written by pbzip2) are supported.
+ *
+ * Decompressed data is only held for the blocks that are decompressed ahead of the reader. Use {@link #open(File)},
+ * which falls back to sequential decompression for small files.
+ */
+public class ParallelBzip2InputStream extends InputStream {
+
+    /**
+     * Files smaller than this are decompressed sequentially.
+     */
+    public static final long PARALLEL_THRESHOLD = 4L << 20;
+
+    private static final long BLOCK_MAGIC = 0x314159265359L;
+    private static final long END_OF_STREAM_MAGIC = 0x177245385090L;
+    private static final long MAGIC_MASK = (1L << 48) - 1;
+    private static final int MAGIC_BITS = 48;
+    private static final int CRC_BITS = 32;
+    private static final int HEADER_BITS = 32;
+    // a false magic number inside a block splits it; the parts are merged again at most this often in a row
+    private static final int MAXIMUM_MERGES = 8;
+
+    private final File file;
+    private final MappedByteBuffer data;
+    private final long numberOfBits;
+    private final ExecutorService executor;
+    private final int maximumBlocksInFlight;
+    private final ArrayDeque<PendingBlock> pendingBlocks = new ArrayDeque<>();
+
+    // scanner state
+    private long bitPosition;
+    private long register = 0;
+    private int bitsInRegister = 0;
+    private long blockStart = -1;
+    private boolean scannedToEnd = false;
+
+    // block that is being read
+    private byte[] current = new byte[0];
+    private int currentPosition = 0;
+
+
+    /**
+     * Constructor
+     * @param file The bzip2 file (smaller than 2 GB).
+     * @param numberOfThreads Number of decompression threads.
+     * @throws IOException if the file cannot be read or is not a bzip2 file.
+     */
+    public ParallelBzip2InputStream(File file, int numberOfThreads) throws IOException {
+        this.file = file;
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file.getPath() + " is too large to be mapped.");
+            }
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        numberOfBits = 8L * data.capacity();
+        if (!isStreamHeader(0)) {
+            throw new IOException(file.getPath() + " is not a bzip2 file.");
+        }
+        bitPosition = HEADER_BITS;
+
+        int threads = Math.max(numberOfThreads, 1);
+        maximumBlocksInFlight = 2 * threads;
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "bzip2-decompression");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens a bzip2 file: files of at least {@link #PARALLEL_THRESHOLD} bytes are decompressed on all processors,
+     * smaller ones sequentially.
+     * @param file The bzip2 file.
+     * @return The decompressed stream.
+     * @throws IOException if the file cannot be opened.
+     */
+    public static InputStream open(File file) throws IOException {
+        int processors = Runtime.getRuntime().availableProcessors();
+        if (processors > 1 && file.length() >= PARALLEL_THRESHOLD && file.length() <= Integer.MAX_VALUE) {
+            return new ParallelBzip2InputStream(file, processors);
+        }
+        return new BZip2CompressorInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16), true);
+    }
+
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        while (currentPosition == current.length) {
+            if (!nextBlock()) {
+                return -1;
+            }
+        }
+        int n = Math.min(length, current.length - currentPosition);
+        System.arraycopy(current, currentPosition, buffer, offset, n);
+        currentPosition += n;
+        return n;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        pendingBlocks.clear();
+    }
+
+
+    /**
+     * Makes the next decompressed block the current one.
+     * @return False at the end of the file.
+     */
+    private boolean nextBlock() throws IOException {
+        fillPendingBlocks();
+        PendingBlock block = pendingBlocks.poll();
+        if (block == null) {
+            return false;
+        }
+        try {
+            current = block.result.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while decompressing " + file.getPath(), ie);
+        } catch (ExecutionException ee) {
+            // most likely the block was split by a false magic number -> merge it with the following parts
+            current = null;
+            long end = block.end;
+            for (int merges = 0; current == null && merges < MAXIMUM_MERGES; merges++) {
+                fillPendingBlocks();
+                PendingBlock next = pendingBlocks.poll();
+                if (next == null) {
+                    break;
+                }
+                next.result.cancel(true);
+                end = next.end;
+                try {
+                    current = decompress(block.start, end);
+                } catch (IOException | RuntimeException e) {
+                    // merge further
+                }
+            }
+            if (current == null) {
+                throw new IOException(file.getPath() + " is corrupt at bit " + block.start + ".", ee.getCause());
+            }
+        }
+        currentPosition = 0;
+        return true;
+    }
+
+    private void fillPendingBlocks() throws IOException {
+        while (pendingBlocks.size() < maximumBlocksInFlight && !scannedToEnd) {
+            long[] bounds = scanNextBlock();
+            if (bounds == null) {
+                scannedToEnd = true;
+            } else {
+                long start = bounds[0];
+                long end = bounds[1];
+                pendingBlocks.add(new PendingBlock(start, end, executor.submit(() -> decompress(start, end))));
+            }
+        }
+    }
+
+    /**
+     * Scans for the next magic number that ends a block.
+     * @return Start and end bit of the block; null at the end of the file.
+     * @throws IOException if the last block is not terminated.
+     */
+    private long[] scanNextBlock() throws IOException {
+        while (bitPosition < numberOfBits) {
+            register = ((register << 1) | getBit(bitPosition)) & MAGIC_MASK;
+            bitPosition++;
+            if (++bitsInRegister < MAGIC_BITS || (register != BLOCK_MAGIC && register != END_OF_STREAM_MAGIC)) {
+                continue;
+            }
+
+            long magicStart = bitPosition - MAGIC_BITS;
+            long[] block = blockStart >= 0 ? new long[]{blockStart, magicStart} : null;
+            if (register == BLOCK_MAGIC) {
+                blockStart = magicStart;
+            } else {
+                // end of stream: skip the combined CRC and the padding; another stream may follow
+                blockStart = -1;
+                long nextByte = (bitPosition + CRC_BITS + 7) / 8;
+                bitPosition = nextByte < data.capacity() && isStreamHeader((int) nextByte) ? 8 * nextByte + HEADER_BITS : numberOfBits;
+                register = 0;
+                bitsInRegister = 0;
+            }
+            if (block != null) {
+                return block;
+            }
+        }
+        if (blockStart >= 0) {
+            throw new IOException(file.getPath() + " is truncated.");
+        }
+        return null;
+    }
+
+    /**
+     * Decompresses the given bits as a stream of its own: header, block(s), end of stream marker and the CRC of the
+     * stream, which is the CRC of the block if there is only one.
+     */
+    private byte[] decompress(long start, long end) throws IOException {
+        BitWriter writer = new BitWriter((int) ((end - start) / 8) + 32);
+        writer.writeBits('B', 8);
+        writer.writeBits('Z', 8);
+        writer.writeBits('h', 8);
+        writer.writeBits('9', 8);
+        long bit = start;
+        for (; bit + 8 <= end; bit += 8) {
+            writer.writeBits(getByte(bit), 8);
+        }
+        for (; bit < end; bit++) {
+            writer.writeBits(getBit(bit), 1);
+        }
+        writer.writeBits(END_OF_STREAM_MAGIC, MAGIC_BITS);
+        long blockCrc = 0;
+        for (long crcBit = start + MAGIC_BITS; crcBit < start + MAGIC_BITS + CRC_BITS; crcBit++) {
+            blockCrc = (blockCrc << 1) | getBit(crcBit);
+        }
+        writer.writeBits(blockCrc, CRC_BITS);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream(1 << 20);
+        try (BZip2CompressorInputStream input = new BZip2CompressorInputStream(new ByteArrayInputStream(writer.toByteArray()))) {
+            byte[] buffer = new byte[1 << 16];
+            int n;
+            while ((n = input.read(buffer)) >= 0) {
+                output.write(buffer, 0, n);
+            }
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * @return The 8 bits starting at the given bit.
+     */
+    private int getByte(long bit) {
+        int index = (int) (bit >>> 3);
+        int shift = (int) (bit & 7);
+        int bits = (data.get(index) & 0xff) << 8;
+        if (shift > 0) {
+            bits |= data.get(index + 1) & 0xff;
+        }
+        return (bits >>> (8 - shift)) & 0xff;
+    }
+
+    private int getBit(long bit) {
+        return (data.get((int) (bit >>> 3)) >>> (7 - (int) (bit & 7))) & 1;
+    }
+
+    private boolean isStreamHeader(int offset) {
+        return offset + 4 <= data.capacity()
+                && data.get(offset) == 'B' && data.get(offset + 1) == 'Z' && data.get(offset + 2) == 'h'
+                && data.get(offset + 3) >= '1' && data.get(offset + 3) <= '9';
+    }
+
+
+    /**
+     * A block that is decompressed in the background.
+     */
+    private static final class PendingBlock {
+        final long start;
+        final long end;
+        final Future<byte[]> result;
+
+        PendingBlock(long start, long end, Future<byte[]> result) {
+            this.start = start;
+            this.end = end;
+            this.result = result;
+        }
+    }
+
+    /**
+     * Writes bits most significant first into a growing byte array.
+     */
+    private static final class BitWriter {
+        private byte[] bytes;
+        private int length = 0;
+        private long buffer = 0;
+        private int bitsInBuffer = 0;
+
+        BitWriter(int capacity) {
+            bytes = new byte[Math.max(capacity, 16)];
+        }
+
+        /**
+         * @param numberOfBits At most 48.
+         */
+        void writeBits(long value, int numberOfBits) {
+            buffer = (buffer << numberOfBits) | (value & ((1L << numberOfBits) - 1));
+            bitsInBuffer += numberOfBits;
+            while (bitsInBuffer >= 8) {
+                if (length == bytes.length) {
+                    bytes = Arrays.copyOf(bytes, 2 * length);
+                }
+                bitsInBuffer -= 8;
+                bytes[length++] = (byte) (buffer >>> bitsInBuffer);
+            }
+        }
+
+        byte[] toByteArray() {
+            if (bitsInBuffer > 0) {
+                // pad the last byte with zeros
+                writeBits(0, 8 - bitsInBuffer);
+            }
+            return Arrays.copyOf(bytes, length);
+        }
+    }
+
+}
@@ -0,0 +1,147 @@
+package utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+/**
+ * Captures the header of a MediaWiki XML dump (everything up to {@code </siteinfo>}) from the bytes that are written
+ * to it and reads the language code and the site name of the wiki from it. The sniffer can be attached to a stream
+ * that writes the dump, so the dump does not have to be read again to get these properties; they can be saved next
+ * to the dump in a small siteinfo file.
+ */
+public class SiteinfoSniffer extends OutputStream {
+
+    /**
+     * Suffix of the file next to the dump in which the properties are saved.
+     */
+    public static final String SITEINFO_FILE_SUFFIX = ".siteinfo";
+
+    // the header is never larger than this
+    private static final int MAXIMUM_HEADER_SIZE = 64 * 1024;
+    private static final byte[] END_OF_SITEINFO = "</siteinfo>".getBytes(StandardCharsets.US_ASCII);
+
+    private final ByteArrayOutputStream header = new ByteArrayOutputStream(4096);
+    private int matchedBytes = 0;
+    private boolean complete = false;
+
+    private String languageCode = "";
+    private String siteName = "";
+
+
+    @Override
+    public void write(int b) {
+        if (complete) {
+            return;
+        }
+        header.write(b);
+        matchedBytes = b == END_OF_SITEINFO[matchedBytes] ? matchedBytes + 1 : (b == END_OF_SITEINFO[0] ? 1 : 0);
+        if (matchedBytes == END_OF_SITEINFO.length || header.size() >= MAXIMUM_HEADER_SIZE) {
+            complete();
+        }
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        for (int i = 0; i < length && !complete; i++) {
+            write(bytes[offset + i]);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!complete) {
+            complete();
+        }
+    }
+
+    private void complete() {
+        complete = true;
+        parse(new String(header.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads the language code and the site name from the header of a dump.
+     * @param header The beginning of the dump.
+     */
+    public void parse(String header) {
+        int languageStart = header.indexOf("xml:lang=");
+        if (languageStart >= 0) {
+            int languageEnd = header.indexOf(">", languageStart + 10);
+            languageCode = languageEnd > languageStart + 10 ? header.substring(languageStart + 10, languageEnd - 1) : "";
+        }
+
+        int siteNameStart = header.indexOf("<sitename>");
+        int siteNameEnd = siteNameStart >= 0 ? header.indexOf("</sitename>", siteNameStart + 10) : -1;
+        siteName = siteNameEnd >= 0 ? header.substring(siteNameStart + 10, siteNameEnd).trim().replace(" ", "_") : "";
+    }
+
+
+    /**
+     * @param dumpFile The (decompressed) dump.
+     * @return The siteinfo file of the dump.
+     */
+    public static File getSiteinfoFile(File dumpFile) {
+        return new File(dumpFile.getPath() + SITEINFO_FILE_SUFFIX);
+    }
+
+    /**
+     * Saves the properties into the siteinfo file of the dump.
+     * @param dumpFile The (decompressed) dump.
+     * @throws IOException if the file cannot be written.
+     */
+    public void save(File dumpFile) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("languageCode", languageCode);
+        properties.setProperty("siteName", siteName);
+        try (OutputStream out = new FileOutputStream(getSiteinfoFile(dumpFile))) {
+            properties.store(out, null);
+        }
+    }
+
+    /**
+     * Loads the properties from the siteinfo file of the dump.
+     * @param dumpFile The (decompressed) dump.
+     * @return The sniffer with the properties; null if there is no siteinfo file.
+     * @throws IOException if the file cannot be read.
+     */
+    public static SiteinfoSniffer load(File dumpFile) throws IOException {
+        File siteinfoFile = getSiteinfoFile(dumpFile);
+        if (!siteinfoFile.exists()) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(siteinfoFile)) {
+            properties.load(in);
+        }
+        SiteinfoSniffer sniffer = new SiteinfoSniffer();
+        sniffer.complete = true;
+        sniffer.languageCode = properties.getProperty("languageCode", "");
+        sniffer.siteName = properties.getProperty("siteName", "");
+        return sniffer;
+    }
+
+
+    /*
+    ONLY GETTERS BELOW.
+     */
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public String getLanguageCode() {
+        return languageCode;
+    }
+
+    public String getSiteName() {
+        return siteName;
+    }
+
+}
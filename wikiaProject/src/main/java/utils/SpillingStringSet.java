@@ -0,0 +1,313 @@
+package utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * A set of strings with a memory budget.
+ * The strings are collected in a HashSet; once the estimated size of the set exceeds the budget, the set is written
+ * sorted into a run file and cleared. Reading merges the runs and the in-memory set and removes duplicates, so the
+ * heap needed for a huge set is bounded by the budget.
+ * Strings must not contain line breaks. The class is not synchronized.
+ */
+public class SpillingStringSet implements Closeable {
+
+    // estimated heap usage of one HashSet entry without the characters (node, String object, array header)
+    private static final int ENTRY_OVERHEAD_IN_BYTES = 80;
+
+    // maximal number of runs that are merged at once; more runs are merged into one run first
+    private static final int MAX_NUMBER_OF_RUNS = 64;
+
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    private final long memoryBudgetInBytes;
+    private final File spillDirectory;
+
+    private HashSet<String> entries = new HashSet<>();
+    private long estimatedSizeInBytes = 0;
+    private final ArrayList<File> runs = new ArrayList<>();
+    private long mergedSize = -1; // number of distinct strings of a spilled set; -1 if unknown
+
+
+    /**
+     * Constructor
+     * @param memoryBudgetInBytes Estimated heap size of the in-memory set from which on it is spilled to disk.
+     * @param spillDirectory Directory of the run files; created if necessary.
+     */
+    public SpillingStringSet(long memoryBudgetInBytes, File spillDirectory) {
+        this.memoryBudgetInBytes = Math.max(memoryBudgetInBytes, 1);
+        this.spillDirectory = spillDirectory;
+    }
+
+
+    /**
+     * Adds a string.
+     * @param entry The string (without line breaks).
+     * @throws UncheckedIOException if the set has to be spilled and the run file cannot be written.
+     */
+    public void add(String entry) {
+        if (entries.add(entry)) {
+            estimatedSizeInBytes += ENTRY_OVERHEAD_IN_BYTES + 2L * entry.length();
+            mergedSize = -1;
+            if (estimatedSizeInBytes > memoryBudgetInBytes) {
+                try {
+                    spill();
+                } catch (IOException ioe) {
+                    throw new UncheckedIOException(ioe);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Passes all distinct strings in chunks to the consumer.
+     * If the set was never spilled, the in-memory set is passed as one chunk (in no particular order); otherwise the
+     * strings are passed in sorted order in chunks of at most the given size.
+     * @param chunkSize Maximal number of strings per chunk of a spilled set.
+     * @param consumer Consumer of the chunks; a chunk must not be kept after the call.
+     * @throws IOException if a run file cannot be read.
+     */
+    public void forEachChunk(int chunkSize, Consumer<Collection<String>> consumer) throws IOException {
+        if (runs.isEmpty()) {
+            if (!entries.isEmpty()) {
+                consumer.accept(entries);
+            }
+            return;
+        }
+
+        ArrayList<String> chunk = new ArrayList<>(Math.max(Math.min(chunkSize, 1 << 16), 1));
+        long numberOfStrings = merge(runs, getSortedEntries(), entry -> {
+            chunk.add(entry);
+            if (chunk.size() >= chunkSize) {
+                consumer.accept(chunk);
+                chunk.clear();
+            }
+        });
+        if (!chunk.isEmpty()) {
+            consumer.accept(chunk);
+        }
+        mergedSize = numberOfStrings;
+    }
+
+    /**
+     * Passes all distinct strings to the consumer (sorted if the set was spilled).
+     * @param consumer Consumer of the strings.
+     * @throws IOException if a run file cannot be read.
+     */
+    public void forEach(Consumer<String> consumer) throws IOException {
+        forEachChunk(1 << 12, chunk -> chunk.forEach(consumer));
+    }
+
+    /**
+     * Passes all distinct strings in sorted order to the consumer, even if the set was never spilled.
+     * @param consumer Consumer of the strings.
+     * @throws IOException if a run file cannot be read.
+     */
+    public void forEachSorted(Consumer<String> consumer) throws IOException {
+        mergedSize = merge(runs, getSortedEntries(), consumer);
+    }
+
+
+    /**
+     * @return True if at least one run was written to disk.
+     */
+    public boolean isSpilled() {
+        return !runs.isEmpty();
+    }
+
+    /**
+     * @return Number of distinct strings. For a spilled set, the runs are merged to count the strings unless they
+     * were merged since the last spill.
+     * @throws IOException if a run file cannot be read.
+     */
+    public long size() throws IOException {
+        if (runs.isEmpty()) {
+            return entries.size();
+        }
+        if (mergedSize < 0) {
+            mergedSize = merge(runs, getSortedEntries(), entry -> { });
+        }
+        return mergedSize;
+    }
+
+
+    /**
+     * Deletes the run files.
+     */
+    @Override
+    public void close() {
+        for (File run : runs) {
+            run.delete();
+        }
+        runs.clear();
+        entries = new HashSet<>();
+        estimatedSizeInBytes = 0;
+    }
+
+
+    /**
+     * Writes the in-memory set sorted into a new run file and clears it.
+     * @throws IOException if the run cannot be written.
+     */
+    private void spill() throws IOException {
+        if (!spillDirectory.exists()) {
+            spillDirectory.mkdirs();
+        }
+        File run = Files.createTempFile(spillDirectory.toPath(), "spill-", ".run").toFile();
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(run), StandardCharsets.UTF_8), READ_BUFFER_SIZE)) {
+            for (String entry : getSortedEntries()) {
+                writer.write(entry);
+                writer.write('\n');
+            }
+        }
+        runs.add(run);
+        entries = new HashSet<>();
+        estimatedSizeInBytes = 0;
+
+        if (runs.size() >= MAX_NUMBER_OF_RUNS) {
+            compactRuns();
+        }
+    }
+
+    /**
+     * Merges all runs into one run.
+     * @throws IOException if a run cannot be read or written.
+     */
+    private void compactRuns() throws IOException {
+        File mergedRun = Files.createTempFile(spillDirectory.toPath(), "spill-", ".run").toFile();
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(mergedRun), StandardCharsets.UTF_8), READ_BUFFER_SIZE)) {
+            merge(runs, Collections.emptyList(), entry -> {
+                try {
+                    writer.write(entry);
+                    writer.write('\n');
+                } catch (IOException ioe) {
+                    throw new UncheckedIOException(ioe);
+                }
+            });
+        } catch (UncheckedIOException uioe) {
+            mergedRun.delete();
+            throw uioe.getCause();
+        }
+        for (File run : runs) {
+            run.delete();
+        }
+        runs.clear();
+        runs.add(mergedRun);
+    }
+
+    private ArrayList<String> getSortedEntries() {
+        ArrayList<String> sortedEntries = new ArrayList<>(entries);
+        Collections.sort(sortedEntries);
+        return sortedEntries;
+    }
+
+
+    /**
+     * k-way merge of sorted runs and a sorted list; duplicates are passed only once.
+     * @param runs Sorted run files.
+     * @param sortedEntries Sorted strings in memory.
+     * @param consumer Consumer of the distinct strings in sorted order.
+     * @return Number of distinct strings.
+     * @throws IOException if a run cannot be read.
+     */
+    private static long merge(List<File> runs, List<String> sortedEntries, Consumer<String> consumer) throws IOException {
+        ArrayList<BufferedReader> readers = new ArrayList<>(runs.size());
+        try {
+            PriorityQueue<MergeSource> queue = new PriorityQueue<>(runs.size() + 1);
+            for (File run : runs) {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(run), StandardCharsets.UTF_8), READ_BUFFER_SIZE);
+                readers.add(reader);
+                MergeSource source = new MergeSource(reader, null);
+                if (source.advance()) {
+                    queue.add(source);
+                }
+            }
+            MergeSource memorySource = new MergeSource(null, sortedEntries);
+            if (memorySource.advance()) {
+                queue.add(memorySource);
+            }
+
+            long numberOfStrings = 0;
+            String previous = null;
+            while (!queue.isEmpty()) {
+                MergeSource source = queue.poll();
+                if (!source.current.equals(previous)) {
+                    previous = source.current;
+                    consumer.accept(previous);
+                    numberOfStrings++;
+                }
+                if (source.advance()) {
+                    queue.add(source);
+                }
+            }
+            return numberOfStrings;
+        } finally {
+            for (BufferedReader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+
+    /**
+     * Current position in a run file or in the sorted in-memory strings.
+     */
+    private static class MergeSource implements Comparable<MergeSource> {
+
+        private final BufferedReader reader;
+        private final List<String> entries;
+        private int position = 0;
+        private String current;
+
+        MergeSource(BufferedReader reader, List<String> entries) {
+            this.reader = reader;
+            this.entries = entries;
+        }
+
+        boolean advance() throws IOException {
+            if (reader != null) {
+                current = reader.readLine();
+            } else {
+                current = position < entries.size() ? entries.get(position++) : null;
+            }
+            return current != null;
+        }
+
+        @Override
+        public int compareTo(MergeSource other) {
+            return current.compareTo(other.current);
+        }
+    }
+
+
+    /*
+    ONLY GETTERS BELOW.
+     */
+
+    public long getMemoryBudgetInBytes() {
+        return memoryBudgetInBytes;
+    }
+
+    public int getNumberOfRuns() {
+        return runs.size();
+    }
+
+}
@@ -0,0 +1,114 @@
+package utils;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.commons.io.input.TeeInputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.commons.io.output.TeeOutputStream;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Saves a gzip compressed dump while it is downloaded and decompresses it at the same time: the bytes from the network
+ * are written to the archive and passed to the decompressor, whose output is written to the decompressed dump and to
+ * a {@link SiteinfoSniffer}. So the dump is read from the network once and neither the archive nor the decompressed
+ * dump is read again to unarchive the dump or to get the properties of the wiki.
+ *
+ * 7z archives cannot be decompressed while they are downloaded (the header of the archive is at its end); they are
+ * only saved.
+ */
+public class StreamingDumpTee {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+
+    /**
+     * @return True if dumps are decompressed while they are downloaded (streamingDumpDownload in config.properties).
+     */
+    public static boolean isEnabled() {
+        try {
+            return Boolean.parseBoolean(ResourceBundle.getBundle("config").getString("streamingDumpDownload").trim());
+        } catch (MissingResourceException mre) {
+            return false;
+        }
+    }
+
+    /**
+     * @param archiveName Name of a dump archive.
+     * @return True if the archive can be decompressed while it is downloaded.
+     */
+    public static boolean canDecompressWhileDownloading(String archiveName) {
+        return archiveName.endsWith(".gz");
+    }
+
+    /**
+     * @param archiveFile A gzip compressed dump.
+     * @param decompressedDirectory The directory with the decompressed dumps.
+     * @return The decompressed dump (the name of the archive without ".gz").
+     */
+    public static File getDecompressedFile(File archiveFile, File decompressedDirectory) {
+        String name = archiveFile.getName();
+        return new File(decompressedDirectory, name.substring(0, name.lastIndexOf(".")));
+    }
+
+    /**
+     * Writes a gzip compressed dump to the archive file and decompresses it into the decompressed directory while it
+     * is read. The decompressed dump is written to a temporary file that is renamed at the end, so an existing
+     * decompressed dump is always complete; its siteinfo file is written next to it. The decompressed dump gets the
+     * modification time of the archive, which marks it as decompressed from this archive
+     * ({@link ExtractionGZip#extractAllGZipFilesIntoDesignatedFolder()}).
+     *
+     * @param input The downloaded bytes (not closed).
+     * @param archiveFile The archive that is written.
+     * @param decompressedDirectory The directory with the decompressed dumps.
+     * @return Number of bytes read from the input.
+     * @throws IOException if the input cannot be read or decompressed or a file cannot be written.
+     */
+    public static long save(InputStream input, File archiveFile, File decompressedDirectory) throws IOException {
+        File decompressedFile = getDecompressedFile(archiveFile, decompressedDirectory);
+        File temporaryFile = new File(decompressedFile.getPath() + ".tmp");
+        SiteinfoSniffer siteinfo = new SiteinfoSniffer();
+        long downloadedBytes;
+
+        try (CountingInputStream counting = new CountingInputStream(input) {
+                 @Override
+                 public void close() {
+                     // the caller closes the input
+                 }
+             };
+             OutputStream archive = new BufferedOutputStream(new FileOutputStream(archiveFile), BUFFER_SIZE);
+             TeeInputStream tee = new TeeInputStream(counting, archive);
+             OutputStream decompressed = new TeeOutputStream(
+                     new BufferedOutputStream(new FileOutputStream(temporaryFile), BUFFER_SIZE), siteinfo)) {
+
+            GZIPInputStream decompressor = new GZIPInputStream(tee, BUFFER_SIZE);
+            IOUtils.copyLarge(decompressor, decompressed);
+
+            // bytes after the gzip data still belong to the archive
+            IOUtils.copyLarge(tee, NullOutputStream.NULL_OUTPUT_STREAM);
+            downloadedBytes = counting.getByteCount();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporaryFile.toPath());
+            throw e;
+        }
+
+        // the archive is closed after the decompressed dump, so it may be newer
+        Files.setLastModifiedTime(temporaryFile.toPath(), Files.getLastModifiedTime(archiveFile.toPath()));
+
+        siteinfo.close();
+        siteinfo.save(decompressedFile);
+        Files.move(temporaryFile.toPath(), decompressedFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return downloadedBytes;
+    }
+
+}
@@ -0,0 +1,369 @@
+package utils;
+
+import java.util.HashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A size-bounded, frequency-aware cache (W-TinyLFU) that can be shared between threads.
+ * New entries enter a small LRU window (1% of the size). An entry evicted from the window is only admitted to the main
+ * cache if it was requested more often than the entry the main cache would evict; the request frequencies of all keys
+ * (including keys not in the cache) are estimated with a count-min sketch that is halved periodically so that old
+ * popularity fades. The main cache is a segmented LRU: entries that are hit a second time move from the probation to
+ * the protected segment (80% of the main cache). Keys that occur in many wikis are thereby kept while keys that occur
+ * only once pass through the window.
+ *
+ * The cache is split into up to 16 independently locked segments by the hash of the key.
+ *
+ * @param <K> Type of the keys.
+ * @param <V> Type of the cached values.
+ */
+public class TinyLfuCache<K, V> {
+
+    private static final int MAXIMUM_NUMBER_OF_SEGMENTS = 16;
+    private static final int MINIMUM_SEGMENT_SIZE = 256;
+
+    private final int maximumSize;
+    private final Segment<K, V>[] segments;
+    private final int segmentMask;
+
+    // for the statistics
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+
+    /**
+     * Constructor
+     * @param maximumSize Maximal number of entries.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TinyLfuCache(int maximumSize) {
+        this.maximumSize = Math.max(maximumSize, 1);
+
+        int numberOfSegments = 1;
+        while (numberOfSegments < MAXIMUM_NUMBER_OF_SEGMENTS && this.maximumSize / (numberOfSegments * 2) >= MINIMUM_SEGMENT_SIZE) {
+            numberOfSegments *= 2;
+        }
+        this.segments = new Segment[numberOfSegments];
+        this.segmentMask = numberOfSegments - 1;
+        for (int i = 0; i < numberOfSegments; i++) {
+            // distribute the remainder so that the segment sizes add up to the maximum size
+            int segmentSize = this.maximumSize / numberOfSegments + (i < this.maximumSize % numberOfSegments ? 1 : 0);
+            segments[i] = new Segment<>(segmentSize);
+        }
+    }
+
+
+    /**
+     * Returns the cached value for the given key (and records the request for the frequency estimation).
+     * @param key The key to look up.
+     * @return The value or null if the key is not cached.
+     */
+    public V get(K key) {
+        int hash = hash(key);
+        V value = getSegment(hash).get(key, hash);
+        if (value == null) {
+            missCount.increment();
+        } else {
+            hitCount.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Returns the cached value for the given key or computes and caches it.
+     * The computation runs outside of any lock, so the same value may be computed more than once by concurrent callers.
+     * @param key The key to look up.
+     * @param function The function whose result is cached; has to be free of side effects.
+     * @return The (cached) value. Null values are returned but not cached.
+     */
+    public V get(K key, Function<? super K, ? extends V> function) {
+        V value = get(key);
+        if (value == null) {
+            value = function.apply(key);
+            if (value != null) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Adds or replaces an entry. A new entry may be evicted again right away if it is less frequent than the entries
+     * of the main cache.
+     * @param key The key.
+     * @param value The value; must not be null.
+     */
+    public void put(K key, V value) {
+        int hash = hash(key);
+        getSegment(hash).put(key, hash, value);
+    }
+
+    /**
+     * Removes all entries. The statistics are kept.
+     */
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * @return Number of entries currently cached.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+
+    private Segment<K, V> getSegment(int hash) {
+        // the upper bits select the segment, the sketch uses the whole hash
+        return segments[(hash >>> 24) & segmentMask];
+    }
+
+    private static int hash(Object key) {
+        int hash = key.hashCode() * 0x9e3779b9;
+        return hash ^ (hash >>> 16);
+    }
+
+
+    /**
+     * One independently locked W-TinyLFU cache.
+     */
+    private static final class Segment<K, V> {
+
+        private final HashMap<K, Node<K, V>> nodes = new HashMap<>();
+        private final FrequencySketch sketch;
+        private final int windowSize;
+        private final int mainSize;
+        private final int protectedSize;
+
+        private final NodeList<K, V> window = new NodeList<>();
+        private final NodeList<K, V> probation = new NodeList<>();
+        private final NodeList<K, V> protectedList = new NodeList<>();
+
+        Segment(int maximumSize) {
+            this.windowSize = Math.max(maximumSize / 100, 1);
+            this.mainSize = Math.max(maximumSize - windowSize, 0);
+            this.protectedSize = mainSize * 8 / 10;
+            this.sketch = new FrequencySketch(maximumSize);
+        }
+
+        synchronized V get(K key, int hash) {
+            sketch.increment(hash);
+            Node<K, V> node = nodes.get(key);
+            if (node == null) {
+                return null;
+            }
+            onHit(node);
+            return node.value;
+        }
+
+        synchronized void put(K key, int hash, V value) {
+            Node<K, V> node = nodes.get(key);
+            if (node != null) {
+                node.value = value;
+                return;
+            }
+            node = new Node<>(key, hash, value);
+            nodes.put(key, node);
+            window.addLast(node);
+            if (window.size > windowSize) {
+                admit(window.removeFirst());
+            }
+        }
+
+        synchronized void clear() {
+            nodes.clear();
+            window.clear();
+            probation.clear();
+            protectedList.clear();
+        }
+
+        synchronized int size() {
+            return nodes.size();
+        }
+
+        /**
+         * Moves an entry evicted from the window into the main cache if it is more frequent than the main cache's victim.
+         */
+        private void admit(Node<K, V> candidate) {
+            if (probation.size + protectedList.size < mainSize) {
+                probation.addLast(candidate);
+                return;
+            }
+            NodeList<K, V> victimList = probation.first != null ? probation : protectedList;
+            Node<K, V> victim = victimList.first;
+            if (victim != null && sketch.frequency(candidate.hash) > sketch.frequency(victim.hash)) {
+                victimList.remove(victim);
+                nodes.remove(victim.key);
+                probation.addLast(candidate);
+            } else {
+                nodes.remove(candidate.key);
+            }
+        }
+
+        private void onHit(Node<K, V> node) {
+            NodeList<K, V> list = node.list;
+            if (list == protectedList || list == window) {
+                list.remove(node);
+                list.addLast(node);
+            } else {
+                // second hit in the main cache -> protected
+                probation.remove(node);
+                protectedList.addLast(node);
+                if (protectedList.size > protectedSize) {
+                    probation.addLast(protectedList.removeFirst());
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Count-min sketch of the request frequencies with counters of at most 15 that are halved once the number of
+     * requests reaches ten times the width (aging).
+     */
+    private static final class FrequencySketch {
+
+        private static final int DEPTH = 4;
+        private static final int MAXIMUM_COUNT = 15;
+        private static final int[] SEEDS = {0x97cb3127, 0xb8b5b8e3, 0x6c9a1e0b, 0x3bd3b2ef};
+
+        private final byte[] counters;
+        private final int widthMask;
+        private final int sampleSize;
+        private int additions = 0;
+
+        FrequencySketch(int maximumSize) {
+            int width = 16;
+            while (width < maximumSize && width < (1 << 28)) {
+                width *= 2;
+            }
+            this.counters = new byte[DEPTH * width];
+            this.widthMask = width - 1;
+            this.sampleSize = 10 * width;
+        }
+
+        void increment(int hash) {
+            for (int i = 0; i < DEPTH; i++) {
+                int index = getIndex(hash, i);
+                if (counters[index] < MAXIMUM_COUNT) {
+                    counters[index]++;
+                }
+            }
+            if (++additions >= sampleSize) {
+                for (int i = 0; i < counters.length; i++) {
+                    counters[i] >>= 1;
+                }
+                additions /= 2;
+            }
+        }
+
+        int frequency(int hash) {
+            int frequency = MAXIMUM_COUNT;
+            for (int i = 0; i < DEPTH; i++) {
+                frequency = Math.min(frequency, counters[getIndex(hash, i)]);
+            }
+            return frequency;
+        }
+
+        private int getIndex(int hash, int row) {
+            int rowHash = hash * SEEDS[row];
+            rowHash ^= rowHash >>> 15;
+            return row * (widthMask + 1) + (rowHash & widthMask);
+        }
+    }
+
+
+    /**
+     * Entry of the cache and element of a doubly linked list.
+     */
+    private static final class Node<K, V> {
+        final K key;
+        final int hash;
+        V value;
+        NodeList<K, V> list;
+        Node<K, V> previous;
+        Node<K, V> next;
+
+        Node(K key, int hash, V value) {
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Doubly linked list of nodes in access order (first = least recently used).
+     */
+    private static final class NodeList<K, V> {
+        Node<K, V> first;
+        Node<K, V> last;
+        int size = 0;
+
+        void addLast(Node<K, V> node) {
+            node.list = this;
+            node.previous = last;
+            node.next = null;
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+            size++;
+        }
+
+        void remove(Node<K, V> node) {
+            if (node.previous == null) {
+                first = node.next;
+            } else {
+                node.previous.next = node.next;
+            }
+            if (node.next == null) {
+                last = node.previous;
+            } else {
+                node.next.previous = node.previous;
+            }
+            node.previous = null;
+            node.next = null;
+            node.list = null;
+            size--;
+        }
+
+        Node<K, V> removeFirst() {
+            Node<K, V> node = first;
+            remove(node);
+            return node;
+        }
+
+        void clear() {
+            first = null;
+            last = null;
+            size = 0;
+        }
+    }
+
+
+    /*
+    ONLY GETTERS BELOW.
+     */
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+}
@@ -0,0 +1,57 @@
+package utils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token-bucket rate limiter that can be shared between threads.
+ * The bucket is refilled continuously with the given rate up to the burst size; every call of {@link #acquire()}
+ * takes one token. If the bucket is empty, the caller reserves the next token and sleeps until it is due, so waiting
+ * callers are served in the order of their arrival and the rate is kept exactly.
+ */
+public class TokenBucket {
+
+    private final double permitsPerNanosecond;
+    private final double burstSize;
+
+    private double availablePermits;
+    private long lastRefillTime;
+
+
+    /**
+     * Constructor
+     * @param permitsPerSecond Sustained rate.
+     * @param burstSize Maximal number of permits that can be taken at once after an idle period (at least 1).
+     */
+    public TokenBucket(double permitsPerSecond, int burstSize) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("The rate has to be positive.");
+        }
+        this.permitsPerNanosecond = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burstSize = Math.max(burstSize, 1);
+        this.availablePermits = this.burstSize;
+        this.lastRefillTime = System.nanoTime();
+    }
+
+
+    /**
+     * Takes one permit; blocks until the permit is available.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public void acquire() throws InterruptedException {
+        long waitingTime;
+        synchronized (this) {
+            long now = System.nanoTime();
+            availablePermits = Math.min(burstSize, availablePermits + (now - lastRefillTime) * permitsPerNanosecond);
+            lastRefillTime = now;
+
+            // reserve the permit; a negative number of permits means that permits are reserved by waiting callers
+            availablePermits -= 1;
+            if (availablePermits >= 0) {
+                return;
+            }
+            waitingTime = (long) Math.ceil(-availablePermits / permitsPerNanosecond);
+        }
+        TimeUnit.NANOSECONDS.sleep(waitingTime);
+    }
+
+}
@@ -0,0 +1,400 @@
+package utils;
+
+import loggingService.MessageLogger;
+import org.apache.log4j.Level;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Hash-prefix sharded layout of a directory that contains one directory per wiki (e.g. postProcessedWikis).
+ * A wiki is stored in {@code <root>/ab/cd/<wiki>} where ab and cd are the first two bytes of the FNV-1a hash of its
+ * name in hex, so no directory holds more than a few hundred entries. The catalog file {@code <root>/wikis.catalog}
+ * lists the names of the wikis, one per line; it is read as a stream to enumerate the wikis without listing any
+ * directory.
+ *
+ * Wiki directories of the flat layout ({@code <root>/<wiki>}) are moved into their shards when the layout is opened by
+ * a stage that writes the wikis ({@link #open(File)}); if the wiki already has a sharded directory (e.g. a gold
+ * standard was placed into a new flat directory by hand), the files are merged into it. Without a catalog, a directory
+ * with a shard name (two hex digits) that contains files is taken for a wiki as well. Stages that only read the wikis
+ * open the layout with {@link #openReadOnly(File)}, which leaves the directories where they are and enumerates both
+ * layouts; they list the files of a wiki with {@link #listWikiFiles(File)} to see the files that are not merged yet.
+ */
+public class WikiDirectoryLayout {
+
+    /**
+     * Name of the catalog file in the root directory.
+     */
+    public static final String CATALOG_FILE_NAME = "wikis.catalog";
+
+    private static MessageLogger logger = new MessageLogger();
+    private static final String MODULE = "Utils";
+    private static final String CLASS = WikiDirectoryLayout.class.getName();
+
+    private static final Pattern SHARD_NAME = Pattern.compile("[0-9a-f]{2}");
+    private static final String MIGRATION_SUFFIX = ".migrating";
+
+    private final File root;
+    private final File catalogFile;
+    private final boolean readOnly;
+
+    // names in the catalog; only loaded when a wiki is created
+    private HashSet<String> catalog;
+
+
+    private WikiDirectoryLayout(File root, boolean readOnly) {
+        this.root = root;
+        this.catalogFile = new File(root, CATALOG_FILE_NAME);
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * Opens the layout of a directory and migrates wiki directories of the flat layout into it.
+     * @param root The directory containing the wikis; created if it does not exist.
+     * @return The layout.
+     */
+    public static WikiDirectoryLayout open(File root) {
+        WikiDirectoryLayout layout = new WikiDirectoryLayout(root, false);
+        try {
+            Files.createDirectories(root.toPath());
+            layout.migrate();
+        } catch (IOException ioe) {
+            logger.logMessage(Level.FATAL, MODULE, CLASS, "Could not migrate " + root.getPath() + ": " + ioe.toString());
+        }
+        return layout;
+    }
+
+    /**
+     * Opens the layout of a directory without changing it. Wiki directories of the flat layout are enumerated after
+     * the wikis of the catalog (or of the shards if there is no catalog yet); no wiki can be created.
+     * @param root The directory containing the wikis.
+     * @return The layout.
+     */
+    public static WikiDirectoryLayout openReadOnly(File root) {
+        return new WikiDirectoryLayout(root, true);
+    }
+
+
+    /**
+     * @param wikiName The name of the wiki.
+     * @return The directory of the wiki (which may not exist).
+     */
+    public File getWikiDirectory(String wikiName) {
+        String shard = getShard(wikiName);
+        return new File(new File(new File(root, shard.substring(0, 2)), shard.substring(2, 4)), wikiName);
+    }
+
+    /**
+     * Lists the files of a wiki directory. For a directory of the sharded layout, the files of a flat directory of the
+     * same wiki that would be merged into it ({@code <root>/<wiki>}, see {@link #open(File)}) are listed as well.
+     * @param wikiDirectory The directory of the wiki.
+     * @return The files; empty if the directory does not exist.
+     */
+    public static List<File> listWikiFiles(File wikiDirectory) {
+        ArrayList<File> files = new ArrayList<>();
+        File[] wikiFiles = wikiDirectory.listFiles();
+        if (wikiFiles == null) {
+            return files;
+        }
+        files.addAll(Arrays.asList(wikiFiles));
+
+        File secondShard = wikiDirectory.getParentFile();
+        File firstShard = secondShard == null ? null : secondShard.getParentFile();
+        if (firstShard == null || firstShard.getParentFile() == null
+                || !getShard(wikiDirectory.getName()).equals(firstShard.getName() + secondShard.getName())) {
+            return files;
+        }
+        File[] flatFiles = new File(firstShard.getParentFile(), wikiDirectory.getName()).listFiles();
+        if (flatFiles != null) {
+            for (File flatFile : flatFiles) {
+                if (!new File(wikiDirectory, flatFile.getName()).exists()) {
+                    files.add(flatFile);
+                }
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Creates the directory of a wiki and adds the wiki to the catalog.
+     * @param wikiName The name of the wiki.
+     * @return The directory of the wiki.
+     * @throws IOException if the directory or the catalog cannot be written.
+     */
+    public synchronized File createWikiDirectory(String wikiName) throws IOException {
+        if (readOnly) {
+            throw new IllegalStateException(root.getPath() + " was opened read-only.");
+        }
+        File wikiDirectory = getWikiDirectory(wikiName);
+        Files.createDirectories(wikiDirectory.toPath());
+        if (catalog == null) {
+            catalog = new HashSet<>();
+            try (Stream<String> names = readCatalog()) {
+                names.forEach(catalog::add);
+            }
+        }
+        if (catalog.add(wikiName)) {
+            appendToCatalog(wikiName);
+        }
+        return wikiDirectory;
+    }
+
+    /**
+     * Streams the directories of all wikis in the catalog (in the order of the catalog). A read-only layout streams
+     * the wikis of the flat layout afterwards. The stream has to be closed.
+     * @return The existing wiki directories.
+     * @throws IOException if the catalog or the root directory cannot be read.
+     */
+    public Stream<File> getWikiDirectories() throws IOException {
+        if (!readOnly) {
+            return getShardedWikiDirectories();
+        }
+        if (!root.isDirectory()) {
+            return Stream.empty();
+        }
+        boolean hasCatalog = catalogFile.exists();
+        List<File> flatWikiDirectories = getFlatWikiDirectories(hasCatalog);
+        Stream<File> shardedWikiDirectories = hasCatalog ? getShardedWikiDirectories() : getWikiDirectoriesOfShards().stream();
+        return Stream.concat(shardedWikiDirectories, flatWikiDirectories.stream());
+    }
+
+    /**
+     * @return Number of wikis in the catalog (and of the flat layout if the layout is read-only).
+     * @throws IOException if the catalog cannot be read.
+     */
+    public long getNumberOfWikis() throws IOException {
+        try (Stream<File> wikiDirectories = getWikiDirectories()) {
+            return wikiDirectories.count();
+        }
+    }
+
+
+    /**
+     * @param wikiName The name of the wiki.
+     * @return The four hex digits of the shard, e.g. "ab3f" for ab/3f.
+     */
+    static String getShard(String wikiName) {
+        int hash = 0x811c9dc5;
+        for (byte b : wikiName.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x01000193;
+        }
+        return String.format("%04x", hash >>> 16);
+    }
+
+    private Stream<File> getShardedWikiDirectories() throws IOException {
+        return readCatalog()
+                .map(this::getWikiDirectory)
+                .filter(File::isDirectory);
+    }
+
+    /**
+     * Lists the wiki directories of the flat layout, i.e. those that {@link #migrate()} would move.
+     * @param hasCatalog Whether the root has a catalog; otherwise directories with a shard name that contain files
+     *                   are wikis as well.
+     */
+    private List<File> getFlatWikiDirectories(boolean hasCatalog) throws IOException {
+        ArrayList<File> wikiDirectories = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(root.toPath(), entry -> Files.isDirectory(entry)
+                && (!SHARD_NAME.matcher(entry.getFileName().toString()).matches() || (!hasCatalog && containsFiles(entry))))) {
+            for (Path entry : entries) {
+                String wikiName = entry.getFileName().toString();
+                if (wikiName.endsWith(MIGRATION_SUFFIX)) {
+                    wikiName = wikiName.substring(0, wikiName.length() - MIGRATION_SUFFIX.length());
+                }
+                // a migration would merge it into the sharded directory, see listWikiFiles
+                if (!getWikiDirectory(wikiName).isDirectory()) {
+                    wikiDirectories.add(entry.toFile());
+                }
+            }
+        }
+        return wikiDirectories;
+    }
+
+    /**
+     * Lists the wiki directories of all shards.
+     */
+    private List<File> getWikiDirectoriesOfShards() throws IOException {
+        ArrayList<File> wikiDirectories = new ArrayList<>();
+        forEachWikiOfShards(wiki -> wikiDirectories.add(wiki.toFile()));
+        return wikiDirectories;
+    }
+
+    private Stream<String> readCatalog() throws IOException {
+        if (!catalogFile.exists()) {
+            return Stream.empty();
+        }
+        BufferedReader reader = Files.newBufferedReader(catalogFile.toPath(), StandardCharsets.UTF_8);
+        return reader.lines()
+                .filter(name -> !name.isEmpty())
+                .onClose(() -> {
+                    try {
+                        reader.close();
+                    } catch (IOException ioe) {
+                        throw new UncheckedIOException(ioe);
+                    }
+                });
+    }
+
+    private void appendToCatalog(String wikiName) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(catalogFile.toPath(), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(wikiName);
+            writer.newLine();
+        }
+    }
+
+
+    /**
+     * Moves the wiki directories of the flat layout into their shards; a directory whose wiki already has a sharded
+     * directory is merged into it. Without a catalog (first migration), the catalog is built from the shards afterwards.
+     */
+    private void migrate() throws IOException {
+        boolean hasCatalog = catalogFile.exists();
+
+        if (!hasCatalog) {
+            // wikis of the flat layout that are named like a shard are moved out of the way first
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(root.toPath(), entry ->
+                    SHARD_NAME.matcher(entry.getFileName().toString()).matches() && containsFiles(entry))) {
+                for (Path entry : entries) {
+                    Files.move(entry, entry.resolveSibling(entry.getFileName() + MIGRATION_SUFFIX));
+                }
+            }
+        }
+
+        int migratedWikis = 0;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(root.toPath(), entry -> Files.isDirectory(entry)
+                && !SHARD_NAME.matcher(entry.getFileName().toString()).matches())) {
+            for (Path entry : entries) {
+                String wikiName = entry.getFileName().toString();
+                if (wikiName.endsWith(MIGRATION_SUFFIX)) {
+                    wikiName = wikiName.substring(0, wikiName.length() - MIGRATION_SUFFIX.length());
+                }
+                Path target = getWikiDirectory(wikiName).toPath();
+                if (Files.isDirectory(target)) {
+                    mergeDirectory(entry, target);
+                    continue;
+                }
+                if (Files.exists(target)) {
+                    logger.logMessage(Level.ERROR, MODULE, CLASS, "Cannot migrate " + entry + ": " + target + " exists.");
+                    continue;
+                }
+                Files.createDirectories(target.getParent());
+                Files.move(entry, target, StandardCopyOption.ATOMIC_MOVE);
+                if (hasCatalog) {
+                    appendToCatalog(wikiName);
+                }
+                migratedWikis++;
+            }
+        }
+
+        if (!hasCatalog) {
+            writeCatalogFromShards();
+        }
+        if (migratedWikis > 0) {
+            logger.logMessage(Level.INFO, MODULE, CLASS, "Moved " + migratedWikis + " wikis of " + root.getPath() + " into the sharded layout.");
+        }
+    }
+
+    /**
+     * Moves the files of a directory into another one; files that exist in both are kept where they are. Directories
+     * are merged recursively and deleted if they are empty afterwards.
+     */
+    private static void mergeDirectory(Path source, Path target) throws IOException {
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(source)) {
+            for (Path entry : entries) {
+                Path targetEntry = target.resolve(entry.getFileName().toString());
+                if (Files.isDirectory(entry) && Files.isDirectory(targetEntry)) {
+                    mergeDirectory(entry, targetEntry);
+                } else if (Files.exists(targetEntry)) {
+                    logger.logMessage(Level.ERROR, MODULE, CLASS, "Cannot merge " + entry + ": " + targetEntry + " exists.");
+                } else {
+                    Files.move(entry, targetEntry, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+        }
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(source)) {
+            if (entries.iterator().hasNext()) {
+                return;
+            }
+        }
+        Files.delete(source);
+        logger.logMessage(Level.INFO, MODULE, CLASS, "Merged " + source + " into " + target + ".");
+    }
+
+    /**
+     * Lists the wikis of all shards into the catalog.
+     */
+    private void writeCatalogFromShards() throws IOException {
+        File temporaryCatalog = new File(root, CATALOG_FILE_NAME + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporaryCatalog.toPath(), StandardCharsets.UTF_8)) {
+            forEachWikiOfShards(wiki -> {
+                writer.write(wiki.getFileName().toString());
+                writer.newLine();
+            });
+        }
+        Files.move(temporaryCatalog.toPath(), catalogFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Walks the shards with DirectoryStreams and passes each wiki directory to the consumer.
+     */
+    private void forEachWikiOfShards(WikiDirectoryConsumer consumer) throws IOException {
+        DirectoryStream.Filter<Path> isShard = entry -> Files.isDirectory(entry)
+                && SHARD_NAME.matcher(entry.getFileName().toString()).matches();
+
+        try (DirectoryStream<Path> firstLevel = Files.newDirectoryStream(root.toPath(), isShard)) {
+            for (Path firstShard : firstLevel) {
+                try (DirectoryStream<Path> secondLevel = Files.newDirectoryStream(firstShard, isShard)) {
+                    for (Path secondShard : secondLevel) {
+                        try (DirectoryStream<Path> wikis = Files.newDirectoryStream(secondShard, Files::isDirectory)) {
+                            for (Path wiki : wikis) {
+                                consumer.accept(wiki);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface WikiDirectoryConsumer {
+        void accept(Path wikiDirectory) throws IOException;
+    }
+
+    private static boolean containsFiles(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return false;
+        }
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, entry -> !Files.isDirectory(entry)
+                || !SHARD_NAME.matcher(entry.getFileName().toString()).matches())) {
+            return entries.iterator().hasNext();
+        }
+    }
+
+
+    /*
+    ONLY GETTERS BELOW.
+     */
+
+    public File getRoot() {
+        return root;
+    }
+
+}
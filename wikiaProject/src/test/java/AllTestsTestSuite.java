@@ -1,12 +1,34 @@
 import applications.extractionPostprocessing.controller.DBpediaResourceServiceOfflineTest;
 import applications.extractionPostprocessing.controller.DBpediaResourceServiceOnlineTest;
+import applications.extractionPostprocessing.controller.MapperSweepTest;
 import applications.extractionPostprocessing.controller.MappingEvaluatorTest;
+import applications.extractionPostprocessing.controller.NullMappingCompactorTest;
 import applications.extractionPostprocessing.controller.RedirectProcessorSingleWikiTest;
+import applications.extractionPostprocessing.controller.SortedDBpediaIndexTest;
 import applications.extractionPostprocessing.controller.classmapper.ClassMapperTest;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
+import applications.wikiaDumpDownload.util.DumpUrlResolverTest;
+import applications.wikiaDumpRequester.controller.WikiaDumpRequesterExecutorTest;
+import applications.wikiaStatistics.controller.GoldStandardStatisticsTest;
+import applications.wikiaStatistics.model.MetadataStatisticsTest;
+import applications.wikiaStatistics.util.WikiaOverviewStoreTest;
+import loggingService.MessageLoggerTest;
+import metricsService.MetricsTest;
 import testOrchestration.CheckPrerequisitesTest;
+import utils.BlockedBloomFilterTest;
+import utils.FstIndexTest;
 import utils.IOoperationsTest;
+import utils.IriRewriterTest;
+import utils.LruCacheTest;
+import utils.MemoCacheTest;
+import utils.NTriplesSinkTest;
+import utils.NTriplesTokenizerTest;
+import utils.ParallelBzip2InputStreamTest;
+import utils.SpillingStringSetTest;
+import utils.StreamingDumpTeeTest;
+import utils.TinyLfuCacheTest;
+import utils.WikiDirectoryLayoutTest;
 
 /**
  * This suite should contain all tests and is here just for convenience.
@@ -18,10 +40,32 @@ import utils.IOoperationsTest;
                 ClassMapperTest.class,
                 DBpediaResourceServiceOfflineTest.class,
                 DBpediaResourceServiceOnlineTest.class,
+                MapperSweepTest.class,
                 MappingEvaluatorTest.class,
+                NullMappingCompactorTest.class,
                 RedirectProcessorSingleWikiTest.class,
+                SortedDBpediaIndexTest.class,
+                DumpUrlResolverTest.class,
+                WikiaDumpRequesterExecutorTest.class,
+                GoldStandardStatisticsTest.class,
+                MetadataStatisticsTest.class,
+                WikiaOverviewStoreTest.class,
+                MessageLoggerTest.class,
+                MetricsTest.class,
                 CheckPrerequisitesTest.class,
-                IOoperationsTest.class
+                BlockedBloomFilterTest.class,
+                FstIndexTest.class,
+                IOoperationsTest.class,
+                IriRewriterTest.class,
+                LruCacheTest.class,
+                MemoCacheTest.class,
+                NTriplesSinkTest.class,
+                NTriplesTokenizerTest.class,
+                ParallelBzip2InputStreamTest.class,
+                SpillingStringSetTest.class,
+                StreamingDumpTeeTest.class,
+                TinyLfuCacheTest.class,
+                WikiDirectoryLayoutTest.class
         }
 
 )
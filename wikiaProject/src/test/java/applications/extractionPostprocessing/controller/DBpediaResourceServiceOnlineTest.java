@@ -4,31 +4,56 @@ import applications.extractionPostprocessing.model.ResourceServiceResult;
 import static org.junit.Assert.*;
 
 import applications.extractionPostprocessing.util.DBpediaResourceServiceOnline;
-import org.junit.Ignore;
+import applications.extractionPostprocessing.util.SparqlEndpoint;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.Resource;
+import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Test class for {@link DBpediaResourceServiceOnline DBpediaResourceServiceOnline}.
- * This test requires internet and connects to DBpedia during the test.
- *
- * This test works as of September 2017.
- * If it fails, one reason can be that DBpedia received an update.
- *
- * Currently those test can be ignored because the SPARQL endpoint is not used.
+ * The test does not connect to DBpedia; it runs against a small in-process dataset that mimics the
+ * page IDs and redirects of DBpedia.
  */
 public class DBpediaResourceServiceOnlineTest {
 
-    public static DBpediaResourceServiceOnline service = new DBpediaResourceServiceOnline();
+    private static Model model;
+    public static DBpediaResourceServiceOnline service;
+
+
+    @BeforeClass
+    public static void setUp() {
+        model = ModelFactory.createDefaultModel();
+        Property wikiPageID = model.createProperty("http://dbpedia.org/ontology/wikiPageID");
+        Property wikiPageRedirects = model.createProperty("http://dbpedia.org/ontology/wikiPageRedirects");
+
+        Resource hagrid = model.createResource("http://dbpedia.org/resource/Hagrid");
+        Resource rubeusHagrid = model.createResource("http://dbpedia.org/resource/Rubeus_Hagrid");
+        hagrid.addLiteral(wikiPageID, 1L);
+        hagrid.addProperty(wikiPageRedirects, rubeusHagrid);
+        rubeusHagrid.addLiteral(wikiPageID, 2L);
+        for (int i = 0; i < 10; i++) {
+            model.createResource("http://dbpedia.org/resource/Resource_" + i).addLiteral(wikiPageID, 100L + i);
+        }
+
+        service = new DBpediaResourceServiceOnline(SparqlEndpoint.local(model));
+    }
 
 
     @Test
-    // ignore test because SPARQL endpoint is not used currently
     public void getResourceAndRedirectInDBpedia() throws Exception {
 
         // try with redirect resource
         ResourceServiceResult result = service.getResourceAndRedirectInDBpedia("<http://dbpedia.org/resource/Hagrid>");
         assertTrue(result.resourceExists);
-        //assertTrue(result.redirectResource.equals("<http://dbpedia.org/resource/Rubeus_Hagrid>")); // redirect not existant anymore with update of DBpedia
+        assertEquals("<http://dbpedia.org/resource/Rubeus_Hagrid>", result.redirectResource);
 
         // try with non-redirect resource
         result = service.getResourceAndRedirectInDBpedia("<http://dbpedia.org/resource/Rubeus_Hagrid>");
@@ -43,7 +68,7 @@ public class DBpediaResourceServiceOnlineTest {
         // try with redirect resource (no tags)
         result = service.getResourceAndRedirectInDBpedia("http://dbpedia.org/resource/Hagrid");
         assertTrue(result.resourceExists);
-        //assertTrue(result.redirectResource.equals("<http://dbpedia.org/resource/Rubeus_Hagrid>")); // redirect not existant anymore with update of DBpedia
+        assertEquals("<http://dbpedia.org/resource/Rubeus_Hagrid>", result.redirectResource);
 
         // try with non-redirect resource (no tags)
         result = service.getResourceAndRedirectInDBpedia("http://dbpedia.org/resource/Rubeus_Hagrid");
@@ -54,6 +79,10 @@ public class DBpediaResourceServiceOnlineTest {
         result = service.getResourceAndRedirectInDBpedia("http://dbpedia.org/resource/xasdfpasdfwnawe");
         assertFalse(result.resourceExists);
         assertNull(result.redirectResource);
+
+        // resource that cannot be written into a query
+        result = service.getResourceAndRedirectInDBpedia("<http://dbpedia.org/resource/Two words>");
+        assertFalse(result.resourceExists);
     }
 
 
@@ -66,6 +95,45 @@ public class DBpediaResourceServiceOnlineTest {
         assertFalse(service.resourceExistsInDBpedia("<http://dbpedia.org/resource/aasdfaapowefl>"));
     }
 
+
+    @Test
+    public void getResourcesAndRedirectsInDBpediaBatchesAndCaches() throws Exception {
+
+        AtomicInteger numberOfQueries = new AtomicInteger(0);
+        SparqlEndpoint countingEndpoint = query -> {
+            numberOfQueries.incrementAndGet();
+            return SparqlEndpoint.local(model).createQueryExecution(query);
+        };
+        DBpediaResourceServiceOnline batchService = new DBpediaResourceServiceOnline(countingEndpoint, 4, 2, 100, 60000);
+
+        List<String> resources = Arrays.asList(
+                "<http://dbpedia.org/resource/Resource_0>", "<http://dbpedia.org/resource/Resource_1>",
+                "<http://dbpedia.org/resource/Resource_2>", "<http://dbpedia.org/resource/Resource_3>",
+                "<http://dbpedia.org/resource/Resource_4>", "<http://dbpedia.org/resource/Resource_5>",
+                "<http://dbpedia.org/resource/Hagrid>", "<http://dbpedia.org/resource/Not_there>",
+                "http://dbpedia.org/resource/Resource_9");
+
+        HashMap<String, ResourceServiceResult> result = batchService.getResourcesAndRedirectsInDBpedia(resources);
+
+        // 9 resources with a batch size of 4 -> 3 queries
+        assertEquals(3, numberOfQueries.get());
+        assertEquals(9, result.size());
+        assertTrue(result.get("<http://dbpedia.org/resource/Resource_3>").resourceExists);
+        assertTrue(result.get("http://dbpedia.org/resource/Resource_9").resourceExists);
+        assertFalse(result.get("<http://dbpedia.org/resource/Not_there>").resourceExists);
+        assertEquals("<http://dbpedia.org/resource/Rubeus_Hagrid>", result.get("<http://dbpedia.org/resource/Hagrid>").redirectResource);
+
+        // everything is cached now (also the resource that does not exist)
+        result = batchService.getResourcesAndRedirectsInDBpedia(resources);
+        assertEquals(3, numberOfQueries.get());
+        assertFalse(batchService.resourceExistsInDBpedia("<http://dbpedia.org/resource/Not_there>"));
+        assertEquals(3, numberOfQueries.get());
+        assertTrue(result.get("<http://dbpedia.org/resource/Resource_0>").resourceExists);
+
+        batchService.shutdown();
+    }
+
+
     @Test
     public void trimTag() throws Exception {
         // test with real tag
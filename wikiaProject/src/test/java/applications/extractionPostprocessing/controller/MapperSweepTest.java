@@ -0,0 +1,88 @@
+package applications.extractionPostprocessing.controller;
+
+import applications.extractionPostprocessing.model.MapperSweepResult;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for {@link MapperSweep MapperSweep}.
+ */
+public class MapperSweepTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+
+    // deprecated mappers are used because their results on the test wiki are known and differ from each other
+    @SuppressWarnings("deprecation")
+    @Test
+    public void runSweep() throws Exception {
+
+        File root = folder.newFolder("postProcessedWikis");
+        File wikiDirectory = new File(root, "test_wiki");
+        assertTrue(wikiDirectory.mkdir());
+        assertTrue(new File(root, "wiki_without_gold_standard").mkdir());
+
+        // the second line was already processed by the mapping executor
+        File dataFile = new File(wikiDirectory, "labels.ttl");
+        Files.write(dataFile.toPath(), Arrays.asList(
+                "# started",
+                "<http://dbpedia.org/resource/Banana> <http://www.w3.org/2000/01/rdf-schema#label> \"Banana\"@en .",
+                "<http://uni-mannheim.de/test_wiki/resource/File:Cherry.jpg> <http://uni-mannheim.de/test_wiki/property/type> <http://dbpedia.org/resource/Cherry> .",
+                "<http://dbpedia.org/resource/Apple> <http://dbpedia.org/property/see> <http://en.wikipedia.org/wiki/Apple> ."
+        ), StandardCharsets.UTF_8);
+        byte[] originalContent = Files.readAllBytes(dataFile.toPath());
+
+        Files.write(new File(wikiDirectory, "test_wiki_evaluation.ttl").toPath(), Arrays.asList(
+                "<http://uni-mannheim.de/test_wiki/resource/Banana> <http://www.w3.org/2002/07/owl#sameAs> <http://dbpedia.org/resource/Banana> .",
+                "<http://uni-mannheim.de/test_wiki/resource/File:Cherry.jpg> <http://www.w3.org/2002/07/owl#sameAs> <null> .",
+                "<http://uni-mannheim.de/test_wiki/resource/Cherry> <http://www.w3.org/2002/07/owl#sameAs> <http://dbpedia.org/resource/Sweet_cherry> .",
+                "<http://uni-mannheim.de/test_wiki/property/type> <http://www.w3.org/2002/07/owl#sameAs> <http://dbpedia.org/ontology/type> ."
+        ), StandardCharsets.UTF_8);
+
+        List<MapperSweep.AnnotatedWiki> annotatedWikis = MapperSweep.loadAnnotatedWikis(root);
+        assertEquals(1, annotatedWikis.size());
+        assertEquals(4, annotatedWikis.get(0).wikiToMap.resourcesToMap.size());
+        assertTrue(annotatedWikis.get(0).wikiToMap.resourcesToMap.contains("<http://dbpedia.org/resource/File:Cherry.jpg>"));
+        assertEquals(2, annotatedWikis.get(0).wikiToMap.propertiesToMap.size());
+
+        MapperSweep mapperSweep = new MapperSweep();
+        mapperSweep.addResourceMapper("ResourceMapper_1", new applications.extractionPostprocessing.controller.resourcemapper.ResourceMapper_1());
+        mapperSweep.addResourceMapper("ResourceMapper_2", new applications.extractionPostprocessing.controller.resourcemapper.ResourceMapper_2());
+        mapperSweep.addPropertyMapper("PropertyMapper_1", new applications.extractionPostprocessing.controller.propertymapper.PropertyMapper_1());
+        ArrayList<MapperSweepResult> results = mapperSweep.runSweep(annotatedWikis);
+
+        // results are in the order of registration
+        assertEquals(3, results.size());
+        assertEquals("ResourceMapper_1", results.get(0).mapperName);
+        assertEquals(1, results.get(0).evaluationResult.microAverageTruePositives, 0);
+        assertEquals(2, results.get(0).evaluationResult.microAverageFalsePositives, 0);
+        assertEquals(0, results.get(0).evaluationResult.microAverageTrueNegatives, 0);
+
+        assertEquals("ResourceMapper_2", results.get(1).mapperName);
+        assertEquals(1, results.get(1).evaluationResult.microAverageTruePositives, 0);
+        assertEquals(1, results.get(1).evaluationResult.microAverageFalsePositives, 0);
+        assertEquals(1, results.get(1).evaluationResult.microAverageTrueNegatives, 0);
+        assertEquals(3, results.get(1).numberOfAnnotations);
+
+        assertEquals(MappingEvaluator.EvaluationObjectSingleWiki.PROPERTIES, results.get(2).evaluationObject);
+        assertEquals(100.0, results.get(2).evaluationResult.microAverageF1measureInPercent, 0.0001);
+
+        // header and one line per mapper
+        assertEquals(4, MapperSweep.getComparisonTable(results).split("\n").length);
+
+        // the sweep only reads the files
+        assertArrayEquals(originalContent, Files.readAllBytes(dataFile.toPath()));
+    }
+
+}
@@ -75,7 +75,8 @@ public class MappingEvaluatorTest {
         assertEquals((1.0/9.0) * 100 + (2.0/3.0) * (4.0/6.0) * 100.0, result.weightedOverallRecallInPercent,  0.00000001);
         assertEquals((40.0/3.0) + (2.0/3.0) * (2.0/3.0) * 100, result.weightedOverallF1MeasureInPercent, 0.00000001);
 
-        // test whether there are null mappings
+        // test whether there are null mappings after compaction
+        NullMappingCompactor.deleteNullMappingsOfAllWikis();
         makeSureThereIsNoNullMappingInFile("./src/test/test_files/test_root/PostProcessedWikis/test_wiki_1");
         makeSureThereIsNoNullMappingInFile("./src/test/test_files/test_root/PostProcessedWikis/test_wiki_2");
 
@@ -117,6 +118,7 @@ public class MappingEvaluatorTest {
         assertTrue(result.getAccuracyInPercent() == (2.0/5) * 100);
         assertTrue(result.getF1MeasureInPercent() == ((2.0 * 0.5 * (1.0/3))/(0.5 + 1.0/3))*100); // = 40.0
 
+        NullMappingCompactor.deleteNullMappings(new File("./src/test/test_files/evaluation_test/resourceMappings.ttl"));
         makeSureThereIsNoNullMappingInFile("./src/test/test_files/evaluation_test/resourceMappings.ttl");
     }
 
@@ -141,6 +143,7 @@ public class MappingEvaluatorTest {
         assertTrue(result.getAccuracyInPercent() == (6.0/10) * 100);
         assertTrue(result.getF1MeasureInPercent() == ((2.0 * (4.0/6) * (4.0/6))/((4.0/6) + (4.0/6)))*100); // = ( 2.0 / 3 ) * 100 = 66.66666667
 
+        NullMappingCompactor.deleteNullMappingsOfWiki(new File("./src/test/test_files/test_root/PostProcessedWikis/test_wiki_2"));
         makeSureThereIsNoNullMappingInFile("./src/test/test_files/test_root/PostProcessedWikis/test_wiki_2");
     }
 
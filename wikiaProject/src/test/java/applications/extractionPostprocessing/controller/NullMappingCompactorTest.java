@@ -0,0 +1,97 @@
+package applications.extractionPostprocessing.controller;
+
+import applications.extractionPostprocessing.model.EvaluationResultSingleWiki;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for {@link NullMappingCompactor NullMappingCompactor}.
+ * The test also makes sure that the {@link MappingEvaluator MappingEvaluator} does not change the mapping files.
+ */
+public class NullMappingCompactorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+
+    @Test
+    public void evaluationIsRepeatableAndCompactionRemovesNullMappings() throws Exception {
+
+        File wikiDirectory = folder.newFolder("test_wiki");
+        FileUtils.copyFile(new File("./src/test/test_files/evaluation_test/evaluation.ttl"), new File(wikiDirectory, "evaluation.ttl"));
+        File mappingFile = new File(wikiDirectory, "resourceMappings.ttl");
+        FileUtils.copyFile(new File("./src/test/test_files/evaluation_test_template/resourceMappings.ttl"), mappingFile);
+        byte[] originalContent = Files.readAllBytes(mappingFile.toPath());
+
+        // the evaluation leaves the file untouched and yields the same result when repeated
+        for (int i = 0; i < 2; i++) {
+            EvaluationResultSingleWiki result = MappingEvaluator.evaluateMappingsForOneWiki(wikiDirectory.getPath(), MappingEvaluator.EvaluationObjectSingleWiki.RESOURCES);
+            assertEquals(2, result.getFalseNegatives());
+            assertEquals(1, result.getFalsePositives());
+            assertEquals(1, result.getTruePositives());
+            assertEquals(1, result.getTrueNegatives());
+            assertArrayEquals(originalContent, Files.readAllBytes(mappingFile.toPath()));
+        }
+
+        // compaction
+        assertEquals(3, NullMappingCompactor.deleteNullMappings(mappingFile));
+        List<String> lines = Files.readAllLines(mappingFile.toPath(), StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+        for (String line : lines) {
+            assertFalse(line.contains("<null>"));
+        }
+
+        // nothing left to compact
+        assertEquals(0, NullMappingCompactor.deleteNullMappings(mappingFile));
+        assertEquals(1, wikiDirectory.list((directory, name) -> name.startsWith("resourceMappings")).length);
+    }
+
+
+    @Test
+    public void compressedMappingFiles() throws Exception {
+
+        File wikiDirectory = folder.newFolder("test_wiki");
+        FileUtils.copyFile(new File("./src/test/test_files/evaluation_test/evaluation.ttl"), new File(wikiDirectory, "evaluation.ttl"));
+        File mappingFile = new File(wikiDirectory, "resourceMappings.ttl.gz");
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(mappingFile))) {
+            Files.copy(new File("./src/test/test_files/evaluation_test_template/resourceMappings.ttl").toPath(), out);
+        }
+
+        // the compressed mapping file is evaluated and not mapped as input
+        assertTrue(MappingExecutor.isMappingFile(mappingFile));
+        EvaluationResultSingleWiki result = MappingEvaluator.evaluateMappingsForOneWiki(wikiDirectory.getPath(), MappingEvaluator.EvaluationObjectSingleWiki.RESOURCES);
+        assertEquals(2, result.getFalseNegatives());
+        assertEquals(1, result.getFalsePositives());
+        assertEquals(1, result.getTruePositives());
+        assertEquals(1, result.getTrueNegatives());
+
+        // the compaction keeps the compression
+        NullMappingCompactor.deleteNullMappingsOfWiki(wikiDirectory);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(mappingFile)), StandardCharsets.UTF_8))) {
+            List<String> lines = reader.lines().collect(Collectors.toList());
+            assertEquals(2, lines.size());
+            for (String line : lines) {
+                assertFalse(line.contains("<null>"));
+            }
+        }
+        assertEquals(1, wikiDirectory.list((directory, name) -> name.startsWith("resourceMappings")).length);
+    }
+
+}
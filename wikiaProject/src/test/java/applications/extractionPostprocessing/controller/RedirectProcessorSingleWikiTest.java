@@ -1,9 +1,14 @@
 package applications.extractionPostprocessing.controller;
 
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.junit.*;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.*;
+import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * This method test class RedirectProcessorSingleWiki.
@@ -59,6 +64,76 @@ public class RedirectProcessorSingleWikiTest {
 
     }
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Same as {@link #executeRedirects()}, but the extraction outputs are still bz2 compressed: they are read as
+     * streams and replaced by the uncompressed rewritten files.
+     * @throws Exception
+     */
+    @Test
+    public void executeRedirectsOnCompressedFiles() throws Exception {
+        File testDirectory = folder.newFolder("wiki");
+        for (File f : new File(TEST_DIRECTORY_PATH).listFiles()) {
+            if (!f.getName().endsWith(".ttl")) {
+                FileUtils.copyFileToDirectory(f, testDirectory);
+            } else {
+                try (InputStream in = new FileInputStream(f);
+                     OutputStream out = new BZip2CompressorOutputStream(new FileOutputStream(new File(testDirectory, f.getName() + ".bz2")))) {
+                    IOUtils.copy(in, out);
+                }
+            }
+        }
+
+        RedirectProcessorSingleWiki rp = new RedirectProcessorSingleWiki(testDirectory);
+        rp.executeRedirects();
+
+        for (File f : testDirectory.listFiles()) {
+            if (f.getName().endsWith("_solution")) {
+                continue;
+            }
+            if (f.getName().endsWith(".bz2")) {
+                // only the redirects file itself is not rewritten
+                Assert.assertTrue(f.getName(), f.getName().endsWith("-redirects.ttl.bz2"));
+                continue;
+            }
+            File solution = new File(TEST_DIRECTORY_PATH + "/" + f.getName() + "_solution");
+            Assert.assertTrue(FileUtils.contentEqualsIgnoreEOL(f, solution, "utf-8"));
+        }
+    }
+
+    /**
+     * Same as {@link #executeRedirects()}, but the files whose entities are mapped also get the target namespace of
+     * the wiki (as in {@link RedirectProcessor}), so the mapping only has to read them.
+     * @throws Exception
+     */
+    @Test
+    public void executeRedirectsWithNamespaceRewrite() throws Exception {
+        File testDirectory = folder.newFolder("wiki");
+        FileUtils.copyDirectory(new File(TEST_DIRECTORY_PATH), testDirectory);
+
+        RedirectProcessorSingleWiki rp = new RedirectProcessorSingleWiki(testDirectory);
+        rp.setRewriteNamespace(true);
+        rp.executeRedirects();
+
+        for (File f : testDirectory.listFiles()) {
+            if (f.getName().endsWith("_solution")) {
+                continue;
+            }
+            File solution = new File(TEST_DIRECTORY_PATH + "/" + (f.getName().endsWith("-redirects.ttl") ? f.getName() : f.getName() + "_solution"));
+            List<String> expectedLines = FileUtils.readLines(solution, "utf-8");
+            if (f.getName().endsWith(".ttl")) {
+                // comments are dropped and the dbpedia domain is replaced
+                expectedLines = expectedLines.stream()
+                        .filter(line -> !line.trim().startsWith("#"))
+                        .map(line -> line.replace("dbpedia.org", "uni-mannheim.de/wiki"))
+                        .collect(Collectors.toList());
+            }
+            Assert.assertEquals(f.getName(), expectedLines, FileUtils.readLines(f, "utf-8"));
+        }
+    }
+
     /**
      * This method deletes the copied files for the test.
      */
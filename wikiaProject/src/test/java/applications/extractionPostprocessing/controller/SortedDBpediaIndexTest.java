@@ -0,0 +1,149 @@
+package applications.extractionPostprocessing.controller;
+
+import applications.extractionPostprocessing.controller.resourcemapper.ResourceMapper_4_2;
+import applications.extractionPostprocessing.util.SortedDBpediaIndex;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for class {@link applications.extractionPostprocessing.util.SortedDBpediaIndex SortedDBpediaIndex} and the
+ * sorted-merge mapper {@link ResourceMapper_4_2}.
+ */
+public class SortedDBpediaIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+
+    private SortedDBpediaIndex buildIndex() throws Exception {
+        File pageIds = folder.newFolder("pageids");
+        File redirects = folder.newFolder("redirects");
+
+        ArrayList<String> pageIdLines = new ArrayList<>();
+        pageIdLines.add("# started 2016-10-29");
+        // more entries than one block of the sparse index
+        for (int i = 0; i < 5000; i++) {
+            pageIdLines.add(pageIdLine("Entity_" + i, i));
+        }
+        pageIdLines.add(pageIdLine("Hagrid", 10001));
+        pageIdLines.add(pageIdLine("Rubeus_Hagrid", 10002));
+        pageIdLines.add(pageIdLine("Hogwarts_places", 10003));
+        pageIdLines.add(pageIdLine("Zürich", 10004));
+        Files.write(new File(pageIds, "page_ids_en.ttl").toPath(), pageIdLines, StandardCharsets.UTF_8);
+
+        Files.write(new File(redirects, "redirects_en.ttl").toPath(), Arrays.asList(
+                "<http://dbpedia.org/resource/Hagrid> <http://dbpedia.org/ontology/wikiPageRedirects> <http://dbpedia.org/resource/Rubeus_Hagrid> .",
+                "<http://dbpedia.org/resource/Hogwarts_places> <http://dbpedia.org/ontology/wikiPageRedirects> <http://dbpedia.org/resource/List_of_places> .",
+                "<http://dbpedia.org/resource/No_page_id> <http://dbpedia.org/ontology/wikiPageRedirects> <http://dbpedia.org/resource/Entity_1> ."
+        ), StandardCharsets.UTF_8);
+
+        File indexFile = new File(folder.getRoot(), "sortedIndex/resources.idx");
+        File spillDirectory = new File(folder.getRoot(), "tmp");
+        // small budget so that the page ids are sorted externally
+        SortedDBpediaIndex.build(pageIds, redirects, indexFile, 20000, spillDirectory);
+        assertEquals(0, spillDirectory.list().length);
+
+        return new SortedDBpediaIndex(indexFile);
+    }
+
+    private static String pageIdLine(String name, int id) {
+        return "<http://dbpedia.org/resource/" + name + "> <http://dbpedia.org/ontology/wikiPageID> \"" + id
+                + "\"^^<http://www.w3.org/2001/XMLSchema#integer> .";
+    }
+
+
+    @Test
+    public void lookup() throws Exception {
+        SortedDBpediaIndex index = buildIndex();
+        assertEquals(5004, index.getNumberOfEntries());
+
+        SortedDBpediaIndex.Entry entry = index.lookup("<http://dbpedia.org/resource/HAGRID>");
+        assertEquals("<http://dbpedia.org/resource/Hagrid>", entry.resource);
+        assertEquals("<http://dbpedia.org/resource/Rubeus_Hagrid>", entry.redirect);
+
+        entry = index.lookup("<http://dbpedia.org/resource/entity_4711>");
+        assertEquals("<http://dbpedia.org/resource/Entity_4711>", entry.resource);
+        assertNull(entry.redirect);
+
+        // redirect without page id
+        assertNull(index.lookup("<http://dbpedia.org/resource/No_page_id>"));
+        assertNull(index.lookup("<http://dbpedia.org/resource/xasdfpasdfwnawe>"));
+    }
+
+
+    @Test
+    public void mapAllLikeResourceMapper_4_1() throws Exception {
+        ResourceMapper_4_2 mapper = new ResourceMapper_4_2(buildIndex());
+
+        ArrayList<String> resources = new ArrayList<>(Arrays.asList(
+                "<http://dbpedia.org/resource/hagrid>",
+                "<http://dbpedia.org/resource/Hagrid>",
+                "<http://dbpedia.org/resource/Rubeus_Hagrid>",
+                "<http://dbpedia.org/resource/Hogwarts_places>",
+                "<http://dbpedia.org/resource/File:Hagrid.png>",
+                "<http://dbpedia.org/resource/zürich>",
+                "<http://dbpedia.org/resource/xasdfpasdfwnawe>"));
+        for (int i = 0; i < 5000; i += 7) {
+            resources.add("<http://dbpedia.org/resource/entity_" + i + ">");
+        }
+
+        HashMap<String, String> result = mapper.mapAll(resources);
+        assertEquals(resources.size(), result.size());
+        assertEquals("<http://dbpedia.org/resource/Rubeus_Hagrid>", result.get("<http://dbpedia.org/resource/hagrid>"));
+        assertEquals("<http://dbpedia.org/resource/Rubeus_Hagrid>", result.get("<http://dbpedia.org/resource/Hagrid>"));
+        assertEquals("<http://dbpedia.org/resource/Rubeus_Hagrid>", result.get("<http://dbpedia.org/resource/Rubeus_Hagrid>"));
+        assertEquals("<null>", result.get("<http://dbpedia.org/resource/Hogwarts_places>"));
+        assertEquals("<null>", result.get("<http://dbpedia.org/resource/File:Hagrid.png>"));
+        assertEquals("<http://dbpedia.org/resource/Zürich>", result.get("<http://dbpedia.org/resource/zürich>"));
+        assertEquals("<null>", result.get("<http://dbpedia.org/resource/xasdfpasdfwnawe>"));
+        for (int i = 0; i < 5000; i += 7) {
+            assertEquals("<http://dbpedia.org/resource/Entity_" + i + ">", result.get("<http://dbpedia.org/resource/entity_" + i + ">"));
+        }
+
+        assertEquals("<http://dbpedia.org/resource/Entity_42>", mapper.mapSingleResource("<http://dbpedia.org/resource/Entity_42>"));
+    }
+
+
+    @Test
+    public void caseCollisionsAreResolvedLikeResourceMapper_4_1() throws Exception {
+        File pageIds = folder.newFolder("pageids");
+        File redirects = folder.newFolder("redirects");
+
+        // in sorted order the upper-case tags come first; in the files they come first as well, so the later
+        // (mixed-case) tags have to win like in the hash maps of ResourceMapper_4_1
+        Files.write(new File(pageIds, "page_ids_en.ttl").toPath(), Arrays.asList(
+                pageIdLine("HAGRID", 1),
+                pageIdLine("Hagrid", 2),
+                pageIdLine("Potter", 3)
+        ), StandardCharsets.UTF_8);
+        Files.write(new File(redirects, "redirects_en.ttl").toPath(), Arrays.asList(
+                "<http://dbpedia.org/resource/POTTER> <http://dbpedia.org/ontology/wikiPageRedirects> <http://dbpedia.org/resource/Potter_(band)> .",
+                "<http://dbpedia.org/resource/Potter> <http://dbpedia.org/ontology/wikiPageRedirects> <http://dbpedia.org/resource/Harry_Potter> ."
+        ), StandardCharsets.UTF_8);
+
+        File indexFile = new File(folder.getRoot(), "sortedIndex/resources.idx");
+        SortedDBpediaIndex.build(pageIds, redirects, indexFile, 1 << 20, new File(folder.getRoot(), "tmp"));
+        SortedDBpediaIndex index = new SortedDBpediaIndex(indexFile);
+        assertEquals(2, index.getNumberOfEntries());
+
+        SortedDBpediaIndex.Entry entry = index.lookup("<http://dbpedia.org/resource/hagrid>");
+        assertEquals("<http://dbpedia.org/resource/Hagrid>", entry.resource);
+        assertNull(entry.redirect);
+
+        HashMap<String, String> result = new ResourceMapper_4_2(index).mapAll(Arrays.asList(
+                "<http://dbpedia.org/resource/HAGRID>", "<http://dbpedia.org/resource/potter>"));
+        assertEquals("<http://dbpedia.org/resource/Hagrid>", result.get("<http://dbpedia.org/resource/HAGRID>"));
+        assertEquals("<http://dbpedia.org/resource/Harry_Potter>", result.get("<http://dbpedia.org/resource/potter>"));
+    }
+
+}
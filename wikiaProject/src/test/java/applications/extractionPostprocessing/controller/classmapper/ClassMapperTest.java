@@ -3,6 +3,11 @@ package applications.extractionPostprocessing.controller.classmapper;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.ResourceBundle;
+
 import static org.junit.Assert.*;
 
 /**
@@ -60,4 +65,107 @@ public class ClassMapperTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void mapAll() throws Exception {
+
+        // duplicates are mapped once, null mappings are kept
+        HashMap<String, String> result = testMapper.mapAll(Arrays.asList(
+                "<http://dbpedia.org/resource/Template:Creature_infobox>",
+                "<http://dbpedia.org/resource/Template:Person_infobox>",
+                "<http://dbpedia.org/resource/Template:Creature_infobox>"));
+
+        assertEquals(2, result.size());
+        assertTrue(result.containsKey("<http://dbpedia.org/resource/Template:Person_infobox>"));
+        assertNull(result.get("<http://dbpedia.org/resource/Template:Creature_infobox>"));
+    }
+
+
+    @Test
+    public void singlePassTransformationEqualsStepByStepTransformation() throws Exception {
+
+        // fragments that provoke overlapping and nested infobox parts
+        String[] fragments = {"<http://", "dbpedia.org", "uni-mannheim.de", "/resource/Template:", "/resource/", "Template:",
+                "/ontology/", "/class/", "infobox_", "_infobox", "Infobox_", "_Infobox", "info", "Info", "box", "nfobox",
+                "_", "i", "I", "a", "Z", "\u00df", "\u00e9", "9", ">"};
+        Random random = new Random(42);
+
+        for (int i = 0; i < 50000; i++) {
+            StringBuilder template = new StringBuilder();
+            int numberOfFragments = random.nextInt(8);
+            for (int j = 0; j < numberOfFragments; j++) {
+                template.append(fragments[random.nextInt(fragments.length)]);
+            }
+            String input = template.toString();
+
+            assertSameResult(input, stepByStepOntology(input, true), () -> ClassMapper.transformTemplate(input, "/ontology/", true));
+            assertSameResult(input, stepByStepOntology(input, false), () -> ClassMapper.transformTemplate(input, "/ontology/", false));
+            assertSameResult(input, stepByStepClass(input, null), () -> ClassMapper.transformTemplateToClass(input));
+            assertSameResult(input, stepByStepClass(input, "uni-mannheim.de/HarryPotter"),
+                    () -> ClassMapper.transformTemplateToClass(input, "uni-mannheim.de/HarryPotter"));
+        }
+    }
+
+
+    /**
+     * Asserts that both computations return the same result or both fail.
+     */
+    private static void assertSameResult(String input, String expected, java.util.concurrent.Callable<String> actual) {
+        String result;
+        try {
+            result = actual.call();
+        } catch (Exception e) {
+            result = null;
+        }
+        assertEquals("Input: " + input, expected, result);
+    }
+
+
+    /**
+     * Step by step implementation of {@link ClassMapper#transformTemplateToOntology(String, boolean)} as specification.
+     * @return Transformed template or null if the transformation fails.
+     */
+    private static String stepByStepOntology(String templateToTransform, boolean capitalize) {
+        try {
+            String transformedTemplate = templateToTransform;
+            transformedTemplate = transformedTemplate.replace("/resource/Template:", "/ontology/");
+            transformedTemplate = transformedTemplate.replace("infobox_", "");
+            transformedTemplate = transformedTemplate.replace("_infobox", "");
+            transformedTemplate = transformedTemplate.replace("Infobox_", "");
+            transformedTemplate = transformedTemplate.replace("_Infobox", "");
+            String head = transformedTemplate.substring(0, transformedTemplate.indexOf("/ontology/") + 10);
+            String tail = transformedTemplate.substring(transformedTemplate.indexOf("/ontology/") + 10);
+            String first = capitalize ? tail.substring(0, 1).toUpperCase() : tail.substring(0, 1).toLowerCase();
+            return head + first + tail.substring(1);
+        } catch (StringIndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+
+    /**
+     * Step by step implementation of {@link ClassMapper#transformTemplateToClass(String, String)} as specification.
+     * @return Transformed template or null if the transformation fails.
+     */
+    private static String stepByStepClass(String templateToTransform, String targetNamespace) {
+        try {
+            String transformedTemplate = templateToTransform;
+            if (targetNamespace != null) {
+                String namespaceDomain = ResourceBundle.getBundle("config").getString("targetnamespace");
+                if (!templateToTransform.contains(namespaceDomain) && templateToTransform.contains("dbpedia.org")) {
+                    transformedTemplate = templateToTransform.replaceAll("dbpedia.org", targetNamespace);
+                }
+            }
+            transformedTemplate = transformedTemplate.replace("/resource/Template:", "/class/");
+            transformedTemplate = transformedTemplate.replace("infobox_", "");
+            transformedTemplate = transformedTemplate.replace("_infobox", "");
+            transformedTemplate = transformedTemplate.replace("Infobox_", "");
+            transformedTemplate = transformedTemplate.replace("_Infobox", "");
+            return transformedTemplate.substring(0, transformedTemplate.indexOf("/class/") + 7)
+                    + transformedTemplate.substring(transformedTemplate.indexOf("/class/") + 7).substring(0, 1).toUpperCase()
+                    + transformedTemplate.substring(transformedTemplate.indexOf("/class/") + 7).substring(1);
+        } catch (StringIndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+package applications.wikiaDumpDownload.util;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for class {@link DumpUrlResolver DumpUrlResolver}.
+ */
+public class DumpUrlResolverTest {
+
+    @Test
+    public void getCandidateUrls() {
+        assertEquals(Arrays.asList("babylon5"), DumpUrlResolver.getDatabaseNameCandidates("babylon5.wikia.com", "Babylon 5 Wiki"));
+        assertEquals(Arrays.asList("deharrypotter"), DumpUrlResolver.getDatabaseNameCandidates("http://de.harrypotter.wikia.com/", null));
+        assertEquals(Arrays.asList("memory-alpha", "memoryalpha"), DumpUrlResolver.getDatabaseNameCandidates("memory-alpha.wikia.com", null));
+        assertEquals(Arrays.asList("babylon5", "babylon5wiki"), DumpUrlResolver.getDatabaseNameCandidates("", "Babylon 5 Wiki"));
+        assertTrue(DumpUrlResolver.getDatabaseNameCandidates(null, null).isEmpty());
+
+        List<String> candidateUrls = new DumpUrlResolver().getCandidateUrls("babylon5.wikia.com", null);
+        assertEquals(Arrays.asList(
+                "http://s3.amazonaws.com/wikia_xml_dumps/b/ba/babylon5_pages_current.xml.gz",
+                "http://s3.amazonaws.com/wikia_xml_dumps/b/ba/babylon5_pages_current.xml.7z"), candidateUrls);
+    }
+
+
+    @Test
+    public void resolveWithPipelinedRequests() throws Exception {
+        List<String> requestLines = Collections.synchronizedList(new ArrayList<>());
+
+        try (ServerSocket server = new ServerSocket(0)) {
+            // answers the pipelined requests in order: only the 7z dump of memoryalpha exists
+            Thread serverThread = new Thread(() -> {
+                try (Socket socket = server.accept()) {
+                    BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                    OutputStream out = socket.getOutputStream();
+                    String line;
+                    String requestLine = null;
+                    while ((line = in.readLine()) != null) {
+                        if (requestLine == null) {
+                            requestLine = line;
+                            requestLines.add(line);
+                        } else if (line.isEmpty()) {
+                            boolean found = requestLine.contains("/m/me/memoryalpha_pages_current.xml.7z");
+                            out.write((found ? "HTTP/1.1 200 OK\r\nContent-Length: 42\r\n\r\n"
+                                    : "HTTP/1.1 404 Not Found\r\nContent-Length: 0\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                            out.flush();
+                            requestLine = null;
+                        }
+                    }
+                } catch (Exception e) {
+                    // the client closes the connection
+                }
+            });
+            serverThread.start();
+
+            DumpUrlResolver resolver = new DumpUrlResolver("http://localhost:" + server.getLocalPort() + "/dumps/");
+            assertEquals("http://localhost:" + server.getLocalPort() + "/dumps/m/me/memoryalpha_pages_current.xml.7z",
+                    resolver.resolve("memory-alpha.wikia.com", "Memory Alpha"));
+            serverThread.join(10000);
+        }
+
+        // all candidates were sent on the one connection
+        assertEquals(4, requestLines.size());
+        assertEquals("HEAD /dumps/m/me/memory-alpha_pages_current.xml.gz HTTP/1.1", requestLines.get(0));
+    }
+
+}
@@ -0,0 +1,111 @@
+package applications.wikiaDumpRequester.controller;
+
+import applications.wikiaDumpRequester.model.WikiaUser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for {@link WikiaDumpRequesterExecutor WikiaDumpRequesterExecutor} against a local HTTP stub.
+ */
+public class WikiaDumpRequesterExecutorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HttpServer server;
+    private String baseUrl;
+    private final AtomicInteger numberOfTokenRequests = new AtomicInteger();
+    private final AtomicInteger numberOfDumpRequests = new AtomicInteger();
+    private final AtomicInteger numberOfUnavailableResponses = new AtomicInteger();
+
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/token", exchange -> {
+            numberOfTokenRequests.incrementAndGet();
+            respond(exchange, 200, "{\"access_token\":\"abc\",\"x\":1}");
+        });
+        server.createContext("/wiki", exchange -> {
+            numberOfDumpRequests.incrementAndGet();
+            String cookie = exchange.getRequestHeaders().getFirst("Cookie");
+            if (!"access_token=abc".equals(cookie)) {
+                respond(exchange, 401, "");
+            } else if (exchange.getRequestURI().getPath().endsWith("/unavailable")
+                    && numberOfUnavailableResponses.getAndIncrement() == 0) {
+                // fails once, then works
+                respond(exchange, 503, "");
+            } else if (exchange.getRequestURI().getPath().endsWith("/missing")) {
+                respond(exchange, 404, "");
+            } else {
+                respond(exchange, 200, "");
+            }
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+
+    @Test
+    public void requestDumps() throws Exception {
+        File recordFile = new File(folder.getRoot(), "dumpRequestsSucceeded.txt");
+
+        ArrayList<String> urls = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            urls.add(baseUrl + "/wiki/" + i);
+        }
+        urls.add(baseUrl + "/wiki/unavailable");
+
+        WikiaDumpRequesterExecutor executor = createExecutor(recordFile);
+        assertTrue(executor.requestDumps(urls).isEmpty());
+        assertEquals(urls.size() + 1, numberOfDumpRequests.get()); // one retry
+        assertEquals(1, numberOfTokenRequests.get());
+        assertEquals(new HashSet<>(urls), new HashSet<>(Files.readAllLines(recordFile.toPath(), StandardCharsets.UTF_8)));
+
+        // a restart skips all URLs that succeeded; requests that cannot succeed are not repeated
+        urls.add(baseUrl + "/wiki/missing");
+        ArrayList<String> failedUrls = createExecutor(recordFile).requestDumps(urls);
+        assertEquals(1, failedUrls.size());
+        assertEquals(baseUrl + "/wiki/missing", failedUrls.get(0));
+        assertEquals(urls.size() + 1, numberOfDumpRequests.get());
+    }
+
+
+    private WikiaDumpRequesterExecutor createExecutor(File recordFile) {
+        WikiaUser user = new WikiaUser("user", "password", baseUrl + "/token");
+        WikiaDumpRequesterExecutor executor = new WikiaDumpRequesterExecutor(user, 1000, 4, 3, 60000, recordFile);
+        executor.setBackoff(1, 10);
+        return executor;
+    }
+
+    private static void respond(HttpExchange exchange, int responseCode, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(responseCode, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+package applications.wikiaStatistics.controller;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for {@link GoldStandardStatistics GoldStandardStatistics}.
+ */
+public class GoldStandardStatisticsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+
+    @Test
+    public void calculateGoldStandardStatistics() throws Exception {
+        File evaluationDirectory = folder.newFolder("evaluation");
+
+        Files.write(new File(evaluationDirectory, "a_evaluation.ttl").toPath(), (
+                "# comment with /resource/\n" +
+                "<http://uni-mannheim.de/a/resource/Banana> <owl:sameAs> <http://dbpedia.org/resource/Banana> .\n" +
+                "<http://uni-mannheim.de/a/RESOURCE/Cherry> <owl:sameAs> <NULL> .\r\n" +
+                "\n" +
+                " \n" +
+                "<http://uni-mannheim.de/a/property/colour> <owl:sameAs> <http://dbpedia.org/ontology/colour> .\n" +
+                "<http://uni-mannheim.de/a/ontology/Fruit> <owl:sameAs> <null> .\n" +
+                "<http://uni-mannheim.de/a/Template:Äpfel> <owl:sameAs> <null> ."
+        ).getBytes(StandardCharsets.UTF_8));
+
+        Files.write(new File(evaluationDirectory, "b_evaluation.ttl").toPath(), (
+                "<http://uni-mannheim.de/b/property/size> <owl:sameAs> <null> .\n" +
+                "<http://uni-mannheim.de/b/ontology/Tree> <owl:sameAs> <http://dbpedia.org/ontology/Plant> .\n"
+        ).getBytes(StandardCharsets.UTF_8));
+
+        // not an evaluation file
+        Files.write(new File(evaluationDirectory, "notes.txt").toPath(), "/resource/".getBytes(StandardCharsets.UTF_8));
+
+        GoldStandardStatistics statistics = new GoldStandardStatistics(evaluationDirectory);
+
+        assertEquals(2, statistics.getNumberOfEvaluationFiles());
+        assertEquals(1, statistics.getNumberOfResourcesMappingToDBpedia());
+        assertEquals(1, statistics.getNumberOfResourcesMappingToNull());
+        assertEquals(1, statistics.getNumberOfPropertiesMappingToDBpedia());
+        assertEquals(1, statistics.getNumberOfPropertiesMappingToNull());
+        assertEquals(1, statistics.getNumberOfClassesMappingToDBpedia());
+        assertEquals(1, statistics.getNumberOfClassesMappingToNull());
+        assertEquals(6, statistics.getTotalNumberOfMappings());
+
+        assertEquals(1, statistics.getLinesNotProcessed().size());
+        assertEquals("<http://uni-mannheim.de/a/template:äpfel> <owl:sameas> <null> .", statistics.getLinesNotProcessed().get(0));
+
+        assertTrue(statistics.getResultRepresentationAsJson().contains("\"totalNumberOfMappings\" : 6"));
+        assertTrue(statistics.getResultRepresentationAsCsv().contains("resources;2;1;1\n"));
+    }
+
+}
@@ -0,0 +1,56 @@
+package applications.wikiaStatistics.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for {@link MetadataStatistics MetadataStatistics}.
+ */
+public class MetadataStatisticsTest {
+
+    @Test
+    public void mergePartialStatistics() throws Exception {
+        MetadataStatistics first = new MetadataStatistics(2);
+        first.addLanguage("xx-unknown", 2);
+        first.addHub("Gaming", 1);
+        first.addArticles("http://a.wikia.com/", 10);
+        first.addArticles("http://b.wikia.com/", 3000000000L);
+        first.addPages(3000000000L);
+
+        MetadataStatistics second = new MetadataStatistics(2);
+        second.addLanguage("xx-unknown", 1);
+        second.addHub("Gaming", 2);
+        second.addTopic("Fantasy", 1);
+        second.addArticles("http://c.wikia.com/", 30);
+        second.addArticles("http://d.wikia.com/", 20);
+        second.addPages(3000000000L);
+
+        MetadataStatistics merged = first.merge(second);
+
+        // counters do not overflow
+        assertEquals(3000000060L, merged.getNumberOfArticles());
+        assertEquals(6000000000L, merged.getNumberOfPages());
+
+        // unknown language candidates are counted for english
+        assertEquals(Long.valueOf(3), merged.getLanguageCounts().get("en"));
+        assertEquals(Long.valueOf(3), merged.getHubCounts().get("Gaming"));
+        assertEquals(Long.valueOf(1), merged.getTopicCounts().get("Fantasy"));
+
+        // percentiles over 10, 20, 30, 3000000000
+        assertEquals(20, merged.getArticleCountPercentile(50));
+        assertEquals(10, merged.getArticleCountPercentile(1));
+        assertEquals(3000000000L, merged.getArticleCountPercentile(100));
+
+        ArrayList<MetadataStatistics.WikiArticleCount> topWikis = merged.getTopWikisByArticles();
+        assertEquals(2, topWikis.size());
+        assertEquals("http://b.wikia.com/", topWikis.get(0).url);
+        assertEquals("http://c.wikia.com/", topWikis.get(1).url);
+
+        merged.limitTopLanguages(3);
+        assertEquals(1, merged.getLanguageCounts().size());
+    }
+
+}
@@ -0,0 +1,72 @@
+package applications.wikiaStatistics.util;
+
+import applications.wikiaStatistics.model.ExpandedWikiaItem;
+import applications.wikiaStatistics.model.MetadataStatistics;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for {@link WikiaOverviewStore WikiaOverviewStore}.
+ */
+public class WikiaOverviewStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+
+    @Test
+    public void loadStoreAndCalculateStatistics() throws Exception {
+        File overviewFile = folder.newFile("wikiaAllOverview.csv");
+        Files.write(overviewFile.toPath(), Arrays.asList(
+                ExpandedWikiaItem.getHeader(),
+                "1;http://de.harrypotter.wikia.com/;de.harrypotter.wikia.com;Harry Potter;;Harry;de;Books;Fantasy;desc;10;100;200;1;2;3;4;5;6",
+                "2;http://starwars.wikia.com/;starwars.wikia.com;Star Wars;;SW;en;Movies;null;desc;10;50;70;1;2;3;4;5;6",
+                "3;http://de.marvel.wikia.com/;de.marvel.wikia.com;Marvel;;M;de;Comics;Fantasy;desc;10;null;30;1;2;3;4;5;6",
+                "4;http://localhost/;localhost;Local;;L;en;;;desc;10;1000;1000;1;2;3;4;5;6"
+        ), StandardCharsets.UTF_8);
+
+        WikiaOverviewStore store = WikiaOverviewStore.load(overviewFile);
+        File cacheFile = WikiaOverviewStore.getCacheFile(overviewFile);
+        assertTrue(cacheFile.isFile());
+
+        assertEquals(4, store.getNumberOfRows());
+        assertEquals(3, store.get(WikiaOverviewStore.Column.ID, 2));
+        assertEquals("http://de.marvel.wikia.com/", store.getUrl(2));
+        assertEquals("de", store.getValue(WikiaOverviewStore.Column.LANGUAGE, 0));
+        assertEquals("starwars", store.getValue(WikiaOverviewStore.Column.LANGUAGE, 1));
+        assertNull(store.getValue(WikiaOverviewStore.Column.LANGUAGE, 3));
+        assertNull(store.getValue(WikiaOverviewStore.Column.TOPIC, 1));
+        assertEquals(WikiaOverviewStore.NO_NUMBER, store.get(WikiaOverviewStore.Column.ARTICLES, 2));
+        assertEquals(2, store.getValueCounts(WikiaOverviewStore.Column.TOPIC)[0]);
+
+        // the cache is reused as long as the CSV file does not change
+        long cacheLastModified = overviewFile.lastModified() - 60000;
+        assertTrue(cacheFile.setLastModified(cacheLastModified));
+        WikiaOverviewStore.load(overviewFile);
+        assertEquals(cacheLastModified, cacheFile.lastModified());
+
+        // statistics: unknown language candidates count as english
+        MetadataStatistics statistics = WikiaStatisticsTools.getMetadataStatistics(overviewFile);
+        assertEquals(Long.valueOf(3), statistics.getLanguageCounts().get("en"));
+        assertEquals(150, statistics.getNumberOfArticles());
+        assertEquals(270, statistics.getNumberOfPages());
+        assertEquals(Long.valueOf(2), statistics.getTopicCounts().get("Fantasy"));
+        assertEquals(3, statistics.getHubCounts().size());
+        assertEquals(Long.valueOf(1), statistics.getHubCounts().get("Books"));
+
+        // the cache is rebuilt when the CSV file changes
+        Files.write(overviewFile.toPath(), Arrays.asList(ExpandedWikiaItem.getHeader(),
+                "5;http://fr.wikia.com/;fr.wikia.com;Fr;;F;fr;Books;Fantasy;desc;10;1;1;1;2;3;4;5;6"), StandardCharsets.UTF_8);
+        assertTrue(overviewFile.setLastModified(overviewFile.lastModified() + 60000));
+        assertEquals(1, WikiaOverviewStore.load(overviewFile).getNumberOfRows());
+    }
+
+}
@@ -0,0 +1,114 @@
+package loggingService;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for {@link MessageLogger MessageLogger} and {@link AsyncRingBufferAppender AsyncRingBufferAppender}.
+ */
+public class MessageLoggerTest {
+
+
+    @Test
+    public void format() {
+        assertEquals("Processing: a.ttl", MessageLogger.format("Processing: {}", "a.ttl"));
+        assertEquals("1 of 2 {}", MessageLogger.format("{} of {} {}", 1, 2));
+        assertEquals("no placeholder", MessageLogger.format("no placeholder", "x"));
+        assertEquals("{}", MessageLogger.format("{}"));
+
+        MessageLogger logger = new MessageLogger();
+        assertTrue(logger.isEnabled(Level.INFO));
+        assertFalse(logger.isEnabled(Level.DEBUG));
+    }
+
+
+    @Test
+    public void asyncRingBufferAppender() throws Exception {
+        CountDownLatch firstEventReceived = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<LoggingEvent> received = Collections.synchronizedList(new ArrayList<>());
+
+        AppenderSkeleton blockingAppender = new AppenderSkeleton() {
+            @Override
+            protected void append(LoggingEvent event) {
+                received.add(event);
+                firstEventReceived.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void close() {
+            }
+
+            @Override
+            public boolean requiresLayout() {
+                return false;
+            }
+        };
+
+        AsyncRingBufferAppender appender = new AsyncRingBufferAppender();
+        appender.setBufferSize(2);
+        appender.addAppender(blockingAppender);
+        appender.activateOptions();
+
+        Logger logger = Logger.getLogger(MessageLoggerTest.class.getName() + ".async");
+        logger.setAdditivity(false);
+        logger.addAppender(appender);
+
+        // the first event blocks the background thread, the next two fill the buffer, the fourth is dropped
+        logger.info("1");
+        assertTrue(firstEventReceived.await(10, TimeUnit.SECONDS));
+        logger.info("2");
+        logger.info("3");
+        logger.info("4");
+        assertEquals(1, appender.getNumberOfDroppedEvents());
+
+        // an error is not dropped: the logging thread writes it itself as soon as the attached appender is free
+        Thread errorThread = new Thread(() -> logger.error("5"));
+        errorThread.start();
+        errorThread.join(200);
+        assertTrue(errorThread.isAlive());
+
+        release.countDown();
+        errorThread.join(10000);
+        appender.close();
+        logger.removeAppender(appender);
+
+        assertEquals(1, countAndRemove(received, Level.ERROR));
+        assertEquals(4, received.size());
+        assertEquals("1", received.get(0).getRenderedMessage());
+        assertEquals(Level.WARN, received.get(1).getLevel());
+        assertTrue(received.get(1).getRenderedMessage().startsWith("1 log messages were dropped"));
+        assertEquals("2", received.get(2).getRenderedMessage());
+        assertEquals("3", received.get(3).getRenderedMessage());
+    }
+
+    private static int countAndRemove(List<LoggingEvent> events, Level level) {
+        int count = 0;
+        synchronized (events) {
+            for (int i = events.size() - 1; i >= 0; i--) {
+                if (events.get(i).getLevel().equals(level)) {
+                    events.remove(i);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,92 @@
+package metricsService;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for {@link Metrics Metrics}, {@link LatencyHistogram LatencyHistogram} and the reporters.
+ */
+public class MetricsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+
+    @After
+    public void stopReporting() {
+        Metrics.stopReporting();
+    }
+
+
+    @Test
+    public void latencyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(50));
+
+        for (long i = 1; i <= 1000; i++) {
+            histogram.recordValue(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1000), histogram.getMax());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), histogram.getValueAtPercentile(50), TimeUnit.MILLISECONDS.toNanos(500) * 0.016);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(990), histogram.getValueAtPercentile(99), TimeUnit.MILLISECONDS.toNanos(990) * 0.016);
+        assertEquals(histogram.getMax(), histogram.getValueAtPercentile(100));
+
+        // every value lies within its bucket
+        for (long value : new long[]{0, 1, 127, 128, 129, 1000, 123456789, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.getBucketIndex(value);
+            assertTrue(value <= LatencyHistogram.getHighestValueOfBucket(index));
+            assertTrue(index == 0 || value > LatencyHistogram.getHighestValueOfBucket(index - 1));
+        }
+    }
+
+
+    @Test
+    public void reportMetrics() throws Exception {
+        Metrics.counter("test_triples").add(42);
+        Metrics.histogram("test_wiki_latency").recordValue(TimeUnit.MILLISECONDS.toNanos(3));
+        Metrics.cacheGauges("test_cache", () -> 3, () -> 1);
+
+        assertEquals(Double.valueOf(42), Metrics.snapshot().get("test_triples"));
+        assertEquals(0.75, Metrics.snapshot().get("test_cache_hit_ratio"), 0.0);
+        assertEquals(3.0, Metrics.snapshot().get("test_wiki_latency_max_ms"), 0.0);
+
+        try {
+            Metrics.counter("Invalid-Name");
+            fail("Invalid names are rejected.");
+        } catch (IllegalArgumentException iae) {
+            // expected
+        }
+
+        // files are written when the reporting stops
+        File directory = folder.newFolder("logs");
+        Metrics.startReporting(directory, 3600);
+        Metrics.stopReporting();
+
+        String prometheusText = new String(Files.readAllBytes(new File(directory, "metrics.prom").toPath()), StandardCharsets.UTF_8);
+        assertTrue(prometheusText.contains("# TYPE wikia_test_triples_total counter\nwikia_test_triples_total 42\n"));
+        assertTrue(prometheusText.contains("wikia_test_wiki_latency_seconds_count 1\n"));
+        assertTrue(prometheusText.contains("wikia_test_cache_hit_ratio 0.75\n"));
+
+        String json = new String(Files.readAllBytes(new File(directory, "metrics.json").toPath()), StandardCharsets.UTF_8);
+        assertTrue(json.contains("\"test_triples\""));
+        assertTrue(json.contains("\"per_second\""));
+
+        // JMX
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        assertEquals(42.0, (Double) server.getAttribute(new ObjectName(Metrics.OBJECT_NAME), "test_triples"), 0.0);
+    }
+
+}
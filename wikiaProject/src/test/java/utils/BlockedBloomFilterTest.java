@@ -0,0 +1,71 @@
+package utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for class {@link utils.BlockedBloomFilter BlockedBloomFilter}.
+ */
+public class BlockedBloomFilterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+
+    @Test
+    public void noFalseNegativesAndFewFalsePositives() throws Exception {
+        BlockedBloomFilter filter = new BlockedBloomFilter(100000);
+        for (int i = 0; i < 100000; i++) {
+            filter.put("<http://dbpedia.org/resource/entity_" + i + ">");
+        }
+        assertEquals(100000, filter.getNumberOfKeys());
+
+        for (int i = 0; i < 100000; i++) {
+            assertTrue(filter.mightContain("<http://dbpedia.org/resource/entity_" + i + ">"));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100000; i++) {
+            if (filter.mightContain("<http://dbpedia.org/resource/other_" + i + ">")) {
+                falsePositives++;
+            }
+        }
+        assertTrue("false positives: " + falsePositives, falsePositives < 2000);
+    }
+
+
+    @Test
+    public void ignoresCase() throws Exception {
+        BlockedBloomFilter filter = new BlockedBloomFilter(10);
+        filter.put("<http://dbpedia.org/resource/rubeus_hagrid>");
+        filter.put("<http://dbpedia.org/resource/zürich>");
+
+        assertTrue(filter.mightContainIgnoreCase("<http://dbpedia.org/resource/Rubeus_Hagrid>"));
+        assertTrue(filter.mightContainIgnoreCase("<http://dbpedia.org/resource/ZÜRICH>"));
+        assertFalse(filter.mightContain("<http://dbpedia.org/resource/Rubeus_Hagrid>"));
+    }
+
+
+    @Test
+    public void writeAndRead() throws Exception {
+        BlockedBloomFilter filter = new BlockedBloomFilter(1000);
+        for (int i = 0; i < 1000; i++) {
+            filter.put("key_" + i);
+        }
+        File file = new File(folder.getRoot(), "pageids.bloom");
+        filter.writeToFile(file);
+
+        BlockedBloomFilter readFilter = BlockedBloomFilter.readFromFile(file);
+        assertEquals(1000, readFilter.getNumberOfKeys());
+        assertEquals(filter.getSizeInBytes(), readFilter.getSizeInBytes());
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(filter.mightContain("key_" + i), readFilter.mightContain("key_" + i));
+        }
+    }
+
+}
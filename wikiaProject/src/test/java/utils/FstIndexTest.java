@@ -0,0 +1,113 @@
+package utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for class {@link utils.FstIndex FstIndex}.
+ */
+public class FstIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+
+    private static TreeMap<String, String> getOntology() {
+        TreeMap<String, String> entries = new TreeMap<>();
+        for (String iri : Arrays.asList("<http://dbpedia.org/ontology/Person>", "<http://dbpedia.org/ontology/Place>",
+                "<http://dbpedia.org/ontology/Planet>", "<http://dbpedia.org/ontology/Plant>",
+                "<http://dbpedia.org/ontology/FictionalCharacter>", "<http://dbpedia.org/ontology/Café>")) {
+            entries.put(iri.toLowerCase(), iri);
+        }
+        return entries;
+    }
+
+
+    @Test
+    public void lookup() throws Exception {
+        TreeMap<String, String> entries = getOntology();
+        FstIndex index = FstIndex.build(entries);
+        assertEquals(entries.size(), index.size());
+
+        // ordinals are the positions of the sorted keys
+        int ordinal = 0;
+        for (String key : entries.keySet()) {
+            assertEquals(ordinal, index.getOrdinal(key));
+            assertEquals(entries.get(key), index.getValue(ordinal));
+            ordinal++;
+        }
+
+        assertEquals("<http://dbpedia.org/ontology/Person>", index.getValueIgnoreCase("<HTTP://dbpedia.org/ontology/PERSON>"));
+        assertEquals("<http://dbpedia.org/ontology/Café>", index.getValueIgnoreCase("<http://dbpedia.org/ontology/CAFÉ>"));
+        assertTrue(index.getOrdinalIgnoreCase("<http://dbpedia.org/ontology/planet>") >= 0);
+
+        assertEquals(-1, index.getOrdinal("<http://dbpedia.org/ontology/Person>"));
+        assertEquals(-1, index.getOrdinal("<http://dbpedia.org/ontology/pers"));
+        assertEquals(-1, index.getOrdinalIgnoreCase("<http://dbpedia.org/ontology/persons>"));
+        assertNull(index.getValueIgnoreCase("<http://dbpedia.org/ontology/xasdfpasdfwnawe>"));
+    }
+
+
+    @Test
+    public void prefixAndDistance() throws Exception {
+        FstIndex index = FstIndex.build(getOntology());
+
+        ArrayList<String> values = new ArrayList<>();
+        index.forEachWithPrefix("<http://dbpedia.org/ontology/pla", ordinal -> values.add(index.getValue(ordinal)));
+        assertEquals(Arrays.asList("<http://dbpedia.org/ontology/Place>", "<http://dbpedia.org/ontology/Planet>",
+                "<http://dbpedia.org/ontology/Plant>"), values);
+
+        values.clear();
+        index.forEachWithinDistance("<http://dbpedia.org/ontology/plane>", 1, ordinal -> values.add(index.getValue(ordinal)));
+        assertEquals(Arrays.asList("<http://dbpedia.org/ontology/Place>", "<http://dbpedia.org/ontology/Planet>",
+                "<http://dbpedia.org/ontology/Plant>"), values);
+
+        values.clear();
+        index.forEachWithPrefix("<http://dbpedia.org/resource/", ordinal -> values.add(index.getValue(ordinal)));
+        assertTrue(values.isEmpty());
+    }
+
+
+    @Test
+    public void sharedPrefixesAndSuffixes() throws Exception {
+        TreeMap<String, String> entries = new TreeMap<>();
+        for (int i = 0; i < 10000; i++) {
+            String key = "<http://dbpedia.org/ontology/property" + i + ">";
+            entries.put(key, key);
+        }
+        FstIndex index = FstIndex.build(entries);
+        assertEquals(10000, index.size());
+        // a trie would need more than 10000 states for the digits alone
+        assertTrue("states: " + index.getNumberOfStates(), index.getNumberOfStates() < 100);
+        assertEquals(entries.headMap("<http://dbpedia.org/ontology/property4711>").size(),
+                index.getOrdinal("<http://dbpedia.org/ontology/property4711>"));
+    }
+
+
+    @Test
+    public void writeAndReadFile() throws Exception {
+        TreeMap<String, String> properties = new TreeMap<>();
+        properties.put("<http://dbpedia.org/property/name>", "<http://dbpedia.org/property/name>");
+        properties.put("<http://dbpedia.org/property/birthdate>", "<http://dbpedia.org/property/birthDate>");
+
+        File file = new File(folder.getRoot(), "vocabularies.fst");
+        FstIndex.writeFile(file, FstIndex.build(getOntology()), FstIndex.build(new TreeMap<>()), FstIndex.build(properties));
+
+        FstIndex[] indexes = FstIndex.readFile(file);
+        assertEquals(3, indexes.length);
+        assertEquals("<http://dbpedia.org/ontology/FictionalCharacter>",
+                indexes[0].getValueIgnoreCase("<http://dbpedia.org/ontology/fictionalcharacter>"));
+        assertEquals(0, indexes[1].size());
+        assertEquals(-1, indexes[1].getOrdinal("<http://dbpedia.org/property/name>"));
+        assertEquals("<http://dbpedia.org/property/birthDate>", indexes[2].getValueIgnoreCase("<http://dbpedia.org/property/BirthDate>"));
+    }
+
+}
@@ -3,6 +3,7 @@ package utils;
 import org.junit.Test;
 
 import java.io.File;
+import java.util.Properties;
 
 import static org.junit.Assert.*;
 
@@ -19,4 +20,22 @@ public class IOoperationsTest {
         assertEquals(IOoperations.getFileNameFromPath(f), "evaluation.ttl");
     }
 
+    @Test
+    public void applyOutputProfile() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("languages", "en");
+        properties.setProperty("format.ttl.bz2", "turtle-triples;uri-policy.iri");
+        properties.setProperty("format.tql.bz2", "turtle-quads;uri-policy.iri");
+
+        Properties publish = new Properties();
+        publish.putAll(properties);
+        IOoperations.applyOutputProfile(publish, IOoperations.PUBLISH_OUTPUT_PROFILE);
+        assertEquals(properties, publish);
+
+        IOoperations.applyOutputProfile(properties, IOoperations.INTERMEDIATE_OUTPUT_PROFILE);
+        assertEquals(2, properties.size());
+        assertEquals("en", properties.getProperty("languages"));
+        assertEquals("turtle-triples;uri-policy.iri", properties.getProperty("format.ttl"));
+    }
+
 }
\ No newline at end of file
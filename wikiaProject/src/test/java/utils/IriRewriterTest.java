@@ -0,0 +1,70 @@
+package utils;
+
+import applications.extractionPostprocessing.controller.RedirectProcessorSingleWiki;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for class {@link utils.IriRewriter IriRewriter}.
+ */
+public class IriRewriterTest {
+
+    @Test
+    public void wikiLinkRulesLikeRegularExpressions() {
+        IriRewriter rewriter = IriRewriter.of(RedirectProcessorSingleWiki.DEFAULT_WIKI_LINK_REWRITE_RULES, "wiki", "harrypotter");
+        assertEquals(3, rewriter.getNumberOfRules());
+
+        for (String line : Arrays.asList(
+                "<http://dbpedia.org/resource/Hagrid> <http://xmlns.com/foaf/0.1/isPrimaryTopicOf> <http://en.wikipedia.org/wiki/Hagrid> .",
+                "<http://dbpedia.org/resource/Hagrid> <http://xmlns.com/foaf/0.1/depiction> <http://commons.wikimedia.org/wiki/Special:FilePath/Hagrid.jpg> .",
+                "<http://en.wikipedia.org/wiki/A> <http://wikipedia.org/b> <http://example.org/wikipedia.org> \"wikipedia.org\" .",
+                "<http://dbpedia.org/resource/Hagrid> <http://www.w3.org/2000/01/rdf-schema#label> \"Hagrid\"@en .",
+                "")) {
+            assertEquals(line, rewriteWithRegularExpressions(line, "harrypotter"), rewriter.rewrite(line));
+        }
+
+        // unchanged lines are not copied
+        String line = "<http://dbpedia.org/resource/Hagrid> <http://www.w3.org/2000/01/rdf-schema#label> \"Hagrid\"@en .";
+        assertSame(line, rewriter.rewrite(line));
+    }
+
+    private static String rewriteWithRegularExpressions(String line, String wiki) {
+        line = line.replaceAll("http://[a-z.]*wikipedia.org", "http://" + wiki + ".wikia.com");
+        if (line.contains("commons.wikimedia.org")) {
+            line = line.replace("commons.wikimedia.org", wiki + ".wikia.com");
+            line = line.replace("Special:FilePath/", "File:");
+        }
+        return line;
+    }
+
+
+    @Test
+    public void leftmostLongestMatch() {
+        IriRewriter rewriter = IriRewriter.of(new String[]{
+                "# comment",
+                "literal\tbc\t1",
+                "literal\tabcd\t2",
+                "literal\tcde\t3",
+                "literal\tb\t4"});
+
+        assertEquals("x2e", rewriter.rewrite("xabcde"));
+        assertEquals("x1ex", rewriter.rewrite("xbcex"));
+        assertEquals("a4x3", rewriter.rewrite("abxcde"));
+        assertEquals("44", rewriter.rewrite("bb"));
+
+        StringBuilder buffer = new StringBuilder("old content");
+        assertTrue(rewriter.rewrite("abc", buffer));
+        assertEquals("a1", buffer.toString());
+        assertFalse(rewriter.rewrite("xyz", buffer));
+    }
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void malformedRule() {
+        IriRewriter.of(new String[]{"regex\t.*\tx"});
+    }
+
+}
@@ -0,0 +1,46 @@
+package utils;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for class {@link utils.LruCache LruCache}.
+ */
+public class LruCacheTest {
+
+    @Test
+    public void evictsLeastRecentlyUsedEntry() throws Exception {
+        LruCache<String, String> cache = new LruCache<>(2, 0);
+        cache.put("a", "1");
+        cache.put("b", "2");
+
+        // access "a" so that "b" becomes the least recently used entry
+        assertEquals("1", cache.get("a"));
+        cache.put("c", "3");
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get("b"));
+        assertEquals("1", cache.get("a"));
+        assertEquals("3", cache.get("c"));
+        assertEquals(3, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void expiresEntriesAfterTimeToLive() throws Exception {
+        AtomicLong time = new AtomicLong(0);
+        LruCache<String, String> cache = new LruCache<>(10, 1000, time::get);
+        cache.put("a", "1");
+
+        time.set(999L * 1000000L);
+        assertEquals("1", cache.get("a"));
+
+        time.set(1001L * 1000000L);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+}
@@ -0,0 +1,40 @@
+package utils;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for class {@link utils.MemoCache MemoCache}.
+ */
+public class MemoCacheTest {
+
+    @Test
+    public void computesEachKeyOnce() throws Exception {
+        AtomicInteger numberOfComputations = new AtomicInteger(0);
+        MemoCache<String, String> cache = new MemoCache<>(10);
+
+        assertEquals("A", cache.get("a", key -> { numberOfComputations.incrementAndGet(); return key.toUpperCase(); }));
+        assertEquals("A", cache.get("a", key -> { numberOfComputations.incrementAndGet(); return key.toUpperCase(); }));
+
+        assertEquals(1, numberOfComputations.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        // null results are not cached
+        assertNull(cache.get("b", key -> null));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void staysBounded() throws Exception {
+        MemoCache<Integer, Integer> cache = new MemoCache<>(3);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(Integer.valueOf(i * 2), cache.get(i, key -> key * 2));
+            assertTrue(cache.size() <= 3);
+        }
+    }
+
+}
@@ -0,0 +1,74 @@
+package utils;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for class {@link utils.NTriplesSink NTriplesSink}.
+ */
+public class NTriplesSinkTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+
+    @Test
+    public void writesTriplesAcrossBufferBoundaries() throws Exception {
+        File file = folder.newFile("mappings.ttl");
+        StringBuilder expected = new StringBuilder();
+
+        // small buffer so that it has to be flushed many times; non-ASCII characters test the encoding
+        try (NTriplesSink sink = new NTriplesSink(file, NTriplesSink.Compression.NONE, false, 16)) {
+            for (int i = 0; i < 100; i++) {
+                String subject = "<http://uni-mannheim.de/resource/Café_東京_😀_" + i + ">";
+                sink.writeTriple(subject, "<http://www.w3.org/2002/07/owl#sameAs>", "<null>");
+                expected.append(subject).append(" <http://www.w3.org/2002/07/owl#sameAs> <null> .\n");
+            }
+            assertEquals(100, sink.getNumberOfTriples());
+        }
+
+        assertEquals(expected.toString(), new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+    }
+
+
+    @Test
+    public void writesSortedAndCompressedFiles() throws Exception {
+        String expected = "<a> <p> <x> .\n<b> <p> <y> .\n<c> <p> <z> .\n";
+
+        for (NTriplesSink.Compression compression : NTriplesSink.Compression.values()) {
+            File file = folder.newFile("mappings.ttl" + compression.getFileExtension());
+            try (NTriplesSink sink = new NTriplesSink(file, compression, true)) {
+                sink.writeTriple("<c>", "<p>", "<z>");
+                sink.writeTriple("<a>", "<p>", "<x>");
+                sink.writeTriple("<b>", "<p>", "<y>");
+            }
+            assertEquals(compression.name(), expected, readFile(file, compression));
+        }
+    }
+
+
+    private static String readFile(File file, NTriplesSink.Compression compression) throws Exception {
+        InputStream inputStream = new FileInputStream(file);
+        if (compression == NTriplesSink.Compression.GZIP) {
+            inputStream = new GZIPInputStream(inputStream);
+        } else if (compression == NTriplesSink.Compression.BZIP2) {
+            inputStream = new BZip2CompressorInputStream(inputStream);
+        }
+        try (InputStream in = inputStream) {
+            return new String(IOUtils.toByteArray(in), StandardCharsets.UTF_8);
+        }
+    }
+
+}
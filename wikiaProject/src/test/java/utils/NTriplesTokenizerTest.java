@@ -0,0 +1,140 @@
+package utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for class {@link utils.NTriplesTokenizer NTriplesTokenizer}.
+ */
+public class NTriplesTokenizerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+
+    @Test
+    public void tokenize() {
+        NTriplesTokenizer.Triple triple = new NTriplesTokenizer.Triple();
+
+        assertTrue(NTriplesTokenizer.tokenize("<http://dbpedia.org/resource/Hagrid> <http://dbpedia.org/property/height> \"3.5\"^^<http://www.w3.org/2001/XMLSchema#double> .", triple));
+        assertEquals("<http://dbpedia.org/resource/Hagrid>", triple.getSubject());
+        assertEquals("<http://dbpedia.org/property/height>", triple.getPredicate());
+        assertEquals("\"3.5\"^^<http://www.w3.org/2001/XMLSchema#double>", triple.getObject());
+        assertEquals(NTriplesTokenizer.TermType.LITERAL, triple.getObjectType());
+
+        // literal with tags and escaped quotes
+        assertTrue(NTriplesTokenizer.tokenize("<http://dbpedia.org/resource/A> <http://dbpedia.org/property/text> \"a \\\"<b>\\\" <http://dbpedia.org/resource/C>\"@en-gb .", triple));
+        assertEquals("\"a \\\"<b>\\\" <http://dbpedia.org/resource/C>\"@en-gb", triple.getObject());
+
+        assertTrue(NTriplesTokenizer.tokenize("_:b1 <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> <http://dbpedia.org/ontology/Person> .", triple));
+        assertEquals(NTriplesTokenizer.TermType.BLANK_NODE, triple.getSubjectType());
+        assertEquals("_:b1", triple.getSubject());
+        assertEquals(NTriplesTokenizer.TermType.IRI, triple.getObjectType());
+        assertEquals("<x> <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> <y> .", triple.replaceTerms("<x>", null, "<y>"));
+
+        assertFalse(NTriplesTokenizer.tokenize("# started 2016-10-29", triple));
+        assertFalse(NTriplesTokenizer.tokenize("   ", triple));
+        assertFalse(NTriplesTokenizer.tokenize("<http://dbpedia.org/resource/A> <http://dbpedia.org/property/text> \"unterminated .", triple));
+        assertFalse(NTriplesTokenizer.tokenize("\"literal\" <http://dbpedia.org/property/text> <http://dbpedia.org/resource/A> .", triple));
+    }
+
+
+    @Test
+    public void parseWithChainedHandlers() throws Exception {
+        String content = "# comment\n"
+                + "<http://dbpedia.org/resource/A> <http://dbpedia.org/property/p> <http://dbpedia.org/resource/B> .\n"
+                + "<http://dbpedia.org/resource/B> <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> <http://x.org/C> .\n"
+                + "<http://dbpedia.org/resource/B> <http://dbpedia.org/property/p> \"b\"@en .\n";
+        ArrayList<String> lines = new ArrayList<>();
+        IriRewriter rewriter = IriRewriter.of(new String[]{"literal\tdbpedia.org\t${ns}"}, "ns", "uni-mannheim.de/wiki");
+
+        // the filter drops the type triple, the rewritten triple is passed on without being tokenized again
+        long numberOfTriples = NTriplesTokenizer.parse(new BufferedReader(new StringReader(content)),
+                ((NTriplesTokenizer.TripleHandler) triple -> !triple.getPredicate().contains("#type"))
+                        .andThen(NTriplesTokenizer.TripleHandler.rewriteTerms(rewriter))
+                        .andThen(triple -> lines.add(triple.getLine())));
+        assertEquals(3, numberOfTriples);
+        assertEquals(Arrays.asList(
+                "<http://uni-mannheim.de/wiki/resource/A> <http://uni-mannheim.de/wiki/property/p> <http://uni-mannheim.de/wiki/resource/B> .",
+                "<http://uni-mannheim.de/wiki/resource/B> <http://uni-mannheim.de/wiki/property/p> \"b\"@en ."), lines);
+    }
+
+
+    @Test
+    public void setTerms() {
+        NTriplesTokenizer.Triple triple = new NTriplesTokenizer.Triple();
+        assertTrue(NTriplesTokenizer.tokenize("<a>  <p>\t\"o\"@en .", triple));
+
+        triple.setTerms("<subject>", null, "\"object\"");
+        assertEquals("<subject>  <p>\t\"object\" .", triple.getLine());
+        assertEquals("<subject>", triple.getSubject());
+        assertEquals("<p>", triple.getPredicate());
+        assertEquals("\"object\"", triple.getObject());
+
+        NTriplesTokenizer.Triple copy = triple.copy();
+        triple.setTerms(null, "<predicate>", null);
+        assertEquals("<subject>  <predicate>\t\"object\" .", triple.getLine());
+        assertEquals("\"object\"", triple.getObject());
+        assertEquals("<p>", copy.getPredicate());
+    }
+
+
+    @Test
+    public void parseFileInParallel() throws Exception {
+        ArrayList<String> lines = new ArrayList<>();
+        for (int i = 0; i < 3 * NTriplesTokenizer.CHUNK_SIZE + 17; i++) {
+            lines.add("<http://dbpedia.org/resource/E" + i + "> <http://dbpedia.org/property/p> \"" + i + "\" .");
+        }
+        File file = folder.newFile("triples.ttl");
+        Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<SubjectCollector> collectors = NTriplesTokenizer.parseFileInParallel(file, executor, 4, SubjectCollector::new);
+            assertEquals(4, collectors.size());
+            HashSet<String> subjects = new HashSet<>();
+            for (SubjectCollector collector : collectors) {
+                subjects.addAll(collector.subjects);
+            }
+            assertEquals(lines.size(), subjects.size());
+            assertTrue(subjects.contains("<http://dbpedia.org/resource/E30016>"));
+
+            // the workers of a file that cannot be read do not block the executor
+            try {
+                NTriplesTokenizer.parseFileInParallel(new File(folder.getRoot(), "missing.ttl"), executor, 4, SubjectCollector::new);
+                fail();
+            } catch (IOException expected) {
+                // expected
+            }
+            assertEquals(4, NTriplesTokenizer.parseFileInParallel(file, executor, 4, SubjectCollector::new).size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static class SubjectCollector implements NTriplesTokenizer.TripleHandler {
+        private final ArrayList<String> subjects = new ArrayList<>();
+
+        @Override
+        public boolean handle(NTriplesTokenizer.Triple triple) {
+            return subjects.add(triple.getSubject());
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+package utils;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for class {@link utils.ParallelBzip2InputStream ParallelBzip2InputStream}.
+ */
+public class ParallelBzip2InputStreamTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+
+    private static byte[] getContent(int numberOfLines, long seed) {
+        Random random = new Random(seed);
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < numberOfLines; i++) {
+            content.append("<http://dbpedia.org/resource/E").append(random.nextInt(1000000))
+                    .append("> <http://dbpedia.org/property/p").append(random.nextInt(50))
+                    .append("> \"").append(Long.toHexString(random.nextLong())).append("\" .\n");
+        }
+        return content.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void compress(byte[] content, OutputStream out) throws Exception {
+        // smallest block size -> many blocks
+        try (OutputStream bz2 = new BZip2CompressorOutputStream(out, 1)) {
+            bz2.write(content);
+        }
+    }
+
+
+    @Test
+    public void sameResultAsSequentialDecompression() throws Exception {
+        byte[] content = getContent(40000, 42);
+        File file = folder.newFile("content.ttl.bz2");
+        compress(content, new FileOutputStream(file));
+
+        try (InputStream in = new ParallelBzip2InputStream(file, 4)) {
+            assertArrayEquals(content, IOUtils.toByteArray(in));
+        }
+    }
+
+
+    @Test
+    public void concatenatedStreams() throws Exception {
+        byte[] first = getContent(20000, 1);
+        byte[] second = getContent(5, 2);
+        File file = folder.newFile("concatenated.ttl.bz2");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            compress(first, new NonClosingOutputStream(out));
+            compress(second, new NonClosingOutputStream(out));
+        }
+
+        byte[] expected = new byte[first.length + second.length];
+        System.arraycopy(first, 0, expected, 0, first.length);
+        System.arraycopy(second, 0, expected, first.length, second.length);
+        try (InputStream in = new ParallelBzip2InputStream(file, 3)) {
+            assertArrayEquals(expected, IOUtils.toByteArray(in));
+        }
+        // small files are decompressed sequentially
+        try (InputStream in = ParallelBzip2InputStream.open(file)) {
+            assertArrayEquals(expected, IOUtils.toByteArray(in));
+        }
+    }
+
+    private static class NonClosingOutputStream extends FilterOutputStream {
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+}
@@ -0,0 +1,74 @@
+package utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for class {@link utils.SpillingStringSet SpillingStringSet}.
+ */
+public class SpillingStringSetTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+
+    @Test
+    public void keepsSmallSetsInMemory() throws Exception {
+        File spillDirectory = folder.newFolder("tmp");
+        try (SpillingStringSet set = new SpillingStringSet(1 << 20, spillDirectory)) {
+            set.add("<http://dbpedia.org/resource/B>");
+            set.add("<http://dbpedia.org/resource/A>");
+            set.add("<http://dbpedia.org/resource/B>");
+
+            assertFalse(set.isSpilled());
+            assertEquals(2, set.size());
+
+            HashSet<String> result = new HashSet<>();
+            set.forEach(result::add);
+            assertTrue(result.contains("<http://dbpedia.org/resource/A>"));
+            assertTrue(result.contains("<http://dbpedia.org/resource/B>"));
+        }
+        assertEquals(0, spillDirectory.list().length);
+    }
+
+
+    @Test
+    public void mergesSpilledRunsSortedAndDistinct() throws Exception {
+        File spillDirectory = folder.newFolder("tmp");
+        TreeSet<String> expected = new TreeSet<>();
+
+        // a budget of about ten entries, so that many runs (and a compaction of the runs) are needed
+        try (SpillingStringSet set = new SpillingStringSet(1000, spillDirectory)) {
+            for (int i = 0; i < 5000; i++) {
+                String entry = "<http://dbpedia.org/resource/Entity_" + (i * 7919 % 1000) + ">";
+                set.add(entry);
+                expected.add(entry);
+            }
+
+            assertTrue(set.isSpilled());
+            assertTrue(spillDirectory.list().length > 0);
+            assertEquals(expected.size(), set.size());
+
+            ArrayList<String> result = new ArrayList<>();
+            ArrayList<Integer> chunkSizes = new ArrayList<>();
+            set.forEachChunk(300, chunk -> {
+                chunkSizes.add(chunk.size());
+                result.addAll(chunk);
+            });
+            assertEquals(new ArrayList<>(expected), result);
+            assertEquals(4, chunkSizes.size());
+            assertEquals(300, (int) chunkSizes.get(0));
+            assertEquals(100, (int) chunkSizes.get(3));
+        }
+        assertEquals(0, spillDirectory.list().length);
+    }
+
+}
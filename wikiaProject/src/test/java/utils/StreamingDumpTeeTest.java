@@ -0,0 +1,109 @@
+package utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for class {@link utils.StreamingDumpTee StreamingDumpTee}.
+ */
+public class StreamingDumpTeeTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+
+    @Test
+    public void save() throws Exception {
+        StringBuilder dump = new StringBuilder();
+        dump.append("<mediawiki xmlns=\"http://www.mediawiki.org/xml/export-0.6/\" version=\"0.6\" xml:lang=\"de\">\n")
+                .append("  <siteinfo>\n")
+                .append("    <sitename>Babylon 5 Wiki</sitename>\n")
+                .append("  </siteinfo>\n");
+        for (int i = 0; i < 20000; i++) {
+            dump.append("  <page><title>Page ").append(i).append("</title></page>\n");
+        }
+        dump.append("</mediawiki>\n");
+        byte[] content = dump.toString().getBytes(StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(content);
+        }
+        byte[] archiveContent = compressed.toByteArray();
+
+        File archiveFile = new File(folder.newFolder("gz"), "babylon5_pages_current.xml.gz");
+        File decompressedDirectory = folder.newFolder("decompressed");
+
+        assertEquals(archiveContent.length, StreamingDumpTee.save(new ByteArrayInputStream(archiveContent), archiveFile, decompressedDirectory));
+
+        // the archive is the downloaded file, the dump its decompressed content
+        assertArrayEquals(archiveContent, Files.readAllBytes(archiveFile.toPath()));
+        File decompressedFile = new File(decompressedDirectory, "babylon5_pages_current.xml");
+        assertArrayEquals(content, Files.readAllBytes(decompressedFile.toPath()));
+        assertFalse(new File(decompressedFile.getPath() + ".tmp").exists());
+
+        SiteinfoSniffer siteinfo = SiteinfoSniffer.load(decompressedFile);
+        assertNotNull(siteinfo);
+        assertEquals("de", siteinfo.getLanguageCode());
+        assertEquals("Babylon_5_Wiki", siteinfo.getSiteName());
+    }
+
+
+    @Test
+    public void skipDecompressionAfterSave() throws Exception {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write("<mediawiki></mediawiki>\n".getBytes(StandardCharsets.UTF_8));
+        }
+        File downloadedDirectory = folder.newFolder("downloadedWikis");
+        File gzDirectory = new File(downloadedDirectory, "downloaded/gz");
+        assertTrue(gzDirectory.mkdirs());
+        File archiveFile = new File(gzDirectory, "babylon5_pages_current.xml.gz");
+        File decompressedDirectory = new File(downloadedDirectory, "decompressed");
+        assertTrue(decompressedDirectory.mkdir());
+
+        StreamingDumpTee.save(new ByteArrayInputStream(compressed.toByteArray()), archiveFile, decompressedDirectory);
+        File decompressedFile = new File(decompressedDirectory, "babylon5_pages_current.xml");
+        assertEquals(archiveFile.lastModified(), decompressedFile.lastModified());
+
+        // the dump is marked so that a second decompression would be noticed
+        long lastModified = decompressedFile.lastModified();
+        Files.write(decompressedFile.toPath(), "marked\n".getBytes(StandardCharsets.UTF_8));
+        assertTrue(decompressedFile.setLastModified(lastModified));
+
+        ExtractionGZip extractionGZip = new ExtractionGZip(downloadedDirectory.getPath());
+        extractionGZip.extractAllGZipFilesIntoDesignatedFolder();
+        assertEquals("marked\n", new String(Files.readAllBytes(decompressedFile.toPath()), StandardCharsets.UTF_8));
+
+        // an archive that was downloaded again is decompressed again
+        assertTrue(archiveFile.setLastModified(lastModified + 10000));
+        extractionGZip.extractAllGZipFilesIntoDesignatedFolder();
+        assertEquals("<mediawiki></mediawiki>\n", new String(Files.readAllBytes(decompressedFile.toPath()), StandardCharsets.UTF_8));
+    }
+
+
+    @Test
+    public void corruptDownload() throws Exception {
+        File archiveFile = new File(folder.getRoot(), "broken_pages_current.xml.gz");
+        try {
+            StreamingDumpTee.save(new ByteArrayInputStream("not gzip".getBytes(StandardCharsets.US_ASCII)), archiveFile, folder.getRoot());
+            fail();
+        } catch (IOException expected) {
+            // no decompressed dump is left behind
+            assertFalse(new File(folder.getRoot(), "broken_pages_current.xml").exists());
+            assertFalse(new File(folder.getRoot(), "broken_pages_current.xml.tmp").exists());
+        }
+    }
+
+}
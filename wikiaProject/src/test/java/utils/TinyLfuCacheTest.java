@@ -0,0 +1,65 @@
+package utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for class {@link utils.TinyLfuCache TinyLfuCache}.
+ */
+public class TinyLfuCacheTest {
+
+    @Test
+    public void getAndPut() throws Exception {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(100);
+        assertNull(cache.get("<http://dbpedia.org/resource/London>"));
+        cache.put("<http://dbpedia.org/resource/London>", "<http://dbpedia.org/resource/London>");
+        assertEquals("<http://dbpedia.org/resource/London>", cache.get("<http://dbpedia.org/resource/London>"));
+
+        assertEquals("<null>", cache.get("<http://dbpedia.org/resource/Hogwarts>", key -> "<null>"));
+        assertEquals("<null>", cache.get("<http://dbpedia.org/resource/Hogwarts>", key -> {
+            throw new AssertionError("value should be cached");
+        }));
+
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+
+    @Test
+    public void isBounded() throws Exception {
+        TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>(1000);
+        for (int i = 0; i < 100000; i++) {
+            cache.get(i, key -> key);
+        }
+        assertTrue(cache.size() <= 1000);
+        assertTrue(cache.size() > 900);
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+
+    @Test
+    public void keepsFrequentKeysDuringScans() throws Exception {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(1000);
+
+        // keys that occur in many wikis...
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 500; i++) {
+                cache.get("frequent_" + i, key -> key);
+            }
+        }
+        // ...followed by many keys that occur only once
+        for (int i = 0; i < 100000; i++) {
+            cache.get("rare_" + i, key -> key);
+        }
+
+        long hitsBefore = cache.getHitCount();
+        for (int i = 0; i < 500; i++) {
+            cache.get("frequent_" + i, key -> key);
+        }
+        assertTrue("hits: " + (cache.getHitCount() - hitsBefore), cache.getHitCount() - hitsBefore >= 450);
+    }
+
+}
@@ -0,0 +1,143 @@
+package utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for class {@link utils.WikiDirectoryLayout WikiDirectoryLayout}.
+ */
+public class WikiDirectoryLayoutTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+
+    @Test
+    public void createAndEnumerateWikis() throws Exception {
+        File root = new File(folder.getRoot(), "postProcessedWikis");
+        WikiDirectoryLayout layout = WikiDirectoryLayout.open(root);
+
+        File gameOfThrones = layout.createWikiDirectory("gameofthrones");
+        layout.createWikiDirectory("harrypotter");
+        layout.createWikiDirectory("gameofthrones");
+
+        assertTrue(gameOfThrones.isDirectory());
+        assertEquals(layout.getWikiDirectory("gameofthrones"), gameOfThrones);
+        String shard = WikiDirectoryLayout.getShard("gameofthrones");
+        assertEquals(new File(root, shard.substring(0, 2) + "/" + shard.substring(2) + "/gameofthrones"), gameOfThrones);
+
+        assertEquals(Arrays.asList("gameofthrones", "harrypotter"), getWikiNames(layout));
+        assertEquals(2, layout.getNumberOfWikis());
+    }
+
+
+    @Test
+    public void migrateFlatLayout() throws Exception {
+        File root = folder.newFolder("postProcessedWikis");
+        // "ab" is a wiki that is named like a shard
+        for (String wikiName : new String[]{"gameofthrones", "harrypotter", "ab"}) {
+            File wikiDirectory = new File(root, wikiName);
+            assertTrue(wikiDirectory.mkdir());
+            Files.write(new File(wikiDirectory, "labels.ttl").toPath(), Arrays.asList(wikiName), StandardCharsets.UTF_8);
+        }
+
+        WikiDirectoryLayout layout = WikiDirectoryLayout.open(root);
+        assertEquals(new HashSet<>(Arrays.asList("gameofthrones", "harrypotter", "ab")), new HashSet<>(getWikiNames(layout)));
+        for (String wikiName : getWikiNames(layout)) {
+            File labels = new File(layout.getWikiDirectory(wikiName), "labels.ttl");
+            assertEquals(Arrays.asList(wikiName), Files.readAllLines(labels.toPath(), StandardCharsets.UTF_8));
+        }
+        assertFalse(new File(root, "gameofthrones").exists());
+
+        // wikis of the flat layout that were added later are migrated when the layout is opened again
+        assertTrue(new File(root, "starwars").mkdir());
+        layout = WikiDirectoryLayout.open(root);
+        assertEquals(4, layout.getNumberOfWikis());
+        assertTrue(layout.getWikiDirectory("starwars").isDirectory());
+
+        // the catalog is rebuilt from the shards if it is lost
+        assertTrue(new File(root, WikiDirectoryLayout.CATALOG_FILE_NAME).delete());
+        layout = WikiDirectoryLayout.open(root);
+        assertEquals(new HashSet<>(Arrays.asList("gameofthrones", "harrypotter", "ab", "starwars")), new HashSet<>(getWikiNames(layout)));
+    }
+
+    @Test
+    public void openReadOnly() throws Exception {
+        File root = folder.newFolder("postProcessedWikis");
+        WikiDirectoryLayout.open(root).createWikiDirectory("gameofthrones");
+        for (String wikiName : new String[]{"harrypotter", "ab"}) {
+            File wikiDirectory = new File(root, wikiName);
+            assertTrue(wikiDirectory.mkdir());
+            Files.write(new File(wikiDirectory, "labels.ttl").toPath(), Arrays.asList(wikiName), StandardCharsets.UTF_8);
+        }
+
+        // the wikis of both layouts are enumerated and nothing is moved
+        WikiDirectoryLayout layout = WikiDirectoryLayout.openReadOnly(root);
+        assertEquals(Arrays.asList("gameofthrones", "harrypotter"), getWikiNames(layout));
+        assertTrue(new File(root, "harrypotter").isDirectory());
+        assertFalse(layout.getWikiDirectory("harrypotter").exists());
+
+        // without a catalog, the shards are walked and a flat wiki named like a shard is found as well
+        assertTrue(new File(root, WikiDirectoryLayout.CATALOG_FILE_NAME).delete());
+        layout = WikiDirectoryLayout.openReadOnly(root);
+        assertEquals(new HashSet<>(Arrays.asList("gameofthrones", "harrypotter", "ab")), new HashSet<>(getWikiNames(layout)));
+        assertEquals(3, layout.getNumberOfWikis());
+        assertFalse(new File(root, WikiDirectoryLayout.CATALOG_FILE_NAME).exists());
+    }
+
+    @Test
+    public void mergeFlatDirectoryIntoShard() throws Exception {
+        File root = folder.newFolder("postProcessedWikis");
+        File wikiDirectory = WikiDirectoryLayout.open(root).createWikiDirectory("gameofthrones");
+        Files.write(new File(wikiDirectory, "labels.ttl").toPath(), Arrays.asList("sharded"), StandardCharsets.UTF_8);
+
+        // a gold standard is placed into a new flat directory of the wiki
+        File flatDirectory = new File(root, "gameofthrones");
+        assertTrue(flatDirectory.mkdir());
+        Files.write(new File(flatDirectory, "gameofthrones-evaluation.ttl").toPath(), Arrays.asList("gold"), StandardCharsets.UTF_8);
+        Files.write(new File(flatDirectory, "labels.ttl").toPath(), Arrays.asList("flat"), StandardCharsets.UTF_8);
+
+        // a read-only layout lists the files that are not merged yet with the files of the shard
+        WikiDirectoryLayout layout = WikiDirectoryLayout.openReadOnly(root);
+        assertEquals(Arrays.asList("gameofthrones"), getWikiNames(layout));
+        assertEquals(new HashSet<>(Arrays.asList(new File(wikiDirectory, "labels.ttl"), new File(flatDirectory, "gameofthrones-evaluation.ttl"))),
+                new HashSet<>(WikiDirectoryLayout.listWikiFiles(wikiDirectory)));
+        assertTrue(flatDirectory.isDirectory());
+
+        // opening the layout moves the files into the shard and keeps the files that exist in both
+        layout = WikiDirectoryLayout.open(root);
+        assertEquals(Arrays.asList("gameofthrones"), getWikiNames(layout));
+        assertEquals(Arrays.asList("gold"), Files.readAllLines(new File(wikiDirectory, "gameofthrones-evaluation.ttl").toPath(), StandardCharsets.UTF_8));
+        assertEquals(Arrays.asList("sharded"), Files.readAllLines(new File(wikiDirectory, "labels.ttl").toPath(), StandardCharsets.UTF_8));
+        assertEquals(Arrays.asList("flat"), Files.readAllLines(new File(flatDirectory, "labels.ttl").toPath(), StandardCharsets.UTF_8));
+        assertFalse(new File(flatDirectory, "gameofthrones-evaluation.ttl").exists());
+
+        // the flat directory is deleted once it is empty
+        assertTrue(new File(flatDirectory, "labels.ttl").delete());
+        assertTrue(new File(flatDirectory, "notes").mkdir());
+        Files.write(new File(flatDirectory, "notes/readme.txt").toPath(), Arrays.asList("notes"), StandardCharsets.UTF_8);
+        WikiDirectoryLayout.open(root);
+        assertFalse(flatDirectory.exists());
+        assertTrue(new File(wikiDirectory, "notes/readme.txt").isFile());
+        assertEquals(3, WikiDirectoryLayout.listWikiFiles(wikiDirectory).size());
+    }
+
+    private static List<String> getWikiNames(WikiDirectoryLayout layout) throws Exception {
+        try (Stream<File> wikiDirectories = layout.getWikiDirectories()) {
+            return wikiDirectories.map(File::getName).collect(Collectors.toList());
+        }
+    }
+
+}